@@ -0,0 +1,128 @@
+package fr.ippon.tatami.config;
+
+import fr.ippon.tatami.domain.Status;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.config.CacheConfiguration;
+import org.springframework.cache.Cache;
+import org.springframework.cache.ehcache.EhCacheCache;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Calendar;
+import java.util.Random;
+
+/**
+ * Compares the garbage collections of the status cache in the Java heap (CompactStatusCache, the default) and
+ * off-heap (OffHeapStatusCache, with "cache.status.offheap.size").
+ * <p/>
+ * The cache is filled, and then read by timeline-like requests : most reads are on the recent statuses, and the
+ * misses put a new status. The collections and the time spent in each collector are printed at the end : run
+ * each cache in its own JVM, with the heap settings of production and -verbose:gc for the pauses.
+ * <p/>
+ * Run with : mvn -Pbenchmark test-compile exec:exec -Dexec.executable=java
+ * -Dexec.args="-Xmx512m -verbose:gc -cp %classpath fr.ippon.tatami.config.StatusCacheGcBenchmark heap 100000 60"
+ * (replace "heap" by "offheap" for the off-heap cache).
+ */
+public class StatusCacheGcBenchmark {
+
+    /**
+     * Average size of a status in the off-heap cache : 2 blocks.
+     */
+    private static final int OFF_HEAP_STATUS_SIZE = 2 * OffHeapStatusCache.BLOCK_SIZE;
+
+    public static void main(String[] args) throws Exception {
+        String type = args.length > 0 ? args[0] : "heap";
+        int statusCount = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+
+        StringDictionary dictionary = new StringDictionary();
+        CacheManager cacheManager = null;
+        Cache cache;
+        if (type.equals("offheap")) {
+            cache = new OffHeapStatusCache("status-benchmark-cache", statusCount * OFF_HEAP_STATUS_SIZE, dictionary);
+        } else {
+            cacheManager = CacheManager.create();
+            net.sf.ehcache.Cache ehcache = new net.sf.ehcache.Cache(
+                    new CacheConfiguration("status-benchmark-cache", statusCount)
+                            .eternal(true)
+                            .overflowToDisk(false));
+
+            cacheManager.addCache(ehcache);
+            cache = new CompactStatusCache(new EhCacheCache(ehcache), dictionary);
+        }
+
+        for (int i = 0; i < statusCount; i++) {
+            cache.put(Integer.toString(i), createStatus(i));
+        }
+        System.gc();
+        long collections = getCollections();
+        long collectionTime = getCollectionTime();
+
+        Random random = new Random(42);
+        long reads = 0;
+        long misses = 0;
+        int nextStatus = statusCount;
+        long end = System.currentTimeMillis() + seconds * 1000L;
+        while (System.currentTimeMillis() < end) {
+            for (int i = 0; i < 1000; i++) {
+                // 90% of the reads are on the last 10% of the statuses
+                int bound = random.nextInt(10) == 0 ? statusCount : statusCount / 10;
+                String key = Integer.toString(nextStatus - 1 - random.nextInt(bound));
+                Cache.ValueWrapper wrapper = cache.get(key);
+                if (wrapper == null) {
+                    misses++;
+                    cache.put(key, createStatus(nextStatus - 1));
+                }
+                reads++;
+                if (random.nextInt(100) == 0) { // a new status
+                    cache.put(Integer.toString(nextStatus), createStatus(nextStatus));
+                    nextStatus++;
+                }
+            }
+        }
+
+        System.out.println("Status cache : " + type + ", " + statusCount + " statuses, " + seconds + " s");
+        System.out.println("Reads : " + reads + ", misses : " + misses);
+        System.out.println("Collections : " + (getCollections() - collections) + ", collection time : " +
+                (getCollectionTime() - collectionTime) + " ms");
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            System.out.println("  " + collector.getName() + " : " + collector.getCollectionCount() + " collections, " +
+                    collector.getCollectionTime() + " ms");
+        }
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        System.out.println("Heap used after a full collection : " +
+                (runtime.totalMemory() - runtime.freeMemory()) / 1024 / 1024 + " MB");
+        if (cacheManager != null) {
+            cacheManager.shutdown();
+        }
+    }
+
+    private static Status createStatus(int i) {
+        Status status = new Status();
+        status.setStatusId(Integer.toString(i));
+        status.setLogin("user" + (i % 1000) + "@ippon.fr");
+        status.setUsername("user" + (i % 1000));
+        status.setDomain("ippon.fr");
+        status.setContent("Status " + i + " : Tatami is a Twitter-like application, for internal corporate usage");
+        status.setStatusDate(Calendar.getInstance().getTime());
+        status.setRemoved(false);
+        return status;
+    }
+
+    private static long getCollections() {
+        long collections = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += collector.getCollectionCount();
+        }
+        return collections;
+    }
+
+    private static long getCollectionTime() {
+        long collectionTime = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collectionTime += collector.getCollectionTime();
+        }
+        return collectionTime;
+    }
+}
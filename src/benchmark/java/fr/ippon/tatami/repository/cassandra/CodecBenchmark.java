@@ -0,0 +1,140 @@
+package fr.ippon.tatami.repository.cassandra;
+
+import fr.ippon.tatami.domain.Status;
+import fr.ippon.tatami.domain.User;
+import me.prettyprint.cassandra.model.HColumnImpl;
+import me.prettyprint.cassandra.model.MutatorImpl;
+import me.prettyprint.cassandra.serializers.ByteBufferSerializer;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.cassandra.utils.TimeUUIDUtils;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.mutation.Mutator;
+import me.prettyprint.hom.ClassCacheMgr;
+import me.prettyprint.hom.HectorObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.STATUS_CF;
+import static fr.ippon.tatami.config.ColumnFamilyKeys.USER_CF;
+
+/**
+ * Compares the cost of the Status and User codecs with the Hector Object Mapper.
+ * <p/>
+ * Run with : mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=fr.ippon.tatami.repository.cassandra.CodecBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CodecBenchmark {
+
+    private final StatusCodec statusCodec = new StatusCodec();
+
+    private final UserCodec userCodec = new UserCodec();
+
+    private HectorObjectMapper objectMapper;
+
+    private Status status;
+
+    private User user;
+
+    private List<HColumn<String, ByteBuffer>> statusColumns;
+
+    private List<HColumn<String, ByteBuffer>> userColumns;
+
+    @Setup
+    public void setup() {
+        ClassCacheMgr cacheMgr = new ClassCacheMgr();
+        cacheMgr.initializeCacheForClass(Status.class);
+        cacheMgr.initializeCacheForClass(User.class);
+        objectMapper = new HectorObjectMapper(cacheMgr);
+
+        status = new Status();
+        status.setStatusId(TimeUUIDUtils.getUniqueTimeUUIDinMillis().toString());
+        status.setLogin("jdubois@ippon.fr");
+        status.setUsername("jdubois");
+        status.setDomain("ippon.fr");
+        status.setContent("Tatami is a Twitter-like application, for internal corporate usage #tatami");
+        status.setStatusDate(Calendar.getInstance().getTime());
+        status.setRemoved(false);
+
+        user = new User();
+        user.setLogin("jdubois@ippon.fr");
+        user.setUsername("jdubois");
+        user.setDomain("ippon.fr");
+        user.setFirstName("Julien");
+        user.setLastName("Dubois");
+        user.setGravatar("9a6bb28bbbd51aa9bdc0bc9de4dcb4a0");
+        user.setJobTitle("CTO");
+        user.setTheme("bootstrap");
+
+        statusColumns = toColumns(status);
+        userColumns = toColumns(user);
+    }
+
+    @Benchmark
+    public Mutator<String> encodeStatusWithCodec() {
+        Mutator<String> mutator = new MutatorImpl<String>(null, StringSerializer.get());
+        statusCodec.encode(mutator, STATUS_CF, status);
+        return mutator;
+    }
+
+    @Benchmark
+    public Map<String, HColumn<String, byte[]>> encodeStatusWithObjectMapper() {
+        return objectMapper.createColumnMap(status);
+    }
+
+    @Benchmark
+    public Status decodeStatusWithCodec() {
+        return statusCodec.decode(status.getStatusId(), statusColumns);
+    }
+
+    @Benchmark
+    public Mutator<String> encodeUserWithCodec() {
+        Mutator<String> mutator = new MutatorImpl<String>(null, StringSerializer.get());
+        userCodec.encode(mutator, USER_CF, user);
+        return mutator;
+    }
+
+    @Benchmark
+    public Map<String, HColumn<String, byte[]>> encodeUserWithObjectMapper() {
+        return objectMapper.createColumnMap(user);
+    }
+
+    @Benchmark
+    public User decodeUserWithCodec() {
+        return userCodec.decode(user.getLogin(), userColumns);
+    }
+
+    /**
+     * The columns of a row written by the Object Mapper, as they are returned by a slice query.
+     */
+    private List<HColumn<String, ByteBuffer>> toColumns(Object object) {
+
+        Map<String, HColumn<String, byte[]>> columnMap = objectMapper.createColumnMap(object);
+        List<HColumn<String, ByteBuffer>> columns = new ArrayList<HColumn<String, ByteBuffer>>();
+        for (Map.Entry<String, HColumn<String, byte[]>> column : columnMap.entrySet()) {
+            columns.add(new HColumnImpl<String, ByteBuffer>(column.getKey(), ByteBuffer.wrap(column.getValue().getValue()),
+                    System.currentTimeMillis(), StringSerializer.get(), ByteBufferSerializer.get()));
+        }
+        return columns;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CodecBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
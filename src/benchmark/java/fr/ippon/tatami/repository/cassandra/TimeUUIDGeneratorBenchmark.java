@@ -0,0 +1,45 @@
+package fr.ippon.tatami.repository.cassandra;
+
+import me.prettyprint.cassandra.utils.TimeUUIDUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the TimeUUID generator with Hector's TimeUUIDUtils, with 1 to 64 threads.
+ * <p/>
+ * Run with : mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=fr.ippon.tatami.repository.cassandra.TimeUUIDGeneratorBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TimeUUIDGeneratorBenchmark {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    @Benchmark
+    public UUID timeUUIDGenerator() {
+        return TimeUUIDGenerator.getUniqueTimeUUID();
+    }
+
+    @Benchmark
+    public UUID timeUUIDUtils() {
+        return TimeUUIDUtils.getUniqueTimeUUIDinMillis();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREADS) {
+            new Runner(new OptionsBuilder()
+                    .include(TimeUUIDGeneratorBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build())
+                    .run();
+        }
+    }
+}
@@ -20,6 +20,7 @@ import java.io.IOException;
         AsyncConfiguration.class,
         CacheConfiguration.class,
         CassandraConfiguration.class,
+        LocalStorageConfiguration.class,
         SearchConfiguration.class})
 @ImportResource({"classpath:META-INF/spring/applicationContext-security.xml"})
 public class ApplicationConfiguration {
@@ -9,6 +9,7 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.env.Environment;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
@@ -16,6 +17,7 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import javax.inject.Inject;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -27,6 +29,9 @@ public class AsyncConfiguration implements AsyncConfigurer {
     @Inject
     private boolean elasticsearchActivated;
 
+    @Inject
+    private Environment env;
+
     @Bean
     public SearchService searchService() {
         SearchService searchService = null;
@@ -61,4 +66,22 @@ public class AsyncConfiguration implements AsyncConfigurer {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Executor of the asynchronous Cassandra reads : its size limits the number of concurrent reads,
+     * independently of the number of HTTP threads.
+     * <p/>
+     * When it is full, the read is done by the calling thread.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor cassandraReadExecutor() {
+        int threads = env.getProperty("cassandra.read.threads", Integer.class, 20);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(1000);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("CassandraReadExecutor-");
+        return executor;
+    }
 }
@@ -0,0 +1,61 @@
+package fr.ippon.tatami.config;
+
+import org.springframework.cache.Cache;
+
+/**
+ * Cache decorator which publishes its evictions on the CacheInvalidationBus, so they are also done on the
+ * other Tatami nodes.
+ *
+ * @author Julien Dubois
+ */
+public class BroadcastingCache implements Cache {
+
+    private final Cache cache;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    public BroadcastingCache(Cache cache, CacheInvalidationBus cacheInvalidationBus) {
+        this.cache = cache;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        cacheInvalidationBus.registerCache(cache);
+    }
+
+    /**
+     * The decorated cache, on which the remote evictions are applied.
+     */
+    public Cache getCache() {
+        return cache;
+    }
+
+    @Override
+    public String getName() {
+        return cache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return cache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return cache.get(key);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        cache.put(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        cache.evict(key);
+        cacheInvalidationBus.publishEviction(cache.getName(), key);
+    }
+
+    @Override
+    public void clear() {
+        cache.clear();
+        cacheInvalidationBus.publishClear(cache.getName());
+    }
+}
@@ -1,24 +1,199 @@
 package fr.ippon.tatami.config;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.ehcache.EhCacheCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jmx.export.MBeanExporter;
+import org.springframework.jmx.export.annotation.AnnotationMBeanExporter;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableCaching
 public class CacheConfiguration {
 
+    private final Log log = LogFactory.getLog(CacheConfiguration.class);
+
+    private static final String STATUS_CACHE = "status-cache";
+
+    /**
+     * Caches used with @Cacheable : concurrent misses on the same key are loaded only once.
+     * <p/>
+     * The "user-cache" and the "counter-cache" are read and written directly by the repositories, and do not
+     * wait for the loads of other threads.
+     */
+    private static final List<String> SINGLE_FLIGHT_CACHES = Arrays.asList(STATUS_CACHE, "user-prefix-cache",
+            "group-user-cache", "group-details-cache", "group-counter-cache", "favorites-cache", "dayline-cache",
+            "trends-cache", "user-trends-cache");
+
+    /**
+     * Caches which return stale values while they are reloaded, with their refresh delay in seconds :
+     * their time to live, in ehcache.xml, is the maximum staleness.
+     */
+    private static final Map<String, Integer> STALE_WHILE_REVALIDATE_CACHES = new HashMap<String, Integer>();
+
+    static {
+        STALE_WHILE_REVALIDATE_CACHES.put("dayline-cache", 60);
+        STALE_WHILE_REVALIDATE_CACHES.put("trends-cache", 300);
+        STALE_WHILE_REVALIDATE_CACHES.put("user-trends-cache", 300);
+    }
+
+    /**
+     * Caches whose null results (missing or deleted entities) are stored in a separate cache, with its own size
+     * and a short time to live.
+     */
+    private static final Map<String, String> MISSING_CACHES = new HashMap<String, String>();
+
+    static {
+        MISSING_CACHES.put(STATUS_CACHE, "status-missing-cache");
+        MISSING_CACHES.put("user-cache", "user-missing-cache");
+    }
+
+    /**
+     * Caches whose evictions are sent to the other Tatami nodes, when the cache invalidation bus is enabled.
+     */
+    private static final List<String> BROADCASTING_CACHES = Arrays.asList("user-cache", STATUS_CACHE,
+            "favorites-cache", "group-user-cache", "group-details-cache", "group-counter-cache");
+
+    /**
+     * Maximum time to wait for a value loaded by another thread : a failed load is only detected by this timeout,
+     * so the waiting threads soon load the value themselves.
+     */
+    private static final long LOAD_TIMEOUT_MILLIS = 500;
+
+    @Inject
+    private Environment env;
+
+    /**
+     * Logins, usernames, domains and groups of the cached statuses.
+     */
+    private final StringDictionary statusDictionary = new StringDictionary();
+
     @Bean
     public CacheManager cacheManager() {
-        EhCacheCacheManager cacheManager = new EhCacheCacheManager();
+        EhCacheCacheManager cacheManager = new EhCacheCacheManager() {
+            @Override
+            protected Collection<Cache> loadCaches() {
+                Map<String, Cache> ehcacheCaches = new HashMap<String, Cache>();
+                for (Cache cache : super.loadCaches()) {
+                    ehcacheCaches.put(cache.getName(), cache);
+                }
+                Collection<Cache> caches = new ArrayList<Cache>();
+                for (Cache cache : ehcacheCaches.values()) {
+                    caches.add(decorateCache(cache, ehcacheCaches));
+                }
+                return caches;
+            }
+        };
         cacheManager.setCacheManager(ehCacheManager());
         return cacheManager;
     }
 
+    /**
+     * The cache invalidation bus is enabled with the "cache.invalidation.transport" property :
+     * - "multicast" to send the evictions to the other nodes, with UDP multicast
+     * - "loopback" to send them to the other nodes in the same JVM
+     * - "none" (default) for a single node.
+     * The messages are signed with the "cache.invalidation.secret" property, which must be the same on all the nodes.
+     */
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus() {
+        String transportName = env.getProperty("cache.invalidation.transport", "none").trim();
+        CacheInvalidationTransport transport;
+        if ("multicast".equals(transportName)) {
+            String address = env.getProperty("cache.invalidation.multicast.address", "230.0.0.10");
+            int port = env.getProperty("cache.invalidation.multicast.port", Integer.class, 45566);
+            int timeToLive = env.getProperty("cache.invalidation.multicast.ttl", Integer.class, 1);
+            try {
+                transport = new MulticastCacheInvalidationTransport(InetAddress.getByName(address), port, timeToLive);
+            } catch (UnknownHostException e) {
+                throw new IllegalStateException("Invalid cache invalidation multicast address : " + address, e);
+            }
+        } else if ("loopback".equals(transportName)) {
+            transport = new LoopbackCacheInvalidationTransport();
+        } else {
+            log.info("Cache invalidation bus is disabled");
+            return null;
+        }
+        long flushDelay = env.getProperty("cache.invalidation.flush.delay", Long.class, 100L);
+        String secret = env.getRequiredProperty("cache.invalidation.secret");
+        CacheInvalidationBus cacheInvalidationBus = new CacheInvalidationBus(transport, flushDelay, secret);
+        cacheInvalidationBus.start();
+        return cacheInvalidationBus;
+    }
+
+    @PreDestroy
+    public void stopCacheInvalidationBus() {
+        CacheInvalidationBus cacheInvalidationBus = cacheInvalidationBus();
+        if (cacheInvalidationBus != null) {
+            cacheInvalidationBus.stop();
+        }
+    }
+
     @Bean
     public net.sf.ehcache.CacheManager ehCacheManager() {
         return new net.sf.ehcache.CacheManager();
     }
+
+    /**
+     * Exports the JMX beans of the caches, registered by the CacheManagementService.
+     */
+    @Bean
+    public MBeanExporter mbeanExporter() {
+        AnnotationMBeanExporter mbeanExporter = new AnnotationMBeanExporter();
+        mbeanExporter.setRegistrationBehavior(MBeanExporter.REGISTRATION_REPLACE_EXISTING);
+        return mbeanExporter;
+    }
+
+    private Cache decorateCache(Cache cache, Map<String, Cache> ehcacheCaches) {
+        if (STATUS_CACHE.equals(cache.getName())) {
+            cache = statusCache(cache);
+        }
+        Cache missingCache = ehcacheCaches.get(MISSING_CACHES.get(cache.getName()));
+        if (missingCache != null) {
+            cache = new NegativeResultCache(cache, missingCache);
+        }
+        if (SINGLE_FLIGHT_CACHES.contains(cache.getName())) {
+            long refreshMillis = 0;
+            Integer refreshSeconds = STALE_WHILE_REVALIDATE_CACHES.get(cache.getName());
+            if (refreshSeconds != null) {
+                refreshMillis = refreshSeconds * 1000L;
+            }
+            cache = new SingleFlightCache(cache, refreshMillis, LOAD_TIMEOUT_MILLIS);
+        }
+        CacheInvalidationBus cacheInvalidationBus = cacheInvalidationBus();
+        if (cacheInvalidationBus != null && BROADCASTING_CACHES.contains(cache.getName())) {
+            cache = new BroadcastingCache(cache, cacheInvalidationBus);
+        }
+        return cache;
+    }
+
+    /**
+     * When "cache.status.offheap.size" is set, the statuses are cached outside of the Java heap, in a cache
+     * bounded by this size in bytes. Otherwise, the "status-cache" from ehcache.xml is used, with compact records.
+     */
+    private Cache statusCache(Cache ehcacheStatusCache) {
+        int offHeapSize = env.getProperty("cache.status.offheap.size", Integer.class, 0);
+        if (offHeapSize <= 0) {
+            log.info("Status cache : compact statuses in the Java heap");
+            return new CompactStatusCache(ehcacheStatusCache, statusDictionary);
+        }
+        log.info("Status cache : " + offHeapSize + " bytes off-heap");
+        return new OffHeapStatusCache(STATUS_CACHE, offHeapSize, statusDictionary);
+    }
 }
@@ -0,0 +1,309 @@
+package fr.ippon.tatami.config;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cache.Cache;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the cache evictions of this node to the other Tatami nodes, and applies their evictions to the local caches.
+ * <p/>
+ * The evictions are batched : they are sent every "flushDelay" milliseconds, and coalesced in the meantime (the
+ * same key is sent once, and clearing a cache replaces all its pending keys).
+ * <p/>
+ * Only String keys are sent. Each message is signed with a HmacSHA256 of the secret shared by the nodes : the
+ * messages which are not signed with this secret are ignored, so another host cannot evict or clear the caches.
+ *
+ * @author Julien Dubois
+ */
+public class CacheInvalidationBus implements CacheInvalidationTransport.Receiver {
+
+    private final Log log = LogFactory.getLog(CacheInvalidationBus.class);
+
+    static final int MAX_INVALIDATIONS_PER_MESSAGE = 200;
+
+    private static final byte CLEAR = 0;
+
+    private static final byte STRING_KEY = 1;
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final int MAC_LENGTH = 32;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final CacheInvalidationTransport transport;
+
+    private final long flushDelay;
+
+    private final SecretKeySpec secretKey;
+
+    private final Map<String, Cache> caches = new ConcurrentHashMap<String, Cache>();
+
+    private Map<String, Set<Object>> pendingKeys = new HashMap<String, Set<Object>>();
+
+    private Set<String> pendingClears = new HashSet<String>();
+
+    private ScheduledExecutorService flushExecutor;
+
+    private final AtomicLong sentMessages = new AtomicLong();
+
+    private final AtomicLong sentInvalidations = new AtomicLong();
+
+    private final AtomicLong coalescedInvalidations = new AtomicLong();
+
+    private final AtomicLong receivedInvalidations = new AtomicLong();
+
+    private final AtomicLong rejectedMessages = new AtomicLong();
+
+    public CacheInvalidationBus(CacheInvalidationTransport transport, long flushDelay, String secret) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("The cache invalidation secret is required");
+        }
+        this.transport = transport;
+        this.flushDelay = flushDelay;
+        try {
+            this.secretKey = new SecretKeySpec(secret.getBytes("UTF-8"), MAC_ALGORITHM);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void start() {
+        transport.start(this);
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "cache-invalidation-flush");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        flushExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flush();
+                } catch (Exception e) {
+                    log.warn("Could not send the cache invalidations : " + e.getMessage());
+                }
+            }
+        }, flushDelay, flushDelay, TimeUnit.MILLISECONDS);
+        log.info("Cache invalidation bus started, node " + nodeId);
+    }
+
+    public void stop() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+        }
+        flush();
+        transport.stop();
+    }
+
+    /**
+     * The remote invalidations are applied to this cache.
+     */
+    public void registerCache(Cache cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    public synchronized void publishEviction(String cacheName, Object key) {
+        if (!(key instanceof String)) {
+            throw new IllegalArgumentException("Only String keys can be sent to the other nodes, cache " + cacheName +
+                    " : " + key);
+        }
+        if (pendingClears.contains(cacheName)) {
+            coalescedInvalidations.incrementAndGet();
+            return;
+        }
+        Set<Object> keys = pendingKeys.get(cacheName);
+        if (keys == null) {
+            keys = new HashSet<Object>();
+            pendingKeys.put(cacheName, keys);
+        }
+        if (!keys.add(key)) {
+            coalescedInvalidations.incrementAndGet();
+        }
+    }
+
+    public synchronized void publishClear(String cacheName) {
+        Set<Object> keys = pendingKeys.remove(cacheName);
+        if (keys != null) {
+            coalescedInvalidations.addAndGet(keys.size());
+        }
+        if (!pendingClears.add(cacheName)) {
+            coalescedInvalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Sends the pending invalidations.
+     */
+    public void flush() {
+        Map<String, Set<Object>> keys;
+        Set<String> clears;
+        synchronized (this) {
+            if (pendingKeys.isEmpty() && pendingClears.isEmpty()) {
+                return;
+            }
+            keys = pendingKeys;
+            clears = pendingClears;
+            pendingKeys = new HashMap<String, Set<Object>>();
+            pendingClears = new HashSet<String>();
+        }
+        List<Invalidation> invalidations = new ArrayList<Invalidation>();
+        for (String cacheName : clears) {
+            invalidations.add(new Invalidation(cacheName, null, true));
+        }
+        for (Map.Entry<String, Set<Object>> entry : keys.entrySet()) {
+            for (Object key : entry.getValue()) {
+                invalidations.add(new Invalidation(entry.getKey(), key, false));
+            }
+        }
+        for (int i = 0; i < invalidations.size(); i += MAX_INVALIDATIONS_PER_MESSAGE) {
+            List<Invalidation> batch =
+                    invalidations.subList(i, Math.min(i + MAX_INVALIDATIONS_PER_MESSAGE, invalidations.size()));
+
+            transport.send(encode(batch));
+            sentMessages.incrementAndGet();
+            sentInvalidations.addAndGet(batch.size());
+        }
+    }
+
+    @Override
+    public void receive(byte[] message) {
+        try {
+            if (!isSigned(message)) {
+                rejectedMessages.incrementAndGet();
+                log.warn("Ignored a cache invalidation message which is not signed with the shared secret");
+                return;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(message, 0,
+                    message.length - MAC_LENGTH));
+            if (nodeId.equals(in.readUTF())) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String cacheName = in.readUTF();
+                byte type = in.readByte();
+                String key = null;
+                if (type == STRING_KEY) {
+                    key = in.readUTF();
+                } else if (type != CLEAR) {
+                    throw new IOException("Unknown invalidation type " + type);
+                }
+                Cache cache = caches.get(cacheName);
+                if (cache == null) {
+                    continue;
+                }
+                if (type == CLEAR) {
+                    cache.clear();
+                } else {
+                    cache.evict(key);
+                }
+                receivedInvalidations.incrementAndGet();
+            }
+        } catch (Exception e) {
+            log.warn("Could not read a cache invalidation message : " + e.getMessage());
+        }
+    }
+
+    public long getSentMessages() {
+        return sentMessages.get();
+    }
+
+    public long getSentInvalidations() {
+        return sentInvalidations.get();
+    }
+
+    public long getCoalescedInvalidations() {
+        return coalescedInvalidations.get();
+    }
+
+    public long getReceivedInvalidations() {
+        return receivedInvalidations.get();
+    }
+
+    public long getRejectedMessages() {
+        return rejectedMessages.get();
+    }
+
+    private byte[] encode(List<Invalidation> invalidations) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(nodeId);
+            out.writeInt(invalidations.size());
+            for (Invalidation invalidation : invalidations) {
+                out.writeUTF(invalidation.cacheName);
+                if (invalidation.clear) {
+                    out.writeByte(CLEAR);
+                } else if (invalidation.key instanceof String) {
+                    out.writeByte(STRING_KEY);
+                    out.writeUTF((String) invalidation.key);
+                } else {
+                    throw new IllegalArgumentException("Only String keys can be sent to the other nodes, cache " +
+                            invalidation.cacheName + " : " + invalidation.key);
+                }
+            }
+            out.write(sign(bytes.toByteArray(), bytes.size()));
+            out.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode the cache invalidations", e);
+        }
+    }
+
+    private boolean isSigned(byte[] message) {
+        if (message.length < MAC_LENGTH) {
+            return false;
+        }
+        int length = message.length - MAC_LENGTH;
+        byte[] signature = new byte[MAC_LENGTH];
+        System.arraycopy(message, length, signature, 0, MAC_LENGTH);
+        return MessageDigest.isEqual(signature, sign(message, length));
+    }
+
+    /**
+     * HmacSHA256 of the first "length" bytes of the message.
+     */
+    private byte[] sign(byte[] message, int length) {
+        try {
+            // A Mac is not thread-safe, and the messages are batched : a new Mac is used for each message
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(secretKey);
+            mac.update(message, 0, length);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign the cache invalidations", e);
+        }
+    }
+
+    private static class Invalidation {
+
+        private final String cacheName;
+
+        private final Object key;
+
+        private final boolean clear;
+
+        Invalidation(String cacheName, Object key, boolean clear) {
+            this.cacheName = cacheName;
+            this.key = key;
+            this.clear = clear;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package fr.ippon.tatami.config;
+
+/**
+ * Sends the cache invalidation messages to the other Tatami nodes.
+ *
+ * @author Julien Dubois
+ */
+public interface CacheInvalidationTransport {
+
+    /**
+     * Receives the messages sent by the other nodes (and possibly by this node).
+     */
+    interface Receiver {
+
+        void receive(byte[] message);
+    }
+
+    void start(Receiver receiver);
+
+    void send(byte[] message);
+
+    void stop();
+}
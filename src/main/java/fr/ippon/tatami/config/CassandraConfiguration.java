@@ -1,7 +1,9 @@
 package fr.ippon.tatami.config;
 
-import me.prettyprint.cassandra.model.ConfigurableConsistencyLevel;
 import me.prettyprint.cassandra.service.CassandraHostConfigurator;
+import me.prettyprint.cassandra.service.FailoverPolicy;
+import me.prettyprint.cassandra.service.Operation;
+import me.prettyprint.cassandra.service.OperationType;
 import me.prettyprint.cassandra.service.ThriftCfDef;
 import me.prettyprint.cassandra.service.ThriftCluster;
 import me.prettyprint.cassandra.service.ThriftKsDef;
@@ -10,15 +12,23 @@ import me.prettyprint.hector.api.Keyspace;
 import me.prettyprint.hector.api.ddl.ColumnFamilyDefinition;
 import me.prettyprint.hector.api.ddl.ComparatorType;
 import me.prettyprint.hector.api.ddl.KeyspaceDefinition;
+import me.prettyprint.hector.api.exceptions.HectorException;
 import me.prettyprint.hector.api.factory.HFactory;
-import me.prettyprint.hom.EntityManagerImpl;
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.CfDef;
+import org.apache.cassandra.thrift.KsDef;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
 
 import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static fr.ippon.tatami.config.ColumnFamilyKeys.*;
 
@@ -28,6 +38,7 @@ import static fr.ippon.tatami.config.ColumnFamilyKeys.*;
  * @author Julien Dubois
  */
 @Configuration
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraConfiguration {
 
     private final Log log = LogFactory.getLog(CassandraConfiguration.class);
@@ -35,6 +46,66 @@ public class CassandraConfiguration {
     @Inject
     private Environment env;
 
+    /**
+     * Profiles of the column families which do not have the default profile, loaded from tatami.properties.
+     */
+    private Map<String, ColumnFamilyProfile> columnFamilyProfiles;
+
+    private ColumnFamilyProfile defaultProfile;
+
+    /**
+     * Column families used as locks : a request must see the columns written by the other requests, so they are
+     * always read and written at QUORUM, whatever is configured in tatami.properties.
+     */
+    private static final String[] QUORUM_COLUMN_FAMILIES = {IDEMPOTENCY_KEY_CF, USER_DELETION_CF};
+
+    /**
+     * Consistency levels, per operation type and per column family.
+     * <p/>
+     * Reads are done at ONE and writes at QUORUM, unless the column family has its own level in tatami.properties.
+     * The column families used as locks are always read and written at QUORUM.
+     */
+    @Bean
+    public ColumnFamilyConsistencyLevelPolicy consistencyLevelPolicy() {
+        ColumnFamilyConsistencyLevelPolicy consistencyLevelPolicy = new ColumnFamilyConsistencyLevelPolicy();
+        consistencyLevelPolicy.setDefaultReadConsistencyLevel(
+                HConsistencyLevel.valueOf(env.getProperty("cassandra.consistency.read.default", "ONE")));
+
+        consistencyLevelPolicy.setDefaultWriteConsistencyLevel(
+                HConsistencyLevel.valueOf(env.getProperty("cassandra.consistency.write.default", "QUORUM")));
+
+        Map<String, HConsistencyLevel> readCfConsistencyLevels = ColumnFamilyConsistencyLevelPolicy
+                .parseConsistencyLevels(env.getProperty("cassandra.consistency.read.cf"));
+
+        Map<String, HConsistencyLevel> writeCfConsistencyLevels = ColumnFamilyConsistencyLevelPolicy
+                .parseConsistencyLevels(env.getProperty("cassandra.consistency.write.cf"));
+
+        for (String cfName : QUORUM_COLUMN_FAMILIES) {
+            readCfConsistencyLevels.put(cfName, HConsistencyLevel.QUORUM);
+            writeCfConsistencyLevels.put(cfName, HConsistencyLevel.QUORUM);
+        }
+        consistencyLevelPolicy.setReadCfConsistencyLevels(readCfConsistencyLevels);
+        consistencyLevelPolicy.setWriteCfConsistencyLevels(writeCfConsistencyLevels);
+
+        return consistencyLevelPolicy;
+    }
+
+    /**
+     * Most accessed rows, sampled from one operation out of "cassandra.hotrows.sampling" (0 to disable).
+     */
+    @Bean
+    public HotRowSketch hotRowSketch() {
+        int samplingRate = env.getProperty("cassandra.hotrows.sampling", Integer.class, 0);
+        if (samplingRate <= 0) {
+            return null;
+        }
+        int capacity = env.getProperty("cassandra.hotrows.size", Integer.class, 100);
+        log.info("Sampling one Cassandra operation out of " + samplingRate + " to find the " + capacity +
+                " most accessed rows");
+
+        return new HotRowSketch(samplingRate, capacity);
+    }
+
     @Bean
     public Keyspace keyspaceOperator() {
 
@@ -43,9 +114,15 @@ public class CassandraConfiguration {
         String cassandraKeyspace = env.getProperty("cassandra.keyspace");
 
         CassandraHostConfigurator cassandraHostConfigurator = new CassandraHostConfigurator(cassandraHost);
+        Integer socketTimeout = env.getProperty("cassandra.timeout.socket", Integer.class);
+        if (socketTimeout != null) {
+            cassandraHostConfigurator.setCassandraThriftSocketTimeout(socketTimeout);
+        }
+        Long poolTimeout = env.getProperty("cassandra.timeout.pool", Long.class);
+        if (poolTimeout != null) {
+            cassandraHostConfigurator.setMaxWaitTimeWhenExhausted(poolTimeout);
+        }
         ThriftCluster cluster = new ThriftCluster(cassandraClusterName, cassandraHostConfigurator);
-        ConfigurableConsistencyLevel consistencyLevelPolicy = new ConfigurableConsistencyLevel();
-        consistencyLevelPolicy.setDefaultReadConsistencyLevel(HConsistencyLevel.ONE);
 
         KeyspaceDefinition keyspaceDef = cluster.describeKeyspace(cassandraKeyspace);
         if (keyspaceDef == null) {
@@ -53,78 +130,183 @@ public class CassandraConfiguration {
             keyspaceDef = new ThriftKsDef(cassandraKeyspace);
             cluster.addKeyspace(keyspaceDef, true);
 
-            addColumnFamily(cluster, USER_CF, 0);
-            addColumnFamily(cluster, FRIENDS_CF, 0);
-            addColumnFamily(cluster, FOLLOWERS_CF, 0);
-            addColumnFamily(cluster, STATUS_CF, 0);
-            addColumnFamily(cluster, DOMAIN_CF, 0);
-            addColumnFamily(cluster, REGISTRATION_CF, 0);
-            addColumnFamily(cluster, SHARES_CF, 0);
-            addColumnFamily(cluster, DISCUSSION_CF, 0);
-            addColumnFamily(cluster, USER_TAGS_CF, 0);
-            addColumnFamily(cluster, TAG_FOLLOWERS_CF, 0);
-            addColumnFamily(cluster, GROUP_MEMBERS_CF, 0);
-            addColumnFamily(cluster, USER_GROUPS_CF, 0);
-            addColumnFamily(cluster, GROUP_CF, 0);
-            addColumnFamily(cluster, GROUP_DETAILS_CF, 0);
-
-            addColumnFamilySortedbyUUID(cluster, TIMELINE_CF, 0);
-            addColumnFamilySortedbyUUID(cluster, TIMELINE_SHARES_CF, 0);
-            addColumnFamilySortedbyUUID(cluster, MENTIONLINE_CF, 0);
-            addColumnFamilySortedbyUUID(cluster, USERLINE_CF, 0);
-            addColumnFamilySortedbyUUID(cluster, USERLINE_SHARES_CF, 0);
-            addColumnFamilySortedbyUUID(cluster, FAVLINE_CF, 0);
-            addColumnFamilySortedbyUUID(cluster, TAGLINE_CF, 0);
-            addColumnFamilySortedbyUUID(cluster, TRENDS_CF, 0);
-            addColumnFamilySortedbyUUID(cluster, USER_TRENDS_CF, 0);
-            addColumnFamilySortedbyUUID(cluster, GROUPLINE_CF, 0);
-
-            addColumnFamilyCounter(cluster, COUNTER_CF, 0);
-            addColumnFamilyCounter(cluster, TAG_COUNTER_CF, 0);
-            addColumnFamilyCounter(cluster, GROUP_COUNTER_CF, 0);
-            addColumnFamilyCounter(cluster, DAYLINE_CF, 0);
+            addColumnFamily(cluster, USER_CF);
+            addColumnFamily(cluster, FRIENDS_CF);
+            addColumnFamily(cluster, FOLLOWERS_CF);
+            addColumnFamily(cluster, STATUS_CF);
+            addColumnFamily(cluster, DOMAIN_CF);
+            addColumnFamily(cluster, REGISTRATION_CF);
+            addColumnFamily(cluster, IDEMPOTENCY_KEY_CF);
+            addColumnFamily(cluster, USER_DELETION_CF);
+            addColumnFamily(cluster, SHARES_CF);
+            addColumnFamily(cluster, DISCUSSION_CF);
+            addColumnFamily(cluster, USER_TAGS_CF);
+            addColumnFamily(cluster, TAG_FOLLOWERS_CF);
+            addColumnFamily(cluster, GROUP_MEMBERS_CF);
+            addColumnFamily(cluster, USER_GROUPS_CF);
+            addColumnFamily(cluster, GROUP_CF);
+            addColumnFamily(cluster, GROUP_DETAILS_CF);
+            addColumnFamily(cluster, TAGLINE_BUCKETS_CF);
+
+            addColumnFamilySortedbyUUID(cluster, TIMELINE_CF);
+            addColumnFamilySortedbyUUID(cluster, TIMELINE_SHARES_CF);
+            addColumnFamilySortedbyUUID(cluster, MENTIONLINE_CF);
+            addColumnFamilySortedbyUUID(cluster, USERLINE_CF);
+            addColumnFamilySortedbyUUID(cluster, USERLINE_SHARES_CF);
+            addColumnFamilySortedbyUUID(cluster, FAVLINE_CF);
+            addColumnFamilySortedbyUUID(cluster, TAGLINE_CF);
+            addColumnFamilySortedbyUUID(cluster, TRENDS_CF);
+            addColumnFamilySortedbyUUID(cluster, USER_TRENDS_CF);
+            addColumnFamilySortedbyUUID(cluster, GROUPLINE_CF);
+
+            addColumnFamilyCounter(cluster, COUNTER_CF);
+            addColumnFamilyCounter(cluster, TAG_COUNTER_CF);
+            addColumnFamilyCounter(cluster, GROUP_COUNTER_CF);
+            addColumnFamilyCounter(cluster, DAYLINE_CF);
+            addColumnFamilyCounter(cluster, DOMAIN_COUNTER_CF);
+        } else if (env.getProperty("cassandra.schema.reconcile", Boolean.class, true)) {
+            reconcileColumnFamilies(cluster, keyspaceDef);
         }
-        return HFactory.createKeyspace(cassandraKeyspace, cluster, consistencyLevelPolicy);
+        return new InstrumentedKeyspace(cassandraKeyspace, cluster.getConnectionManager(),
+                consistencyLevelPolicy(), FailoverPolicy.ON_FAIL_TRY_ALL_AVAILABLE, cluster.getCredentials(),
+                hotRowSketch());
     }
 
-    private void addColumnFamily(ThriftCluster cluster, String cfName, int rowCacheKeysToSave) {
+    /**
+     * Updates the cache, compaction, bloom filter and read repair settings of the existing column families,
+     * when they are different from their profile.
+     */
+    private void reconcileColumnFamilies(ThriftCluster cluster, KeyspaceDefinition keyspaceDef) {
+        for (CfDef existingCfDef : describeColumnFamilies(cluster, keyspaceDef.getName())) {
+            ColumnFamilyProfile profile = getProfile(existingCfDef.getName());
+            if (!profile.isAppliedTo(existingCfDef)) {
+                log.info("Updating column family \"" + existingCfDef.getName() + "\" to " + profile);
+                cluster.updateColumnFamily(new ProfiledCfDef(existingCfDef, profile));
+            }
+        }
+    }
+
+    /**
+     * The definitions are read with Thrift, as the bloom filter setting is not part of the Hector definitions.
+     */
+    static List<CfDef> describeColumnFamilies(ThriftCluster cluster, final String keyspace) {
+        Operation<KsDef> describeKeyspace = new Operation<KsDef>(OperationType.META_READ,
+                FailoverPolicy.ON_FAIL_TRY_ALL_AVAILABLE, cluster.getCredentials()) {
+
+            @Override
+            public KsDef execute(Cassandra.Client cassandra) throws HectorException {
+                try {
+                    return cassandra.describe_keyspace(keyspace);
+                } catch (Exception e) {
+                    throw new HectorException(e);
+                }
+            }
+        };
+        cluster.getConnectionManager().operateWithFailover(describeKeyspace);
+        return describeKeyspace.getResult().getCf_defs();
+    }
+
+    /**
+     * The profile of each column family : the profiles listed in "cassandra.profiles" are applied to the column
+     * families of their "columnFamilies" property, and the other column families have the "default" profile.
+     */
+    private ColumnFamilyProfile getProfile(String cfName) {
+        if (columnFamilyProfiles == null) {
+            columnFamilyProfiles = new HashMap<String, ColumnFamilyProfile>();
+            defaultProfile = loadProfile("default", ColumnFamilyProfile.DEFAULT);
+            String profiles = env.getProperty("cassandra.profiles", "");
+            for (String profileName : StringUtils.commaDelimitedListToSet(profiles)) {
+                profileName = profileName.trim();
+                ColumnFamilyProfile profile = loadProfile(profileName, defaultProfile);
+                String columnFamilies = env.getProperty("cassandra.profile." + profileName + ".columnFamilies", "");
+                for (String columnFamily : StringUtils.commaDelimitedListToSet(columnFamilies)) {
+                    columnFamilyProfiles.put(columnFamily.trim(), profile);
+                }
+            }
+        }
+        ColumnFamilyProfile profile = columnFamilyProfiles.get(cfName);
+        if (profile == null) {
+            return defaultProfile;
+        }
+        return profile;
+    }
+
+    private ColumnFamilyProfile loadProfile(String profileName, ColumnFamilyProfile defaults) {
+        String prefix = "cassandra.profile." + profileName;
+        return new ColumnFamilyProfile(
+                env.getProperty(prefix + ".rowCacheSize", Double.class, defaults.getRowCacheSize()),
+                env.getProperty(prefix + ".keyCacheSize", Double.class, defaults.getKeyCacheSize()),
+                env.getProperty(prefix + ".compactionStrategy", defaults.getCompactionStrategy()),
+                env.getProperty(prefix + ".bloomFilterFpChance", Double.class, defaults.getBloomFilterFpChance()),
+                env.getProperty(prefix + ".readRepairChance", Double.class, defaults.getReadRepairChance()));
+    }
+
+    private void addColumnFamily(ThriftCluster cluster, String cfName) {
 
         String cassandraKeyspace = this.env.getProperty("cassandra.keyspace");
 
         ColumnFamilyDefinition cfd =
                 HFactory.createColumnFamilyDefinition(cassandraKeyspace, cfName);
 
-        cfd.setRowCacheKeysToSave(rowCacheKeysToSave);
-        cluster.addColumnFamily(cfd);
+        cluster.addColumnFamily(new ProfiledCfDef(cfd, getProfile(cfName)));
     }
 
-    private void addColumnFamilySortedbyUUID(ThriftCluster cluster, String cfName, int rowCacheKeysToSave) {
+    private void addColumnFamilySortedbyUUID(ThriftCluster cluster, String cfName) {
 
         String cassandraKeyspace = this.env.getProperty("cassandra.keyspace");
 
         ColumnFamilyDefinition cfd =
                 HFactory.createColumnFamilyDefinition(cassandraKeyspace, cfName);
 
-        cfd.setRowCacheKeysToSave(rowCacheKeysToSave);
         cfd.setComparatorType(ComparatorType.UUIDTYPE);
-        cluster.addColumnFamily(cfd);
+        cluster.addColumnFamily(new ProfiledCfDef(cfd, getProfile(cfName)));
     }
 
 
-    private void addColumnFamilyCounter(ThriftCluster cluster, String cfName, int rowCacheKeysToSave) {
+    private void addColumnFamilyCounter(ThriftCluster cluster, String cfName) {
         String cassandraKeyspace = this.env.getProperty("cassandra.keyspace");
 
         ThriftCfDef cfd =
                 new ThriftCfDef(cassandraKeyspace, cfName, ComparatorType.UTF8TYPE);
 
-        cfd.setRowCacheKeysToSave(rowCacheKeysToSave);
         cfd.setDefaultValidationClass(ComparatorType.COUNTERTYPE.getClassName());
-        cluster.addColumnFamily(cfd);
+        cluster.addColumnFamily(new ProfiledCfDef(cfd, getProfile(cfName)));
     }
 
-    @Bean
-    public EntityManagerImpl entityManager(Keyspace keyspace) {
-        return new EntityManagerImpl(keyspace, "fr.ippon.tatami.domain");
-    }
+    /**
+     * Column family definition which is sent to Cassandra with the settings of its profile.
+     * <p/>
+     * An existing column family is updated from its Thrift definition, so the settings which are not known by
+     * Hector (the compression options, the bloom filter...) are kept.
+     */
+    static class ProfiledCfDef extends ThriftCfDef {
+
+        private final CfDef existingCfDef;
+
+        private final ColumnFamilyProfile profile;
+
+        ProfiledCfDef(ColumnFamilyDefinition cfd, ColumnFamilyProfile profile) {
+            super(cfd);
+            this.existingCfDef = null;
+            this.profile = profile;
+        }
+
+        ProfiledCfDef(CfDef existingCfDef, ColumnFamilyProfile profile) {
+            super(existingCfDef);
+            this.existingCfDef = existingCfDef;
+            this.profile = profile;
+        }
 
+        @Override
+        public CfDef toThrift() {
+            CfDef cfDef;
+            if (existingCfDef == null) {
+                cfDef = super.toThrift();
+            } else {
+                cfDef = existingCfDef.deepCopy();
+            }
+            profile.applyTo(cfDef);
+            return cfDef;
+        }
+    }
 }
@@ -0,0 +1,123 @@
+package fr.ippon.tatami.config;
+
+import fr.ippon.tatami.domain.ColumnFamilyStatistics;
+import me.prettyprint.cassandra.model.ConfigurableConsistencyLevel;
+import me.prettyprint.cassandra.service.OperationType;
+import me.prettyprint.hector.api.HConsistencyLevel;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consistency level policy of the keyspace, configured per column family and per operation type.
+ * <p/>
+ * Hector asks this policy for the consistency level of each operation, so it also counts the
+ * reads and writes done on each column family.
+ * <p/>
+ * The queries and mutators of Hector only ask for the level of an operation type, without its column family :
+ * the InstrumentedKeyspace sets the column family of the current operation with setColumnFamily().
+ *
+ * @author Julien Dubois
+ */
+public class ColumnFamilyConsistencyLevelPolicy extends ConfigurableConsistencyLevel {
+
+    /**
+     * Operations which are not done on a single column family, like batch mutations on several column families.
+     */
+    private static final String ALL_COLUMN_FAMILIES = "*";
+
+    private final ConcurrentMap<String, AtomicLong> readCounters = new ConcurrentHashMap<String, AtomicLong>();
+
+    private final ConcurrentMap<String, AtomicLong> writeCounters = new ConcurrentHashMap<String, AtomicLong>();
+
+    private final ThreadLocal<String> currentColumnFamily = new ThreadLocal<String>();
+
+    /**
+     * Sets the column family of the operation executed by the current thread (null when the operation is done
+     * on several column families).
+     */
+    public void setColumnFamily(String cfName) {
+        currentColumnFamily.set(cfName);
+    }
+
+    public void clearColumnFamily() {
+        currentColumnFamily.remove();
+    }
+
+    @Override
+    public HConsistencyLevel get(OperationType op) {
+        if (op == OperationType.READ || op == OperationType.WRITE) {
+            return get(op, currentColumnFamily.get());
+        }
+        return super.get(op);
+    }
+
+    @Override
+    public HConsistencyLevel get(OperationType op, String cfName) {
+        if (op == OperationType.READ) {
+            increment(readCounters, cfName);
+        } else if (op == OperationType.WRITE) {
+            increment(writeCounters, cfName);
+        }
+        return super.get(op, cfName);
+    }
+
+    public Collection<ColumnFamilyStatistics> getColumnFamilyStatistics() {
+        Set<String> columnFamilies = new TreeSet<String>(readCounters.keySet());
+        columnFamilies.addAll(writeCounters.keySet());
+        Collection<ColumnFamilyStatistics> result = new ArrayList<ColumnFamilyStatistics>();
+        for (String columnFamily : columnFamilies) {
+            ColumnFamilyStatistics statistics = new ColumnFamilyStatistics(columnFamily);
+            String cfName = ALL_COLUMN_FAMILIES.equals(columnFamily) ? null : columnFamily;
+            statistics.setReadConsistencyLevel(super.get(OperationType.READ, cfName).name());
+            statistics.setWriteConsistencyLevel(super.get(OperationType.WRITE, cfName).name());
+            statistics.setReads(getCount(readCounters, columnFamily));
+            statistics.setWrites(getCount(writeCounters, columnFamily));
+            result.add(statistics);
+        }
+        return result;
+    }
+
+    /**
+     * Parses consistency levels in the form "ColumnFamily:LEVEL,OtherColumnFamily:LEVEL".
+     */
+    public static Map<String, HConsistencyLevel> parseConsistencyLevels(String value) {
+        Map<String, HConsistencyLevel> consistencyLevels = new HashMap<String, HConsistencyLevel>();
+        if (value == null) {
+            return consistencyLevels;
+        }
+        for (String entry : value.split(",")) {
+            String trimmedEntry = entry.trim();
+            if (!trimmedEntry.isEmpty()) {
+                int separator = trimmedEntry.indexOf(':');
+                if (separator <= 0) {
+                    throw new IllegalArgumentException("Invalid consistency level \"" + trimmedEntry +
+                            "\", it should be in the form ColumnFamily:LEVEL");
+                }
+                consistencyLevels.put(trimmedEntry.substring(0, separator).trim(),
+                        HConsistencyLevel.valueOf(trimmedEntry.substring(separator + 1).trim()));
+            }
+        }
+        return consistencyLevels;
+    }
+
+    private void increment(ConcurrentMap<String, AtomicLong> counters, String cfName) {
+        String key = cfName == null ? ALL_COLUMN_FAMILIES : cfName;
+        AtomicLong counter = counters.get(key);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = counters.putIfAbsent(key, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    private long getCount(ConcurrentMap<String, AtomicLong> counters, String columnFamily) {
+        AtomicLong counter = counters.get(columnFamily);
+        return counter == null ? 0 : counter.get();
+    }
+}
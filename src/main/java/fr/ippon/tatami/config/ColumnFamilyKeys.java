@@ -23,6 +23,8 @@ public class ColumnFamilyKeys {
 
     public final static String TAGLINE_CF = "Tagline";
 
+    public final static String TAGLINE_BUCKETS_CF = "TaglineBuckets";
+
     public final static String TIMELINE_CF = "Timeline";
 
     public final static String TIMELINE_SHARES_CF = "TimelineShares";
@@ -37,8 +39,14 @@ public class ColumnFamilyKeys {
 
     public final static String DOMAIN_CF = "Domain";
 
+    public final static String DOMAIN_COUNTER_CF = "DomainCounter";
+
     public final static String REGISTRATION_CF = "Registration";
 
+    public final static String IDEMPOTENCY_KEY_CF = "IdempotencyKey";
+
+    public final static String USER_DELETION_CF = "UserDeletion";
+
     public final static String TRENDS_CF = "Trends";
 
     public final static String TAG_FOLLOWERS_CF = "TagFollowers";
@@ -0,0 +1,105 @@
+package fr.ippon.tatami.config;
+
+import org.apache.cassandra.thrift.CfDef;
+
+/**
+ * Row cache, key cache, compaction, bloom filter and read repair settings of a column family.
+ * <p/>
+ * These are the Cassandra 1.0 settings : the row and key cache sizes are numbers of rows (or a fraction of the
+ * rows when they are lower than 1). A bloom filter false-positive chance of 0 keeps the Cassandra default, and
+ * is ignored by the Cassandra versions which do not support it.
+ *
+ * @author Julien Dubois
+ */
+public class ColumnFamilyProfile {
+
+    private static final String SIZE_TIERED_COMPACTION =
+            "org.apache.cassandra.db.compaction.SizeTieredCompactionStrategy";
+
+    /**
+     * Default settings, used for the settings which are not in tatami.properties.
+     */
+    public static final ColumnFamilyProfile DEFAULT =
+            new ColumnFamilyProfile(0, 200000, SIZE_TIERED_COMPACTION, 0, 1.0);
+
+    private final double rowCacheSize;
+
+    private final double keyCacheSize;
+
+    private final String compactionStrategy;
+
+    private final double bloomFilterFpChance;
+
+    private final double readRepairChance;
+
+    public ColumnFamilyProfile(double rowCacheSize, double keyCacheSize, String compactionStrategy,
+                               double bloomFilterFpChance, double readRepairChance) {
+
+        this.rowCacheSize = rowCacheSize;
+        this.keyCacheSize = keyCacheSize;
+        this.compactionStrategy = compactionStrategy;
+        this.bloomFilterFpChance = bloomFilterFpChance;
+        this.readRepairChance = readRepairChance;
+    }
+
+    public double getRowCacheSize() {
+        return rowCacheSize;
+    }
+
+    public double getKeyCacheSize() {
+        return keyCacheSize;
+    }
+
+    public String getCompactionStrategy() {
+        return compactionStrategy;
+    }
+
+    public double getBloomFilterFpChance() {
+        return bloomFilterFpChance;
+    }
+
+    public double getReadRepairChance() {
+        return readRepairChance;
+    }
+
+    /**
+     * Sets this profile on a column family definition.
+     */
+    public void applyTo(CfDef cfDef) {
+        cfDef.setRow_cache_size(rowCacheSize);
+        cfDef.setKey_cache_size(keyCacheSize);
+        cfDef.setCompaction_strategy(compactionStrategy);
+        if (bloomFilterFpChance > 0) {
+            cfDef.setBloom_filter_fp_chance(bloomFilterFpChance);
+        }
+        cfDef.setRead_repair_chance(readRepairChance);
+    }
+
+    /**
+     * Checks if a column family definition, read from Cassandra, already has the settings of this profile.
+     * <p/>
+     * The bloom filter false-positive chance is only checked when Cassandra returns it.
+     */
+    public boolean isAppliedTo(CfDef cfDef) {
+        if (bloomFilterFpChance > 0 && cfDef.isSetBloom_filter_fp_chance() &&
+                cfDef.getBloom_filter_fp_chance() != bloomFilterFpChance) {
+
+            return false;
+        }
+        return cfDef.getRow_cache_size() == rowCacheSize &&
+                cfDef.getKey_cache_size() == keyCacheSize &&
+                compactionStrategy.equals(cfDef.getCompaction_strategy()) &&
+                cfDef.getRead_repair_chance() == readRepairChance;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnFamilyProfile{" +
+                "rowCacheSize=" + rowCacheSize +
+                ", keyCacheSize=" + keyCacheSize +
+                ", compactionStrategy='" + compactionStrategy + '\'' +
+                ", bloomFilterFpChance=" + bloomFilterFpChance +
+                ", readRepairChance=" + readRepairChance +
+                '}';
+    }
+}
@@ -0,0 +1,207 @@
+package fr.ippon.tatami.config;
+
+import fr.ippon.tatami.domain.Status;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Compact representation of a cached Status.
+ * <p/>
+ * - The statusId and the replyTo are TimeUUIDs, stored as two longs.
+ * - The date is stored as epoch millis.
+ * - The login, username, domain, groupId and replyToUsername are ids in a shared StringDictionary.
+ * - The fields which are computed for each request (favorite, firstName, sharedByUsername...) are not stored.
+ * <p/>
+ * The record can also be written as bytes, for the caches which store the statuses outside of the Java heap.
+ *
+ * @author Julien Dubois
+ */
+class CompactStatus implements Serializable {
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final byte REMOVED_NULL = -1;
+
+    private final long idMostSignificantBits;
+
+    private final long idLeastSignificantBits;
+
+    /**
+     * Only used when the statusId is not a UUID.
+     */
+    private final String statusId;
+
+    private final int loginId;
+
+    private final int usernameId;
+
+    private final int domainId;
+
+    private final int groupId;
+
+    private final String content;
+
+    private final long statusDate;
+
+    private final long replyToMostSignificantBits;
+
+    private final long replyToLeastSignificantBits;
+
+    /**
+     * Only used when the replyTo is not a UUID.
+     */
+    private final String replyTo;
+
+    private final int replyToUsernameId;
+
+    private final byte removed;
+
+    private final boolean detailsAvailable;
+
+    CompactStatus(Status status, StringDictionary dictionary) {
+        UUID id = toUUID(status.getStatusId());
+        if (id == null) {
+            idMostSignificantBits = 0;
+            idLeastSignificantBits = 0;
+            statusId = status.getStatusId();
+        } else {
+            idMostSignificantBits = id.getMostSignificantBits();
+            idLeastSignificantBits = id.getLeastSignificantBits();
+            statusId = null;
+        }
+        loginId = dictionary.getId(status.getLogin());
+        usernameId = dictionary.getId(status.getUsername());
+        domainId = dictionary.getId(status.getDomain());
+        groupId = dictionary.getId(status.getGroupId());
+        content = status.getContent();
+        statusDate = status.getStatusDate() == null ? NO_DATE : status.getStatusDate().getTime();
+        UUID replyToId = toUUID(status.getReplyTo());
+        if (replyToId == null) {
+            replyToMostSignificantBits = 0;
+            replyToLeastSignificantBits = 0;
+            replyTo = status.getReplyTo();
+        } else {
+            replyToMostSignificantBits = replyToId.getMostSignificantBits();
+            replyToLeastSignificantBits = replyToId.getLeastSignificantBits();
+            replyTo = null;
+        }
+        replyToUsernameId = dictionary.getId(status.getReplyToUsername());
+        if (status.getRemoved() == null) {
+            removed = REMOVED_NULL;
+        } else {
+            removed = (byte) (status.getRemoved() ? 1 : 0);
+        }
+        detailsAvailable = status.isDetailsAvailable();
+    }
+
+    private CompactStatus(DataInput in) throws IOException {
+        idMostSignificantBits = in.readLong();
+        idLeastSignificantBits = in.readLong();
+        statusId = readString(in);
+        loginId = in.readInt();
+        usernameId = in.readInt();
+        domainId = in.readInt();
+        groupId = in.readInt();
+        content = readString(in);
+        statusDate = in.readLong();
+        replyToMostSignificantBits = in.readLong();
+        replyToLeastSignificantBits = in.readLong();
+        replyTo = readString(in);
+        replyToUsernameId = in.readInt();
+        removed = in.readByte();
+        detailsAvailable = in.readBoolean();
+    }
+
+    /**
+     * Reads a record written by writeTo().
+     */
+    static CompactStatus readFrom(DataInput in) throws IOException {
+        return new CompactStatus(in);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(idMostSignificantBits);
+        out.writeLong(idLeastSignificantBits);
+        writeString(out, statusId);
+        out.writeInt(loginId);
+        out.writeInt(usernameId);
+        out.writeInt(domainId);
+        out.writeInt(groupId);
+        writeString(out, content);
+        out.writeLong(statusDate);
+        out.writeLong(replyToMostSignificantBits);
+        out.writeLong(replyToLeastSignificantBits);
+        writeString(out, replyTo);
+        out.writeInt(replyToUsernameId);
+        out.writeByte(removed);
+        out.writeBoolean(detailsAvailable);
+    }
+
+    /**
+     * Materializes a new Status.
+     */
+    Status toStatus(StringDictionary dictionary) {
+        Status status = new Status();
+        if (statusId == null) {
+            status.setStatusId(new UUID(idMostSignificantBits, idLeastSignificantBits).toString());
+        } else {
+            status.setStatusId(statusId);
+        }
+        status.setLogin(dictionary.getValue(loginId));
+        status.setUsername(dictionary.getValue(usernameId));
+        status.setDomain(dictionary.getValue(domainId));
+        status.setGroupId(dictionary.getValue(groupId));
+        status.setContent(content);
+        if (statusDate != NO_DATE) {
+            status.setStatusDate(new Date(statusDate));
+        }
+        if (replyTo == null && (replyToMostSignificantBits != 0 || replyToLeastSignificantBits != 0)) {
+            status.setReplyTo(new UUID(replyToMostSignificantBits, replyToLeastSignificantBits).toString());
+        } else {
+            status.setReplyTo(replyTo);
+        }
+        status.setReplyToUsername(dictionary.getValue(replyToUsernameId));
+        if (removed != REMOVED_NULL) {
+            status.setRemoved(removed == 1);
+        }
+        status.setDetailsAvailable(detailsAvailable);
+        return status;
+    }
+
+    /**
+     * @return the UUID, or null if the value is not a UUID in its canonical form
+     */
+    static UUID toUUID(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            if (uuid.toString().equals(value)) {
+                return uuid;
+            }
+        } catch (IllegalArgumentException e) {
+            // Not a UUID
+        }
+        return null;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        if (in.readBoolean()) {
+            return in.readUTF();
+        }
+        return null;
+    }
+}
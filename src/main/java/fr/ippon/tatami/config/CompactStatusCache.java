@@ -0,0 +1,61 @@
+package fr.ippon.tatami.config;
+
+import fr.ippon.tatami.domain.Status;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * Status cache decorator, which stores CompactStatus records in the Java heap, and materializes a new Status
+ * on each read.
+ *
+ * @author Julien Dubois
+ */
+public class CompactStatusCache implements Cache {
+
+    private final Cache cache;
+
+    private final StringDictionary dictionary;
+
+    public CompactStatusCache(Cache cache, StringDictionary dictionary) {
+        this.cache = cache;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public String getName() {
+        return cache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return cache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = cache.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            return wrapper;
+        }
+        return new SimpleValueWrapper(((CompactStatus) wrapper.get()).toStatus(dictionary));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            cache.put(key, null);
+        } else {
+            cache.put(key, new CompactStatus((Status) value, dictionary));
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        cache.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        cache.clear();
+    }
+}
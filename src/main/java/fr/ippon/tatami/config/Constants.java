@@ -12,6 +12,13 @@ public class Constants {
 
     public static final String DEFAULT_THEME = "bootstrap";
 
+    /**
+     * Storage backends : each one is a Spring profile, selected with the "tatami.storage" property.
+     */
+    public static final String STORAGE_CASSANDRA = "cassandra";
+
+    public static final String STORAGE_LOCAL = "local";
+
     public static String VERSION = null;
 
     public static String GOOGLE_ANALYTICS_KEY = null;
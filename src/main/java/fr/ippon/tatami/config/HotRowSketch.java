@@ -0,0 +1,143 @@
+package fr.ippon.tatami.config;
+
+import fr.ippon.tatami.domain.RowStatistics;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds the most accessed Cassandra rows, with a "Space-Saving" top-K heavy hitter sketch.
+ * <p/>
+ * Only one operation out of "samplingRate" is recorded, and the sketch keeps at most "capacity" rows :
+ * when a new row is recorded and the sketch is full, it replaces the row with the fewest operations, and
+ * inherits its count. A row which has more than 1/capacity of the sampled operations is always in the sketch,
+ * and its count is over-estimated by at most its error.
+ * <p/>
+ * The estimated counts are the sampled counts multiplied by the sampling rate.
+ *
+ * @author Julien Dubois
+ */
+public class HotRowSketch {
+
+    private final int samplingRate;
+
+    private final int capacity;
+
+    private final AtomicLong operations = new AtomicLong();
+
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+    private long startTime = System.currentTimeMillis();
+
+    public HotRowSketch(int samplingRate, int capacity) {
+        this.samplingRate = samplingRate;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns true if the current operation should be recorded.
+     */
+    public boolean sample() {
+        return operations.incrementAndGet() % samplingRate == 0;
+    }
+
+    public synchronized void recordRead(String columnFamily, String key, int columns) {
+        Entry entry = getEntry(columnFamily, key);
+        entry.reads++;
+        entry.readColumns += columns;
+    }
+
+    public synchronized void recordWrite(String columnFamily, String key, int columns) {
+        Entry entry = getEntry(columnFamily, key);
+        entry.writes++;
+        entry.writtenColumns += columns;
+    }
+
+    /**
+     * The recorded rows, the most accessed first.
+     */
+    public synchronized List<RowStatistics> getHotRows() {
+        double seconds = Math.max(1, System.currentTimeMillis() - startTime) / 1000.0;
+        List<Entry> sortedEntries = new ArrayList<Entry>(entries.values());
+        Collections.sort(sortedEntries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry e1, Entry e2) {
+                long c1 = e1.getCount();
+                long c2 = e2.getCount();
+                return c1 < c2 ? 1 : (c1 == c2 ? 0 : -1);
+            }
+        });
+        List<RowStatistics> result = new ArrayList<RowStatistics>(sortedEntries.size());
+        for (Entry entry : sortedEntries) {
+            RowStatistics statistics = new RowStatistics(entry.columnFamily, entry.key);
+            statistics.setReads(entry.reads * samplingRate);
+            statistics.setWrites(entry.writes * samplingRate);
+            statistics.setReadColumns(entry.readColumns * samplingRate);
+            statistics.setWrittenColumns(entry.writtenColumns * samplingRate);
+            statistics.setError(entry.error * samplingRate);
+            statistics.setReadsPerSecond(entry.reads * samplingRate / seconds);
+            statistics.setWritesPerSecond(entry.writes * samplingRate / seconds);
+            result.add(statistics);
+        }
+        return result;
+    }
+
+    /**
+     * Starts a new measure.
+     */
+    public synchronized void reset() {
+        entries.clear();
+        startTime = System.currentTimeMillis();
+    }
+
+    public int getSamplingRate() {
+        return samplingRate;
+    }
+
+    private Entry getEntry(String columnFamily, String key) {
+        String id = columnFamily + "/" + key;
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            entry = new Entry(columnFamily, key);
+            if (entries.size() >= capacity) {
+                // The sketch is small, so finding the row with the fewest operations is a linear scan
+                Entry minEntry = null;
+                for (Entry candidate : entries.values()) {
+                    if (minEntry == null || candidate.getCount() < minEntry.getCount()) {
+                        minEntry = candidate;
+                    }
+                }
+                entries.remove(minEntry.columnFamily + "/" + minEntry.key);
+                entry.error = minEntry.getCount();
+            }
+            entries.put(id, entry);
+        }
+        return entry;
+    }
+
+    private static class Entry {
+
+        private final String columnFamily;
+
+        private final String key;
+
+        private long reads;
+
+        private long writes;
+
+        private long readColumns;
+
+        private long writtenColumns;
+
+        private long error;
+
+        private Entry(String columnFamily, String key) {
+            this.columnFamily = columnFamily;
+            this.key = key;
+        }
+
+        private long getCount() {
+            return reads + writes + error;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package fr.ippon.tatami.config;
+
+import me.prettyprint.cassandra.connection.HConnectionManager;
+import me.prettyprint.cassandra.model.ExecutingKeyspace;
+import me.prettyprint.cassandra.model.ExecutionResult;
+import me.prettyprint.cassandra.model.KeyspaceOperationCallback;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.cassandra.service.BatchMutation;
+import me.prettyprint.cassandra.service.FailoverPolicy;
+import me.prettyprint.cassandra.service.KeyspaceService;
+import me.prettyprint.hector.api.exceptions.HectorException;
+import org.apache.cassandra.thrift.ColumnParent;
+import org.apache.cassandra.thrift.ColumnPath;
+import org.apache.cassandra.thrift.Mutation;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyspace which gives the column family of each operation to the consistency level policy, and records the rows
+ * read and written by Hector in the hot row sketch.
+ * <p/>
+ * All the queries and mutations of Hector are executed on a KeyspaceService : it is wrapped in a proxy,
+ * which finds the column family in the arguments of each operation. The KeyspaceService only asks the policy for
+ * the level of an operation type, so the column family is set on the policy while the operation is executed.
+ * For the sampled operations, the proxy also finds the row keys, and counts the columns written and returned.
+ *
+ * @author Julien Dubois
+ */
+public class InstrumentedKeyspace extends ExecutingKeyspace {
+
+    private final ColumnFamilyConsistencyLevelPolicy consistencyLevelPolicy;
+
+    /**
+     * Null when the hot rows are not sampled.
+     */
+    private final HotRowSketch hotRowSketch;
+
+    public InstrumentedKeyspace(String keyspace, HConnectionManager connectionManager,
+                                ColumnFamilyConsistencyLevelPolicy consistencyLevelPolicy,
+                                FailoverPolicy failoverPolicy, Map<String, String> credentials,
+                                HotRowSketch hotRowSketch) {
+
+        super(keyspace, connectionManager, consistencyLevelPolicy, failoverPolicy, credentials);
+        this.consistencyLevelPolicy = consistencyLevelPolicy;
+        this.hotRowSketch = hotRowSketch;
+    }
+
+    @Override
+    public <T> ExecutionResult<T> doExecute(final KeyspaceOperationCallback<T> koc) throws HectorException {
+        final boolean sampled = hotRowSketch != null && hotRowSketch.sample();
+        return super.doExecute(new KeyspaceOperationCallback<T>() {
+            @Override
+            public T doInKeyspace(KeyspaceService ks) throws HectorException {
+                KeyspaceService instrumentedKs = (KeyspaceService) Proxy.newProxyInstance(
+                        KeyspaceService.class.getClassLoader(),
+                        new Class<?>[]{KeyspaceService.class},
+                        new InstrumentingHandler(ks, sampled));
+
+                return koc.doInKeyspace(instrumentedKs);
+            }
+        });
+    }
+
+    private class InstrumentingHandler implements InvocationHandler {
+
+        private final KeyspaceService ks;
+
+        private final boolean sampled;
+
+        private InstrumentingHandler(KeyspaceService ks, boolean sampled) {
+            this.ks = ks;
+            this.sampled = sampled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            consistencyLevelPolicy.setColumnFamily(args == null ? null : getOperationColumnFamily(args));
+            try {
+                result = method.invoke(ks, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                consistencyLevelPolicy.clearColumnFamily();
+            }
+            if (sampled && args != null) {
+                String name = method.getName();
+                if (name.startsWith("get") || name.startsWith("multiget")) {
+                    recordRead(args, result);
+                } else if (name.startsWith("batchMutate")) {
+                    recordMutations(args);
+                } else if (name.startsWith("insert") || name.startsWith("add") || name.startsWith("remove")) {
+                    recordWrite(args);
+                }
+            }
+            return result;
+        }
+
+        private void recordRead(Object[] args, Object result) {
+            String columnFamily = getColumnFamily(args);
+            if (columnFamily == null) {
+                return;
+            }
+            for (Object arg : args) {
+                if (arg instanceof ByteBuffer) {
+                    hotRowSketch.recordRead(columnFamily, toKey(arg), getSize(result));
+                    return;
+                }
+            }
+            if (result instanceof Map) { // multiget and range slices : the columns are returned by row
+                for (Map.Entry<?, ?> row : ((Map<?, ?>) result).entrySet()) {
+                    if (row.getKey() instanceof ByteBuffer) {
+                        hotRowSketch.recordRead(columnFamily, toKey(row.getKey()), getSize(row.getValue()));
+                    }
+                }
+            }
+        }
+
+        private void recordWrite(Object[] args) {
+            String columnFamily = getColumnFamily(args);
+            if (columnFamily == null) {
+                return;
+            }
+            for (Object arg : args) {
+                if (arg instanceof ByteBuffer) {
+                    hotRowSketch.recordWrite(columnFamily, toKey(arg), 1);
+                    return;
+                }
+            }
+        }
+
+        private void recordMutations(Object[] args) {
+            Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap = getMutationMap(args);
+            if (mutationMap == null) {
+                return;
+            }
+            for (Map.Entry<ByteBuffer, Map<String, List<Mutation>>> row : mutationMap.entrySet()) {
+                String key = toKey(row.getKey());
+                for (Map.Entry<String, List<Mutation>> mutations : row.getValue().entrySet()) {
+                    hotRowSketch.recordWrite(mutations.getKey(), key, mutations.getValue().size());
+                }
+            }
+        }
+
+        /**
+         * The column family of an operation, or of all the mutations of a batch : null when a batch is done
+         * on several column families.
+         */
+        private String getOperationColumnFamily(Object[] args) {
+            Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap = getMutationMap(args);
+            if (mutationMap == null) {
+                return getColumnFamily(args);
+            }
+            String columnFamily = null;
+            for (Map<String, List<Mutation>> row : mutationMap.values()) {
+                for (String rowColumnFamily : row.keySet()) {
+                    if (columnFamily == null) {
+                        columnFamily = rowColumnFamily;
+                    } else if (!columnFamily.equals(rowColumnFamily)) {
+                        return null;
+                    }
+                }
+            }
+            return columnFamily;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<ByteBuffer, Map<String, List<Mutation>>> getMutationMap(Object[] args) {
+            if (args.length == 0) {
+                return null;
+            } else if (args[0] instanceof BatchMutation) {
+                return ((BatchMutation<?>) args[0]).getMutationMap();
+            } else if (args[0] instanceof Map) {
+                return (Map<ByteBuffer, Map<String, List<Mutation>>>) args[0];
+            }
+            return null;
+        }
+
+        private String getColumnFamily(Object[] args) {
+            for (Object arg : args) {
+                if (arg instanceof ColumnParent) {
+                    return ((ColumnParent) arg).getColumn_family();
+                } else if (arg instanceof ColumnPath) {
+                    return ((ColumnPath) arg).getColumn_family();
+                }
+            }
+            return null;
+        }
+
+        private int getSize(Object result) {
+            if (result instanceof Collection) {
+                return ((Collection<?>) result).size();
+            } else if (result instanceof Map) {
+                return ((Map<?, ?>) result).size();
+            } else if (result == null) {
+                return 0;
+            }
+            return 1;
+        }
+
+        private String toKey(Object key) {
+            // The buffer is shared with Hector : its position must not change
+            return StringSerializer.get().fromByteBuffer(((ByteBuffer) key).duplicate());
+        }
+    }
+}
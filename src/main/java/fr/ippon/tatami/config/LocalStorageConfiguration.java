@@ -0,0 +1,37 @@
+package fr.ippon.tatami.config;
+
+import fr.ippon.tatami.repository.local.LocalStore;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import javax.inject.Inject;
+import java.io.File;
+
+/**
+ * Local storage configuration : the data is stored in memory-mapped files, instead of Cassandra.
+ * <p/>
+ * This is used when the "tatami.storage" property is set to "local".
+ */
+@Configuration
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalStorageConfiguration {
+
+    private final Log log = LogFactory.getLog(LocalStorageConfiguration.class);
+
+    @Inject
+    private Environment env;
+
+    @Bean(initMethod = "open", destroyMethod = "close")
+    public LocalStore localStore() {
+        String localPath = env.getRequiredProperty("local.path");
+        int segmentSize = env.getProperty("local.segment.size", Integer.class, 64 * 1024 * 1024);
+        if (log.isDebugEnabled()) {
+            log.debug("Local storage directory : " + localPath + ", segment size : " + segmentSize);
+        }
+        return new LocalStore(new File(localPath), segmentSize);
+    }
+}
@@ -0,0 +1,36 @@
+package fr.ippon.tatami.config;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Delivers the cache invalidation messages to all the transports started in the same JVM.
+ * <p/>
+ * This is used to test several nodes in one JVM, or with a single node.
+ *
+ * @author Julien Dubois
+ */
+public class LoopbackCacheInvalidationTransport implements CacheInvalidationTransport {
+
+    private static final List<Receiver> receivers = new CopyOnWriteArrayList<Receiver>();
+
+    private Receiver receiver;
+
+    @Override
+    public void start(Receiver receiver) {
+        this.receiver = receiver;
+        receivers.add(receiver);
+    }
+
+    @Override
+    public void send(byte[] message) {
+        for (Receiver peer : receivers) {
+            peer.receive(message);
+        }
+    }
+
+    @Override
+    public void stop() {
+        receivers.remove(receiver);
+    }
+}
@@ -0,0 +1,100 @@
+package fr.ippon.tatami.config;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+import java.net.SocketException;
+import java.util.Arrays;
+
+/**
+ * Sends the cache invalidation messages with UDP multicast.
+ * <p/>
+ * The loopback mode is enabled, so several nodes can run on the same machine. UDP does not guarantee delivery :
+ * a lost message leaves stale entries until they expire, as without the invalidation bus.
+ *
+ * @author Julien Dubois
+ */
+public class MulticastCacheInvalidationTransport implements CacheInvalidationTransport {
+
+    private final Log log = LogFactory.getLog(MulticastCacheInvalidationTransport.class);
+
+    static final int MAX_MESSAGE_SIZE = 65000;
+
+    private final InetAddress group;
+
+    private final int port;
+
+    private final int timeToLive;
+
+    private MulticastSocket socket;
+
+    private Thread receivingThread;
+
+    private volatile boolean running;
+
+    public MulticastCacheInvalidationTransport(InetAddress group, int port, int timeToLive) {
+        this.group = group;
+        this.port = port;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public void start(final Receiver receiver) {
+        try {
+            socket = new MulticastSocket(port);
+            socket.setTimeToLive(timeToLive);
+            // false enables the loopback mode
+            socket.setLoopbackMode(false);
+            socket.joinGroup(group);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not join the multicast group " + group + ":" + port, e);
+        }
+        running = true;
+        receivingThread = new Thread("cache-invalidation-receiver") {
+            @Override
+            public void run() {
+                byte[] buffer = new byte[MAX_MESSAGE_SIZE];
+                while (running) {
+                    try {
+                        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                        socket.receive(packet);
+                        receiver.receive(Arrays.copyOf(packet.getData(), packet.getLength()));
+                    } catch (SocketException e) {
+                        if (running) {
+                            log.warn("Cache invalidation socket error : " + e.getMessage());
+                        }
+                    } catch (Exception e) {
+                        log.warn("Could not receive a cache invalidation message : " + e.getMessage());
+                    }
+                }
+            }
+        };
+        receivingThread.setDaemon(true);
+        receivingThread.start();
+        log.info("Cache invalidation multicast group : " + group.getHostAddress() + ":" + port);
+    }
+
+    @Override
+    public void send(byte[] message) {
+        try {
+            socket.send(new DatagramPacket(message, message.length, group, port));
+        } catch (IOException e) {
+            log.warn("Could not send a cache invalidation message : " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            socket.leaveGroup(group);
+        } catch (IOException e) {
+            log.debug("Could not leave the multicast group : " + e.getMessage());
+        }
+        socket.close();
+    }
+}
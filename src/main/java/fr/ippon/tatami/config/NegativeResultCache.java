@@ -0,0 +1,90 @@
+package fr.ippon.tatami.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache decorator which stores the null results (missing or deleted entities) in a separate cache.
+ * <p/>
+ * The "missing cache" has its own size and a short time to live, in ehcache.xml : the missing entities do not
+ * evict the existing ones, and they are read again from the storage after a short delay.
+ * <p/>
+ * An eviction removes the key from both caches, so a created entity is not reported as missing.
+ *
+ * @author Julien Dubois
+ */
+public class NegativeResultCache implements Cache {
+
+    private final Cache cache;
+
+    private final Cache missingCache;
+
+    private final AtomicLong preventedReads = new AtomicLong();
+
+    public NegativeResultCache(Cache cache, Cache missingCache) {
+        this.cache = cache;
+        this.missingCache = missingCache;
+    }
+
+    /**
+     * The decorated cache, which stores the non-null values.
+     */
+    public Cache getCache() {
+        return cache;
+    }
+
+    @Override
+    public String getName() {
+        return cache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return cache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = cache.get(key);
+        if (wrapper != null) {
+            return wrapper;
+        }
+        if (missingCache.get(key) != null) {
+            preventedReads.incrementAndGet();
+            return new SimpleValueWrapper(null);
+        }
+        return null;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            cache.evict(key);
+            missingCache.put(key, Boolean.TRUE);
+        } else {
+            missingCache.evict(key);
+            cache.put(key, value);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        cache.evict(key);
+        missingCache.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        cache.clear();
+        missingCache.clear();
+    }
+
+    /**
+     * Number of reads of a missing entity which were answered by the missing cache, instead of the storage.
+     */
+    public long getPreventedReads() {
+        return preventedReads.get();
+    }
+}
@@ -0,0 +1,310 @@
+package fr.ippon.tatami.config;
+
+import fr.ippon.tatami.domain.Status;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Status cache, stored outside of the Java heap and bounded by its size in bytes.
+ * <p/>
+ * The statuses are serialized in a direct buffer, divided in blocks of BLOCK_SIZE bytes : each status uses as
+ * many blocks as needed, so the memory is not fragmented. When there are not enough free blocks, statuses
+ * are evicted with the CLOCK policy : the clock hand goes through the statuses, and evicts the first one which
+ * has not been read since the last pass.
+ * <p/>
+ * Each status is written as a CompactStatus record, and each read decodes a new Status, so the callers can modify
+ * it without modifying the cache.
+ * <p/>
+ * This cache is experimental, and is not used by default : StatusCacheGcBenchmark compares its garbage
+ * collections with the default cache in the Java heap.
+ *
+ * @author Julien Dubois
+ */
+public class OffHeapStatusCache implements Cache {
+
+    static final int BLOCK_SIZE = 256;
+
+    private final String name;
+
+    private final StringDictionary dictionary;
+
+    private final ByteBuffer memory;
+
+    private final int blockCount;
+
+    private final int[] freeBlocks;
+
+    private int freeBlockCount;
+
+    private final Map<Object, Entry> entries = new HashMap<Object, Entry>();
+
+    private final List<Entry> clock = new ArrayList<Entry>();
+
+    private int clockHand;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong puts = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public OffHeapStatusCache(String name, int size, StringDictionary dictionary) {
+        this.name = name;
+        this.dictionary = dictionary;
+        this.blockCount = size / BLOCK_SIZE;
+        this.memory = ByteBuffer.allocateDirect(blockCount * BLOCK_SIZE);
+        this.freeBlocks = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            freeBlocks[i] = blockCount - 1 - i;
+        }
+        this.freeBlockCount = blockCount;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        byte[] data;
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            entry.referenced = true;
+            data = read(entry);
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.incrementAndGet();
+        if (data == null) {
+            return new SimpleValueWrapper(null);
+        }
+        return new SimpleValueWrapper(decode(key.toString(), data));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        byte[] data = null;
+        if (value != null) {
+            data = encode((Status) value);
+        }
+        // A null value uses one block, so the number of entries is bounded
+        int blocks = data == null ? 1 : (data.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        lock.writeLock().lock();
+        try {
+            removeEntry(entries.get(key));
+            if (blocks > blockCount) {
+                return;
+            }
+            while (freeBlockCount < blocks) {
+                evictEntry();
+            }
+            Entry entry = new Entry(key, blocks, data == null ? -1 : data.length);
+            write(entry, data);
+            entries.put(key, entry);
+            clock.add(entry);
+            puts.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(entries.get(key));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            while (!clock.isEmpty()) {
+                removeEntry(clock.get(clock.size() - 1));
+            }
+            clockHand = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long getSize() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getPuts() {
+        return puts.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Bytes used by the cached statuses, including the unused part of their last block.
+     */
+    public long getMemoryUsed() {
+        lock.readLock().lock();
+        try {
+            return (long) (blockCount - freeBlockCount) * BLOCK_SIZE;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getMemoryCapacity() {
+        return (long) blockCount * BLOCK_SIZE;
+    }
+
+    /**
+     * Moves the clock hand to the first entry which has not been read since the last pass, and evicts it.
+     */
+    private void evictEntry() {
+        while (true) {
+            if (clockHand >= clock.size()) {
+                clockHand = 0;
+            }
+            Entry entry = clock.get(clockHand);
+            if (entry.referenced) {
+                entry.referenced = false;
+                clockHand++;
+            } else {
+                removeEntry(entry);
+                evictions.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes an entry : the last entry of the clock takes its place.
+     */
+    private void removeEntry(Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        entries.remove(entry.key);
+        int lastIndex = clock.size() - 1;
+        Entry last = clock.remove(lastIndex);
+        if (last != entry) {
+            clock.set(entry.clockIndex, last);
+            last.clockIndex = entry.clockIndex;
+        }
+        for (int block : entry.blocks) {
+            freeBlocks[freeBlockCount++] = block;
+        }
+    }
+
+    private void write(Entry entry, byte[] data) {
+        entry.clockIndex = clock.size();
+        ByteBuffer buffer = memory.duplicate();
+        for (int i = 0; i < entry.blocks.length; i++) {
+            int block = freeBlocks[--freeBlockCount];
+            entry.blocks[i] = block;
+            if (data == null) {
+                continue;
+            }
+            int offset = i * BLOCK_SIZE;
+            buffer.position(block * BLOCK_SIZE);
+            buffer.put(data, offset, Math.min(BLOCK_SIZE, data.length - offset));
+        }
+    }
+
+    private byte[] read(Entry entry) {
+        if (entry.length < 0) {
+            return null;
+        }
+        byte[] data = new byte[entry.length];
+        ByteBuffer buffer = memory.duplicate();
+        for (int i = 0; i < entry.blocks.length; i++) {
+            int offset = i * BLOCK_SIZE;
+            buffer.position(entry.blocks[i] * BLOCK_SIZE);
+            buffer.get(data, offset, Math.min(BLOCK_SIZE, data.length - offset));
+        }
+        return data;
+    }
+
+    byte[] encode(Status status) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+            DataOutputStream out = new DataOutputStream(bytes);
+            new CompactStatus(status, dictionary).writeTo(out);
+            out.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode status " + status.getStatusId(), e);
+        }
+    }
+
+    Status decode(String statusId, byte[] data) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            return CompactStatus.readFrom(in).toStatus(dictionary);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not decode status " + statusId, e);
+        }
+    }
+
+    private static class Entry {
+
+        private final Object key;
+
+        private final int[] blocks;
+
+        /**
+         * -1 for a null value.
+         */
+        private final int length;
+
+        private int clockIndex;
+
+        private volatile boolean referenced;
+
+        Entry(Object key, int blocks, int length) {
+            this.key = key;
+            this.blocks = new int[blocks];
+            this.length = length;
+        }
+    }
+}
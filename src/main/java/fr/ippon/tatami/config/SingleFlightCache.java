@@ -0,0 +1,251 @@
+package fr.ippon.tatami.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache decorator which loads a missing key only once, when several threads miss it at the same time.
+ * <p/>
+ * With Spring's cache abstraction, a thread which gets null from the cache calls the cached method, and
+ * puts its result in the cache. Here, only the first thread which misses a key gets null : the other threads
+ * wait until the value is put in the cache, or until the load times out (if the first thread failed, for example),
+ * in which case they load the value themselves. The cached method does not tell the cache when it fails, so the
+ * timeout should be short.
+ * <p/>
+ * An eviction cancels the running load of the key : the waiting threads load the value themselves, and the value
+ * loaded before the eviction is not cached.
+ * <p/>
+ * When "refreshMillis" is set, the values are stale after that delay (the cache's time to live is the maximum
+ * staleness) : the first thread which gets a stale value reloads it, while the other threads get the stale value
+ * without waiting.
+ *
+ * @author Julien Dubois
+ */
+public class SingleFlightCache implements Cache {
+
+    private final Cache cache;
+
+    private final long refreshMillis;
+
+    private final long timeoutMillis;
+
+    private final ConcurrentMap<Object, Load> loads = new ConcurrentHashMap<Object, Load>();
+
+    /**
+     * The load started by the current thread : its value is the next put of the key by this thread.
+     */
+    private final ThreadLocal<Load> currentLoad = new ThreadLocal<Load>();
+
+    private final AtomicLong waits = new AtomicLong();
+
+    private final AtomicLong staleHits = new AtomicLong();
+
+    private final AtomicLong loadCount = new AtomicLong();
+
+    private final AtomicLong loadTime = new AtomicLong();
+
+    public SingleFlightCache(Cache cache, long refreshMillis, long timeoutMillis) {
+        this.cache = cache;
+        this.refreshMillis = refreshMillis;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * The decorated cache.
+     */
+    public Cache getCache() {
+        return cache;
+    }
+
+    @Override
+    public String getName() {
+        return cache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return cache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = cache.get(key);
+        if (wrapper != null) {
+            if (refreshMillis == 0) {
+                return wrapper;
+            }
+            CachedValue cachedValue = (CachedValue) wrapper.get();
+            if (System.currentTimeMillis() - cachedValue.loadTime < refreshMillis) {
+                return new SimpleValueWrapper(cachedValue.value);
+            }
+            if (startLoad(key)) {
+                // This thread reloads the stale value
+                return null;
+            }
+            staleHits.incrementAndGet();
+            return new SimpleValueWrapper(cachedValue.value);
+        }
+        if (startLoad(key)) {
+            return null;
+        }
+        waits.incrementAndGet();
+        Load load = loads.get(key);
+        if (load != null) {
+            try {
+                if (!load.latch.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    loads.remove(key, load);
+                    return null;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return unwrap(cache.get(key));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Load load = currentLoad.get();
+        if (load != null && load.key.equals(key)) {
+            currentLoad.remove();
+            if (load.cancelled) {
+                // The key was evicted during the load : the value may be stale
+                return;
+            }
+        } else {
+            load = loads.get(key);
+        }
+        if (refreshMillis == 0) {
+            cache.put(key, value);
+        } else {
+            cache.put(key, new CachedValue(value));
+        }
+        if (load != null) {
+            if (loads.remove(key, load)) {
+                loadCount.incrementAndGet();
+                loadTime.addAndGet(System.currentTimeMillis() - load.startTime);
+                load.latch.countDown();
+            }
+            if (load.cancelled) {
+                // The key was evicted while the value was put
+                cache.evict(key);
+            }
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        Load load = loads.remove(key);
+        if (load != null) {
+            cancel(load);
+        }
+        cache.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        for (Load load : loads.values()) {
+            if (loads.remove(load.key, load)) {
+                cancel(load);
+            }
+        }
+        cache.clear();
+    }
+
+    /**
+     * Number of threads which waited for a value loaded by another thread.
+     */
+    public long getWaits() {
+        return waits.get();
+    }
+
+    /**
+     * Number of stale values returned while another thread was reloading them.
+     */
+    public long getStaleHits() {
+        return staleHits.get();
+    }
+
+    /**
+     * Average time, in milliseconds, between a miss and the put of the loaded value.
+     */
+    public double getAverageLoadTime() {
+        long count = loadCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        return (double) loadTime.get() / count;
+    }
+
+    /**
+     * Registers a load of the key by the current thread.
+     *
+     * @return false if another thread is already loading the key
+     */
+    private boolean startLoad(Object key) {
+        Load load = new Load(key);
+        Load runningLoad = loads.putIfAbsent(key, load);
+        // If the running load has failed or is too slow, this thread takes it over
+        if (runningLoad == null || (runningLoad.isTimedOut() && loads.replace(key, runningLoad, load))) {
+            currentLoad.set(load);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * The waiting threads are released, and the value of the load will not be cached.
+     */
+    private void cancel(Load load) {
+        load.cancelled = true;
+        load.latch.countDown();
+    }
+
+    private ValueWrapper unwrap(ValueWrapper wrapper) {
+        if (wrapper == null || refreshMillis == 0) {
+            return wrapper;
+        }
+        return new SimpleValueWrapper(((CachedValue) wrapper.get()).value);
+    }
+
+    private class Load {
+
+        private final Object key;
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        private final long startTime = System.currentTimeMillis();
+
+        private volatile boolean cancelled = false;
+
+        Load(Object key) {
+            this.key = key;
+        }
+
+        boolean isTimedOut() {
+            return System.currentTimeMillis() - startTime > timeoutMillis;
+        }
+    }
+
+    /**
+     * A value and its loading time, for stale-while-revalidate caches.
+     */
+    private static class CachedValue implements Serializable {
+
+        private final Object value;
+
+        private final long loadTime = System.currentTimeMillis();
+
+        CachedValue(Object value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package fr.ippon.tatami.config;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Gives an int id to each string, so the cached statuses share their logins, usernames, domains and groups
+ * instead of keeping one copy of each string per status.
+ * <p/>
+ * Ids are never removed : this is only used for values which are shared by many statuses.
+ * <p/>
+ * Reads do not lock : new values are added to a copy of the array when it is full.
+ *
+ * @author Julien Dubois
+ */
+public class StringDictionary {
+
+    /**
+     * The id of the null value.
+     */
+    public static final int NULL_ID = -1;
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+
+    private final Object lock = new Object();
+
+    private volatile String[] values = new String[1024];
+
+    private int size;
+
+    public int getId(String value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        synchronized (lock) {
+            id = ids.get(value);
+            if (id == null) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                id = size++;
+                values[id] = value;
+                ids.put(value, id);
+            }
+            return id;
+        }
+    }
+
+    public String getValue(int id) {
+        if (id == NULL_ID) {
+            return null;
+        }
+        return values[id];
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package fr.ippon.tatami.domain;
+
+import java.io.Serializable;
+
+/**
+ * Usage of a cache : the misses are the reloads from the storage, the removals are the evictions done
+ * by the application, and the evictions are done by the cache when it is full.
+ * <p/>
+ * For the single-flight caches, the waits are the misses which waited for a value loaded by another thread, and
+ * the stale hits are the stale values returned while they were reloaded, and the average load time is the time
+ * between a miss and the put of the loaded value. The prevented reads are the reads of missing entities which were
+ * answered by the negative result cache.
+ * <p/>
+ * The memory used is estimated for the ehcache caches, and exact for the off-heap cache. The maximum number of
+ * entries and the time to live (in seconds) are 0 when they do not apply.
+ */
+public class CacheStatistics implements Serializable {
+
+    private String name;
+
+    private long size;
+
+    private boolean statisticsEnabled;
+
+    private long hits;
+
+    private long misses;
+
+    private long puts;
+
+    private long removals;
+
+    private long evictions;
+
+    private long expirations;
+
+    private long waits;
+
+    private long staleHits;
+
+    private long memoryUsed = -1;
+
+    private long memoryCapacity;
+
+    private long maxEntries;
+
+    private long timeToLive;
+
+    private double averageLoadTime;
+
+    private long preventedReads;
+
+    public CacheStatistics() {
+    }
+
+    public CacheStatistics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    public void setStatisticsEnabled(boolean statisticsEnabled) {
+        this.statisticsEnabled = statisticsEnabled;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getPuts() {
+        return puts;
+    }
+
+    public void setPuts(long puts) {
+        this.puts = puts;
+    }
+
+    public long getRemovals() {
+        return removals;
+    }
+
+    public void setRemovals(long removals) {
+        this.removals = removals;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public long getExpirations() {
+        return expirations;
+    }
+
+    public void setExpirations(long expirations) {
+        this.expirations = expirations;
+    }
+
+    public long getWaits() {
+        return waits;
+    }
+
+    public void setWaits(long waits) {
+        this.waits = waits;
+    }
+
+    public long getStaleHits() {
+        return staleHits;
+    }
+
+    public void setStaleHits(long staleHits) {
+        this.staleHits = staleHits;
+    }
+
+    /**
+     * Bytes used, or -1 when it is not known : the memory used by the ehcache caches is only estimated on request.
+     */
+    public long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    public void setMemoryUsed(long memoryUsed) {
+        this.memoryUsed = memoryUsed;
+    }
+
+    public long getMemoryCapacity() {
+        return memoryCapacity;
+    }
+
+    public void setMemoryCapacity(long memoryCapacity) {
+        this.memoryCapacity = memoryCapacity;
+    }
+
+    public long getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(long maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    public double getAverageLoadTime() {
+        return averageLoadTime;
+    }
+
+    public void setAverageLoadTime(double averageLoadTime) {
+        this.averageLoadTime = averageLoadTime;
+    }
+
+    public long getPreventedReads() {
+        return preventedReads;
+    }
+
+    public void setPreventedReads(long preventedReads) {
+        this.preventedReads = preventedReads;
+    }
+
+    public double getHitRatio() {
+        if (hits + misses == 0) {
+            return 0;
+        }
+        return (double) hits / (hits + misses);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{" +
+                "name='" + name + '\'' +
+                ", size=" + size +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", puts=" + puts +
+                ", removals=" + removals +
+                ", evictions=" + evictions +
+                ", expirations=" + expirations +
+                ", waits=" + waits +
+                ", staleHits=" + staleHits +
+                ", memoryUsed=" + memoryUsed +
+                ", memoryCapacity=" + memoryCapacity +
+                ", maxEntries=" + maxEntries +
+                ", timeToLive=" + timeToLive +
+                ", averageLoadTime=" + averageLoadTime +
+                ", preventedReads=" + preventedReads +
+                '}';
+    }
+}
@@ -0,0 +1,77 @@
+package fr.ippon.tatami.domain;
+
+import java.io.Serializable;
+
+/**
+ * Operations done on a Cassandra column family, and their consistency levels.
+ */
+public class ColumnFamilyStatistics implements Serializable {
+
+    private String columnFamily;
+
+    private String readConsistencyLevel;
+
+    private String writeConsistencyLevel;
+
+    private long reads;
+
+    private long writes;
+
+    public ColumnFamilyStatistics() {
+    }
+
+    public ColumnFamilyStatistics(String columnFamily) {
+        this.columnFamily = columnFamily;
+    }
+
+    public String getColumnFamily() {
+        return columnFamily;
+    }
+
+    public void setColumnFamily(String columnFamily) {
+        this.columnFamily = columnFamily;
+    }
+
+    public String getReadConsistencyLevel() {
+        return readConsistencyLevel;
+    }
+
+    public void setReadConsistencyLevel(String readConsistencyLevel) {
+        this.readConsistencyLevel = readConsistencyLevel;
+    }
+
+    public String getWriteConsistencyLevel() {
+        return writeConsistencyLevel;
+    }
+
+    public void setWriteConsistencyLevel(String writeConsistencyLevel) {
+        this.writeConsistencyLevel = writeConsistencyLevel;
+    }
+
+    public long getReads() {
+        return reads;
+    }
+
+    public void setReads(long reads) {
+        this.reads = reads;
+    }
+
+    public long getWrites() {
+        return writes;
+    }
+
+    public void setWrites(long writes) {
+        this.writes = writes;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnFamilyStatistics{" +
+                "columnFamily='" + columnFamily + '\'' +
+                ", readConsistencyLevel='" + readConsistencyLevel + '\'' +
+                ", writeConsistencyLevel='" + writeConsistencyLevel + '\'' +
+                ", reads=" + reads +
+                ", writes=" + writes +
+                '}';
+    }
+}
@@ -9,7 +9,7 @@ public class Domain implements Serializable, Comparable<Domain> {
 
     private String name;
 
-    private int numberOfUsers;
+    private long numberOfUsers;
 
     public String getName() {
         return name;
@@ -19,11 +19,11 @@ public class Domain implements Serializable, Comparable<Domain> {
         this.name = name;
     }
 
-    public int getNumberOfUsers() {
+    public long getNumberOfUsers() {
         return numberOfUsers;
     }
 
-    public void setNumberOfUsers(int numberOfUsers) {
+    public void setNumberOfUsers(long numberOfUsers) {
         this.numberOfUsers = numberOfUsers;
     }
 
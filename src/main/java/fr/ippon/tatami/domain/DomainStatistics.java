@@ -0,0 +1,73 @@
+package fr.ippon.tatami.domain;
+
+import java.io.Serializable;
+
+/**
+ * Statistics on a domain : they are maintained as counters, and do not require to scan the domain's data.
+ */
+public class DomainStatistics implements Serializable {
+
+    private String name;
+
+    private long numberOfUsers;
+
+    private long numberOfStatuses;
+
+    private long numberOfGroups;
+
+    private long numberOfTags;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getNumberOfUsers() {
+        return numberOfUsers;
+    }
+
+    public void setNumberOfUsers(long numberOfUsers) {
+        this.numberOfUsers = numberOfUsers;
+    }
+
+    public long getNumberOfStatuses() {
+        return numberOfStatuses;
+    }
+
+    public void setNumberOfStatuses(long numberOfStatuses) {
+        this.numberOfStatuses = numberOfStatuses;
+    }
+
+    public long getNumberOfGroups() {
+        return numberOfGroups;
+    }
+
+    public void setNumberOfGroups(long numberOfGroups) {
+        this.numberOfGroups = numberOfGroups;
+    }
+
+    /**
+     * The number of tags used in the domain's statuses.
+     */
+    public long getNumberOfTags() {
+        return numberOfTags;
+    }
+
+    public void setNumberOfTags(long numberOfTags) {
+        this.numberOfTags = numberOfTags;
+    }
+
+    @Override
+    public String toString() {
+        return "DomainStatistics{" +
+                "name='" + name + '\'' +
+                ", numberOfUsers=" + numberOfUsers +
+                ", numberOfStatuses=" + numberOfStatuses +
+                ", numberOfGroups=" + numberOfGroups +
+                ", numberOfTags=" + numberOfTags +
+                '}';
+    }
+}
@@ -0,0 +1,121 @@
+package fr.ippon.tatami.domain;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Statistics on the trimming of a line (timeline, mentionline, tagline or groupline) column family.
+ */
+public class LineStatistics implements Serializable {
+
+    private String columnFamily;
+
+    private int maxLength;
+
+    private long pendingRows;
+
+    private long checkedRows;
+
+    private long trimmedRows;
+
+    private long deletedColumns;
+
+    private long largestRowLength;
+
+    private Date lastTrimDate;
+
+    public LineStatistics() {
+    }
+
+    public LineStatistics(String columnFamily, int maxLength) {
+        this.columnFamily = columnFamily;
+        this.maxLength = maxLength;
+    }
+
+    public String getColumnFamily() {
+        return columnFamily;
+    }
+
+    public void setColumnFamily(String columnFamily) {
+        this.columnFamily = columnFamily;
+    }
+
+    /**
+     * The maximum number of statuses kept in a row, 0 if the rows are not trimmed.
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public void setMaxLength(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Number of rows which have been written to, and are waiting to be checked.
+     */
+    public long getPendingRows() {
+        return pendingRows;
+    }
+
+    public void setPendingRows(long pendingRows) {
+        this.pendingRows = pendingRows;
+    }
+
+    public long getCheckedRows() {
+        return checkedRows;
+    }
+
+    public void setCheckedRows(long checkedRows) {
+        this.checkedRows = checkedRows;
+    }
+
+    public long getTrimmedRows() {
+        return trimmedRows;
+    }
+
+    public void setTrimmedRows(long trimmedRows) {
+        this.trimmedRows = trimmedRows;
+    }
+
+    public long getDeletedColumns() {
+        return deletedColumns;
+    }
+
+    public void setDeletedColumns(long deletedColumns) {
+        this.deletedColumns = deletedColumns;
+    }
+
+    /**
+     * Number of columns of the largest row checked.
+     */
+    public long getLargestRowLength() {
+        return largestRowLength;
+    }
+
+    public void setLargestRowLength(long largestRowLength) {
+        this.largestRowLength = largestRowLength;
+    }
+
+    public Date getLastTrimDate() {
+        return lastTrimDate;
+    }
+
+    public void setLastTrimDate(Date lastTrimDate) {
+        this.lastTrimDate = lastTrimDate;
+    }
+
+    @Override
+    public String toString() {
+        return "LineStatistics{" +
+                "columnFamily='" + columnFamily + '\'' +
+                ", maxLength=" + maxLength +
+                ", pendingRows=" + pendingRows +
+                ", checkedRows=" + checkedRows +
+                ", trimmedRows=" + trimmedRows +
+                ", deletedColumns=" + deletedColumns +
+                ", largestRowLength=" + largestRowLength +
+                ", lastTrimDate=" + lastTrimDate +
+                '}';
+    }
+}
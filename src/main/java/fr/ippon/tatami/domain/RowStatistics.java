@@ -0,0 +1,127 @@
+package fr.ippon.tatami.domain;
+
+import java.io.Serializable;
+
+/**
+ * Operations done on a Cassandra row, estimated from the sampled operations of the hot row sketch.
+ */
+public class RowStatistics implements Serializable {
+
+    private String columnFamily;
+
+    private String key;
+
+    private long reads;
+
+    private long writes;
+
+    private long readColumns;
+
+    private long writtenColumns;
+
+    private long error;
+
+    private double readsPerSecond;
+
+    private double writesPerSecond;
+
+    public RowStatistics() {
+    }
+
+    public RowStatistics(String columnFamily, String key) {
+        this.columnFamily = columnFamily;
+        this.key = key;
+    }
+
+    public String getColumnFamily() {
+        return columnFamily;
+    }
+
+    public void setColumnFamily(String columnFamily) {
+        this.columnFamily = columnFamily;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public long getReads() {
+        return reads;
+    }
+
+    public void setReads(long reads) {
+        this.reads = reads;
+    }
+
+    public long getWrites() {
+        return writes;
+    }
+
+    public void setWrites(long writes) {
+        this.writes = writes;
+    }
+
+    /**
+     * Number of columns returned by the reads : the size of the responses.
+     */
+    public long getReadColumns() {
+        return readColumns;
+    }
+
+    public void setReadColumns(long readColumns) {
+        this.readColumns = readColumns;
+    }
+
+    public long getWrittenColumns() {
+        return writtenColumns;
+    }
+
+    public void setWrittenColumns(long writtenColumns) {
+        this.writtenColumns = writtenColumns;
+    }
+
+    /**
+     * Maximum over-estimation of the number of operations (reads + writes) : the row may have been
+     * counted with the operations of a row it replaced in the sketch.
+     */
+    public long getError() {
+        return error;
+    }
+
+    public void setError(long error) {
+        this.error = error;
+    }
+
+    public double getReadsPerSecond() {
+        return readsPerSecond;
+    }
+
+    public void setReadsPerSecond(double readsPerSecond) {
+        this.readsPerSecond = readsPerSecond;
+    }
+
+    public double getWritesPerSecond() {
+        return writesPerSecond;
+    }
+
+    public void setWritesPerSecond(double writesPerSecond) {
+        this.writesPerSecond = writesPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "RowStatistics{" +
+                "columnFamily='" + columnFamily + '\'' +
+                ", key='" + key + '\'' +
+                ", reads=" + reads +
+                ", writes=" + writes +
+                ", readColumns=" + readColumns +
+                ", writtenColumns=" + writtenColumns +
+                ", error=" + error +
+                '}';
+    }
+}
@@ -0,0 +1,116 @@
+package fr.ippon.tatami.domain;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Progress of the deletion of a user account.
+ * <p/>
+ * The deletion is done in steps, and is resumed at its current step if the node which runs it restarts.
+ */
+public class UserDeletion implements Serializable {
+
+    public enum Step {
+        ACCOUNT, FOLLOWERS, FRIENDS, LINES, COUNTERS
+    }
+
+    private String login;
+
+    private String node;
+
+    private Step step;
+
+    private Date startDate;
+
+    private Date progressDate;
+
+    private long removedFollowers;
+
+    private long removedFriends;
+
+    public UserDeletion() {
+    }
+
+    public UserDeletion(String login, String node) {
+        this.login = login;
+        this.node = node;
+        this.step = Step.ACCOUNT;
+        this.startDate = new Date();
+        this.progressDate = startDate;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    /**
+     * The node which runs the deletion.
+     */
+    public String getNode() {
+        return node;
+    }
+
+    public void setNode(String node) {
+        this.node = node;
+    }
+
+    public Step getStep() {
+        return step;
+    }
+
+    public void setStep(Step step) {
+        this.step = step;
+    }
+
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(Date startDate) {
+        this.startDate = startDate;
+    }
+
+    /**
+     * The last time the deletion progressed : a deletion which does not progress anymore is claimed by another node.
+     */
+    public Date getProgressDate() {
+        return progressDate;
+    }
+
+    public void setProgressDate(Date progressDate) {
+        this.progressDate = progressDate;
+    }
+
+    public long getRemovedFollowers() {
+        return removedFollowers;
+    }
+
+    public void setRemovedFollowers(long removedFollowers) {
+        this.removedFollowers = removedFollowers;
+    }
+
+    public long getRemovedFriends() {
+        return removedFriends;
+    }
+
+    public void setRemovedFriends(long removedFriends) {
+        this.removedFriends = removedFriends;
+    }
+
+    @Override
+    public String toString() {
+        return "UserDeletion{" +
+                "login='" + login + '\'' +
+                ", node='" + node + '\'' +
+                ", step=" + step +
+                ", startDate=" + startDate +
+                ", progressDate=" + progressDate +
+                ", removedFollowers=" + removedFollowers +
+                ", removedFriends=" + removedFriends +
+                '}';
+    }
+}
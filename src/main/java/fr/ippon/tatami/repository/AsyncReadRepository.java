@@ -0,0 +1,43 @@
+package fr.ippon.tatami.repository;
+
+import fr.ippon.tatami.domain.SharedStatusInfo;
+import fr.ippon.tatami.domain.Status;
+import fr.ippon.tatami.domain.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * The Async Read Repository : asynchronous versions of the reads done for every timeline request.
+ * <p/>
+ * The reads are done on the "cassandraReadExecutor" thread pool, so a caller can start several
+ * independent reads, and then wait once for all of them.
+ *
+ * @author Julien Dubois
+ */
+public interface AsyncReadRepository {
+
+    Future<Map<String, SharedStatusInfo>> getTimeline(String login, int size, String since_id, String max_id);
+
+    Future<Map<String, SharedStatusInfo>> getUserline(String login, int size, String since_id, String max_id);
+
+    Future<Map<String, SharedStatusInfo>> getMentionline(String login, int size, String since_id, String max_id);
+
+    Future<Map<String, SharedStatusInfo>> getFavoriteline(String login);
+
+    Future<Status> findStatusById(String statusId);
+
+    Future<User> findUserByLogin(String login);
+
+    /**
+     * Reads several users in one task : large lists of users are split in batches by the caller,
+     * instead of using one task for each user.
+     */
+    Future<List<User>> findUsersByLogin(Collection<String> logins);
+
+    Future<Collection<String>> findFriendsForUser(String login);
+
+    Future<Collection<String>> findFollowersForUser(String login);
+}
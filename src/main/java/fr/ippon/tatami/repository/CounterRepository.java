@@ -1,5 +1,7 @@
 package fr.ippon.tatami.repository;
 
+import java.util.Collection;
+
 /**
  * The Counter Repository.
  *
@@ -19,6 +21,16 @@ public interface CounterRepository {
 
     void decrementStatusCounter(String login);
 
+    /**
+     * Decrements the followers counters of several users, in one batch.
+     */
+    void decrementFollowersCounters(Collection<String> logins);
+
+    /**
+     * Decrements the friends counters of several users, in one batch.
+     */
+    void decrementFriendsCounters(Collection<String> logins);
+
     long getFollowersCounter(String login);
 
     long getFriendsCounter(String login);
@@ -0,0 +1,32 @@
+package fr.ippon.tatami.repository;
+
+import fr.ippon.tatami.domain.DomainStatistics;
+
+/**
+ * The Domain Counter Repository.
+ *
+ * @author Julien Dubois
+ */
+public interface DomainCounterRepository {
+
+    void incrementUserCounter(String domain);
+
+    void decrementUserCounter(String domain);
+
+    void incrementStatusCounter(String domain);
+
+    void decrementStatusCounter(String domain);
+
+    void incrementGroupCounter(String domain);
+
+    void incrementTagCounter(String domain);
+
+    long getUserCounter(String domain);
+
+    DomainStatistics getDomainStatistics(String domain);
+
+    /**
+     * Sets the counters of a domain to recounted values.
+     */
+    void setDomainStatistics(DomainStatistics statistics);
+}
@@ -18,7 +18,22 @@ public interface DomainRepository {
 
     void deleteUserInDomain(String domain, String login);
 
-    List<String> getLoginsInDomain(String domain, int pagination);
+    /**
+     * Get a slice of the logins of a domain, in alphabetical order.
+     *
+     * @param startLogin the first login of the slice (inclusive), or null to start with the first login of the domain
+     * @param size       the maximum number of logins to return
+     */
+    List<String> getLoginsInDomain(String domain, String startLogin, int size);
+
+    /**
+     * Get a slice of the logins of a domain, in reverse alphabetical order : this is used to go back
+     * to the previous page.
+     *
+     * @param startLogin the first login of the slice (inclusive), or null to start with the last login of the domain
+     * @param size       the maximum number of logins to return
+     */
+    List<String> getLoginsInDomainReversed(String domain, String startLogin, int size);
 
     Set<Domain> getAllDomains();
 }
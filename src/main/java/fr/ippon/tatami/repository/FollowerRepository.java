@@ -1,6 +1,7 @@
 package fr.ippon.tatami.repository;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * The Follower Repository.
@@ -13,6 +14,22 @@ public interface FollowerRepository {
 
     void removeFollower(String login, String followerLogin);
 
+    /**
+     * Removes several followers of a user, in one batch.
+     */
+    void removeFollowers(String login, Collection<String> followerLogins);
+
+    /**
+     * Removes a user from the followers of several users, in one batch.
+     */
+    void removeFollowerOfUsers(Collection<String> logins, String followerLogin);
+
     Collection<String> findFollowersForUser(String login);
 
+    /**
+     * Iterates over the followers of a user, by slices of a fixed size : only one slice is loaded
+     * from the database at a time.
+     */
+    Iterable<List<String>> findFollowersForUserInSlices(String login);
+
 }
@@ -1,6 +1,7 @@
 package fr.ippon.tatami.repository;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * The Friend Repository.
@@ -13,5 +14,21 @@ public interface FriendRepository {
 
     void removeFriend(String login, String friendLogin);
 
+    /**
+     * Removes several friends of a user, in one batch.
+     */
+    void removeFriends(String login, Collection<String> friendLogins);
+
+    /**
+     * Removes a user from the friends of several users, in one batch.
+     */
+    void removeFriendOfUsers(Collection<String> logins, String friendLogin);
+
     Collection<String> findFriendsForUser(String login);
+
+    /**
+     * Iterates over the friends of a user, by slices of a fixed size : only one slice is loaded
+     * from the database at a time.
+     */
+    Iterable<List<String>> findFriendsForUserInSlices(String login);
 }
@@ -12,4 +12,6 @@ public interface GroupRepository {
     String createGroup(String domain);
 
     Group getGroupById(String domain, String groupId);
+
+    int countGroups(String domain);
 }
@@ -0,0 +1,34 @@
+package fr.ippon.tatami.repository;
+
+/**
+ * The Idempotency Key Repository : remembers which status was created for a key sent by a client.
+ * <p/>
+ * A key is reserved before its status is created, so concurrent requests with the same key do not both
+ * create a status : only the request which holds the reservation creates it.
+ *
+ * @author Julien Dubois
+ */
+public interface IdempotencyKeyRepository {
+
+    /**
+     * Reserves a key for the request identified by "reservationId".
+     *
+     * @return true if this request holds the reservation, false if another request reserved the key first
+     */
+    boolean reserveIdempotencyKey(String login, String idempotencyKey, String reservationId);
+
+    /**
+     * Releases a reservation, when its status could not be created.
+     */
+    void removeIdempotencyKey(String login, String idempotencyKey, String reservationId);
+
+    /**
+     * Stores the status created by the request which holds the reservation.
+     */
+    void addIdempotencyKey(String login, String idempotencyKey, String reservationId, String statusId);
+
+    /**
+     * @return the status created for this key, or null if the key is not reserved, or if its status is not created yet
+     */
+    String findStatusIdByIdempotencyKey(String login, String idempotencyKey);
+}
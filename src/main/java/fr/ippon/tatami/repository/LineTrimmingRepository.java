@@ -0,0 +1,28 @@
+package fr.ippon.tatami.repository;
+
+import fr.ippon.tatami.domain.LineStatistics;
+
+import java.util.Collection;
+
+/**
+ * The Line Trimming Repository : keeps the timeline, mentionline, tagline and groupline rows
+ * under their maximum length, as well as the timeline shares rows.
+ * <p/>
+ * Older statuses are still available in the userlines of their authors.
+ *
+ * @author Julien Dubois
+ */
+public interface LineTrimmingRepository {
+
+    /**
+     * Delete the oldest statuses of the lines which have been written to since the last call.
+     */
+    void trimLines();
+
+    /**
+     * Delete the oldest statuses of all the lines.
+     */
+    void trimAllLines();
+
+    Collection<LineStatistics> getLineStatistics();
+}
@@ -10,4 +10,11 @@ public interface RegistrationRepository {
     String generateRegistrationKey(String login);
 
     String getLoginByRegistrationKey(String registrationKey);
+
+    /**
+     * Moves the registration keys stored in one single row, to one row per registration key.
+     *
+     * @return the number of registration keys which have been rewritten
+     */
+    int migrateToKeyRows();
 }
@@ -4,6 +4,7 @@ import fr.ippon.tatami.domain.Group;
 import fr.ippon.tatami.domain.Status;
 
 import javax.validation.ConstraintViolationException;
+import java.util.List;
 
 /**
  * The Status Repository.
@@ -28,4 +29,11 @@ public interface StatusRepository {
      * @return null if status was removed
      */
     Status findStatusById(String statusId);
+
+    /**
+     * Lists the ids of all the stored statuses, by batches, in the storage order.
+     *
+     * @param startStatusId the first id of the batch (inclusive), null to start from the beginning
+     */
+    List<String> findStatusIds(String startStatusId, int size);
 }
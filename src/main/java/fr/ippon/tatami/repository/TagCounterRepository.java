@@ -1,5 +1,7 @@
 package fr.ippon.tatami.repository;
 
+import java.util.Map;
+
 /**
  * The Tag Counter Repository.
  *
@@ -14,4 +16,9 @@ public interface TagCounterRepository {
     void decrementTagCounter(String domain, String tag);
 
     void deleteTagCounter(String domain, String tag);
+
+    /**
+     * Counts the tags which are used at least once, for each domain.
+     */
+    Map<String, Long> countTagsByDomain();
 }
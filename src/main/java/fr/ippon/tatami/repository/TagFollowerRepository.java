@@ -1,6 +1,7 @@
 package fr.ippon.tatami.repository;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Specific Follower repository for tags.
@@ -13,4 +14,10 @@ public interface TagFollowerRepository {
 
     Collection<String> findFollowers(String domain, String tag);
 
+    /**
+     * Iterates over the followers of a tag, by slices of a fixed size : only one slice is loaded
+     * from the database at a time.
+     */
+    Iterable<List<String>> findFollowersInSlices(String domain, String tag);
+
 }
@@ -24,4 +24,11 @@ public interface TaglineRepository {
      * which returns Map<String, String>
      */
     Map<String, SharedStatusInfo> getTagline(String domain, String tag, int size, String since_id, String max_id);
+
+    /**
+     * Rewrites the taglines stored before time buckets were introduced into monthly buckets.
+     *
+     * @return the number of rows which have been rewritten
+     */
+    int migrateToTimeBuckets();
 }
@@ -3,6 +3,7 @@ package fr.ippon.tatami.repository;
 import fr.ippon.tatami.domain.SharedStatusInfo;
 import fr.ippon.tatami.domain.Status;
 
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -20,8 +21,18 @@ public interface TimelineRepository {
 
     void addStatusToTimeline(String login, Status status);
 
+    /**
+     * Add a status to the timelines of several users, in one batch.
+     */
+    void addStatusToTimelines(Collection<String> logins, Status status);
+
     void shareStatusToTimeline(String sharedByLogin, String timelineLogin, Status status);
 
+    /**
+     * Share a status to the timelines of several users, in one batch.
+     */
+    void shareStatusToTimelines(String sharedByLogin, Collection<String> timelineLogins, Status status);
+
     void deleteTimeline(String login);
 
     /**
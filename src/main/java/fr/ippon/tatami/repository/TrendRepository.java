@@ -10,4 +10,11 @@ public interface TrendRepository {
     void addTag(String domain, String tag);
 
     List<String> getRecentTags(String domain);
+
+    /**
+     * Rewrites the trends stored before time buckets were introduced into daily buckets.
+     *
+     * @return the number of rows which have been rewritten
+     */
+    int migrateToTimeBuckets();
 }
@@ -0,0 +1,32 @@
+package fr.ippon.tatami.repository;
+
+import fr.ippon.tatami.domain.UserDeletion;
+
+import java.util.Collection;
+
+/**
+ * The User Deletion Repository : stores the progress of the user deletions.
+ *
+ * @author Julien Dubois
+ */
+public interface UserDeletionRepository {
+
+    void saveUserDeletion(UserDeletion userDeletion);
+
+    UserDeletion findUserDeletion(String login);
+
+    /**
+     * The deletions which are not finished.
+     */
+    Collection<UserDeletion> findUserDeletions();
+
+    void removeUserDeletion(String login);
+
+    /**
+     * Gives a deletion to "node", if it has not progressed for "leaseMillis" : when several nodes claim the same
+     * deletion at the same time, at most one of them gets it.
+     *
+     * @return true if "node" now runs the deletion
+     */
+    boolean claimUserDeletion(String login, String node, long leaseMillis);
+}
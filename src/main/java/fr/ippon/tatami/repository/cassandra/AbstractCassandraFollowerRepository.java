@@ -2,18 +2,15 @@ package fr.ippon.tatami.repository.cassandra;
 
 import me.prettyprint.cassandra.serializers.LongSerializer;
 import me.prettyprint.cassandra.serializers.StringSerializer;
-import me.prettyprint.cassandra.service.template.ColumnFamilyResult;
-import me.prettyprint.cassandra.service.template.ColumnFamilyTemplate;
-import me.prettyprint.cassandra.service.template.ThriftColumnFamilyTemplate;
 import me.prettyprint.hector.api.Keyspace;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
 
-import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.List;
 
 import static fr.ippon.tatami.config.ColumnFamilyKeys.FOLLOWERS_CF;
 
@@ -22,19 +19,14 @@ import static fr.ippon.tatami.config.ColumnFamilyKeys.FOLLOWERS_CF;
  */
 public abstract class AbstractCassandraFollowerRepository {
 
-    ColumnFamilyTemplate<String, String> template;
+    /**
+     * Maximum number of followers read in one query.
+     */
+    public static final int FOLLOWERS_SLICE_SIZE = 500;
 
     @Inject
     private Keyspace keyspaceOperator;
 
-    @PostConstruct
-    public void init() {
-        template = new ThriftColumnFamilyTemplate<String, String>(keyspaceOperator,
-                getFollowersCF(),
-                StringSerializer.get(),
-                StringSerializer.get());
-    }
-
     protected void addFollower(String key, String followerKey) {
         Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
         mutator.insert(key, FOLLOWERS_CF, HFactory.createColumn(followerKey,
@@ -46,14 +38,36 @@ public abstract class AbstractCassandraFollowerRepository {
         mutator.delete(key, FOLLOWERS_CF, followerKey, StringSerializer.get());
     }
 
+    protected void removeFollowers(String key, Collection<String> followerKeys) {
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        for (String followerKey : followerKeys) {
+            mutator.addDeletion(key, FOLLOWERS_CF, followerKey, StringSerializer.get());
+        }
+        mutator.execute();
+    }
+
+    protected void removeFollowerOfKeys(Collection<String> keys, String followerKey) {
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        for (String key : keys) {
+            mutator.addDeletion(key, FOLLOWERS_CF, followerKey, StringSerializer.get());
+        }
+        mutator.execute();
+    }
+
     protected Collection<String> findFollowers(String key) {
-        ColumnFamilyResult<String, String> result = template.queryColumns(key);
         Collection<String> followers = new ArrayList<String>();
-        for (String columnName : result.getColumnNames()) {
-            followers.add(columnName);
+        for (List<String> followersSlice : findFollowersInSlices(key)) {
+            followers.addAll(followersSlice);
         }
         return followers;
     }
 
+    /**
+     * Iterates over the followers, by slices of FOLLOWERS_SLICE_SIZE followers.
+     */
+    protected Iterable<List<String>> findFollowersInSlices(String key) {
+        return new ColumnNameSliceIterable(keyspaceOperator, getFollowersCF(), key, FOLLOWERS_SLICE_SIZE);
+    }
+
     protected abstract String getFollowersCF();
 }
@@ -2,37 +2,29 @@ package fr.ippon.tatami.repository.cassandra;
 
 import me.prettyprint.cassandra.serializers.LongSerializer;
 import me.prettyprint.cassandra.serializers.StringSerializer;
-import me.prettyprint.cassandra.service.template.ColumnFamilyResult;
-import me.prettyprint.cassandra.service.template.ColumnFamilyTemplate;
-import me.prettyprint.cassandra.service.template.ThriftColumnFamilyTemplate;
 import me.prettyprint.hector.api.Keyspace;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
 
-import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Abstract class for managing friends : users or tags that a user follows.
  */
 public abstract class AbstractCassandraFriendRepository {
 
-    ColumnFamilyTemplate<String, String> friendsTemplate;
+    /**
+     * Maximum number of friends read in one query.
+     */
+    public static final int FRIENDS_SLICE_SIZE = 500;
 
     @Inject
     private Keyspace keyspaceOperator;
 
-    @PostConstruct
-    public void init() {
-        friendsTemplate = new ThriftColumnFamilyTemplate<String, String>(keyspaceOperator,
-                getFriendsCF(),
-                StringSerializer.get(),
-                StringSerializer.get());
-    }
-
     protected void addFriend(String key, String friendKey) {
         Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
         mutator.insert(key, getFriendsCF(), HFactory.createColumn(friendKey,
@@ -44,14 +36,36 @@ public abstract class AbstractCassandraFriendRepository {
         mutator.delete(key, getFriendsCF(), friendKey, StringSerializer.get());
     }
 
+    protected void removeFriends(String key, Collection<String> friendKeys) {
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        for (String friendKey : friendKeys) {
+            mutator.addDeletion(key, getFriendsCF(), friendKey, StringSerializer.get());
+        }
+        mutator.execute();
+    }
+
+    protected void removeFriendOfKeys(Collection<String> keys, String friendKey) {
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        for (String key : keys) {
+            mutator.addDeletion(key, getFriendsCF(), friendKey, StringSerializer.get());
+        }
+        mutator.execute();
+    }
+
     protected Collection<String> findFriends(String key) {
-        ColumnFamilyResult<String, String> result = friendsTemplate.queryColumns(key);
         Collection<String> friends = new ArrayList<String>();
-        for (String columnName : result.getColumnNames()) {
-            friends.add(columnName);
+        for (List<String> friendsSlice : findFriendsInSlices(key)) {
+            friends.addAll(friendsSlice);
         }
         return friends;
     }
 
+    /**
+     * Iterates over the friends, by slices of FRIENDS_SLICE_SIZE friends.
+     */
+    protected Iterable<List<String>> findFriendsInSlices(String key) {
+        return new ColumnNameSliceIterable(keyspaceOperator, getFriendsCF(), key, FRIENDS_SLICE_SIZE);
+    }
+
     protected abstract String getFriendsCF();
 }
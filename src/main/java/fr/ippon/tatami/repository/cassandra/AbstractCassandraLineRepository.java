@@ -4,10 +4,11 @@ import fr.ippon.tatami.domain.SharedStatusInfo;
 import fr.ippon.tatami.domain.Status;
 import me.prettyprint.cassandra.serializers.StringSerializer;
 import me.prettyprint.cassandra.serializers.UUIDSerializer;
-import me.prettyprint.cassandra.utils.TimeUUIDUtils;
 import me.prettyprint.hector.api.Keyspace;
 import me.prettyprint.hector.api.beans.ColumnSlice;
 import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.beans.Row;
+import me.prettyprint.hector.api.beans.Rows;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
 import me.prettyprint.hector.api.query.ColumnQuery;
@@ -16,10 +17,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import javax.inject.Inject;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.UUID;
+import java.util.*;
 
 import static me.prettyprint.hector.api.factory.HFactory.createSliceQuery;
 
@@ -40,6 +38,16 @@ public abstract class AbstractCassandraLineRepository {
     @Inject
     protected Keyspace keyspaceOperator;
 
+    @Inject
+    private CassandraLineTrimmingRepository lineTrimmingRepository;
+
+    /**
+     * Registers a row which has been written to, so it is trimmed if it grows above its maximum length.
+     */
+    protected void markForTrimming(String columnFamily, String key) {
+        lineTrimmingRepository.markForTrimming(columnFamily, key);
+    }
+
     protected Map<String, SharedStatusInfo> getLineFromCF(String cf, String login, int size, String since_id, String max_id) {
         List<HColumn<UUID, String>> result;
         if (max_id != null) {
@@ -114,7 +122,7 @@ public abstract class AbstractCassandraLineRepository {
                     findByLoginAndName(sharesColumnFamily, login, name);
 
             if (isStatusAlreadyShared.get() == null) {
-                UUID shareId = TimeUUIDUtils.getUniqueTimeUUIDinMillis();
+                UUID shareId = TimeUUIDGenerator.getUniqueTimeUUID();
                 Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
 
                 mutator.insert(login, columnFamily, HFactory.createColumn(shareId,
@@ -122,6 +130,9 @@ public abstract class AbstractCassandraLineRepository {
 
                 mutator.insert(login, sharesColumnFamily, HFactory.createColumn(UUID.fromString(status.getStatusId()),
                         "", UUIDSerializer.get(), StringSerializer.get()));
+
+                markForTrimming(columnFamily, login);
+                markForTrimming(sharesColumnFamily, login);
             } else {
                 if (log.isDebugEnabled()) {
                     log.debug("Shared status " + status.getStatusId() + " is already shared in " + columnFamily);
@@ -134,6 +145,66 @@ public abstract class AbstractCassandraLineRepository {
         }
     }
 
+    /**
+     * Shares a status in the lines of several users : this is the batch version of
+     * shareStatus(login, status, sharedByLogin, columnFamily, sharesColumnFamily).
+     * <p/>
+     * The lines which already contain the status, or which already have shared it,
+     * are found with 2 queries for the whole batch, and all the other lines are updated in one mutation.
+     */
+    protected void shareStatus(Collection<String> logins,
+                               Status status,
+                               String sharedByLogin,
+                               String columnFamily,
+                               String sharesColumnFamily) {
+
+        if (logins.isEmpty()) {
+            return;
+        }
+        UUID name = UUID.fromString(status.getStatusId());
+        Set<String> loginsToSkip = findLoginsWithName(columnFamily, logins, name);
+        loginsToSkip.addAll(findLoginsWithName(sharesColumnFamily, logins, name));
+
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        for (String login : logins) {
+            if (!loginsToSkip.contains(login)) {
+                UUID shareId = TimeUUIDGenerator.getUniqueTimeUUID();
+                mutator.addInsertion(login, columnFamily, HFactory.createColumn(shareId,
+                        "statusId:" + status.getStatusId() + ",sharedByLogin:" + sharedByLogin, UUIDSerializer.get(), StringSerializer.get()));
+
+                mutator.addInsertion(login, sharesColumnFamily, HFactory.createColumn(name,
+                        "", UUIDSerializer.get(), StringSerializer.get()));
+
+                markForTrimming(columnFamily, login);
+                markForTrimming(sharesColumnFamily, login);
+            } else {
+                if (log.isDebugEnabled()) {
+                    log.debug("Shared status " + status.getStatusId() + " is already in " + columnFamily +
+                            " for " + login);
+                }
+            }
+        }
+        mutator.execute();
+    }
+
+    private Set<String> findLoginsWithName(String columnFamily, Collection<String> logins, UUID name) {
+        Rows<String, UUID, String> rows = HFactory.createMultigetSliceQuery(keyspaceOperator,
+                StringSerializer.get(), UUIDSerializer.get(), StringSerializer.get())
+                .setColumnFamily(columnFamily)
+                .setKeys(logins)
+                .setColumnNames(name)
+                .execute()
+                .get();
+
+        Set<String> loginsWithName = new HashSet<String>();
+        for (Row<String, UUID, String> row : rows) {
+            if (!row.getColumnSlice().getColumns().isEmpty()) {
+                loginsWithName.add(row.getKey());
+            }
+        }
+        return loginsWithName;
+    }
+
     private QueryResult<HColumn<UUID, String>> findByLoginAndName(String columnFamily, String login, UUID name) {
         ColumnQuery<String, UUID, String> columnQuery =
                 HFactory.createColumnQuery(keyspaceOperator, StringSerializer.get(),
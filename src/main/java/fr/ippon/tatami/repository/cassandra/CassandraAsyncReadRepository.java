@@ -0,0 +1,112 @@
+package fr.ippon.tatami.repository.cassandra;
+
+import fr.ippon.tatami.domain.SharedStatusInfo;
+import fr.ippon.tatami.domain.Status;
+import fr.ippon.tatami.domain.User;
+import fr.ippon.tatami.repository.*;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.AsyncResult;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Cassandra implementation of the Async Read repository.
+ * <p/>
+ * Each read is delegated to its synchronous repository, so it goes through the same caches.
+ *
+ * @author Julien Dubois
+ */
+@Repository
+public class CassandraAsyncReadRepository implements AsyncReadRepository {
+
+    @Inject
+    private TimelineRepository timelineRepository;
+
+    @Inject
+    private UserlineRepository userlineRepository;
+
+    @Inject
+    private MentionlineRepository mentionlineRepository;
+
+    @Inject
+    private FavoritelineRepository favoritelineRepository;
+
+    @Inject
+    private StatusRepository statusRepository;
+
+    @Inject
+    private UserRepository userRepository;
+
+    @Inject
+    private FriendRepository friendRepository;
+
+    @Inject
+    private FollowerRepository followerRepository;
+
+    @Override
+    @Async("cassandraReadExecutor")
+    public Future<Map<String, SharedStatusInfo>> getTimeline(String login, int size, String since_id, String max_id) {
+        return new AsyncResult<Map<String, SharedStatusInfo>>(
+                timelineRepository.getTimeline(login, size, since_id, max_id));
+    }
+
+    @Override
+    @Async("cassandraReadExecutor")
+    public Future<Map<String, SharedStatusInfo>> getUserline(String login, int size, String since_id, String max_id) {
+        return new AsyncResult<Map<String, SharedStatusInfo>>(
+                userlineRepository.getUserline(login, size, since_id, max_id));
+    }
+
+    @Override
+    @Async("cassandraReadExecutor")
+    public Future<Map<String, SharedStatusInfo>> getMentionline(String login, int size, String since_id, String max_id) {
+        return new AsyncResult<Map<String, SharedStatusInfo>>(
+                mentionlineRepository.getMentionline(login, size, since_id, max_id));
+    }
+
+    @Override
+    @Async("cassandraReadExecutor")
+    public Future<Map<String, SharedStatusInfo>> getFavoriteline(String login) {
+        return new AsyncResult<Map<String, SharedStatusInfo>>(favoritelineRepository.getFavoriteline(login));
+    }
+
+    @Override
+    @Async("cassandraReadExecutor")
+    public Future<Status> findStatusById(String statusId) {
+        return new AsyncResult<Status>(statusRepository.findStatusById(statusId));
+    }
+
+    @Override
+    @Async("cassandraReadExecutor")
+    public Future<User> findUserByLogin(String login) {
+        return new AsyncResult<User>(userRepository.findUserByLogin(login));
+    }
+
+    @Override
+    @Async("cassandraReadExecutor")
+    public Future<List<User>> findUsersByLogin(Collection<String> logins) {
+        List<User> users = new ArrayList<User>(logins.size());
+        for (String login : logins) {
+            users.add(userRepository.findUserByLogin(login));
+        }
+        return new AsyncResult<List<User>>(users);
+    }
+
+    @Override
+    @Async("cassandraReadExecutor")
+    public Future<Collection<String>> findFriendsForUser(String login) {
+        return new AsyncResult<Collection<String>>(friendRepository.findFriendsForUser(login));
+    }
+
+    @Override
+    @Async("cassandraReadExecutor")
+    public Future<Collection<String>> findFollowersForUser(String login) {
+        return new AsyncResult<Collection<String>>(followerRepository.findFollowersForUser(login));
+    }
+}
@@ -1,18 +1,29 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.repository.CounterRepository;
 import me.prettyprint.cassandra.model.thrift.ThriftCounterColumnQuery;
 import me.prettyprint.cassandra.serializers.StringSerializer;
 import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HCounterColumn;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
 import me.prettyprint.hector.api.query.CounterQuery;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import javax.inject.Inject;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import static fr.ippon.tatami.config.ColumnFamilyKeys.COUNTER_CF;
 import static me.prettyprint.hector.api.factory.HFactory.createCounterColumn;
@@ -24,10 +35,18 @@ import static me.prettyprint.hector.api.factory.HFactory.createCounterColumn;
  * - Key = login
  * - Name = counterId
  * - Value = count
+ * <p/>
+ * The counters are cached in the "counter-cache", separately from the users : an increment or a decrement
+ * is applied to the cached value, instead of evicting the user from the "user-cache".
+ * <p/>
+ * A write which runs during a read of the counters may, or may not, be included in the value read : the writes
+ * are counted by stripes of logins, and the counters read while a write of their stripe was running are
+ * not cached.
  *
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraCounterRepository implements CounterRepository {
 
     private static final String STATUS_COUNTER = "STATUS_COUNTER";
@@ -38,45 +57,66 @@ public class CassandraCounterRepository implements CounterRepository {
 
     private final Log log = LogFactory.getLog(CassandraCounterRepository.class);
 
+    private static final String COUNTER_CACHE = "counter-cache";
+
+    private static final int WRITE_STRIPES = 1024;
+
+    /**
+     * Number of started and finished writes, for each stripe of logins.
+     */
+    private final AtomicLongArray startedWrites = new AtomicLongArray(WRITE_STRIPES);
+
+    private final AtomicLongArray finishedWrites = new AtomicLongArray(WRITE_STRIPES);
+
     @Inject
     private Keyspace keyspaceOperator;
 
+    /**
+     * Only available when caching is enabled.
+     */
+    @Autowired(required = false)
+    private CacheManager cacheManager;
+
     @Override
-    @CacheEvict(value = "user-cache", key = "#login")
     public void incrementFollowersCounter(String login) {
         incrementCounter(FOLLOWERS_COUNTER, login);
     }
 
     @Override
-    @CacheEvict(value = "user-cache", key = "#login")
     public void incrementFriendsCounter(String login) {
         incrementCounter(FRIENDS_COUNTER, login);
     }
 
     @Override
-    @CacheEvict(value = "user-cache", key = "#login")
     public void incrementStatusCounter(String login) {
         incrementCounter(STATUS_COUNTER, login);
     }
 
     @Override
-    @CacheEvict(value = "user-cache", key = "#login")
     public void decrementFollowersCounter(String login) {
         decrementCounter(FOLLOWERS_COUNTER, login);
     }
 
     @Override
-    @CacheEvict(value = "user-cache", key = "#login")
     public void decrementFriendsCounter(String login) {
         decrementCounter(FRIENDS_COUNTER, login);
     }
 
     @Override
-    @CacheEvict(value = "user-cache", key = "#login")
     public void decrementStatusCounter(String login) {
         decrementCounter(STATUS_COUNTER, login);
     }
 
+    @Override
+    public void decrementFollowersCounters(Collection<String> logins) {
+        decrementCounters(FOLLOWERS_COUNTER, logins);
+    }
+
+    @Override
+    public void decrementFriendsCounters(Collection<String> logins) {
+        decrementCounters(FRIENDS_COUNTER, logins);
+    }
+
     @Override
     public long getFollowersCounter(String login) {
         return getCounter(FOLLOWERS_COUNTER, login);
@@ -109,30 +149,161 @@ public class CassandraCounterRepository implements CounterRepository {
 
     @Override
     public void deleteCounters(String login) {
-        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
-        mutator.addCounterDeletion(login, COUNTER_CF, STATUS_COUNTER, StringSerializer.get());
-        mutator.addCounterDeletion(login, COUNTER_CF, FOLLOWERS_COUNTER, StringSerializer.get());
-        mutator.addCounterDeletion(login, COUNTER_CF, FRIENDS_COUNTER, StringSerializer.get());
-        mutator.execute();
+        startWrite(login);
+        try {
+            Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+            mutator.addCounterDeletion(login, COUNTER_CF, STATUS_COUNTER, StringSerializer.get());
+            mutator.addCounterDeletion(login, COUNTER_CF, FOLLOWERS_COUNTER, StringSerializer.get());
+            mutator.addCounterDeletion(login, COUNTER_CF, FRIENDS_COUNTER, StringSerializer.get());
+            mutator.execute();
+            evictCounters(login);
+        } finally {
+            finishWrite(login);
+        }
     }
 
     private void createCounter(String counterName, String login) {
-        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
-        mutator.insertCounter(login, COUNTER_CF,
-                createCounterColumn(counterName, 0));
+        startWrite(login);
+        try {
+            Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+            mutator.insertCounter(login, COUNTER_CF,
+                    createCounterColumn(counterName, 0));
+            evictCounters(login);
+        } finally {
+            finishWrite(login);
+        }
     }
 
     private void incrementCounter(String counterName, String login) {
-        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
-        mutator.incrementCounter(login, COUNTER_CF, counterName, 1);
+        startWrite(login);
+        try {
+            Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+            mutator.incrementCounter(login, COUNTER_CF, counterName, 1);
+            addToCachedCounter(counterName, login, 1);
+        } finally {
+            finishWrite(login);
+        }
     }
 
     private void decrementCounter(String counterName, String login) {
-        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
-        mutator.decrementCounter(login, COUNTER_CF, counterName, 1);
+        startWrite(login);
+        try {
+            Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+            mutator.decrementCounter(login, COUNTER_CF, counterName, 1);
+            addToCachedCounter(counterName, login, -1);
+        } finally {
+            finishWrite(login);
+        }
+    }
+
+    private void decrementCounters(String counterName, Collection<String> logins) {
+        for (String login : logins) {
+            startWrite(login);
+        }
+        try {
+            Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+            for (String login : logins) {
+                mutator.addCounter(login, COUNTER_CF, createCounterColumn(counterName, -1L));
+            }
+            mutator.execute();
+            for (String login : logins) {
+                addToCachedCounter(counterName, login, -1);
+            }
+        } finally {
+            for (String login : logins) {
+                finishWrite(login);
+            }
+        }
     }
 
+    /**
+     * On a miss, the counters are read, and then cached only if no write of their stripe was running during
+     * the read, and no write has started since the read : otherwise the value read may miss a write.
+     */
     private long getCounter(String counterName, String login) {
+        Cache counterCache = getCounterCache();
+        if (counterCache == null) {
+            return readCounter(counterName, login);
+        }
+        CachedCounters counters;
+        Cache.ValueWrapper cachedCounters = counterCache.get(login);
+        if (cachedCounters == null) {
+            int stripe = getStripe(login);
+            long writes = startedWrites.get(stripe);
+            boolean writeRunning = finishedWrites.get(stripe) != writes;
+            counters = readCounters(login);
+            if (!writeRunning) {
+                counterCache.put(login, counters);
+                if (startedWrites.get(stripe) != writes) {
+                    counterCache.evict(login);
+                }
+            }
+        } else {
+            counters = (CachedCounters) cachedCounters.get();
+        }
+        return counters.get(counterName);
+    }
+
+    private void startWrite(String login) {
+        startedWrites.incrementAndGet(getStripe(login));
+    }
+
+    private void finishWrite(String login) {
+        finishedWrites.incrementAndGet(getStripe(login));
+    }
+
+    private int getStripe(String login) {
+        return (login.hashCode() & Integer.MAX_VALUE) % WRITE_STRIPES;
+    }
+
+    /**
+     * Applies a delta to the cached counters of a user, if they are cached.
+     */
+    private void addToCachedCounter(String counterName, String login, long delta) {
+        Cache counterCache = getCounterCache();
+        if (counterCache != null) {
+            Cache.ValueWrapper cachedCounters = counterCache.get(login);
+            if (cachedCounters != null) {
+                ((CachedCounters) cachedCounters.get()).add(counterName, delta);
+            }
+        }
+    }
+
+    private void evictCounters(String login) {
+        Cache counterCache = getCounterCache();
+        if (counterCache != null) {
+            counterCache.evict(login);
+        }
+    }
+
+    private Cache getCounterCache() {
+        if (cacheManager == null) {
+            return null;
+        }
+        return cacheManager.getCache(COUNTER_CACHE);
+    }
+
+    /**
+     * Reads all the counters of a user, in one query.
+     */
+    private CachedCounters readCounters(String login) {
+        List<HCounterColumn<String>> columns = HFactory.createCounterSliceQuery(keyspaceOperator,
+                StringSerializer.get(), StringSerializer.get())
+                .setColumnFamily(COUNTER_CF)
+                .setKey(login)
+                .setColumnNames(STATUS_COUNTER, FOLLOWERS_COUNTER, FRIENDS_COUNTER)
+                .execute()
+                .get()
+                .getColumns();
+
+        CachedCounters counters = new CachedCounters();
+        for (HCounterColumn<String> column : columns) {
+            counters.add(column.getName(), column.getValue());
+        }
+        return counters;
+    }
+
+    private long readCounter(String counterName, String login) {
         CounterQuery<String, String> counter =
                 new ThriftCounterColumnQuery<String, String>(keyspaceOperator,
                         StringSerializer.get(),
@@ -141,4 +312,26 @@ public class CassandraCounterRepository implements CounterRepository {
         counter.setColumnFamily(COUNTER_CF).setKey(login).setName(counterName);
         return counter.execute().get().getValue();
     }
+
+    /**
+     * The counters of a user, as stored in the "counter-cache".
+     */
+    private static class CachedCounters {
+
+        private final Map<String, AtomicLong> values = new HashMap<String, AtomicLong>();
+
+        CachedCounters() {
+            values.put(STATUS_COUNTER, new AtomicLong());
+            values.put(FOLLOWERS_COUNTER, new AtomicLong());
+            values.put(FRIENDS_COUNTER, new AtomicLong());
+        }
+
+        long get(String counterName) {
+            return values.get(counterName).get();
+        }
+
+        void add(String counterName, long delta) {
+            values.get(counterName).addAndGet(delta);
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.domain.Status;
 import fr.ippon.tatami.domain.UserStatusStat;
 import fr.ippon.tatami.repository.DaylineRepository;
@@ -13,6 +14,7 @@ import me.prettyprint.hector.api.query.SliceCounterQuery;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import javax.inject.Inject;
@@ -33,6 +35,7 @@ import static me.prettyprint.hector.api.factory.HFactory.createCounterSliceQuery
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraDaylineRepository implements DaylineRepository {
 
     private final Log log = LogFactory.getLog(CassandraDaylineRepository.class);
@@ -1,5 +1,6 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.domain.Status;
 import fr.ippon.tatami.repository.DiscussionRepository;
 import me.prettyprint.cassandra.serializers.LongSerializer;
@@ -10,6 +11,7 @@ import me.prettyprint.hector.api.beans.HColumn;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import javax.inject.Inject;
@@ -31,6 +33,7 @@ import static me.prettyprint.hector.api.factory.HFactory.createSliceQuery;
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraDiscussionRepository implements DiscussionRepository {
 
     @Inject
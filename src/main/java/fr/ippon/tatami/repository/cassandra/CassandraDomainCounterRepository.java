@@ -0,0 +1,147 @@
+package fr.ippon.tatami.repository.cassandra;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.DomainStatistics;
+import fr.ippon.tatami.repository.DomainCounterRepository;
+import me.prettyprint.cassandra.model.thrift.ThriftCounterColumnQuery;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.CounterSlice;
+import me.prettyprint.hector.api.beans.HCounterColumn;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.mutation.Mutator;
+import me.prettyprint.hector.api.query.CounterQuery;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.DOMAIN_COUNTER_CF;
+import static me.prettyprint.hector.api.factory.HFactory.createCounterColumn;
+import static me.prettyprint.hector.api.factory.HFactory.createCounterSliceQuery;
+
+/**
+ * Cassandra implementation of the Domain Counter repository.
+ * <p/>
+ * Structure :
+ * - Key = domain
+ * - Name = counterId
+ * - Value = count
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_CASSANDRA)
+public class CassandraDomainCounterRepository implements DomainCounterRepository {
+
+    private static final String USER_COUNTER = "USER_COUNTER";
+
+    private static final String STATUS_COUNTER = "STATUS_COUNTER";
+
+    private static final String GROUP_COUNTER = "GROUP_COUNTER";
+
+    private static final String TAG_COUNTER = "TAG_COUNTER";
+
+    @Inject
+    private Keyspace keyspaceOperator;
+
+    @Override
+    public void incrementUserCounter(String domain) {
+        incrementCounter(USER_COUNTER, domain);
+    }
+
+    @Override
+    public void decrementUserCounter(String domain) {
+        decrementCounter(USER_COUNTER, domain);
+    }
+
+    @Override
+    public void incrementStatusCounter(String domain) {
+        incrementCounter(STATUS_COUNTER, domain);
+    }
+
+    @Override
+    public void decrementStatusCounter(String domain) {
+        decrementCounter(STATUS_COUNTER, domain);
+    }
+
+    @Override
+    public void incrementGroupCounter(String domain) {
+        incrementCounter(GROUP_COUNTER, domain);
+    }
+
+    @Override
+    public void incrementTagCounter(String domain) {
+        incrementCounter(TAG_COUNTER, domain);
+    }
+
+    @Override
+    public long getUserCounter(String domain) {
+        CounterQuery<String, String> counter =
+                new ThriftCounterColumnQuery<String, String>(keyspaceOperator,
+                        StringSerializer.get(),
+                        StringSerializer.get());
+
+        counter.setColumnFamily(DOMAIN_COUNTER_CF).setKey(domain).setName(USER_COUNTER);
+        HCounterColumn<String> column = counter.execute().get();
+        if (column == null) { // The domain has no counter yet
+            return 0;
+        }
+        return column.getValue();
+    }
+
+    @Override
+    public DomainStatistics getDomainStatistics(String domain) {
+        DomainStatistics statistics = new DomainStatistics();
+        statistics.setName(domain);
+        CounterSlice<String> result = createCounterSliceQuery(keyspaceOperator,
+                StringSerializer.get(), StringSerializer.get())
+                .setColumnFamily(DOMAIN_COUNTER_CF)
+                .setKey(domain)
+                .setColumnNames(USER_COUNTER, STATUS_COUNTER, GROUP_COUNTER, TAG_COUNTER)
+                .execute()
+                .get();
+
+        for (HCounterColumn<String> column : result.getColumns()) {
+            if (column.getName().equals(USER_COUNTER)) {
+                statistics.setNumberOfUsers(column.getValue());
+            } else if (column.getName().equals(STATUS_COUNTER)) {
+                statistics.setNumberOfStatuses(column.getValue());
+            } else if (column.getName().equals(GROUP_COUNTER)) {
+                statistics.setNumberOfGroups(column.getValue());
+            } else if (column.getName().equals(TAG_COUNTER)) {
+                statistics.setNumberOfTags(column.getValue());
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Counters cannot be set : the difference between the recounted value and the current value is added.
+     */
+    @Override
+    public void setDomainStatistics(DomainStatistics statistics) {
+        String domain = statistics.getName();
+        DomainStatistics currentStatistics = getDomainStatistics(domain);
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        mutator.addCounter(domain, DOMAIN_COUNTER_CF, createCounterColumn(USER_COUNTER,
+                statistics.getNumberOfUsers() - currentStatistics.getNumberOfUsers()));
+        mutator.addCounter(domain, DOMAIN_COUNTER_CF, createCounterColumn(STATUS_COUNTER,
+                statistics.getNumberOfStatuses() - currentStatistics.getNumberOfStatuses()));
+        mutator.addCounter(domain, DOMAIN_COUNTER_CF, createCounterColumn(GROUP_COUNTER,
+                statistics.getNumberOfGroups() - currentStatistics.getNumberOfGroups()));
+        mutator.addCounter(domain, DOMAIN_COUNTER_CF, createCounterColumn(TAG_COUNTER,
+                statistics.getNumberOfTags() - currentStatistics.getNumberOfTags()));
+        mutator.execute();
+    }
+
+    private void incrementCounter(String counterName, String domain) {
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        mutator.incrementCounter(domain, DOMAIN_COUNTER_CF, counterName, 1);
+    }
+
+    private void decrementCounter(String counterName, String domain) {
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        mutator.decrementCounter(domain, DOMAIN_COUNTER_CF, counterName, 1);
+    }
+}
@@ -2,6 +2,7 @@ package fr.ippon.tatami.repository.cassandra;
 
 import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.domain.Domain;
+import fr.ippon.tatami.repository.DomainCounterRepository;
 import fr.ippon.tatami.repository.DomainRepository;
 import me.prettyprint.cassandra.serializers.LongSerializer;
 import me.prettyprint.cassandra.serializers.StringSerializer;
@@ -14,6 +15,7 @@ import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
 import me.prettyprint.hector.api.query.QueryResult;
 import me.prettyprint.hector.api.query.RangeSlicesQuery;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import javax.inject.Inject;
@@ -30,20 +32,50 @@ import static me.prettyprint.hector.api.factory.HFactory.createSliceQuery;
  * - Key = domain
  * - Name = login
  * - Value = time
+ * <p/>
+ * The number of users in each domain is stored in the DomainCounter column family.
  *
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraDomainRepository implements DomainRepository {
 
+    private static final int DOMAINS_BATCH_SIZE = 100;
+
+    /**
+     * The user counter is only changed when the login is added to, or removed from, the domain : the existence
+     * check and the write are serialized for each login on this node. Concurrent changes on different nodes are
+     * corrected by the recount of the domain statistics, in the administration page.
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public CassandraDomainRepository() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
     @Inject
     private Keyspace keyspaceOperator;
 
+    @Inject
+    private DomainCounterRepository domainCounterRepository;
+
     @Override
     public void addUserInDomain(String domain, String login) {
-        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
-        mutator.insert(domain, DOMAIN_CF, HFactory.createColumn(login,
-                Calendar.getInstance().getTimeInMillis(), StringSerializer.get(), LongSerializer.get()));
+        synchronized (getLock(domain, login)) {
+            boolean newUserInDomain = !isUserInDomain(domain, login);
+            Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+            mutator.insert(domain, DOMAIN_CF, HFactory.createColumn(login,
+                    Calendar.getInstance().getTimeInMillis(), StringSerializer.get(), LongSerializer.get()));
+
+            if (newUserInDomain) {
+                domainCounterRepository.incrementUserCounter(domain);
+            }
+        }
     }
 
     @Override
@@ -53,51 +85,92 @@ public class CassandraDomainRepository implements DomainRepository {
 
     @Override
     public void deleteUserInDomain(String domain, String login) {
-        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
-        mutator.delete(domain, DOMAIN_CF, login, StringSerializer.get());
+        synchronized (getLock(domain, login)) {
+            if (isUserInDomain(domain, login)) {
+                Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+                mutator.delete(domain, DOMAIN_CF, login, StringSerializer.get());
+                domainCounterRepository.decrementUserCounter(domain);
+            }
+        }
     }
 
     @Override
-    public List<String> getLoginsInDomain(String domain, int pagination) {
+    public List<String> getLoginsInDomain(String domain, String startLogin, int size) {
+        return getLoginsSlice(domain, startLogin, size, false);
+    }
+
+    @Override
+    public List<String> getLoginsInDomainReversed(String domain, String startLogin, int size) {
+        return getLoginsSlice(domain, startLogin, size, true);
+    }
+
+    /**
+     * Reads only the requested columns of the domain row, starting at the "startLogin" column.
+     */
+    private List<String> getLoginsSlice(String domain, String startLogin, int size, boolean reversed) {
         List<String> logins = new ArrayList<String>();
         ColumnSlice<String, String> result = createSliceQuery(keyspaceOperator,
                 StringSerializer.get(), StringSerializer.get(), StringSerializer.get())
                 .setColumnFamily(DOMAIN_CF)
                 .setKey(domain)
-                .setRange(null, null, false, Integer.MAX_VALUE)
+                .setRange(startLogin, null, reversed, size)
                 .execute()
                 .get();
 
-        int index = 0;
         for (HColumn<String, String> column : result.getColumns()) {
-            // We take one more item, to display (or not) the "next" button if there is an item after the displayed list.
-            if (index > pagination + Constants.PAGINATION_SIZE) {
-                break;
-            }
-            if (index >= pagination) {
-                logins.add(column.getName());
-            }
-            index++;
+            logins.add(column.getName());
         }
         return logins;
     }
 
+    /**
+     * The domain list comes from a key-only scan of the domain rows, and the number of users
+     * in each domain is read from its counter.
+     */
     @Override
     public Set<Domain> getAllDomains() {
         Set<Domain> domains = new HashSet<Domain>();
-        RangeSlicesQuery<String, String, String> query = createRangeSlicesQuery(keyspaceOperator,
-                StringSerializer.get(), StringSerializer.get(), StringSerializer.get())
-                .setColumnFamily(DOMAIN_CF)
-                .setRange(null, null, false, Integer.MAX_VALUE);
-
-        QueryResult<OrderedRows<String, String, String>> result = query.execute();
-        List<Row<String, String, String>> rows = result.get().getList();
-        for (Row<String, String, String> row : rows) {
-            Domain domain = new Domain();
-            domain.setName(row.getKey());
-            domain.setNumberOfUsers(row.getColumnSlice().getColumns().size());
-            domains.add(domain);
+        String startKey = null;
+        boolean moreDomains = true;
+        while (moreDomains) {
+            RangeSlicesQuery<String, String, String> query = createRangeSlicesQuery(keyspaceOperator,
+                    StringSerializer.get(), StringSerializer.get(), StringSerializer.get())
+                    .setColumnFamily(DOMAIN_CF)
+                    .setKeys(startKey, null)
+                    .setReturnKeysOnly()
+                    .setRowCount(DOMAINS_BATCH_SIZE + 1);
+
+            QueryResult<OrderedRows<String, String, String>> result = query.execute();
+            List<Row<String, String, String>> rows = result.get().getList();
+            if (rows.size() > DOMAINS_BATCH_SIZE) { // The last row is the first one of the next batch
+                startKey = rows.get(DOMAINS_BATCH_SIZE).getKey();
+                rows = rows.subList(0, DOMAINS_BATCH_SIZE);
+            } else {
+                moreDomains = false;
+            }
+            for (Row<String, String, String> row : rows) {
+                Domain domain = new Domain();
+                domain.setName(row.getKey());
+                domain.setNumberOfUsers(domainCounterRepository.getUserCounter(row.getKey()));
+                domains.add(domain);
+            }
         }
         return domains;
     }
+
+    private Object getLock(String domain, String login) {
+        return locks[((domain + login).hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+
+    private boolean isUserInDomain(String domain, String login) {
+        HColumn<String, Long> column = HFactory.createColumnQuery(keyspaceOperator,
+                StringSerializer.get(), StringSerializer.get(), LongSerializer.get())
+                .setColumnFamily(DOMAIN_CF)
+                .setKey(domain)
+                .setName(login)
+                .execute()
+                .get();
+
+        return column != null;
+    }
 }
@@ -1,9 +1,12 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.repository.FollowerRepository;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
+import java.util.List;
 
 import static fr.ippon.tatami.config.ColumnFamilyKeys.FOLLOWERS_CF;
 
@@ -18,6 +21,7 @@ import static fr.ippon.tatami.config.ColumnFamilyKeys.FOLLOWERS_CF;
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraFollowerRepository extends AbstractCassandraFollowerRepository implements FollowerRepository {
 
     @Override
@@ -30,11 +34,26 @@ public class CassandraFollowerRepository extends AbstractCassandraFollowerReposi
         super.removeFollower(login, followerLogin);
     }
 
+    @Override
+    public void removeFollowers(String login, Collection<String> followerLogins) {
+        super.removeFollowers(login, followerLogins);
+    }
+
+    @Override
+    public void removeFollowerOfUsers(Collection<String> logins, String followerLogin) {
+        super.removeFollowerOfKeys(logins, followerLogin);
+    }
+
     @Override
     public Collection<String> findFollowersForUser(String login) {
         return super.findFollowers(login);
     }
 
+    @Override
+    public Iterable<List<String>> findFollowersForUserInSlices(String login) {
+        return super.findFollowersInSlices(login);
+    }
+
     @Override
     public String getFollowersCF() {
         return FOLLOWERS_CF;
@@ -1,9 +1,12 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.repository.FriendRepository;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
+import java.util.List;
 
 import static fr.ippon.tatami.config.ColumnFamilyKeys.FRIENDS_CF;
 
@@ -18,6 +21,7 @@ import static fr.ippon.tatami.config.ColumnFamilyKeys.FRIENDS_CF;
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraFriendRepository extends AbstractCassandraFriendRepository implements FriendRepository {
 
     @Override
@@ -30,11 +34,26 @@ public class CassandraFriendRepository extends AbstractCassandraFriendRepository
         super.removeFriend(login, friendLogin);
     }
 
+    @Override
+    public void removeFriends(String login, Collection<String> friendLogins) {
+        super.removeFriends(login, friendLogins);
+    }
+
+    @Override
+    public void removeFriendOfUsers(Collection<String> logins, String friendLogin) {
+        super.removeFriendOfKeys(logins, friendLogin);
+    }
+
     @Override
     public Collection<String> findFriendsForUser(String login) {
         return super.findFriends(login);
     }
 
+    @Override
+    public Iterable<List<String>> findFriendsForUserInSlices(String login) {
+        return super.findFriendsInSlices(login);
+    }
+
     @Override
     public String getFriendsCF() {
         return FRIENDS_CF;
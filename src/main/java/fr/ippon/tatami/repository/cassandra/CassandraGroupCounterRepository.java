@@ -1,5 +1,6 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.repository.GroupCounterRepository;
 import me.prettyprint.cassandra.model.thrift.ThriftCounterColumnQuery;
 import me.prettyprint.cassandra.serializers.StringSerializer;
@@ -7,6 +8,9 @@ import me.prettyprint.hector.api.Keyspace;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
 import me.prettyprint.hector.api.query.CounterQuery;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import javax.inject.Inject;
@@ -24,12 +28,14 @@ import static fr.ippon.tatami.config.ColumnFamilyKeys.GROUP_COUNTER_CF;
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraGroupCounterRepository implements GroupCounterRepository {
 
     @Inject
     private Keyspace keyspaceOperator;
 
     @Override
+    @Cacheable(value = "group-counter-cache", key = "#groupId")
     public long getGroupCounter(String domain, String groupId) {
         CounterQuery<String, String> counter =
                 new ThriftCounterColumnQuery<String, String>(keyspaceOperator,
@@ -41,18 +47,21 @@ public class CassandraGroupCounterRepository implements GroupCounterRepository {
     }
 
     @Override
+    @CacheEvict(value = "group-counter-cache", key = "#groupId")
     public void incrementGroupCounter(String domain, String groupId) {
         Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
         mutator.incrementCounter(domain, GROUP_COUNTER_CF, groupId, 1);
     }
 
     @Override
+    @CacheEvict(value = "group-counter-cache", key = "#groupId")
     public void decrementGroupCounter(String domain, String groupId) {
         Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
         mutator.decrementCounter(domain, GROUP_COUNTER_CF, groupId, 1);
     }
 
     @Override
+    @CacheEvict(value = "group-counter-cache", key = "#groupId")
     public void deleteGroupCounter(String domain, String groupId) {
         Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
         mutator.addCounterDeletion(domain, GROUP_COUNTER_CF, groupId, StringSerializer.get());
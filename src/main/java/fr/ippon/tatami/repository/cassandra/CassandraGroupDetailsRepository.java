@@ -1,5 +1,6 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.domain.Group;
 import fr.ippon.tatami.repository.GroupDetailsRepository;
 import me.prettyprint.cassandra.serializers.StringSerializer;
@@ -8,6 +9,9 @@ import me.prettyprint.hector.api.beans.ColumnSlice;
 import me.prettyprint.hector.api.beans.HColumn;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import javax.inject.Inject;
@@ -25,6 +29,7 @@ import static me.prettyprint.hector.api.factory.HFactory.createSliceQuery;
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraGroupDetailsRepository implements GroupDetailsRepository {
 
     private final String NAME = "name";
@@ -46,6 +51,7 @@ public class CassandraGroupDetailsRepository implements GroupDetailsRepository {
     }
 
     @Override
+    @CacheEvict(value = "group-details-cache", key = "#groupId")
     public void editGroupDetails(String groupId, String name, String description) {
         Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
         mutator.insert(groupId, GROUP_DETAILS_CF, HFactory.createColumn(NAME,
@@ -55,6 +61,7 @@ public class CassandraGroupDetailsRepository implements GroupDetailsRepository {
     }
 
     @Override
+    @Cacheable(value = "group-details-cache", key = "#groupId")
     public Group getGroupDetails(String groupId) {
         Group group = new Group();
         group.setGroupId(groupId);
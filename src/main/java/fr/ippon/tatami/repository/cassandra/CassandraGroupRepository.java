@@ -1,19 +1,21 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.domain.Group;
 import fr.ippon.tatami.repository.GroupRepository;
 import me.prettyprint.cassandra.serializers.StringSerializer;
-import me.prettyprint.cassandra.utils.TimeUUIDUtils;
 import me.prettyprint.hector.api.Keyspace;
 import me.prettyprint.hector.api.beans.HColumn;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
 import me.prettyprint.hector.api.query.ColumnQuery;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import javax.inject.Inject;
 
 import static fr.ippon.tatami.config.ColumnFamilyKeys.GROUP_CF;
+import static me.prettyprint.hector.api.factory.HFactory.createCountQuery;
 
 /**
  * Cassandra implementation of the Group repository.
@@ -26,6 +28,7 @@ import static fr.ippon.tatami.config.ColumnFamilyKeys.GROUP_CF;
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraGroupRepository implements GroupRepository {
 
     @Inject
@@ -34,7 +37,7 @@ public class CassandraGroupRepository implements GroupRepository {
     @Override
     public String createGroup(String domain) {
         Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
-        String groupId = TimeUUIDUtils.getUniqueTimeUUIDinMillis().toString();
+        String groupId = TimeUUIDGenerator.getUniqueTimeUUID().toString();
         mutator.insert(domain, GROUP_CF, HFactory.createColumn(groupId,
                 "", StringSerializer.get(), StringSerializer.get()));
 
@@ -60,4 +63,14 @@ public class CassandraGroupRepository implements GroupRepository {
             return null;
         }
     }
+
+    @Override
+    public int countGroups(String domain) {
+        return createCountQuery(keyspaceOperator, StringSerializer.get(), StringSerializer.get())
+                .setColumnFamily(GROUP_CF)
+                .setKey(domain)
+                .setRange(null, null, Integer.MAX_VALUE)
+                .execute()
+                .get();
+    }
 }
@@ -1,5 +1,6 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.domain.SharedStatusInfo;
 import fr.ippon.tatami.domain.Status;
 import fr.ippon.tatami.repository.GrouplineRepository;
@@ -8,6 +9,7 @@ import me.prettyprint.cassandra.serializers.UUIDSerializer;
 import me.prettyprint.hector.api.Keyspace;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import javax.inject.Inject;
@@ -27,6 +29,7 @@ import static fr.ippon.tatami.config.ColumnFamilyKeys.GROUPLINE_CF;
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraGrouplineRepository extends AbstractCassandraLineRepository implements GrouplineRepository {
 
     @Inject
@@ -44,6 +47,7 @@ public class CassandraGrouplineRepository extends AbstractCassandraLineRepositor
                         UUIDSerializer.get(),
                         StringSerializer.get()));
 
+        markForTrimming(GROUPLINE_CF, groupId);
     }
 
     @Override
@@ -0,0 +1,135 @@
+package fr.ippon.tatami.repository.cassandra;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.repository.IdempotencyKeyRepository;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.mutation.Mutator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import java.util.List;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.IDEMPOTENCY_KEY_CF;
+import static me.prettyprint.hector.api.factory.HFactory.createSliceQuery;
+
+/**
+ * Cassandra implementation of the Idempotency Key repository.
+ * <p/>
+ * Structure :
+ * - Key = login
+ * - Name = escaped idempotency key + "/" + reservation Id
+ * - Value = statusId, or "" while the status is created
+ * <p/>
+ * Cassandra has no "insert if absent" : each request writes its own reservation column, and then reads all the
+ * reservations of the key. A request only holds the key when its reservation is the only one : otherwise it
+ * deletes its reservation, and retries later.
+ * <p/>
+ * This column family is read and written at QUORUM (see CassandraConfiguration) : when two requests reserve the
+ * key at the same time, the second one to read always sees the reservation of the first one, so at most one
+ * request holds the key (both may give up, and retry).
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_CASSANDRA)
+public class CassandraIdempotencyKeyRepository implements IdempotencyKeyRepository {
+
+    private final Log log = LogFactory.getLog(CassandraIdempotencyKeyRepository.class);
+
+    private final static int COLUMN_TTL = 60 * 60 * 24; // The column is stored for 1 day.
+
+    /**
+     * Maximum number of reservations read for a key : there is only one reservation, except during
+     * concurrent retries.
+     */
+    private final static int MAX_RESERVATIONS = 100;
+
+    @Inject
+    private Keyspace keyspaceOperator;
+
+    @Override
+    public boolean reserveIdempotencyKey(String login, String idempotencyKey, String reservationId) {
+        String columnName = getColumnName(idempotencyKey, reservationId);
+        HColumn<String, String> column = HFactory.createColumn(columnName, "", COLUMN_TTL,
+                StringSerializer.get(), StringSerializer.get());
+
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        mutator.insert(login, IDEMPOTENCY_KEY_CF, column);
+        List<HColumn<String, String>> reservations = findReservations(login, idempotencyKey);
+        if (reservations.size() == 1 && reservations.get(0).getName().equals(columnName)) {
+            return true;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Idempotency key " + idempotencyKey + " is already reserved : " + reservations);
+        }
+        removeIdempotencyKey(login, idempotencyKey, reservationId);
+        return false;
+    }
+
+    @Override
+    public void removeIdempotencyKey(String login, String idempotencyKey, String reservationId) {
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        mutator.delete(login, IDEMPOTENCY_KEY_CF, getColumnName(idempotencyKey, reservationId), StringSerializer.get());
+    }
+
+    @Override
+    public void addIdempotencyKey(String login, String idempotencyKey, String reservationId, String statusId) {
+        if (log.isDebugEnabled()) {
+            log.debug("Adding idempotency key " + idempotencyKey + " for status " + statusId);
+        }
+        String columnName = getColumnName(idempotencyKey, reservationId);
+        HColumn<String, String> column = HFactory.createColumn(columnName, statusId, COLUMN_TTL,
+                StringSerializer.get(), StringSerializer.get());
+
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        mutator.insert(login, IDEMPOTENCY_KEY_CF, column);
+
+        // Re-check : another status can only have been created with this key if QUORUM could not be reached
+        for (HColumn<String, String> reservation : findReservations(login, idempotencyKey)) {
+            if (!reservation.getName().equals(columnName) && !reservation.getValue().equals("")) {
+                log.error("Idempotency key " + idempotencyKey + " of user " + login + " has been used by status " +
+                        statusId + " and by status " + reservation.getValue());
+            }
+        }
+    }
+
+    @Override
+    public String findStatusIdByIdempotencyKey(String login, String idempotencyKey) {
+        for (HColumn<String, String> reservation : findReservations(login, idempotencyKey)) {
+            if (!reservation.getValue().equals("")) {
+                return reservation.getValue();
+            }
+        }
+        return null;
+    }
+
+    private List<HColumn<String, String>> findReservations(String login, String idempotencyKey) {
+        // "0" is the character after "/", and the escaped key has no "/" : the slice only contains this key
+        String escapedKey = escape(idempotencyKey);
+        return createSliceQuery(keyspaceOperator,
+                StringSerializer.get(), StringSerializer.get(), StringSerializer.get())
+                .setColumnFamily(IDEMPOTENCY_KEY_CF)
+                .setKey(login)
+                .setRange(escapedKey + "/", escapedKey + "0", false, MAX_RESERVATIONS)
+                .execute()
+                .get()
+                .getColumns();
+    }
+
+    private String getColumnName(String idempotencyKey, String reservationId) {
+        return escape(idempotencyKey) + "/" + reservationId;
+    }
+
+    /**
+     * Escapes the "/" of a key, so a key is never the prefix of another key followed by "/".
+     */
+    private String escape(String idempotencyKey) {
+        return idempotencyKey.replace("%", "%25").replace("/", "%2F");
+    }
+}
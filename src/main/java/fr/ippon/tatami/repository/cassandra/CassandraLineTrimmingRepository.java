@@ -0,0 +1,257 @@
+package fr.ippon.tatami.repository.cassandra;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.LineStatistics;
+import fr.ippon.tatami.repository.LineTrimmingRepository;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.cassandra.serializers.UUIDSerializer;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.beans.Row;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.mutation.Mutator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.*;
+import static me.prettyprint.hector.api.factory.HFactory.createCountQuery;
+import static me.prettyprint.hector.api.factory.HFactory.createRangeSlicesQuery;
+import static me.prettyprint.hector.api.factory.HFactory.createSliceQuery;
+
+/**
+ * Cassandra implementation of the Line Trimming repository.
+ * <p/>
+ * The line repositories register each row they write to. When the trimming runs, the columns of
+ * those rows are counted, up to 10% above their maximum length : a row is only trimmed when it is 10% longer
+ * than its maximum length, so the deletions are grouped instead of happening on each new status.
+ * <p/>
+ * The newest "maxLength" columns of a trimmed row are skipped, and the older columns are deleted by batches
+ * of TRIM_BATCH_SIZE columns : the whole row is never read.
+ * <p/>
+ * The rows to check are only kept in memory, and are lost when the node stops. As each write registers the row
+ * again, an active row is trimmed on its next write : the other rows are only trimmed by trimAllLines(), which
+ * scans all the rows and is run from the administration page.
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_CASSANDRA)
+public class CassandraLineTrimmingRepository implements LineTrimmingRepository {
+
+    private final Log log = LogFactory.getLog(CassandraLineTrimmingRepository.class);
+
+    private static final int TRIM_BATCH_SIZE = 1000;
+
+    @Inject
+    private Keyspace keyspaceOperator;
+
+    @Inject
+    private Environment env;
+
+    /**
+     * Maximum length of the rows, for each column family.
+     */
+    private final Map<String, Integer> maxLengths = new LinkedHashMap<String, Integer>();
+
+    /**
+     * Rows written to since the last trimming, for each column family.
+     */
+    private final Map<String, ConcurrentMap<String, Boolean>> pendingRows =
+            new HashMap<String, ConcurrentMap<String, Boolean>>();
+
+    private final Map<String, LineStatistics> statistics = new HashMap<String, LineStatistics>();
+
+    @PostConstruct
+    public void init() {
+        configureLine(TIMELINE_CF, "line.timeline.maxLength", 5000);
+        configureLine(MENTIONLINE_CF, "line.mentionline.maxLength", 5000);
+        configureLine(TAGLINE_CF, "line.tagline.maxLength", 10000);
+        configureLine(GROUPLINE_CF, "line.groupline.maxLength", 10000);
+        configureLine(TIMELINE_SHARES_CF, "line.timelineShares.maxLength", 5000);
+    }
+
+    private void configureLine(String columnFamily, String property, int defaultMaxLength) {
+        int maxLength = env.getProperty(property, Integer.class, defaultMaxLength);
+        if (log.isDebugEnabled()) {
+            log.debug("Maximum length of " + columnFamily + " rows : " + maxLength);
+        }
+        maxLengths.put(columnFamily, maxLength);
+        pendingRows.put(columnFamily, new ConcurrentHashMap<String, Boolean>());
+        statistics.put(columnFamily, new LineStatistics(columnFamily, maxLength));
+    }
+
+    /**
+     * Registers a row which has been written to, so it is checked during the next trimming.
+     */
+    void markForTrimming(String columnFamily, String key) {
+        ConcurrentMap<String, Boolean> rows = pendingRows.get(columnFamily);
+        if (rows != null && maxLengths.get(columnFamily) > 0) {
+            rows.put(key, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void trimLines() {
+        for (Map.Entry<String, Integer> maxLength : maxLengths.entrySet()) {
+            String columnFamily = maxLength.getKey();
+            ConcurrentMap<String, Boolean> rows = pendingRows.get(columnFamily);
+            LineStatistics lineStatistics = statistics.get(columnFamily);
+            for (String key : rows.keySet()) {
+                rows.remove(key);
+                try {
+                    trimLine(columnFamily, key, maxLength.getValue(), lineStatistics);
+                } catch (Exception e) {
+                    log.warn("Could not trim row " + key + " of " + columnFamily + " : " + e.getMessage());
+                }
+            }
+            synchronized (lineStatistics) {
+                lineStatistics.setLastTrimDate(new Date());
+            }
+        }
+    }
+
+    /**
+     * Key-only scans of the line column families, by batches of TRIM_BATCH_SIZE rows.
+     */
+    @Override
+    public void trimAllLines() {
+        for (Map.Entry<String, Integer> maxLength : maxLengths.entrySet()) {
+            if (maxLength.getValue() <= 0) {
+                continue;
+            }
+            String columnFamily = maxLength.getKey();
+            LineStatistics lineStatistics = statistics.get(columnFamily);
+            String startKey = null;
+            boolean moreRows = true;
+            while (moreRows) {
+                List<Row<String, UUID, String>> rows = createRangeSlicesQuery(keyspaceOperator,
+                        StringSerializer.get(), UUIDSerializer.get(), StringSerializer.get())
+                        .setColumnFamily(columnFamily)
+                        .setKeys(startKey, null)
+                        .setReturnKeysOnly()
+                        .setRowCount(TRIM_BATCH_SIZE + 1)
+                        .execute()
+                        .get()
+                        .getList();
+
+                if (rows.size() > TRIM_BATCH_SIZE) { // The last row is the first one of the next batch
+                    startKey = rows.get(TRIM_BATCH_SIZE).getKey();
+                    rows = rows.subList(0, TRIM_BATCH_SIZE);
+                } else {
+                    moreRows = false;
+                }
+                for (Row<String, UUID, String> row : rows) {
+                    pendingRows.get(columnFamily).remove(row.getKey());
+                    try {
+                        trimLine(columnFamily, row.getKey(), maxLength.getValue(), lineStatistics);
+                    } catch (Exception e) {
+                        log.warn("Could not trim row " + row.getKey() + " of " + columnFamily + " : " +
+                                e.getMessage());
+                    }
+                }
+            }
+            synchronized (lineStatistics) {
+                lineStatistics.setLastTrimDate(new Date());
+            }
+        }
+    }
+
+    @Override
+    public Collection<LineStatistics> getLineStatistics() {
+        Collection<LineStatistics> result = new ArrayList<LineStatistics>();
+        for (String columnFamily : maxLengths.keySet()) {
+            LineStatistics lineStatistics = statistics.get(columnFamily);
+            LineStatistics copy = new LineStatistics(columnFamily, maxLengths.get(columnFamily));
+            synchronized (lineStatistics) {
+                copy.setCheckedRows(lineStatistics.getCheckedRows());
+                copy.setTrimmedRows(lineStatistics.getTrimmedRows());
+                copy.setDeletedColumns(lineStatistics.getDeletedColumns());
+                copy.setLargestRowLength(lineStatistics.getLargestRowLength());
+                copy.setLastTrimDate(lineStatistics.getLastTrimDate());
+            }
+            copy.setPendingRows(pendingRows.get(columnFamily).size());
+            result.add(copy);
+        }
+        return result;
+    }
+
+    private void trimLine(String columnFamily, String key, int maxLength, LineStatistics lineStatistics) {
+        int trimLength = maxLength + maxLength / 10;
+        int length = createCountQuery(keyspaceOperator, StringSerializer.get(), UUIDSerializer.get())
+                .setColumnFamily(columnFamily)
+                .setKey(key)
+                .setRange(null, null, trimLength + 1)
+                .execute()
+                .get();
+
+        int deletedColumns = 0;
+        if (length > trimLength) {
+            // The columns are sorted by TimeUUID : the newest statuses are the last columns of the row.
+            // The "maxLength" newest columns are kept, the first column to delete is the next one.
+            List<HColumn<UUID, String>> keptColumns = createSliceQuery(keyspaceOperator,
+                    StringSerializer.get(), UUIDSerializer.get(), StringSerializer.get())
+                    .setColumnFamily(columnFamily)
+                    .setKey(key)
+                    .setRange(null, null, true, maxLength + 1)
+                    .execute()
+                    .get()
+                    .getColumns();
+
+            UUID startColumn = keptColumns.get(keptColumns.size() - 1).getName();
+            UUID lastDeletedColumn = null;
+            while (true) {
+                int count = TRIM_BATCH_SIZE;
+                if (lastDeletedColumn != null) {
+                    count++; // The start column is inclusive, and has already been deleted
+                }
+                List<HColumn<UUID, String>> columns = createSliceQuery(keyspaceOperator,
+                        StringSerializer.get(), UUIDSerializer.get(), StringSerializer.get())
+                        .setColumnFamily(columnFamily)
+                        .setKey(key)
+                        .setRange(startColumn, null, true, count)
+                        .execute()
+                        .get()
+                        .getColumns();
+
+                Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+                int batchSize = 0;
+                for (HColumn<UUID, String> column : columns) {
+                    if (!column.getName().equals(lastDeletedColumn)) {
+                        mutator.addDeletion(key, columnFamily, column.getName(), UUIDSerializer.get());
+                        batchSize++;
+                    }
+                }
+                if (batchSize == 0) {
+                    break;
+                }
+                mutator.execute();
+                deletedColumns += batchSize;
+                lastDeletedColumn = columns.get(columns.size() - 1).getName();
+                startColumn = lastDeletedColumn;
+            }
+            length = maxLength + deletedColumns;
+            if (log.isDebugEnabled()) {
+                log.debug("Trimmed row " + key + " of " + columnFamily + " : " + deletedColumns + " columns deleted.");
+            }
+        }
+        synchronized (lineStatistics) {
+            lineStatistics.setCheckedRows(lineStatistics.getCheckedRows() + 1);
+            if (deletedColumns > 0) {
+                lineStatistics.setTrimmedRows(lineStatistics.getTrimmedRows() + 1);
+                lineStatistics.setDeletedColumns(lineStatistics.getDeletedColumns() + deletedColumns);
+            }
+            if (length > lineStatistics.getLargestRowLength()) {
+                lineStatistics.setLargestRowLength(length);
+            }
+        }
+    }
+}
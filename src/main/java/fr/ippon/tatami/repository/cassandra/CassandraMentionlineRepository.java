@@ -1,5 +1,6 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.domain.SharedStatusInfo;
 import fr.ippon.tatami.domain.Status;
 import fr.ippon.tatami.repository.MentionlineRepository;
@@ -7,6 +8,7 @@ import me.prettyprint.cassandra.serializers.StringSerializer;
 import me.prettyprint.cassandra.serializers.UUIDSerializer;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import java.util.Map;
@@ -25,6 +27,7 @@ import static fr.ippon.tatami.config.ColumnFamilyKeys.MENTIONLINE_CF;
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraMentionlineRepository extends AbstractCassandraLineRepository implements MentionlineRepository {
 
     @Override
@@ -32,6 +35,8 @@ public class CassandraMentionlineRepository extends AbstractCassandraLineReposit
         Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
         mutator.insert(mentionedLogin, MENTIONLINE_CF, HFactory.createColumn(UUID.fromString(status.getStatusId()),
                 "", UUIDSerializer.get(), StringSerializer.get()));
+
+        markForTrimming(MENTIONLINE_CF, mentionedLogin);
     }
 
     @Override
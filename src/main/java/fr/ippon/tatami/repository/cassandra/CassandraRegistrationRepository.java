@@ -1,74 +1,126 @@
 package fr.ippon.tatami.repository.cassandra;
 
 import com.google.common.collect.Maps;
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.repository.RegistrationRepository;
 import fr.ippon.tatami.service.util.RandomUtil;
 import me.prettyprint.cassandra.serializers.StringSerializer;
 import me.prettyprint.hector.api.Keyspace;
-import me.prettyprint.hector.api.beans.ColumnSlice;
 import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.beans.Row;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
-import me.prettyprint.hector.api.query.ColumnQuery;
-import me.prettyprint.hector.api.query.SliceQuery;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import javax.inject.Inject;
+import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
 
 import static fr.ippon.tatami.config.ColumnFamilyKeys.REGISTRATION_CF;
+import static me.prettyprint.hector.api.factory.HFactory.createRangeSlicesQuery;
+import static me.prettyprint.hector.api.factory.HFactory.createSliceQuery;
 
 /**
  * Cassandra implementation of the Registration repository.
  * <p/>
  * Structure :
- * - Key = "registration_key"
- * - Name = key
+ * - Key = registration key
+ * - Name = "login"
  * - Value = login
+ * <p/>
+ * Each registration key has its own row, so the writes are spread over the cluster, and the expired keys
+ * do not pile up as tombstones in one single row. The keys stored before in the "registration_key" row are
+ * still read, until they are migrated.
  *
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraRegistrationRepository implements RegistrationRepository {
 
     private final Log log = LogFactory.getLog(CassandraRegistrationRepository.class);
 
-    private final static String ROW_KEY = "registration_key";
+    /**
+     * The row which contained all the registration keys, before each key had its own row.
+     */
+    private final static String LEGACY_ROW_KEY = "registration_key";
+
+    private final static String LOGIN = "login";
 
     private final static int COLUMN_TTL = 60 * 60 * 24 * 2; // The column is stored for 2 days.
 
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+
     @Inject
     private Keyspace keyspaceOperator;
 
     @Override
     public String generateRegistrationKey(String login) {
         String key = RandomUtil.generateRegistrationKey();
-        HColumn<String, String> column = HFactory.createColumn(key,
+        HColumn<String, String> column = HFactory.createColumn(LOGIN,
                 login, COLUMN_TTL, StringSerializer.get(), StringSerializer.get());
 
         Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
-        mutator.insert(ROW_KEY, REGISTRATION_CF, column);
+        mutator.insert(key, REGISTRATION_CF, column);
         return key;
     }
 
     @Override
     public String getLoginByRegistrationKey(String registrationKey) {
-        ColumnQuery<String, String, String> query = HFactory.createStringColumnQuery(keyspaceOperator);
-        HColumn<String, String> column =
-                query.setColumnFamily(REGISTRATION_CF)
-                        .setKey(ROW_KEY)
-                        .setName(registrationKey)
-                        .execute()
-                        .get();
-
-        if (column != null) {
-            return column.getValue();
-        } else {
+        if (registrationKey == null || registrationKey.equals("") || registrationKey.equals(LEGACY_ROW_KEY)) {
             return null;
         }
+        String login = getColumnValue(registrationKey, LOGIN);
+        if (login == null) { // The key may have been stored before the migration
+            login = getColumnValue(LEGACY_ROW_KEY, registrationKey);
+        }
+        return login;
+    }
+
+    @Override
+    public int migrateToKeyRows() {
+        int migratedKeys = 0;
+        String startName = null;
+        boolean moreColumns = true;
+        long now = Calendar.getInstance().getTimeInMillis();
+        while (moreColumns) {
+            List<HColumn<String, String>> columns = createSliceQuery(keyspaceOperator,
+                    StringSerializer.get(), StringSerializer.get(), StringSerializer.get())
+                    .setColumnFamily(REGISTRATION_CF)
+                    .setKey(LEGACY_ROW_KEY)
+                    .setRange(startName, null, false, MIGRATION_BATCH_SIZE + 1)
+                    .execute()
+                    .get()
+                    .getColumns();
+
+            if (columns.size() == MIGRATION_BATCH_SIZE + 1) { // Calculate the pagination
+                startName = columns.get(MIGRATION_BATCH_SIZE).getName();
+                columns = columns.subList(0, MIGRATION_BATCH_SIZE);
+            } else {
+                moreColumns = false;
+            }
+            Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+            for (HColumn<String, String> column : columns) {
+                // The column clock is the write time, in microseconds : the key keeps its remaining time to live
+                int ttl = (int) ((column.getClock() / 1000 - now) / 1000) + COLUMN_TTL;
+                if (ttl > 0) {
+                    mutator.addInsertion(column.getName(), REGISTRATION_CF, HFactory.createColumn(LOGIN,
+                            column.getValue(), ttl, StringSerializer.get(), StringSerializer.get()));
+
+                    migratedKeys++;
+                }
+            }
+            mutator.execute();
+        }
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        mutator.addDeletion(LEGACY_ROW_KEY, REGISTRATION_CF);
+        mutator.execute();
+        log.info("Registration keys migrated to their own rows : " + migratedKeys + " keys rewritten.");
+        return migratedKeys;
     }
 
     /**
@@ -80,21 +132,38 @@ public class CassandraRegistrationRepository implements RegistrationRepository {
      */
     public Map<String, String> _getAllRegistrationKeyByLogin() {
         Map<String, String> registrationKeyByLogin = Maps.newHashMap();
-        SliceQuery<String, String, String> sliceQuery = HFactory.createSliceQuery(keyspaceOperator,
-                StringSerializer.get(), StringSerializer.get(), StringSerializer.get());
-
-        ColumnSlice<String, String> columnSlice =
-                sliceQuery.setColumnFamily(REGISTRATION_CF)
-                        .setKey(ROW_KEY)
-                        .setRange(null, null, false, 10000)
-                        .execute().get();
+        List<Row<String, String, String>> rows = createRangeSlicesQuery(keyspaceOperator,
+                StringSerializer.get(), StringSerializer.get(), StringSerializer.get())
+                .setColumnFamily(REGISTRATION_CF)
+                .setColumnNames(LOGIN)
+                .setKeys(null, null)
+                .setRowCount(10000)
+                .execute()
+                .get()
+                .getList();
+
+        for (Row<String, String, String> row : rows) {
+            HColumn<String, String> column = row.getColumnSlice().getColumnByName(LOGIN);
+            if (column != null) {
+                // WARN : here we don't handle multiple registrationKey for one login
+                registrationKeyByLogin.put(column.getValue(), row.getKey());
+            }
+        }
+        return registrationKeyByLogin;
+    }
 
-        List<HColumn<String, String>> columns = columnSlice.getColumns();
+    private String getColumnValue(String key, String name) {
+        HColumn<String, String> column = HFactory.createStringColumnQuery(keyspaceOperator)
+                .setColumnFamily(REGISTRATION_CF)
+                .setKey(key)
+                .setName(name)
+                .execute()
+                .get();
 
-        for (HColumn<String, String> hColumn : columns) {
-            // WARN : here we don't handle multiple registrationKey for one login
-            registrationKeyByLogin.put(hColumn.getValue(), hColumn.getName());
+        if (column != null) {
+            return column.getValue();
+        } else {
+            return null;
         }
-        return registrationKeyByLogin;
     }
 }
@@ -1,42 +1,56 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.domain.Group;
 import fr.ippon.tatami.domain.Status;
 import fr.ippon.tatami.repository.DiscussionRepository;
 import fr.ippon.tatami.repository.SharesRepository;
 import fr.ippon.tatami.repository.StatusRepository;
-import me.prettyprint.cassandra.utils.TimeUUIDUtils;
-import me.prettyprint.hom.EntityManagerImpl;
+import me.prettyprint.cassandra.serializers.ByteBufferSerializer;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.beans.Row;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.mutation.Mutator;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import javax.inject.Inject;
 import javax.validation.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
+import static fr.ippon.tatami.config.ColumnFamilyKeys.STATUS_CF;
+import static me.prettyprint.hector.api.factory.HFactory.createRangeSlicesQuery;
+import static me.prettyprint.hector.api.factory.HFactory.createSliceQuery;
+
 /**
  * Cassandra implementation of the status repository.
  * <p/>
- * Timeline and Userline have the same structure :
- * - Key : login
- * - Name : status Id
- * - Value : ""
+ * Statuses are written and read with the StatusCodec.
  *
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraStatusRepository implements StatusRepository {
 
     private final Log log = LogFactory.getLog(CassandraStatusRepository.class);
 
+    private static final StatusCodec statusCodec = new StatusCodec();
+
     @Inject
-    private EntityManagerImpl em;
+    private Keyspace keyspaceOperator;
 
     @Inject
     private DiscussionRepository discussionRepository;
@@ -58,7 +72,7 @@ public class CassandraStatusRepository implements StatusRepository {
             throws ConstraintViolationException {
 
         Status status = new Status();
-        status.setStatusId(TimeUUIDUtils.getUniqueTimeUUIDinMillis().toString());
+        status.setStatusId(TimeUUIDGenerator.getUniqueTimeUUID().toString());
         status.setLogin(login);
         status.setUsername(username);
         status.setDomain(domain);
@@ -77,7 +91,7 @@ public class CassandraStatusRepository implements StatusRepository {
         if (!constraintViolations.isEmpty()) {
             throw new ConstraintViolationException(new HashSet<ConstraintViolation<?>>(constraintViolations));
         }
-        em.persist(status);
+        persistStatus(status);
         return status;
     }
 
@@ -90,7 +104,16 @@ public class CassandraStatusRepository implements StatusRepository {
         if (log.isTraceEnabled()) {
             log.trace("Finding status : " + statusId);
         }
-        Status status = em.find(Status.class, statusId);
+        List<HColumn<String, ByteBuffer>> columns = createSliceQuery(keyspaceOperator,
+                StringSerializer.get(), StringSerializer.get(), ByteBufferSerializer.get())
+                .setColumnFamily(STATUS_CF)
+                .setKey(statusId)
+                .setColumnNames(statusCodec.getColumnNames())
+                .execute()
+                .get()
+                .getColumns();
+
+        Status status = statusCodec.decode(statusId, columns);
         if (status == null || status.getRemoved() == Boolean.TRUE) {
             return null;
         }
@@ -98,6 +121,25 @@ public class CassandraStatusRepository implements StatusRepository {
         return status;
     }
 
+    @Override
+    public List<String> findStatusIds(String startStatusId, int size) {
+        List<Row<String, String, String>> rows = createRangeSlicesQuery(keyspaceOperator,
+                StringSerializer.get(), StringSerializer.get(), StringSerializer.get())
+                .setColumnFamily(STATUS_CF)
+                .setKeys(startStatusId, null)
+                .setReturnKeysOnly()
+                .setRowCount(size)
+                .execute()
+                .get()
+                .getList();
+
+        List<String> statusIds = new ArrayList<String>(rows.size());
+        for (Row<String, String, String> row : rows) {
+            statusIds.add(row.getKey());
+        }
+        return statusIds;
+    }
+
     @Override
     @CacheEvict(value = "status-cache", key = "#status.statusId")
     public void removeStatus(Status status) {
@@ -105,7 +147,13 @@ public class CassandraStatusRepository implements StatusRepository {
         if (log.isDebugEnabled()) {
             log.debug("Updating Status : " + status);
         }
-        em.persist(status);
+        persistStatus(status);
+    }
+
+    private void persistStatus(Status status) {
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        statusCodec.encode(mutator, STATUS_CF, status);
+        mutator.execute();
     }
 
     private boolean computeDetailsAvailable(Status status) {
@@ -1,17 +1,25 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.repository.TagCounterRepository;
 import me.prettyprint.cassandra.model.thrift.ThriftCounterColumnQuery;
 import me.prettyprint.cassandra.serializers.StringSerializer;
 import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.CounterRow;
+import me.prettyprint.hector.api.beans.HCounterColumn;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
 import me.prettyprint.hector.api.query.CounterQuery;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static fr.ippon.tatami.config.ColumnFamilyKeys.TAG_COUNTER_CF;
+import static me.prettyprint.hector.api.factory.HFactory.createRangeSlicesCounterQuery;
 
 /**
  * Cassandra implementation of the Tag Counter repository.
@@ -24,10 +32,13 @@ import static fr.ippon.tatami.config.ColumnFamilyKeys.TAG_COUNTER_CF;
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraTagCounterRepository implements TagCounterRepository {
 
     private static final String TAG_COUNTER = "TAG_COUNTER";
 
+    private static final int TAGS_BATCH_SIZE = 1000;
+
     @Inject
     private Keyspace keyspaceOperator;
 
@@ -61,6 +72,50 @@ public class CassandraTagCounterRepository implements TagCounterRepository {
         mutator.execute();
     }
 
+    /**
+     * Scans all the tag counters, in batches : only used by the administrators, to recount the domain statistics.
+     */
+    @Override
+    public Map<String, Long> countTagsByDomain() {
+        Map<String, Long> tagsByDomain = new HashMap<String, Long>();
+        String startKey = null;
+        boolean moreTags = true;
+        while (moreTags) {
+            List<CounterRow<String, String>> rows = createRangeSlicesCounterQuery(keyspaceOperator,
+                    StringSerializer.get(), StringSerializer.get())
+                    .setColumnFamily(TAG_COUNTER_CF)
+                    .setKeys(startKey, null)
+                    .setColumnNames(TAG_COUNTER)
+                    .setRowCount(TAGS_BATCH_SIZE + 1)
+                    .execute()
+                    .get()
+                    .getList();
+
+            if (rows.size() > TAGS_BATCH_SIZE) { // The last row is the first one of the next batch
+                startKey = rows.get(TAGS_BATCH_SIZE).getKey();
+                rows = rows.subList(0, TAGS_BATCH_SIZE);
+            } else {
+                moreTags = false;
+            }
+            for (CounterRow<String, String> row : rows) {
+                HCounterColumn<String> column = row.getColumnSlice().getColumnByName(TAG_COUNTER);
+                if (column != null && column.getValue() > 0) {
+                    String domain = getDomain(row.getKey());
+                    Long count = tagsByDomain.get(domain);
+                    tagsByDomain.put(domain, count == null ? 1L : count + 1);
+                }
+            }
+        }
+        return tagsByDomain;
+    }
+
+    /**
+     * The tags only contain word characters, so the domain starts after the first "-" of the key.
+     */
+    private String getDomain(String key) {
+        return key.substring(key.indexOf('-') + 1);
+    }
+
     /**
      * Generates the key for this column family.
      */
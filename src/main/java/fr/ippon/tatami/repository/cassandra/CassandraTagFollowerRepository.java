@@ -1,9 +1,12 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.repository.TagFollowerRepository;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
+import java.util.List;
 
 import static fr.ippon.tatami.config.ColumnFamilyKeys.FOLLOWERS_CF;
 
@@ -18,6 +21,7 @@ import static fr.ippon.tatami.config.ColumnFamilyKeys.FOLLOWERS_CF;
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraTagFollowerRepository
         extends AbstractCassandraFollowerRepository
         implements TagFollowerRepository {
@@ -37,6 +41,11 @@ public class CassandraTagFollowerRepository
         return super.findFollowers(getKey(domain, tag));
     }
 
+    @Override
+    public Iterable<List<String>> findFollowersInSlices(String domain, String tag) {
+        return super.findFollowersInSlices(getKey(domain, tag));
+    }
+
     @Override
     public String getFollowersCF() {
         return FOLLOWERS_CF;
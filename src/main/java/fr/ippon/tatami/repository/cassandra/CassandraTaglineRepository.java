@@ -1,54 +1,224 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.domain.SharedStatusInfo;
 import fr.ippon.tatami.domain.Status;
 import fr.ippon.tatami.repository.TaglineRepository;
 import me.prettyprint.cassandra.serializers.StringSerializer;
 import me.prettyprint.cassandra.serializers.UUIDSerializer;
+import me.prettyprint.cassandra.utils.TimeUUIDUtils;
 import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.beans.Row;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import javax.inject.Inject;
-import java.util.Map;
-import java.util.UUID;
+import java.util.*;
 
+import static fr.ippon.tatami.config.ColumnFamilyKeys.TAGLINE_BUCKETS_CF;
 import static fr.ippon.tatami.config.ColumnFamilyKeys.TAGLINE_CF;
+import static fr.ippon.tatami.repository.cassandra.TimeBuckets.*;
+import static me.prettyprint.hector.api.factory.HFactory.createRangeSlicesQuery;
+import static me.prettyprint.hector.api.factory.HFactory.createSliceQuery;
 
 /**
  * Cassandra implementation of the Tag line repository.
  * <p/>
+ * The statuses of a tag are split in monthly buckets, so the writes on a popular tag
+ * do not all go to the same row.
+ * <p/>
  * Structure :
- * - Key = tag + domain
+ * - Key = tag + domain + ":" + month (yyyyMM)
  * - Name = statusId
  * - Value = ""
+ * <p/>
+ * The buckets of each tag are stored in the TaglineBuckets column family :
+ * - Key = tag + domain
+ * - Name = month (yyyyMM)
+ * - Value = ""
  *
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraTaglineRepository extends AbstractCassandraLineRepository implements TaglineRepository {
 
+    private final Log log = LogFactory.getLog(CassandraTaglineRepository.class);
+
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+
     @Inject
     private Keyspace keyspaceOperator;
 
     @Override
     public void addStatusToTagline(Status status, String tag) {
+        String key = getKey(status.getDomain(), tag);
+        UUID statusId = UUID.fromString(status.getStatusId());
+        String bucket = getMonthBucket(TimeUUIDUtils.getTimeFromUUID(statusId));
+        String bucketKey = getBucketKey(key, bucket);
+
         Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
-        mutator.insert(
-                getKey(status.getDomain(), tag),
+        mutator.addInsertion(
+                bucketKey,
                 TAGLINE_CF,
                 HFactory.createColumn(
-                        UUID.fromString(status.getStatusId()),
+                        statusId,
                         "",
                         UUIDSerializer.get(),
                         StringSerializer.get()));
 
+        mutator.addInsertion(key, TAGLINE_BUCKETS_CF, HFactory.createStringColumn(bucket, ""));
+        mutator.execute();
+
+        markForTrimming(TAGLINE_CF, bucketKey);
     }
 
+    /**
+     * Walks the buckets from the newest to the oldest, until the page is filled.
+     */
     @Override
     public Map<String, SharedStatusInfo> getTagline(String domain, String tag, int size, String since_id, String max_id) {
-        return getLineFromCF(TAGLINE_CF, getKey(domain, tag), size, since_id, max_id);
+        String key = getKey(domain, tag);
+        UUID start = null;
+        String startBucket = null;
+        if (max_id != null) {
+            start = UUID.fromString(max_id);
+            startBucket = getMonthBucket(TimeUUIDUtils.getTimeFromUUID(start));
+        }
+        UUID finish = null;
+        String finishBucket = null;
+        if (since_id != null) {
+            finish = UUID.fromString(since_id);
+            finishBucket = getMonthBucket(TimeUUIDUtils.getTimeFromUUID(finish));
+        }
+
+        Map<String, SharedStatusInfo> line = new LinkedHashMap<String, SharedStatusInfo>();
+        for (String bucket : findBuckets(key, startBucket, finishBucket)) {
+            // max_id and since_id are excluded from the result, so 2 more columns may be needed
+            List<HColumn<UUID, String>> columns = createSliceQuery(keyspaceOperator,
+                    StringSerializer.get(), UUIDSerializer.get(), StringSerializer.get())
+                    .setColumnFamily(TAGLINE_CF)
+                    .setKey(getBucketKey(key, bucket))
+                    .setRange(start, finish, true, size - line.size() + 2)
+                    .execute()
+                    .get()
+                    .getColumns();
+
+            for (HColumn<UUID, String> column : columns) {
+                UUID name = column.getName();
+                if (line.size() < size && !name.equals(start) && !name.equals(finish)) {
+                    line.put(name.toString(), null);
+                }
+            }
+            if (line.size() >= size) {
+                break;
+            }
+        }
+        return line;
+    }
+
+    @Override
+    public int migrateToTimeBuckets() {
+        int migratedRows = 0;
+        String startKey = null;
+        boolean moreRows = true;
+        while (moreRows) {
+            List<Row<String, UUID, String>> rows = createRangeSlicesQuery(keyspaceOperator,
+                    StringSerializer.get(), UUIDSerializer.get(), StringSerializer.get())
+                    .setColumnFamily(TAGLINE_CF)
+                    .setKeys(startKey, null)
+                    .setReturnKeysOnly()
+                    .setRowCount(MIGRATION_BATCH_SIZE + 1)
+                    .execute()
+                    .get()
+                    .getList();
+
+            if (rows.size() == MIGRATION_BATCH_SIZE + 1) { // Calculate the pagination
+                startKey = rows.get(MIGRATION_BATCH_SIZE).getKey();
+                rows = rows.subList(0, MIGRATION_BATCH_SIZE);
+            } else {
+                moreRows = false;
+            }
+            for (Row<String, UUID, String> row : rows) {
+                if (!isBucketKey(row.getKey())) {
+                    migrateRow(row.getKey());
+                    migratedRows++;
+                }
+            }
+        }
+        log.info("Tagline migrated to time buckets : " + migratedRows + " rows rewritten.");
+        return migratedRows;
+    }
+
+    /**
+     * Copies the statuses of a tagline written before time buckets were introduced, then deletes it.
+     */
+    private void migrateRow(String key) {
+        UUID lastColumn = null;
+        boolean moreColumns = true;
+        while (moreColumns) {
+            List<HColumn<UUID, String>> columns = createSliceQuery(keyspaceOperator,
+                    StringSerializer.get(), UUIDSerializer.get(), StringSerializer.get())
+                    .setColumnFamily(TAGLINE_CF)
+                    .setKey(key)
+                    .setRange(lastColumn, null, false, MIGRATION_BATCH_SIZE)
+                    .execute()
+                    .get()
+                    .getColumns();
+
+            Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+            Set<String> buckets = new HashSet<String>();
+            for (HColumn<UUID, String> column : columns) {
+                if (!column.getName().equals(lastColumn)) {
+                    String bucket = getMonthBucket(TimeUUIDUtils.getTimeFromUUID(column.getName()));
+                    mutator.addInsertion(getBucketKey(key, bucket), TAGLINE_CF, HFactory.createColumn(column.getName(),
+                            "", UUIDSerializer.get(), StringSerializer.get()));
+
+                    buckets.add(bucket);
+                }
+            }
+            for (String bucket : buckets) {
+                mutator.addInsertion(key, TAGLINE_BUCKETS_CF, HFactory.createStringColumn(bucket, ""));
+            }
+            mutator.execute();
+
+            if (columns.size() < MIGRATION_BATCH_SIZE) {
+                moreColumns = false;
+            } else {
+                lastColumn = columns.get(columns.size() - 1).getName();
+            }
+        }
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        mutator.addDeletion(key, TAGLINE_CF);
+        mutator.execute();
+        if (log.isDebugEnabled()) {
+            log.debug("Tagline " + key + " migrated to time buckets");
+        }
+    }
+
+    /**
+     * The buckets of a tagline, from the newest to the oldest.
+     */
+    private List<String> findBuckets(String key, String startBucket, String finishBucket) {
+        List<HColumn<String, String>> columns = createSliceQuery(keyspaceOperator,
+                StringSerializer.get(), StringSerializer.get(), StringSerializer.get())
+                .setColumnFamily(TAGLINE_BUCKETS_CF)
+                .setKey(key)
+                .setRange(startBucket, finishBucket, true, Integer.MAX_VALUE)
+                .execute()
+                .get()
+                .getColumns();
+
+        List<String> buckets = new ArrayList<String>();
+        for (HColumn<String, String> column : columns) {
+            buckets.add(column.getName());
+        }
+        return buckets;
     }
 
     /**
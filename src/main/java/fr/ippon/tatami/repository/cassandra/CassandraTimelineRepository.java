@@ -1,5 +1,6 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.domain.SharedStatusInfo;
 import fr.ippon.tatami.domain.Status;
 import fr.ippon.tatami.repository.TimelineRepository;
@@ -7,8 +8,10 @@ import me.prettyprint.cassandra.serializers.StringSerializer;
 import me.prettyprint.cassandra.serializers.UUIDSerializer;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.UUID;
 
@@ -26,6 +29,7 @@ import static fr.ippon.tatami.config.ColumnFamilyKeys.TIMELINE_SHARES_CF;
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraTimelineRepository extends AbstractCassandraLineRepository implements TimelineRepository {
 
     @Override
@@ -33,6 +37,25 @@ public class CassandraTimelineRepository extends AbstractCassandraLineRepository
         Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
         mutator.insert(login, TIMELINE_CF, HFactory.createColumn(UUID.fromString(status.getStatusId()),
                 "", UUIDSerializer.get(), StringSerializer.get()));
+
+        markForTrimming(TIMELINE_CF, login);
+    }
+
+    @Override
+    public void addStatusToTimelines(Collection<String> logins, Status status) {
+        if (logins.isEmpty()) {
+            return;
+        }
+        UUID statusId = UUID.fromString(status.getStatusId());
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        for (String login : logins) {
+            mutator.addInsertion(login, TIMELINE_CF, HFactory.createColumn(statusId,
+                    "", UUIDSerializer.get(), StringSerializer.get()));
+        }
+        mutator.execute();
+        for (String login : logins) {
+            markForTrimming(TIMELINE_CF, login);
+        }
     }
 
     @Override
@@ -40,6 +63,11 @@ public class CassandraTimelineRepository extends AbstractCassandraLineRepository
         shareStatus(timelineLogin, status, sharedByLogin, TIMELINE_CF, TIMELINE_SHARES_CF);
     }
 
+    @Override
+    public void shareStatusToTimelines(String sharedByLogin, Collection<String> timelineLogins, Status status) {
+        shareStatus(timelineLogins, status, sharedByLogin, TIMELINE_CF, TIMELINE_SHARES_CF);
+    }
+
     @Override
     public Map<String, SharedStatusInfo> getTimeline(String login, int size, String since_id, String max_id) {
         return getLineFromCF(TIMELINE_CF, login, size, since_id, max_id);
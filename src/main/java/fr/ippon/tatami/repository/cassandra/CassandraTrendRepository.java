@@ -1,5 +1,6 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.repository.TrendRepository;
 import me.prettyprint.cassandra.serializers.StringSerializer;
 import me.prettyprint.cassandra.serializers.UUIDSerializer;
@@ -7,47 +8,59 @@ import me.prettyprint.cassandra.utils.TimeUUIDUtils;
 import me.prettyprint.hector.api.Keyspace;
 import me.prettyprint.hector.api.beans.ColumnSlice;
 import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.beans.Row;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import javax.inject.Inject;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 import static fr.ippon.tatami.config.ColumnFamilyKeys.TRENDS_CF;
+import static fr.ippon.tatami.repository.cassandra.TimeBuckets.getBucketKey;
+import static fr.ippon.tatami.repository.cassandra.TimeBuckets.getDayBucket;
+import static fr.ippon.tatami.repository.cassandra.TimeBuckets.isBucketKey;
+import static me.prettyprint.hector.api.factory.HFactory.createRangeSlicesQuery;
 import static me.prettyprint.hector.api.factory.HFactory.createSliceQuery;
 
 /**
  * Cassandra implementation of the Trends repository.
  * <p/>
+ * The trends of a domain are split in daily buckets, so the writes of a domain do not all go to the same row.
+ * <p/>
  * Structure :
- * - Key = domain
+ * - Key = domain + ":" + day (yyyyMMdd)
  * - Name = date
  * - Value = tag
  *
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraTrendRepository implements TrendRepository {
 
     private final Log log = LogFactory.getLog(CassandraTrendRepository.class);
 
     private final static int COLUMN_TTL = 60 * 60 * 24 * 30; // The column is stored for 30 days.
 
+    private final static int TRENDS_NUMBER_OF_DAYS = 30; // The number of buckets which may contain columns
+
     private final static int TRENDS_NUMBER_OF_TAGS = 100;
 
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+
     @Inject
     private Keyspace keyspaceOperator;
 
     @Override
     public void addTag(String domain, String tag) {
+        UUID name = TimeUUIDGenerator.getUniqueTimeUUID();
         HColumn<UUID, String> column =
                 HFactory.createColumn(
-                        TimeUUIDUtils.getUniqueTimeUUIDinMillis(),
+                        name,
                         tag,
                         COLUMN_TTL,
                         UUIDSerializer.get(),
@@ -56,24 +69,115 @@ public class CassandraTrendRepository implements TrendRepository {
         Mutator<String> mutator =
                 HFactory.createMutator(keyspaceOperator, StringSerializer.get());
 
-        mutator.insert(domain, TRENDS_CF, column);
+        mutator.insert(getKey(domain, TimeUUIDUtils.getTimeFromUUID(name)), TRENDS_CF, column);
     }
 
+    /**
+     * Walks the daily buckets from today to the oldest bucket which has not expired, until enough tags are found.
+     */
     @Override
     public List<String> getRecentTags(String domain) {
-        ColumnSlice<UUID, String> query = createSliceQuery(keyspaceOperator,
-                StringSerializer.get(), UUIDSerializer.get(), StringSerializer.get())
-                .setColumnFamily(TRENDS_CF)
-                .setKey(domain)
-                .setRange(null, null, true, TRENDS_NUMBER_OF_TAGS)
-                .execute()
-                .get();
-
         List<String> result = new ArrayList<String>();
-        for (HColumn<UUID, String> column : query.getColumns()) {
-            String tag = column.getValue();
-            result.add(tag);
+        Calendar day = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        for (int i = 0; i <= TRENDS_NUMBER_OF_DAYS && result.size() < TRENDS_NUMBER_OF_TAGS; i++) {
+            ColumnSlice<UUID, String> query = createSliceQuery(keyspaceOperator,
+                    StringSerializer.get(), UUIDSerializer.get(), StringSerializer.get())
+                    .setColumnFamily(TRENDS_CF)
+                    .setKey(getKey(domain, day.getTimeInMillis()))
+                    .setRange(null, null, true, TRENDS_NUMBER_OF_TAGS - result.size())
+                    .execute()
+                    .get();
+
+            for (HColumn<UUID, String> column : query.getColumns()) {
+                String tag = column.getValue();
+                result.add(tag);
+            }
+            day.add(Calendar.DAY_OF_MONTH, -1);
         }
         return result;
     }
+
+    @Override
+    public int migrateToTimeBuckets() {
+        int migratedRows = 0;
+        String startKey = null;
+        boolean moreRows = true;
+        while (moreRows) {
+            List<Row<String, UUID, String>> rows = createRangeSlicesQuery(keyspaceOperator,
+                    StringSerializer.get(), UUIDSerializer.get(), StringSerializer.get())
+                    .setColumnFamily(TRENDS_CF)
+                    .setKeys(startKey, null)
+                    .setReturnKeysOnly()
+                    .setRowCount(MIGRATION_BATCH_SIZE + 1)
+                    .execute()
+                    .get()
+                    .getList();
+
+            if (rows.size() == MIGRATION_BATCH_SIZE + 1) { // Calculate the pagination
+                startKey = rows.get(MIGRATION_BATCH_SIZE).getKey();
+                rows = rows.subList(0, MIGRATION_BATCH_SIZE);
+            } else {
+                moreRows = false;
+            }
+            for (Row<String, UUID, String> row : rows) {
+                if (!isBucketKey(row.getKey())) {
+                    migrateRow(row.getKey());
+                    migratedRows++;
+                }
+            }
+        }
+        log.info("Trends migrated to time buckets : " + migratedRows + " rows rewritten.");
+        return migratedRows;
+    }
+
+    /**
+     * Copies the tags of a domain written before time buckets were introduced, then deletes the row.
+     * <p/>
+     * The copied columns keep their original expiration date.
+     */
+    private void migrateRow(String domain) {
+        long now = System.currentTimeMillis();
+        UUID lastColumn = null;
+        boolean moreColumns = true;
+        while (moreColumns) {
+            List<HColumn<UUID, String>> columns = createSliceQuery(keyspaceOperator,
+                    StringSerializer.get(), UUIDSerializer.get(), StringSerializer.get())
+                    .setColumnFamily(TRENDS_CF)
+                    .setKey(domain)
+                    .setRange(lastColumn, null, false, MIGRATION_BATCH_SIZE)
+                    .execute()
+                    .get()
+                    .getColumns();
+
+            Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+            for (HColumn<UUID, String> column : columns) {
+                long time = TimeUUIDUtils.getTimeFromUUID(column.getName());
+                int ttl = (int) ((time - now) / 1000) + COLUMN_TTL;
+                if (!column.getName().equals(lastColumn) && ttl > 0) {
+                    mutator.addInsertion(getKey(domain, time), TRENDS_CF, HFactory.createColumn(column.getName(),
+                            column.getValue(), ttl, UUIDSerializer.get(), StringSerializer.get()));
+                }
+            }
+            mutator.execute();
+
+            if (columns.size() < MIGRATION_BATCH_SIZE) {
+                moreColumns = false;
+            } else {
+                lastColumn = columns.get(columns.size() - 1).getName();
+            }
+        }
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        mutator.addDeletion(domain, TRENDS_CF);
+        mutator.execute();
+        if (log.isDebugEnabled()) {
+            log.debug("Trends of domain " + domain + " migrated to time buckets");
+        }
+    }
+
+    /**
+     * Generates the key for this column family.
+     */
+    private String getKey(String domain, long time) {
+        return getBucketKey(domain, getDayBucket(time));
+    }
 }
@@ -0,0 +1,205 @@
+package fr.ippon.tatami.repository.cassandra;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.UserDeletion;
+import fr.ippon.tatami.repository.UserDeletionRepository;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.ColumnSlice;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.beans.Row;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.mutation.Mutator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.USER_DELETION_CF;
+import static me.prettyprint.hector.api.factory.HFactory.createRangeSlicesQuery;
+import static me.prettyprint.hector.api.factory.HFactory.createSliceQuery;
+
+/**
+ * Cassandra implementation of the User Deletion repository.
+ * <p/>
+ * Structure :
+ * - Key = login
+ * - Name = "node", "step", "startDate", "progressDate", "removedFollowers" or "removedFriends"
+ * - Value = value of the field
+ * <p/>
+ * A node which claims a deletion also writes a "claim/" + node column, which expires with the lease, and reads all
+ * the claims : it only gets the deletion when its claim is the only one. This column family is read and written at
+ * QUORUM (see CassandraConfiguration), so of two nodes claiming at the same time, the second one to read always
+ * sees the claim of the first one.
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_CASSANDRA)
+public class CassandraUserDeletionRepository implements UserDeletionRepository {
+
+    private static final String NODE = "node";
+
+    private static final String STEP = "step";
+
+    private static final String START_DATE = "startDate";
+
+    private static final String PROGRESS_DATE = "progressDate";
+
+    private static final String REMOVED_FOLLOWERS = "removedFollowers";
+
+    private static final String REMOVED_FRIENDS = "removedFriends";
+
+    private static final String CLAIM_PREFIX = "claim/";
+
+    /**
+     * Maximum number of claims read for a deletion : there is only one claim, except when nodes claim it together.
+     */
+    private static final int MAX_CLAIMS = 100;
+
+    /**
+     * User deletions are rare, so they are all read at once.
+     */
+    private static final int MAX_USER_DELETIONS = 1000;
+
+    @Inject
+    private Keyspace keyspaceOperator;
+
+    @Override
+    public void saveUserDeletion(UserDeletion userDeletion) {
+        String key = userDeletion.getLogin();
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        mutator.addInsertion(key, USER_DELETION_CF, createColumn(NODE, userDeletion.getNode()));
+        mutator.addInsertion(key, USER_DELETION_CF, createColumn(STEP, userDeletion.getStep().name()));
+        mutator.addInsertion(key, USER_DELETION_CF, createColumn(START_DATE,
+                Long.toString(userDeletion.getStartDate().getTime())));
+        mutator.addInsertion(key, USER_DELETION_CF, createColumn(PROGRESS_DATE,
+                Long.toString(userDeletion.getProgressDate().getTime())));
+        mutator.addInsertion(key, USER_DELETION_CF, createColumn(REMOVED_FOLLOWERS,
+                Long.toString(userDeletion.getRemovedFollowers())));
+        mutator.addInsertion(key, USER_DELETION_CF, createColumn(REMOVED_FRIENDS,
+                Long.toString(userDeletion.getRemovedFriends())));
+        mutator.execute();
+    }
+
+    @Override
+    public UserDeletion findUserDeletion(String login) {
+        ColumnSlice<String, String> columns = createSliceQuery(keyspaceOperator,
+                StringSerializer.get(), StringSerializer.get(), StringSerializer.get())
+                .setColumnFamily(USER_DELETION_CF)
+                .setKey(login)
+                .setColumnNames(NODE, STEP, START_DATE, PROGRESS_DATE, REMOVED_FOLLOWERS, REMOVED_FRIENDS)
+                .execute()
+                .get();
+
+        return decode(login, columns);
+    }
+
+    @Override
+    public Collection<UserDeletion> findUserDeletions() {
+        List<Row<String, String, String>> rows = createRangeSlicesQuery(keyspaceOperator,
+                StringSerializer.get(), StringSerializer.get(), StringSerializer.get())
+                .setColumnFamily(USER_DELETION_CF)
+                .setKeys(null, null)
+                .setColumnNames(NODE, STEP, START_DATE, PROGRESS_DATE, REMOVED_FOLLOWERS, REMOVED_FRIENDS)
+                .setRowCount(MAX_USER_DELETIONS)
+                .execute()
+                .get()
+                .getList();
+
+        Collection<UserDeletion> userDeletions = new ArrayList<UserDeletion>();
+        for (Row<String, String, String> row : rows) {
+            UserDeletion userDeletion = decode(row.getKey(), row.getColumnSlice());
+            if (userDeletion != null) { // Deleted rows are returned without columns
+                userDeletions.add(userDeletion);
+            }
+        }
+        return userDeletions;
+    }
+
+    @Override
+    public void removeUserDeletion(String login) {
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        mutator.addDeletion(login, USER_DELETION_CF);
+        mutator.execute();
+    }
+
+    @Override
+    public boolean claimUserDeletion(String login, String node, long leaseMillis) {
+        String claimName = CLAIM_PREFIX + node;
+        HColumn<String, String> claim = HFactory.createColumn(claimName, "", (int) (leaseMillis / 1000),
+                StringSerializer.get(), StringSerializer.get());
+
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        mutator.insert(login, USER_DELETION_CF, claim);
+        // "0" is the character after "/" : the slice contains all the claims
+        List<HColumn<String, String>> claims = createSliceQuery(keyspaceOperator,
+                StringSerializer.get(), StringSerializer.get(), StringSerializer.get())
+                .setColumnFamily(USER_DELETION_CF)
+                .setKey(login)
+                .setRange(CLAIM_PREFIX, "claim0", false, MAX_CLAIMS)
+                .execute()
+                .get()
+                .getColumns();
+
+        if (claims.size() != 1 || !claims.get(0).getName().equals(claimName)) {
+            mutator.delete(login, USER_DELETION_CF, claimName, StringSerializer.get());
+            return false;
+        }
+        // The claim is kept until the lease expires : the deletion is read again, as it may have progressed
+        // (or been claimed) since it was read
+        UserDeletion userDeletion = findUserDeletion(login);
+        if (userDeletion == null ||
+                System.currentTimeMillis() - userDeletion.getProgressDate().getTime() < leaseMillis) {
+
+            return false;
+        }
+        userDeletion.setNode(node);
+        userDeletion.setProgressDate(new Date());
+        saveUserDeletion(userDeletion);
+        return true;
+    }
+
+    private HColumn<String, String> createColumn(String name, String value) {
+        return HFactory.createColumn(name, value, StringSerializer.get(), StringSerializer.get());
+    }
+
+    private UserDeletion decode(String login, ColumnSlice<String, String> columns) {
+        HColumn<String, String> step = columns.getColumnByName(STEP);
+        if (step == null) {
+            return null;
+        }
+        UserDeletion userDeletion = new UserDeletion();
+        userDeletion.setLogin(login);
+        userDeletion.setStep(UserDeletion.Step.valueOf(step.getValue()));
+        userDeletion.setNode(getValue(columns, NODE));
+        String startDate = getValue(columns, START_DATE);
+        if (startDate != null) {
+            userDeletion.setStartDate(new Date(Long.parseLong(startDate)));
+        }
+        String progressDate = getValue(columns, PROGRESS_DATE);
+        if (progressDate != null) {
+            userDeletion.setProgressDate(new Date(Long.parseLong(progressDate)));
+        } else {
+            userDeletion.setProgressDate(userDeletion.getStartDate());
+        }
+        String removedFollowers = getValue(columns, REMOVED_FOLLOWERS);
+        if (removedFollowers != null) {
+            userDeletion.setRemovedFollowers(Long.parseLong(removedFollowers));
+        }
+        String removedFriends = getValue(columns, REMOVED_FRIENDS);
+        if (removedFriends != null) {
+            userDeletion.setRemovedFriends(Long.parseLong(removedFriends));
+        }
+        return userDeletion;
+    }
+
+    private String getValue(ColumnSlice<String, String> columns, String name) {
+        HColumn<String, String> column = columns.getColumnByName(name);
+        return column == null ? null : column.getValue();
+    }
+}
@@ -1,5 +1,6 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.config.GroupRoles;
 import fr.ippon.tatami.repository.UserGroupRepository;
 import me.prettyprint.cassandra.serializers.StringSerializer;
@@ -8,6 +9,9 @@ import me.prettyprint.hector.api.beans.ColumnSlice;
 import me.prettyprint.hector.api.beans.HColumn;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import javax.inject.Inject;
@@ -29,12 +33,14 @@ import static me.prettyprint.hector.api.factory.HFactory.createSliceQuery;
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraUserGroupRepository implements UserGroupRepository {
 
     @Inject
     private Keyspace keyspaceOperator;
 
     @Override
+    @CacheEvict(value = "group-user-cache", key = "#login")
     public void addGroupAsMember(String login, String groupId) {
         Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
         mutator.insert(login, USER_GROUPS_CF, HFactory.createColumn(groupId,
@@ -42,6 +48,7 @@ public class CassandraUserGroupRepository implements UserGroupRepository {
     }
 
     @Override
+    @CacheEvict(value = "group-user-cache", key = "#login")
     public void addGroupAsAdmin(String login, String groupId) {
         Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
         mutator.insert(login, USER_GROUPS_CF, HFactory.createColumn(groupId,
@@ -49,12 +56,14 @@ public class CassandraUserGroupRepository implements UserGroupRepository {
     }
 
     @Override
+    @CacheEvict(value = "group-user-cache", key = "#login")
     public void removeGroup(String login, String groupId) {
         Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
         mutator.delete(login, USER_GROUPS_CF, groupId, StringSerializer.get());
     }
 
     @Override
+    @Cacheable(value = "group-user-cache", key = "#login")
     public Collection<String> findGroups(String login) {
         List<String> groups = new ArrayList<String>();
         ColumnSlice<String, String> result = createSliceQuery(keyspaceOperator,
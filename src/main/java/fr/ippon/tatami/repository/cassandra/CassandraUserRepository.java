@@ -1,46 +1,70 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.domain.User;
 import fr.ippon.tatami.domain.validation.ContraintsUserCreation;
 import fr.ippon.tatami.repository.CounterRepository;
 import fr.ippon.tatami.repository.UserRepository;
+import me.prettyprint.cassandra.serializers.ByteBufferSerializer;
 import me.prettyprint.cassandra.serializers.StringSerializer;
 import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
-import me.prettyprint.hom.EntityManagerImpl;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import javax.inject.Inject;
 import javax.validation.*;
+import java.nio.ByteBuffer;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static fr.ippon.tatami.config.ColumnFamilyKeys.USER_CF;
+import static me.prettyprint.hector.api.factory.HFactory.createSliceQuery;
 
 /**
  * Cassandra implementation of the user repository.
+ * <p/>
+ * Users are written and read with the UserCodec.
+ * <p/>
+ * Users are cached in the "user-cache" without their counters, which are read from the Counter repository
+ * (and its own cache) each time : posting a status or following a user does not evict the user from the cache.
+ * The counters are set on a copy of the cached user, which is shared by all the threads.
+ * The missing users are cached for a short time in the "user-missing-cache" (see NegativeResultCache), and are
+ * evicted from it when they are created.
  *
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraUserRepository implements UserRepository {
 
     private final Log log = LogFactory.getLog(CassandraUserRepository.class);
 
-    @Inject
-    private EntityManagerImpl em;
+    private static final UserCodec userCodec = new UserCodec();
 
     @Inject
     private Keyspace keyspaceOperator;
 
+    private static final String USER_CACHE = "user-cache";
+
     @Inject
     private CounterRepository counterRepository;
 
+    /**
+     * Only available when caching is enabled.
+     */
+    @Autowired(required = false)
+    private CacheManager cacheManager;
+
     private static ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
     private static Validator validator = factory.getValidator();
 
@@ -54,7 +78,7 @@ public class CassandraUserRepository implements UserRepository {
         if (!constraintViolations.isEmpty()) {
             throw new ConstraintViolationException(new HashSet<ConstraintViolation<?>>(constraintViolations));
         }
-        em.persist(user);
+        persistUser(user);
     }
 
     @Override
@@ -67,7 +91,7 @@ public class CassandraUserRepository implements UserRepository {
         if (!constraintViolations.isEmpty()) {
             throw new ConstraintViolationException(new HashSet<ConstraintViolation<?>>(constraintViolations));
         }
-        em.persist(user);
+        persistUser(user);
     }
 
     @Override
@@ -82,22 +106,76 @@ public class CassandraUserRepository implements UserRepository {
     }
 
     @Override
-    @Cacheable("user-cache")
     public User findUserByLogin(String login) {
-        User user = null;
-        try {
-            user = em.find(User.class, login);
-        } catch (Exception e) {
-            if (log.isDebugEnabled()) {
-                log.debug("Exception while looking for user " + login + " : " + e.toString());
+        User user;
+        Cache userCache = getUserCache();
+        Cache.ValueWrapper cachedUser = null;
+        if (userCache != null) {
+            cachedUser = userCache.get(login);
+        }
+        if (cachedUser == null) {
+            user = readUser(login);
+            if (userCache != null) {
+                userCache.put(login, user);
             }
-            return null;
+        } else {
+            user = (User) cachedUser.get();
         }
         if (user != null) {
+            user = copyUser(user);
             user.setStatusCount(counterRepository.getStatusCounter(login));
             user.setFollowersCount(counterRepository.getFollowersCounter(login));
             user.setFriendsCount(counterRepository.getFriendsCounter(login));
         }
         return user;
     }
+
+    private User readUser(String login) {
+        try {
+            List<HColumn<String, ByteBuffer>> columns = createSliceQuery(keyspaceOperator,
+                    StringSerializer.get(), StringSerializer.get(), ByteBufferSerializer.get())
+                    .setColumnFamily(USER_CF)
+                    .setKey(login)
+                    .setColumnNames(userCodec.getColumnNames())
+                    .execute()
+                    .get()
+                    .getColumns();
+
+            return userCodec.decode(login, columns);
+        } catch (Exception e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Exception while looking for user " + login + " : " + e.toString());
+            }
+            return null;
+        }
+    }
+
+    private User copyUser(User user) {
+        User copy = new User();
+        copy.setLogin(user.getLogin());
+        copy.setPassword(user.getPassword());
+        copy.setUsername(user.getUsername());
+        copy.setDomain(user.getDomain());
+        copy.setGravatar(user.getGravatar());
+        copy.setFirstName(user.getFirstName());
+        copy.setLastName(user.getLastName());
+        copy.setJobTitle(user.getJobTitle());
+        copy.setPhoneNumber(user.getPhoneNumber());
+        copy.setOpenIdUrl(user.getOpenIdUrl());
+        copy.setTheme(user.getTheme());
+        return copy;
+    }
+
+    private Cache getUserCache() {
+        if (cacheManager == null) {
+            return null;
+        }
+        return cacheManager.getCache(USER_CACHE);
+    }
+
+    private void persistUser(User user) {
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        userCodec.encode(mutator, USER_CF, user);
+        mutator.execute();
+    }
 }
@@ -1,6 +1,8 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.repository.UserTagRepository;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
@@ -18,6 +20,7 @@ import static fr.ippon.tatami.config.ColumnFamilyKeys.USER_TAGS_CF;
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraUserTagRepository
         extends AbstractCassandraFriendRepository
         implements UserTagRepository {
@@ -1,9 +1,9 @@
 package fr.ippon.tatami.repository.cassandra;
 
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.repository.UserTrendRepository;
 import me.prettyprint.cassandra.serializers.StringSerializer;
 import me.prettyprint.cassandra.serializers.UUIDSerializer;
-import me.prettyprint.cassandra.utils.TimeUUIDUtils;
 import me.prettyprint.hector.api.Keyspace;
 import me.prettyprint.hector.api.beans.ColumnSlice;
 import me.prettyprint.hector.api.beans.HColumn;
@@ -11,6 +11,7 @@ import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import javax.inject.Inject;
@@ -32,6 +33,7 @@ import static me.prettyprint.hector.api.factory.HFactory.createSliceQuery;
  * @author Julien Dubois
  */
 @Repository
+@Profile(Constants.STORAGE_CASSANDRA)
 public class CassandraUserTrendRepository implements UserTrendRepository {
 
     private final Log log = LogFactory.getLog(CassandraUserTrendRepository.class);
@@ -47,7 +49,7 @@ public class CassandraUserTrendRepository implements UserTrendRepository {
     public void addTag(String login, String tag) {
         HColumn<UUID, String> column =
                 HFactory.createColumn(
-                        TimeUUIDUtils.getUniqueTimeUUIDinMillis(),
+                        TimeUUIDGenerator.getUniqueTimeUUID(),
                         tag,
                         COLUMN_TTL,
                         UUIDSerializer.get(),
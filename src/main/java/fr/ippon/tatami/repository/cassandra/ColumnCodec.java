@@ -0,0 +1,97 @@
+package fr.ippon.tatami.repository.cassandra;
+
+import me.prettyprint.cassandra.serializers.BooleanSerializer;
+import me.prettyprint.cassandra.serializers.ByteBufferSerializer;
+import me.prettyprint.cassandra.serializers.DateSerializer;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.mutation.Mutator;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes an object as the columns of a row, and reads it back, without reflection.
+ * <p/>
+ * Values are encoded with the same serializers as the Hector Object Mapper, which was used before :
+ * the rows it has written are read by the codecs, and the other way around.
+ *
+ * @author Julien Dubois
+ */
+abstract class ColumnCodec<T> {
+
+    private static final StringSerializer STRING_SERIALIZER = StringSerializer.get();
+
+    private static final DateSerializer DATE_SERIALIZER = DateSerializer.get();
+
+    private static final BooleanSerializer BOOLEAN_SERIALIZER = BooleanSerializer.get();
+
+    private static final ByteBufferSerializer BYTE_BUFFER_SERIALIZER = ByteBufferSerializer.get();
+
+    /**
+     * The names of the columns read by this codec.
+     */
+    abstract String[] getColumnNames();
+
+    /**
+     * Adds the insertions of an object to a mutator. Null fields are not written.
+     */
+    abstract void encode(Mutator<String> mutator, String columnFamily, T object);
+
+    abstract T newInstance(String key);
+
+    abstract void decodeColumn(T object, String name, ByteBuffer value);
+
+    /**
+     * Creates an object from the columns of its row.
+     *
+     * @return null if the row does not exist
+     */
+    T decode(String key, List<HColumn<String, ByteBuffer>> columns) {
+        if (columns.isEmpty()) {
+            return null;
+        }
+        T object = newInstance(key);
+        for (HColumn<String, ByteBuffer> column : columns) {
+            decodeColumn(object, column.getName(), column.getValue());
+        }
+        return object;
+    }
+
+    static void addString(Mutator<String> mutator, String key, String columnFamily, String name, String value) {
+        if (value != null) {
+            addColumn(mutator, key, columnFamily, name, STRING_SERIALIZER.toByteBuffer(value));
+        }
+    }
+
+    static void addDate(Mutator<String> mutator, String key, String columnFamily, String name, Date value) {
+        if (value != null) {
+            addColumn(mutator, key, columnFamily, name, DATE_SERIALIZER.toByteBuffer(value));
+        }
+    }
+
+    static void addBoolean(Mutator<String> mutator, String key, String columnFamily, String name, Boolean value) {
+        if (value != null) {
+            addColumn(mutator, key, columnFamily, name, BOOLEAN_SERIALIZER.toByteBuffer(value));
+        }
+    }
+
+    static String toString(ByteBuffer value) {
+        return STRING_SERIALIZER.fromByteBuffer(value);
+    }
+
+    static Date toDate(ByteBuffer value) {
+        return DATE_SERIALIZER.fromByteBuffer(value);
+    }
+
+    static Boolean toBoolean(ByteBuffer value) {
+        return BOOLEAN_SERIALIZER.fromByteBuffer(value);
+    }
+
+    private static void addColumn(Mutator<String> mutator, String key, String columnFamily, String name, ByteBuffer value) {
+        mutator.addInsertion(key, columnFamily,
+                HFactory.createColumn(name, value, STRING_SERIALIZER, BYTE_BUFFER_SERIALIZER));
+    }
+}
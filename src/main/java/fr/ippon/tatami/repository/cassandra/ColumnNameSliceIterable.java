@@ -0,0 +1,110 @@
+package fr.ippon.tatami.repository.cassandra;
+
+import me.prettyprint.cassandra.serializers.LongSerializer;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.ColumnSlice;
+import me.prettyprint.hector.api.beans.HColumn;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static me.prettyprint.hector.api.factory.HFactory.createSliceQuery;
+
+/**
+ * Iterates over the column names of a row, by slices of a fixed size.
+ * <p/>
+ * This is used for very large rows (for example the followers of a popular user) : each slice is read
+ * with its own query, starting at the last column of the previous slice, so the whole row is never loaded
+ * in one single Thrift response.
+ * <p/>
+ * The column values of the row must be longs (this is the case for the Friends and Followers column families).
+ *
+ * @author Julien Dubois
+ */
+class ColumnNameSliceIterable implements Iterable<List<String>> {
+
+    private final Keyspace keyspaceOperator;
+
+    private final String columnFamily;
+
+    private final String key;
+
+    private final int sliceSize;
+
+    ColumnNameSliceIterable(Keyspace keyspaceOperator, String columnFamily, String key, int sliceSize) {
+        this.keyspaceOperator = keyspaceOperator;
+        this.columnFamily = columnFamily;
+        this.key = key;
+        this.sliceSize = sliceSize;
+    }
+
+    @Override
+    public Iterator<List<String>> iterator() {
+        return new ColumnNameSliceIterator();
+    }
+
+    private class ColumnNameSliceIterator implements Iterator<List<String>> {
+
+        /**
+         * The last column name which was read : the next slice starts with this column.
+         */
+        private String lastColumnName = null;
+
+        private List<String> nextSlice = null;
+
+        private boolean rowFinished = false;
+
+        @Override
+        public boolean hasNext() {
+            if (nextSlice == null && !rowFinished) {
+                nextSlice = readNextSlice();
+            }
+            return nextSlice != null && !nextSlice.isEmpty();
+        }
+
+        @Override
+        public List<String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<String> slice = nextSlice;
+            nextSlice = null;
+            return slice;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private List<String> readNextSlice() {
+            // The start column is inclusive : when we already have read a column, we need to get one more column
+            int count = lastColumnName == null ? sliceSize : sliceSize + 1;
+            ColumnSlice<String, Long> result = createSliceQuery(keyspaceOperator,
+                    StringSerializer.get(), StringSerializer.get(), LongSerializer.get())
+                    .setColumnFamily(columnFamily)
+                    .setKey(key)
+                    .setRange(lastColumnName, null, false, count)
+                    .execute()
+                    .get();
+
+            List<HColumn<String, Long>> columns = result.getColumns();
+            if (columns.size() < count) {
+                rowFinished = true;
+            }
+            List<String> columnNames = new ArrayList<String>(columns.size());
+            for (HColumn<String, Long> column : columns) {
+                if (lastColumnName == null || !lastColumnName.equals(column.getName())) {
+                    columnNames.add(column.getName());
+                }
+            }
+            if (!columnNames.isEmpty()) {
+                lastColumnName = columnNames.get(columnNames.size() - 1);
+            }
+            return columnNames;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package fr.ippon.tatami.repository.cassandra;
+
+import fr.ippon.tatami.domain.Status;
+import me.prettyprint.hector.api.mutation.Mutator;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Codec of the Status column family.
+ * <p/>
+ * Structure :
+ * - Key = statusId
+ * - Name = field name
+ * - Value = field value
+ *
+ * @author Julien Dubois
+ */
+class StatusCodec extends ColumnCodec<Status> {
+
+    static final String LOGIN = "login";
+    static final String USERNAME = "username";
+    static final String DOMAIN = "domain";
+    static final String GROUP_ID = "groupId";
+    static final String CONTENT = "content";
+    static final String STATUS_DATE = "statusDate";
+    static final String REPLY_TO = "replyTo";
+    static final String REPLY_TO_USERNAME = "replyToUsername";
+    static final String REMOVED = "removed";
+
+    private static final String[] COLUMN_NAMES = {LOGIN, USERNAME, DOMAIN, GROUP_ID, CONTENT, STATUS_DATE,
+            REPLY_TO, REPLY_TO_USERNAME, REMOVED};
+
+    @Override
+    String[] getColumnNames() {
+        return COLUMN_NAMES;
+    }
+
+    @Override
+    void encode(Mutator<String> mutator, String columnFamily, Status status) {
+        String key = status.getStatusId();
+        addString(mutator, key, columnFamily, LOGIN, status.getLogin());
+        addString(mutator, key, columnFamily, USERNAME, status.getUsername());
+        addString(mutator, key, columnFamily, DOMAIN, status.getDomain());
+        addString(mutator, key, columnFamily, GROUP_ID, status.getGroupId());
+        addString(mutator, key, columnFamily, CONTENT, status.getContent());
+        addDate(mutator, key, columnFamily, STATUS_DATE, status.getStatusDate());
+        addString(mutator, key, columnFamily, REPLY_TO, status.getReplyTo());
+        addString(mutator, key, columnFamily, REPLY_TO_USERNAME, status.getReplyToUsername());
+        addBoolean(mutator, key, columnFamily, REMOVED, status.getRemoved());
+    }
+
+    @Override
+    Status newInstance(String key) {
+        Status status = new Status();
+        status.setStatusId(key);
+        return status;
+    }
+
+    @Override
+    void decodeColumn(Status status, String name, ByteBuffer value) {
+        if (LOGIN.equals(name)) {
+            status.setLogin(toString(value));
+        } else if (USERNAME.equals(name)) {
+            status.setUsername(toString(value));
+        } else if (DOMAIN.equals(name)) {
+            status.setDomain(toString(value));
+        } else if (GROUP_ID.equals(name)) {
+            status.setGroupId(toString(value));
+        } else if (CONTENT.equals(name)) {
+            status.setContent(toString(value));
+        } else if (STATUS_DATE.equals(name)) {
+            status.setStatusDate(toDate(value));
+        } else if (REPLY_TO.equals(name)) {
+            status.setReplyTo(toString(value));
+        } else if (REPLY_TO_USERNAME.equals(name)) {
+            status.setReplyToUsername(toString(value));
+        } else if (REMOVED.equals(name)) {
+            status.setRemoved(toBoolean(value));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package fr.ippon.tatami.repository.cassandra;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Time buckets, used to split the rows which receive the writes of a whole domain or of a whole tag.
+ * <p/>
+ * The bucket is appended to the row key : "key:bucket". Buckets are strings which sort in the same order as time.
+ *
+ * @author Julien Dubois
+ */
+final class TimeBuckets {
+
+    static final String BUCKET_SEPARATOR = ":";
+
+    private TimeBuckets() {
+    }
+
+    /**
+     * The monthly bucket of a timestamp, in the form "yyyyMM".
+     */
+    static String getMonthBucket(long time) {
+        return format("yyyyMM", time);
+    }
+
+    /**
+     * The daily bucket of a timestamp, in the form "yyyyMMdd".
+     */
+    static String getDayBucket(long time) {
+        return format("yyyyMMdd", time);
+    }
+
+    static String getBucketKey(String key, String bucket) {
+        return key + BUCKET_SEPARATOR + bucket;
+    }
+
+    /**
+     * Rows written before time buckets were introduced do not have a bucket in their key.
+     */
+    static boolean isBucketKey(String key) {
+        return key.contains(BUCKET_SEPARATOR);
+    }
+
+    private static String format(String pattern, long time) {
+        // SimpleDateFormat is not thread-safe
+        SimpleDateFormat dateFormat = new SimpleDateFormat(pattern);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return dateFormat.format(new Date(time));
+    }
+}
@@ -0,0 +1,114 @@
+package fr.ippon.tatami.repository.cassandra;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.security.SecureRandom;
+import java.util.Enumeration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates version 1 (time-based) UUIDs, without locking.
+ * <p/>
+ * - The timestamp has a 100ns resolution : it is the current time, or the last timestamp + 1 when several
+ * UUIDs are generated in the same 100ns, or when the clock goes backwards. It is reserved with a CAS.
+ * - The node id is computed from a hardware address of this node, or from its host name.
+ * It can be set with the "tatami.node.id" system property, in hexadecimal (an invalid value is ignored).
+ * - The clock sequence is chosen randomly when the application starts, so two applications on the same node,
+ * or an application restarted with its clock set backwards, do not generate the same UUIDs.
+ * <p/>
+ * The UUIDs can be read with TimeUUIDUtils.getTimeFromUUID().
+ *
+ * @author Julien Dubois
+ */
+public final class TimeUUIDGenerator {
+
+    private static final Log log = LogFactory.getLog(TimeUUIDGenerator.class);
+
+    /**
+     * Number of 100ns intervals between the UUID epoch (1582-10-15) and the Unix epoch.
+     */
+    private static final long UUID_EPOCH_OFFSET = 0x01b21dd213814000L;
+
+    private static final AtomicLong lastTimestamp = new AtomicLong();
+
+    private static final long clockSeqAndNode = computeClockSeqAndNode();
+
+    private TimeUUIDGenerator() {
+    }
+
+    /**
+     * A new unique TimeUUID, greater than all the TimeUUIDs previously generated by this application.
+     */
+    public static UUID getUniqueTimeUUID() {
+        long timestamp = nextTimestamp();
+        long mostSigBits = ((timestamp & 0xFFFFFFFFL) << 32) | // time_low
+                (((timestamp >>> 32) & 0xFFFFL) << 16) | // time_mid
+                0x1000L | // version 1
+                ((timestamp >>> 48) & 0x0FFFL); // time_hi
+
+        return new UUID(mostSigBits, clockSeqAndNode);
+    }
+
+    private static long nextTimestamp() {
+        while (true) {
+            long now = System.currentTimeMillis() * 10000 + UUID_EPOCH_OFFSET;
+            long last = lastTimestamp.get();
+            long next = now > last ? now : last + 1;
+            if (lastTimestamp.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    private static long computeClockSeqAndNode() {
+        long clockSeq = new SecureRandom().nextInt(0x4000);
+        long node = computeNode();
+        if (log.isDebugEnabled()) {
+            log.debug("TimeUUID node id : " + Long.toHexString(node) + ", clock sequence : " + clockSeq);
+        }
+        return 0x8000000000000000L | // IETF variant
+                (clockSeq << 48) |
+                node;
+    }
+
+    private static long computeNode() {
+        String nodeId = System.getProperty("tatami.node.id");
+        if (nodeId != null) {
+            // This runs in the static initializer : an invalid value must not prevent the class from loading
+            try {
+                return Long.parseLong(nodeId.trim(), 16) & 0xFFFFFFFFFFFFL;
+            } catch (NumberFormatException e) {
+                log.error("Invalid tatami.node.id \"" + nodeId + "\", it should be a hexadecimal number : " +
+                        "the node id is computed from the hardware address of this node");
+            }
+        }
+        try {
+            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+            while (interfaces != null && interfaces.hasMoreElements()) {
+                NetworkInterface networkInterface = interfaces.nextElement();
+                byte[] address = networkInterface.getHardwareAddress();
+                if (!networkInterface.isLoopback() && address != null && address.length == 6) {
+                    long node = 0;
+                    for (byte b : address) {
+                        node = (node << 8) | (b & 0xFF);
+                    }
+                    return node;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Could not read the hardware address of this node : " + e.getMessage());
+        }
+        long node;
+        try {
+            node = InetAddress.getLocalHost().getHostName().hashCode() & 0xFFFFFFFFL;
+        } catch (Exception e) {
+            node = new SecureRandom().nextLong() & 0xFFFFFFFFFFFFL;
+        }
+        // This is not a hardware address : the multicast bit is set, as in RFC 4122
+        return node | 0x010000000000L;
+    }
+}
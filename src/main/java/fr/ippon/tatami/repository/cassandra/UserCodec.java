@@ -0,0 +1,87 @@
+package fr.ippon.tatami.repository.cassandra;
+
+import fr.ippon.tatami.domain.User;
+import me.prettyprint.hector.api.mutation.Mutator;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Codec of the User column family.
+ * <p/>
+ * Structure :
+ * - Key = login
+ * - Name = field name
+ * - Value = field value
+ * <p/>
+ * The counters of the user are stored in the Counter column family.
+ *
+ * @author Julien Dubois
+ */
+class UserCodec extends ColumnCodec<User> {
+
+    static final String PASSWORD = "password";
+    static final String USERNAME = "username";
+    static final String DOMAIN = "domain";
+    static final String GRAVATAR = "gravatar";
+    static final String FIRST_NAME = "firstName";
+    static final String LAST_NAME = "lastName";
+    static final String JOB_TITLE = "jobTitle";
+    static final String PHONE_NUMBER = "phoneNumber";
+    static final String OPEN_ID_URL = "openIdUrl";
+    static final String THEME = "theme";
+
+    private static final String[] COLUMN_NAMES = {PASSWORD, USERNAME, DOMAIN, GRAVATAR, FIRST_NAME, LAST_NAME,
+            JOB_TITLE, PHONE_NUMBER, OPEN_ID_URL, THEME};
+
+    @Override
+    String[] getColumnNames() {
+        return COLUMN_NAMES;
+    }
+
+    @Override
+    void encode(Mutator<String> mutator, String columnFamily, User user) {
+        String key = user.getLogin();
+        addString(mutator, key, columnFamily, PASSWORD, user.getPassword());
+        addString(mutator, key, columnFamily, USERNAME, user.getUsername());
+        addString(mutator, key, columnFamily, DOMAIN, user.getDomain());
+        addString(mutator, key, columnFamily, GRAVATAR, user.getGravatar());
+        addString(mutator, key, columnFamily, FIRST_NAME, user.getFirstName());
+        addString(mutator, key, columnFamily, LAST_NAME, user.getLastName());
+        addString(mutator, key, columnFamily, JOB_TITLE, user.getJobTitle());
+        addString(mutator, key, columnFamily, PHONE_NUMBER, user.getPhoneNumber());
+        addString(mutator, key, columnFamily, OPEN_ID_URL, user.getOpenIdUrl());
+        addString(mutator, key, columnFamily, THEME, user.getTheme());
+    }
+
+    @Override
+    User newInstance(String key) {
+        User user = new User();
+        user.setLogin(key);
+        return user;
+    }
+
+    @Override
+    void decodeColumn(User user, String name, ByteBuffer value) {
+        if (PASSWORD.equals(name)) {
+            user.setPassword(toString(value));
+        } else if (USERNAME.equals(name)) {
+            user.setUsername(toString(value));
+        } else if (DOMAIN.equals(name)) {
+            user.setDomain(toString(value));
+        } else if (GRAVATAR.equals(name)) {
+            user.setGravatar(toString(value));
+        } else if (FIRST_NAME.equals(name)) {
+            user.setFirstName(toString(value));
+        } else if (LAST_NAME.equals(name)) {
+            user.setLastName(toString(value));
+        } else if (JOB_TITLE.equals(name)) {
+            user.setJobTitle(toString(value));
+        } else if (PHONE_NUMBER.equals(name)) {
+            user.setPhoneNumber(toString(value));
+        } else if (OPEN_ID_URL.equals(name)) {
+            user.setOpenIdUrl(toString(value));
+        } else if (THEME.equals(name)) {
+            user.setTheme(toString(value));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package fr.ippon.tatami.repository.local;
+
+import com.google.common.collect.Lists;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This abstract class contains commun functions for the followers and the friends.
+ * <p/>
+ * Structure :
+ * - Key = login
+ * - Name = follower or friend login
+ * - Value = time
+ *
+ * @author Julien Dubois
+ */
+public abstract class AbstractLocalFollowerRepository {
+
+    /**
+     * Maximum number of logins in one slice.
+     */
+    public static final int SLICE_SIZE = 500;
+
+    @Inject
+    protected LocalStore localStore;
+
+    protected void addLogin(String key, String login) {
+        localStore.put(getColumnFamily(), key, login, Long.toString(Calendar.getInstance().getTimeInMillis()));
+    }
+
+    protected void removeLogin(String key, String login) {
+        localStore.deleteColumn(getColumnFamily(), key, login);
+    }
+
+    protected void removeLogins(String key, Collection<String> logins) {
+        for (String login : logins) {
+            localStore.deleteColumn(getColumnFamily(), key, login);
+        }
+    }
+
+    protected void removeLoginOfKeys(Collection<String> keys, String login) {
+        for (String key : keys) {
+            localStore.deleteColumn(getColumnFamily(), key, login);
+        }
+    }
+
+    protected Collection<String> findLogins(String key) {
+        Map<String, String> columns = localStore.getSlice(getColumnFamily(), key, null, null, false, Integer.MAX_VALUE);
+        return new ArrayList<String>(columns.keySet());
+    }
+
+    /**
+     * The row is in memory : the slices are read at once.
+     */
+    protected Iterable<List<String>> findLoginsInSlices(String key) {
+        List<String> logins = new ArrayList<String>(findLogins(key));
+        return Lists.partition(logins, SLICE_SIZE);
+    }
+
+    protected abstract String getColumnFamily();
+}
@@ -0,0 +1,105 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.domain.SharedStatusInfo;
+import fr.ippon.tatami.domain.Status;
+import fr.ippon.tatami.repository.cassandra.TimeUUIDGenerator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.inject.Inject;
+import java.util.*;
+
+/**
+ * This abstract class contains commun functions for the local lines : it has the same behavior
+ * as the Cassandra implementation.
+ * <p/>
+ * Structure :
+ * - Key : login
+ * - Name : status Id
+ * - Value : "", or "statusId:'statusId',sharedByLogin:'sharedByLogin'" for a shared status
+ *
+ * @author Julien Dubois
+ */
+public abstract class AbstractLocalLineRepository {
+
+    private final Log log = LogFactory.getLog(AbstractLocalLineRepository.class);
+
+    @Inject
+    protected LocalStore localStore;
+
+    protected void addStatusToLine(String columnFamily, String key, Status status) {
+        localStore.put(columnFamily, key, UUID.fromString(status.getStatusId()), "");
+    }
+
+    protected Map<String, SharedStatusInfo> getLineFromCF(String cf, String login, int size, String since_id, String max_id) {
+        List<Map.Entry<UUID, String>> result;
+        if (max_id != null) {
+            result = getColumns(cf, login, UUID.fromString(max_id), null, size);
+            // max_id is the first column
+            result = result.isEmpty() ? result : result.subList(1, result.size());
+        } else if (since_id != null) {
+            result = getColumns(cf, login, null, UUID.fromString(since_id), size);
+            // since_id is the last column
+            result = result.isEmpty() ? result : result.subList(0, result.size() - 1);
+        } else {
+            result = getColumns(cf, login, null, null, size);
+        }
+
+        Map<String, SharedStatusInfo> line = new LinkedHashMap<String, SharedStatusInfo>();
+        for (Map.Entry<UUID, String> column : result) {
+            String value = column.getValue();
+            if (value.equals("")) { // This is a normal status
+                line.put(column.getKey().toString(), null);
+            } else { // This status was shared by another user
+                String orginialStatusId = value.substring(9, 45);
+                String sharedByLogin = value.substring(60, value.length());
+                SharedStatusInfo sharedStatusInfo = new SharedStatusInfo(
+                        column.getKey().toString(),
+                        orginialStatusId,
+                        sharedByLogin);
+
+                line.put(orginialStatusId, sharedStatusInfo);
+            }
+        }
+        return line;
+    }
+
+    protected void shareStatus(String login,
+                               Status status,
+                               String sharedByLogin,
+                               String columnFamily,
+                               String sharesColumnFamily) {
+
+        UUID name = UUID.fromString(status.getStatusId());
+        if (localStore.getValue(columnFamily, login, name) != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Shared status " + status.getStatusId() + " is already present in " + columnFamily);
+            }
+        } else if (localStore.getValue(sharesColumnFamily, login, name) != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Shared status " + status.getStatusId() + " is already shared in " + columnFamily);
+            }
+        } else {
+            localStore.put(columnFamily, login, TimeUUIDGenerator.getUniqueTimeUUID(),
+                    "statusId:" + status.getStatusId() + ",sharedByLogin:" + sharedByLogin);
+
+            localStore.put(sharesColumnFamily, login, name, "");
+        }
+    }
+
+    protected void shareStatus(Collection<String> logins,
+                               Status status,
+                               String sharedByLogin,
+                               String columnFamily,
+                               String sharesColumnFamily) {
+
+        for (String login : logins) {
+            shareStatus(login, status, sharedByLogin, columnFamily, sharesColumnFamily);
+        }
+    }
+
+    private List<Map.Entry<UUID, String>> getColumns(String cf, String key, UUID start, UUID finish, int size) {
+        Map<UUID, String> slice = localStore.getSlice(cf, key, start, finish, true, size);
+        return new ArrayList<Map.Entry<UUID, String>>(slice.entrySet());
+    }
+}
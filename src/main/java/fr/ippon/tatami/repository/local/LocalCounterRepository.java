@@ -0,0 +1,116 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.repository.CounterRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import java.util.Collection;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.COUNTER_CF;
+
+/**
+ * Local implementation of the Counter repository.
+ * <p/>
+ * Structure :
+ * - Key = login
+ * - Name = counter name
+ * - Value = count
+ * <p/>
+ * Creating a counter adds 0 to it, like with Cassandra : an existing counter keeps its value.
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalCounterRepository implements CounterRepository {
+
+    private static final String STATUS_COUNTER = "STATUS_COUNTER";
+
+    private static final String FOLLOWERS_COUNTER = "FOLLOWERS_COUNTER";
+
+    private static final String FRIENDS_COUNTER = "FRIENDS_COUNTER";
+
+    @Inject
+    private LocalStore localStore;
+
+    @Override
+    public void incrementFollowersCounter(String login) {
+        localStore.increment(COUNTER_CF, login, FOLLOWERS_COUNTER, 1);
+    }
+
+    @Override
+    public void incrementFriendsCounter(String login) {
+        localStore.increment(COUNTER_CF, login, FRIENDS_COUNTER, 1);
+    }
+
+    @Override
+    public void incrementStatusCounter(String login) {
+        localStore.increment(COUNTER_CF, login, STATUS_COUNTER, 1);
+    }
+
+    @Override
+    public void decrementFollowersCounter(String login) {
+        localStore.increment(COUNTER_CF, login, FOLLOWERS_COUNTER, -1);
+    }
+
+    @Override
+    public void decrementFriendsCounter(String login) {
+        localStore.increment(COUNTER_CF, login, FRIENDS_COUNTER, -1);
+    }
+
+    @Override
+    public void decrementStatusCounter(String login) {
+        localStore.increment(COUNTER_CF, login, STATUS_COUNTER, -1);
+    }
+
+    @Override
+    public void decrementFollowersCounters(Collection<String> logins) {
+        for (String login : logins) {
+            decrementFollowersCounter(login);
+        }
+    }
+
+    @Override
+    public void decrementFriendsCounters(Collection<String> logins) {
+        for (String login : logins) {
+            decrementFriendsCounter(login);
+        }
+    }
+
+    @Override
+    public long getFollowersCounter(String login) {
+        return localStore.getCounter(COUNTER_CF, login, FOLLOWERS_COUNTER);
+    }
+
+    @Override
+    public long getFriendsCounter(String login) {
+        return localStore.getCounter(COUNTER_CF, login, FRIENDS_COUNTER);
+    }
+
+    @Override
+    public long getStatusCounter(String login) {
+        return localStore.getCounter(COUNTER_CF, login, STATUS_COUNTER);
+    }
+
+    @Override
+    public void createFollowersCounter(String login) {
+        localStore.increment(COUNTER_CF, login, FOLLOWERS_COUNTER, 0);
+    }
+
+    @Override
+    public void createFriendsCounter(String login) {
+        localStore.increment(COUNTER_CF, login, FRIENDS_COUNTER, 0);
+    }
+
+    @Override
+    public void createStatusCounter(String login) {
+        localStore.increment(COUNTER_CF, login, STATUS_COUNTER, 0);
+    }
+
+    @Override
+    public void deleteCounters(String login) {
+        localStore.deleteRow(COUNTER_CF, login);
+    }
+}
@@ -0,0 +1,57 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.Status;
+import fr.ippon.tatami.domain.UserStatusStat;
+import fr.ippon.tatami.repository.DaylineRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.DAYLINE_CF;
+
+/**
+ * Local implementation of the Dayline repository.
+ * <p/>
+ * Structure :
+ * - Key = day + domain
+ * - Name = username
+ * - Value = count
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalDaylineRepository implements DaylineRepository {
+
+    @Inject
+    private LocalStore localStore;
+
+    @Override
+    public void addStatusToDayline(Status status, String day) {
+        localStore.increment(DAYLINE_CF, getKey(status.getDomain(), day), status.getUsername(), 1);
+    }
+
+    @Override
+    public Collection<UserStatusStat> getDayline(String domain, String day) {
+        Collection<UserStatusStat> results = new TreeSet<UserStatusStat>();
+        Map<String, String> columns =
+                localStore.getSlice(DAYLINE_CF, getKey(domain, day), null, null, false, Integer.MAX_VALUE);
+
+        for (Map.Entry<String, String> column : columns.entrySet()) {
+            results.add(new UserStatusStat(column.getKey(), Long.parseLong(column.getValue())));
+        }
+        return results;
+    }
+
+    /**
+     * Generates the key for this column family.
+     */
+    private String getKey(String domain, String day) {
+        return day + "-" + domain;
+    }
+}
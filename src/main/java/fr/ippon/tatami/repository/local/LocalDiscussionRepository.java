@@ -0,0 +1,50 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.repository.DiscussionRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.DISCUSSION_CF;
+
+/**
+ * Local implementation of the Discussion repository.
+ * <p/>
+ * Structure :
+ * - Key = original status Id
+ * - Name = time
+ * - Value = reply status Id
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalDiscussionRepository implements DiscussionRepository {
+
+    @Inject
+    private LocalStore localStore;
+
+    @Override
+    public void addReplyToDiscussion(String originalStatusId, String replyStatusId) {
+        localStore.put(DISCUSSION_CF, originalStatusId, Calendar.getInstance().getTimeInMillis(), replyStatusId);
+    }
+
+    @Override
+    public Collection<String> findStatusIdsInDiscussion(String originalStatusId) {
+        Map<Long, String> columns =
+                localStore.getSlice(DISCUSSION_CF, originalStatusId, null, null, false, Integer.MAX_VALUE);
+
+        return new LinkedHashSet<String>(columns.values());
+    }
+
+    @Override
+    public boolean hasReply(String statusId) {
+        return localStore.getColumnCount(DISCUSSION_CF, statusId) > 0;
+    }
+}
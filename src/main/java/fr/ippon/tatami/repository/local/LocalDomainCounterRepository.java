@@ -0,0 +1,97 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.DomainStatistics;
+import fr.ippon.tatami.repository.DomainCounterRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.DOMAIN_COUNTER_CF;
+
+/**
+ * Local implementation of the DomainCounter repository.
+ * <p/>
+ * Structure :
+ * - Key = domain
+ * - Name = counter name
+ * - Value = count
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalDomainCounterRepository implements DomainCounterRepository {
+
+    private static final String USER_COUNTER = "USER_COUNTER";
+
+    private static final String STATUS_COUNTER = "STATUS_COUNTER";
+
+    private static final String GROUP_COUNTER = "GROUP_COUNTER";
+
+    private static final String TAG_COUNTER = "TAG_COUNTER";
+
+    @Inject
+    private LocalStore localStore;
+
+    @Override
+    public void incrementUserCounter(String domain) {
+        localStore.increment(DOMAIN_COUNTER_CF, domain, USER_COUNTER, 1);
+    }
+
+    @Override
+    public void decrementUserCounter(String domain) {
+        localStore.increment(DOMAIN_COUNTER_CF, domain, USER_COUNTER, -1);
+    }
+
+    @Override
+    public void incrementStatusCounter(String domain) {
+        localStore.increment(DOMAIN_COUNTER_CF, domain, STATUS_COUNTER, 1);
+    }
+
+    @Override
+    public void decrementStatusCounter(String domain) {
+        localStore.increment(DOMAIN_COUNTER_CF, domain, STATUS_COUNTER, -1);
+    }
+
+    @Override
+    public void incrementGroupCounter(String domain) {
+        localStore.increment(DOMAIN_COUNTER_CF, domain, GROUP_COUNTER, 1);
+    }
+
+    @Override
+    public void incrementTagCounter(String domain) {
+        localStore.increment(DOMAIN_COUNTER_CF, domain, TAG_COUNTER, 1);
+    }
+
+    @Override
+    public long getUserCounter(String domain) {
+        return localStore.getCounter(DOMAIN_COUNTER_CF, domain, USER_COUNTER);
+    }
+
+    @Override
+    public DomainStatistics getDomainStatistics(String domain) {
+        DomainStatistics statistics = new DomainStatistics();
+        statistics.setName(domain);
+        statistics.setNumberOfUsers(localStore.getCounter(DOMAIN_COUNTER_CF, domain, USER_COUNTER));
+        statistics.setNumberOfStatuses(localStore.getCounter(DOMAIN_COUNTER_CF, domain, STATUS_COUNTER));
+        statistics.setNumberOfGroups(localStore.getCounter(DOMAIN_COUNTER_CF, domain, GROUP_COUNTER));
+        statistics.setNumberOfTags(localStore.getCounter(DOMAIN_COUNTER_CF, domain, TAG_COUNTER));
+        return statistics;
+    }
+
+    @Override
+    public void setDomainStatistics(DomainStatistics statistics) {
+        String domain = statistics.getName();
+        DomainStatistics currentStatistics = getDomainStatistics(domain);
+        localStore.increment(DOMAIN_COUNTER_CF, domain, USER_COUNTER,
+                statistics.getNumberOfUsers() - currentStatistics.getNumberOfUsers());
+        localStore.increment(DOMAIN_COUNTER_CF, domain, STATUS_COUNTER,
+                statistics.getNumberOfStatuses() - currentStatistics.getNumberOfStatuses());
+        localStore.increment(DOMAIN_COUNTER_CF, domain, GROUP_COUNTER,
+                statistics.getNumberOfGroups() - currentStatistics.getNumberOfGroups());
+        localStore.increment(DOMAIN_COUNTER_CF, domain, TAG_COUNTER,
+                statistics.getNumberOfTags() - currentStatistics.getNumberOfTags());
+    }
+}
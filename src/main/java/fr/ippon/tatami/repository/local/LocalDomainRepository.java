@@ -0,0 +1,102 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.Domain;
+import fr.ippon.tatami.repository.DomainCounterRepository;
+import fr.ippon.tatami.repository.DomainRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import java.util.*;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.DOMAIN_CF;
+
+/**
+ * Local implementation of the Domain repository.
+ * <p/>
+ * Structure :
+ * - Key = domain
+ * - Name = login
+ * - Value = time
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalDomainRepository implements DomainRepository {
+
+    /**
+     * The user counter is only changed when the login is added to, or removed from, the domain : the existence
+     * check and the write are serialized for each login in this JVM.
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public LocalDomainRepository() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Inject
+    private LocalStore localStore;
+
+    @Inject
+    private DomainCounterRepository domainCounterRepository;
+
+    @Override
+    public void addUserInDomain(String domain, String login) {
+        synchronized (getLock(domain, login)) {
+            boolean newUserInDomain = localStore.getValue(DOMAIN_CF, domain, login) == null;
+            localStore.put(DOMAIN_CF, domain, login, Long.toString(Calendar.getInstance().getTimeInMillis()));
+            if (newUserInDomain) {
+                domainCounterRepository.incrementUserCounter(domain);
+            }
+        }
+    }
+
+    @Override
+    public void updateUserInDomain(String domain, String login) {
+        this.addUserInDomain(domain, login);
+    }
+
+    @Override
+    public void deleteUserInDomain(String domain, String login) {
+        synchronized (getLock(domain, login)) {
+            if (localStore.getValue(DOMAIN_CF, domain, login) != null) {
+                localStore.deleteColumn(DOMAIN_CF, domain, login);
+                domainCounterRepository.decrementUserCounter(domain);
+            }
+        }
+    }
+
+    @Override
+    public List<String> getLoginsInDomain(String domain, String startLogin, int size) {
+        Map<String, String> columns = localStore.getSlice(DOMAIN_CF, domain, startLogin, null, false, size);
+        return new ArrayList<String>(columns.keySet());
+    }
+
+    @Override
+    public List<String> getLoginsInDomainReversed(String domain, String startLogin, int size) {
+        Map<String, String> columns = localStore.getSlice(DOMAIN_CF, domain, startLogin, null, true, size);
+        return new ArrayList<String>(columns.keySet());
+    }
+
+    @Override
+    public Set<Domain> getAllDomains() {
+        Set<Domain> domains = new HashSet<Domain>();
+        for (String key : localStore.getKeys(DOMAIN_CF, null, Integer.MAX_VALUE)) {
+            Domain domain = new Domain();
+            domain.setName(key);
+            domain.setNumberOfUsers(domainCounterRepository.getUserCounter(key));
+            domains.add(domain);
+        }
+        return domains;
+    }
+
+    private Object getLock(String domain, String login) {
+        return locks[((domain + login).hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+}
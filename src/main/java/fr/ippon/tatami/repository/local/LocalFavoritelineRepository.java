@@ -0,0 +1,49 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.SharedStatusInfo;
+import fr.ippon.tatami.domain.Status;
+import fr.ippon.tatami.repository.FavoritelineRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.FAVLINE_CF;
+
+/**
+ * Local implementation of the Favoriteline repository.
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalFavoritelineRepository extends AbstractLocalLineRepository implements FavoritelineRepository {
+
+    @Override
+    public void addStatusToFavoriteline(Status status, String login) {
+        addStatusToLine(FAVLINE_CF, login, status);
+    }
+
+    @Override
+    public void removeStatusFromFavoriteline(Status status, String login) {
+        localStore.deleteColumn(FAVLINE_CF, login, UUID.fromString(status.getStatusId()));
+    }
+
+    @Override
+    public Map<String, SharedStatusInfo> getFavoriteline(String login) {
+        Map<String, SharedStatusInfo> line = new LinkedHashMap<String, SharedStatusInfo>();
+        Map<UUID, String> columns = localStore.getSlice(FAVLINE_CF, login, null, null, true, 50);
+        for (UUID statusId : columns.keySet()) {
+            line.put(statusId.toString(), null);
+        }
+        return line;
+    }
+
+    @Override
+    public void deleteFavoriteline(String login) {
+        localStore.deleteRow(FAVLINE_CF, login);
+    }
+}
@@ -0,0 +1,56 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.repository.FollowerRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.FOLLOWERS_CF;
+
+/**
+ * Local implementation of the Follower repository.
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalFollowerRepository extends AbstractLocalFollowerRepository implements FollowerRepository {
+
+    @Override
+    public void addFollower(String login, String followerLogin) {
+        addLogin(login, followerLogin);
+    }
+
+    @Override
+    public void removeFollower(String login, String followerLogin) {
+        removeLogin(login, followerLogin);
+    }
+
+    @Override
+    public void removeFollowers(String login, Collection<String> followerLogins) {
+        removeLogins(login, followerLogins);
+    }
+
+    @Override
+    public void removeFollowerOfUsers(Collection<String> logins, String followerLogin) {
+        removeLoginOfKeys(logins, followerLogin);
+    }
+
+    @Override
+    public Collection<String> findFollowersForUser(String login) {
+        return findLogins(login);
+    }
+
+    @Override
+    public Iterable<List<String>> findFollowersForUserInSlices(String login) {
+        return findLoginsInSlices(login);
+    }
+
+    @Override
+    protected String getColumnFamily() {
+        return FOLLOWERS_CF;
+    }
+}
@@ -0,0 +1,56 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.repository.FriendRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.FRIENDS_CF;
+
+/**
+ * Local implementation of the Friend repository.
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalFriendRepository extends AbstractLocalFollowerRepository implements FriendRepository {
+
+    @Override
+    public void addFriend(String login, String friendLogin) {
+        addLogin(login, friendLogin);
+    }
+
+    @Override
+    public void removeFriend(String login, String friendLogin) {
+        removeLogin(login, friendLogin);
+    }
+
+    @Override
+    public void removeFriends(String login, Collection<String> friendLogins) {
+        removeLogins(login, friendLogins);
+    }
+
+    @Override
+    public void removeFriendOfUsers(Collection<String> logins, String friendLogin) {
+        removeLoginOfKeys(logins, friendLogin);
+    }
+
+    @Override
+    public Collection<String> findFriendsForUser(String login) {
+        return findLogins(login);
+    }
+
+    @Override
+    public Iterable<List<String>> findFriendsForUserInSlices(String login) {
+        return findLoginsInSlices(login);
+    }
+
+    @Override
+    protected String getColumnFamily() {
+        return FRIENDS_CF;
+    }
+}
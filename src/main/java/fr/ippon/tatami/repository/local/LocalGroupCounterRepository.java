@@ -0,0 +1,48 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.repository.GroupCounterRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.GROUP_COUNTER_CF;
+
+/**
+ * Local implementation of the GroupCounter repository.
+ * <p/>
+ * Structure :
+ * - Key = domain
+ * - Name = groupId
+ * - Value = count
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalGroupCounterRepository implements GroupCounterRepository {
+
+    @Inject
+    private LocalStore localStore;
+
+    @Override
+    public long getGroupCounter(String domain, String groupId) {
+        return localStore.getCounter(GROUP_COUNTER_CF, domain, groupId);
+    }
+
+    @Override
+    public void incrementGroupCounter(String domain, String groupId) {
+        localStore.increment(GROUP_COUNTER_CF, domain, groupId, 1);
+    }
+
+    @Override
+    public void decrementGroupCounter(String domain, String groupId) {
+        localStore.increment(GROUP_COUNTER_CF, domain, groupId, -1);
+    }
+
+    @Override
+    public void deleteGroupCounter(String domain, String groupId) {
+        localStore.deleteColumn(GROUP_COUNTER_CF, domain, groupId);
+    }
+}
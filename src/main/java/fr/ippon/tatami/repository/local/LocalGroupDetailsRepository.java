@@ -0,0 +1,59 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.Group;
+import fr.ippon.tatami.repository.GroupDetailsRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.GROUP_DETAILS_CF;
+
+/**
+ * Local implementation of the GroupDetails repository.
+ * <p/>
+ * Structure :
+ * - Key = groupId
+ * - Name = field name
+ * - Value = field value
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalGroupDetailsRepository implements GroupDetailsRepository {
+
+    private final String NAME = "name";
+    private final String DESCRIPTION = "description";
+    private final String PUBLIC_GROUP = "publicGroup";
+
+    @Inject
+    private LocalStore localStore;
+
+    @Override
+    public void createGroupDetails(String groupId, String name, String description, boolean publicGroup) {
+        editGroupDetails(groupId, name, description);
+        localStore.put(GROUP_DETAILS_CF, groupId, PUBLIC_GROUP, Boolean.toString(publicGroup));
+    }
+
+    @Override
+    public void editGroupDetails(String groupId, String name, String description) {
+        if (name != null) {
+            localStore.put(GROUP_DETAILS_CF, groupId, NAME, name);
+        }
+        if (description != null) {
+            localStore.put(GROUP_DETAILS_CF, groupId, DESCRIPTION, description);
+        }
+    }
+
+    @Override
+    public Group getGroupDetails(String groupId) {
+        Group group = new Group();
+        group.setGroupId(groupId);
+        group.setName(localStore.getValue(GROUP_DETAILS_CF, groupId, NAME));
+        group.setDescription(localStore.getValue(GROUP_DETAILS_CF, groupId, DESCRIPTION));
+        group.setPublicGroup(Boolean.TRUE.toString().equals(localStore.getValue(GROUP_DETAILS_CF, groupId, PUBLIC_GROUP)));
+        return group;
+    }
+}
@@ -0,0 +1,54 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.config.GroupRoles;
+import fr.ippon.tatami.repository.GroupMembersRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.Map;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.GROUP_MEMBERS_CF;
+
+/**
+ * Local implementation of the GroupMembers repository.
+ * <p/>
+ * Structure :
+ * - Key = groupId
+ * - Name = login
+ * - Value = role
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalGroupMembersRepository implements GroupMembersRepository {
+
+    @Inject
+    private LocalStore localStore;
+
+    @Override
+    public void addMember(String groupId, String login) {
+        localStore.put(GROUP_MEMBERS_CF, groupId, login, GroupRoles.MEMBER);
+    }
+
+    @Override
+    public void addAdmin(String groupId, String login) {
+        localStore.put(GROUP_MEMBERS_CF, groupId, login, GroupRoles.ADMIN);
+    }
+
+    @Override
+    public void removeMember(String groupId, String login) {
+        localStore.deleteColumn(GROUP_MEMBERS_CF, groupId, login);
+    }
+
+    @Override
+    public Map<String, String> findMembers(String groupId) {
+        Map<String, String> columns =
+                localStore.getSlice(GROUP_MEMBERS_CF, groupId, null, null, false, Integer.MAX_VALUE);
+
+        return new HashMap<String, String>(columns);
+    }
+}
@@ -0,0 +1,54 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.Group;
+import fr.ippon.tatami.repository.GroupRepository;
+import fr.ippon.tatami.repository.cassandra.TimeUUIDGenerator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.GROUP_CF;
+
+/**
+ * Local implementation of the Group repository.
+ * <p/>
+ * Structure :
+ * - Key = domain
+ * - Name = groupId
+ * - Value = ""
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalGroupRepository implements GroupRepository {
+
+    @Inject
+    private LocalStore localStore;
+
+    @Override
+    public String createGroup(String domain) {
+        String groupId = TimeUUIDGenerator.getUniqueTimeUUID().toString();
+        localStore.put(GROUP_CF, domain, groupId, "");
+        return groupId;
+    }
+
+    @Override
+    public Group getGroupById(String domain, String groupId) {
+        if (localStore.getValue(GROUP_CF, domain, groupId) != null) {
+            Group group = new Group();
+            group.setDomain(domain);
+            group.setGroupId(groupId);
+            return group;
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public int countGroups(String domain) {
+        return localStore.getColumnCount(GROUP_CF, domain);
+    }
+}
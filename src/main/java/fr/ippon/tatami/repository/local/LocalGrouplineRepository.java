@@ -0,0 +1,32 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.SharedStatusInfo;
+import fr.ippon.tatami.domain.Status;
+import fr.ippon.tatami.repository.GrouplineRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.GROUPLINE_CF;
+
+/**
+ * Local implementation of the Groupline repository.
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalGrouplineRepository extends AbstractLocalLineRepository implements GrouplineRepository {
+
+    @Override
+    public void addStatusToGroupline(Status status, String groupId) {
+        addStatusToLine(GROUPLINE_CF, groupId, status);
+    }
+
+    @Override
+    public Map<String, SharedStatusInfo> getGroupline(String groupId, int size, String since_id, String max_id) {
+        return getLineFromCF(GROUPLINE_CF, groupId, size, since_id, max_id);
+    }
+}
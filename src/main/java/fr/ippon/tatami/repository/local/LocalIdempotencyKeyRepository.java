@@ -0,0 +1,73 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.repository.IdempotencyKeyRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.IDEMPOTENCY_KEY_CF;
+
+/**
+ * Local implementation of the Idempotency Key repository.
+ * <p/>
+ * Structure :
+ * - Key = login
+ * - Name = idempotency key
+ * - Value = reservation Id + "/" + status Id (empty while the status is created)
+ * <p/>
+ * The reservations are synchronized, as there is only one node.
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalIdempotencyKeyRepository implements IdempotencyKeyRepository {
+
+    private final static int COLUMN_TTL = 60 * 60 * 24; // The column is stored for 1 day.
+
+    @Inject
+    private LocalStore localStore;
+
+    @Override
+    public synchronized boolean reserveIdempotencyKey(String login, String idempotencyKey, String reservationId) {
+        String value = localStore.getValue(IDEMPOTENCY_KEY_CF, login, idempotencyKey);
+        if (value == null) {
+            localStore.put(IDEMPOTENCY_KEY_CF, login, idempotencyKey, reservationId + "/", COLUMN_TTL);
+            return true;
+        }
+        return value.startsWith(reservationId + "/");
+    }
+
+    @Override
+    public synchronized void removeIdempotencyKey(String login, String idempotencyKey, String reservationId) {
+        String value = localStore.getValue(IDEMPOTENCY_KEY_CF, login, idempotencyKey);
+        if (value != null && value.startsWith(reservationId + "/")) {
+            localStore.deleteColumn(IDEMPOTENCY_KEY_CF, login, idempotencyKey);
+        }
+    }
+
+    @Override
+    public synchronized void addIdempotencyKey(String login, String idempotencyKey, String reservationId,
+                                               String statusId) {
+
+        String value = localStore.getValue(IDEMPOTENCY_KEY_CF, login, idempotencyKey);
+        if (value != null && value.startsWith(reservationId + "/")) {
+            localStore.put(IDEMPOTENCY_KEY_CF, login, idempotencyKey, reservationId + "/" + statusId, COLUMN_TTL);
+        }
+    }
+
+    @Override
+    public String findStatusIdByIdempotencyKey(String login, String idempotencyKey) {
+        String value = localStore.getValue(IDEMPOTENCY_KEY_CF, login, idempotencyKey);
+        if (value == null) {
+            return null;
+        }
+        String statusId = value.substring(value.indexOf('/') + 1);
+        if (statusId.equals("")) {
+            return null;
+        }
+        return statusId;
+    }
+}
@@ -0,0 +1,144 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.LineStatistics;
+import fr.ippon.tatami.repository.LineTrimmingRepository;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.util.*;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.*;
+
+/**
+ * Local implementation of the Line Trimming repository.
+ * <p/>
+ * Counting the columns of a row is cheap in memory, so all the rows of the line column families are
+ * checked on each trimming, and no row is ever pending.
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalLineTrimmingRepository implements LineTrimmingRepository {
+
+    private final Log log = LogFactory.getLog(LocalLineTrimmingRepository.class);
+
+    private static final int KEYS_BATCH_SIZE = 1000;
+
+    @Inject
+    private LocalStore localStore;
+
+    @Inject
+    private Environment env;
+
+    /**
+     * Maximum length of the rows, for each column family.
+     */
+    private final Map<String, Integer> maxLengths = new LinkedHashMap<String, Integer>();
+
+    private final Map<String, LineStatistics> statistics = new HashMap<String, LineStatistics>();
+
+    @PostConstruct
+    public void init() {
+        configureLine(TIMELINE_CF, "line.timeline.maxLength", 5000);
+        configureLine(MENTIONLINE_CF, "line.mentionline.maxLength", 5000);
+        configureLine(TAGLINE_CF, "line.tagline.maxLength", 10000);
+        configureLine(GROUPLINE_CF, "line.groupline.maxLength", 10000);
+        configureLine(TIMELINE_SHARES_CF, "line.timelineShares.maxLength", 5000);
+    }
+
+    private void configureLine(String columnFamily, String property, int defaultMaxLength) {
+        int maxLength = env.getProperty(property, Integer.class, defaultMaxLength);
+        if (log.isDebugEnabled()) {
+            log.debug("Maximum length of " + columnFamily + " rows : " + maxLength);
+        }
+        maxLengths.put(columnFamily, maxLength);
+        statistics.put(columnFamily, new LineStatistics(columnFamily, maxLength));
+    }
+
+    @Override
+    public void trimLines() {
+        for (Map.Entry<String, Integer> maxLength : maxLengths.entrySet()) {
+            String columnFamily = maxLength.getKey();
+            LineStatistics lineStatistics = statistics.get(columnFamily);
+            if (maxLength.getValue() > 0) {
+                String startKey = null;
+                List<String> keys;
+                do {
+                    keys = localStore.getKeys(columnFamily, startKey, KEYS_BATCH_SIZE);
+                    for (String key : keys) {
+                        if (!key.equals(startKey)) {
+                            trimLine(columnFamily, key, maxLength.getValue(), lineStatistics);
+                        }
+                    }
+                    if (!keys.isEmpty()) {
+                        startKey = keys.get(keys.size() - 1);
+                    }
+                } while (keys.size() == KEYS_BATCH_SIZE);
+            }
+            synchronized (lineStatistics) {
+                lineStatistics.setLastTrimDate(new Date());
+            }
+        }
+    }
+
+    /**
+     * All the rows are already checked by trimLines().
+     */
+    @Override
+    public void trimAllLines() {
+        trimLines();
+    }
+
+    @Override
+    public Collection<LineStatistics> getLineStatistics() {
+        Collection<LineStatistics> result = new ArrayList<LineStatistics>();
+        for (String columnFamily : maxLengths.keySet()) {
+            LineStatistics lineStatistics = statistics.get(columnFamily);
+            LineStatistics copy = new LineStatistics(columnFamily, maxLengths.get(columnFamily));
+            synchronized (lineStatistics) {
+                copy.setCheckedRows(lineStatistics.getCheckedRows());
+                copy.setTrimmedRows(lineStatistics.getTrimmedRows());
+                copy.setDeletedColumns(lineStatistics.getDeletedColumns());
+                copy.setLargestRowLength(lineStatistics.getLargestRowLength());
+                copy.setLastTrimDate(lineStatistics.getLastTrimDate());
+            }
+            result.add(copy);
+        }
+        return result;
+    }
+
+    private void trimLine(String columnFamily, String key, int maxLength, LineStatistics lineStatistics) {
+        int length = localStore.getColumnCount(columnFamily, key);
+        int deletedColumns = 0;
+        if (length > maxLength + maxLength / 10) {
+            // The columns are sorted by TimeUUID : the oldest statuses are the first columns of the row
+            Map<UUID, String> columns =
+                    localStore.<UUID>getSlice(columnFamily, key, null, null, false, length - maxLength);
+
+            for (UUID name : columns.keySet()) {
+                localStore.deleteColumn(columnFamily, key, name);
+                deletedColumns++;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Trimmed row " + key + " of " + columnFamily + " : " + deletedColumns + " columns deleted.");
+            }
+        }
+        synchronized (lineStatistics) {
+            lineStatistics.setCheckedRows(lineStatistics.getCheckedRows() + 1);
+            if (deletedColumns > 0) {
+                lineStatistics.setTrimmedRows(lineStatistics.getTrimmedRows() + 1);
+                lineStatistics.setDeletedColumns(lineStatistics.getDeletedColumns() + deletedColumns);
+            }
+            if (length > lineStatistics.getLargestRowLength()) {
+                lineStatistics.setLargestRowLength(length);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.SharedStatusInfo;
+import fr.ippon.tatami.domain.Status;
+import fr.ippon.tatami.repository.MentionlineRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.MENTIONLINE_CF;
+
+/**
+ * Local implementation of the Mentionline repository.
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalMentionlineRepository extends AbstractLocalLineRepository implements MentionlineRepository {
+
+    @Override
+    public void addStatusToMentionline(String mentionedLogin, Status status) {
+        addStatusToLine(MENTIONLINE_CF, mentionedLogin, status);
+    }
+
+    @Override
+    public Map<String, SharedStatusInfo> getMentionline(String login, int size, String since_id, String max_id) {
+        return getLineFromCF(MENTIONLINE_CF, login, size, since_id, max_id);
+    }
+}
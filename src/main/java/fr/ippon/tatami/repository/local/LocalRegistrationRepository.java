@@ -0,0 +1,53 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.repository.RegistrationRepository;
+import fr.ippon.tatami.service.util.RandomUtil;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.REGISTRATION_CF;
+
+/**
+ * Local implementation of the Registration repository.
+ * <p/>
+ * Structure :
+ * - Key = registration key
+ * - Name = "login"
+ * - Value = login
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalRegistrationRepository implements RegistrationRepository {
+
+    private final static String LOGIN = "login";
+
+    private final static int COLUMN_TTL = 60 * 60 * 24 * 2; // The column is stored for 2 days.
+
+    @Inject
+    private LocalStore localStore;
+
+    @Override
+    public String generateRegistrationKey(String login) {
+        String key = RandomUtil.generateRegistrationKey();
+        localStore.put(REGISTRATION_CF, key, LOGIN, login, COLUMN_TTL);
+        return key;
+    }
+
+    @Override
+    public String getLoginByRegistrationKey(String registrationKey) {
+        if (registrationKey == null || registrationKey.equals("")) {
+            return null;
+        }
+        return localStore.getValue(REGISTRATION_CF, registrationKey, LOGIN);
+    }
+
+    @Override
+    public int migrateToKeyRows() {
+        return 0;
+    }
+}
@@ -0,0 +1,48 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.repository.SharesRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.SHARES_CF;
+
+/**
+ * Local implementation of the Shares repository.
+ * <p/>
+ * Structure :
+ * - Key = status Id
+ * - Name = time
+ * - Value = login who shared the status
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalSharesRepository implements SharesRepository {
+
+    @Inject
+    private LocalStore localStore;
+
+    @Override
+    public void newShareByLogin(String statusId, String sharedByLogin) {
+        localStore.put(SHARES_CF, statusId, Calendar.getInstance().getTimeInMillis(), sharedByLogin);
+    }
+
+    @Override
+    public Collection<String> findLoginsWhoSharedAStatus(String statusId) {
+        Map<Long, String> columns = localStore.getSlice(SHARES_CF, statusId, null, null, false, 100);
+        return new LinkedHashSet<String>(columns.values());
+    }
+
+    @Override
+    public boolean hasBeenShared(String statusId) {
+        return localStore.getColumnCount(SHARES_CF, statusId) > 0;
+    }
+}
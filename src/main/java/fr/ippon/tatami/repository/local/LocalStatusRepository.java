@@ -0,0 +1,170 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.Group;
+import fr.ippon.tatami.domain.Status;
+import fr.ippon.tatami.repository.DiscussionRepository;
+import fr.ippon.tatami.repository.SharesRepository;
+import fr.ippon.tatami.repository.StatusRepository;
+import fr.ippon.tatami.repository.cassandra.TimeUUIDGenerator;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import javax.validation.*;
+import java.util.*;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.STATUS_CF;
+
+/**
+ * Local implementation of the Status repository.
+ * <p/>
+ * Structure :
+ * - Key = statusId
+ * - Name = field name
+ * - Value = field value
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalStatusRepository implements StatusRepository {
+
+    private final Log log = LogFactory.getLog(LocalStatusRepository.class);
+
+    private static final String LOGIN = "login";
+    private static final String USERNAME = "username";
+    private static final String DOMAIN = "domain";
+    private static final String GROUP_ID = "groupId";
+    private static final String CONTENT = "content";
+    private static final String STATUS_DATE = "statusDate";
+    private static final String REPLY_TO = "replyTo";
+    private static final String REPLY_TO_USERNAME = "replyToUsername";
+    private static final String REMOVED = "removed";
+
+    @Inject
+    private LocalStore localStore;
+
+    @Inject
+    private DiscussionRepository discussionRepository;
+
+    @Inject
+    private SharesRepository sharesRepository;
+
+    private static ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
+    private static Validator validator = factory.getValidator();
+
+    @Override
+    public Status createStatus(String login,
+                               String username,
+                               String domain,
+                               Group group,
+                               String content,
+                               String replyTo,
+                               String replyToUsername)
+            throws ConstraintViolationException {
+
+        Status status = new Status();
+        status.setStatusId(TimeUUIDGenerator.getUniqueTimeUUID().toString());
+        status.setLogin(login);
+        status.setUsername(username);
+        status.setDomain(domain);
+        if (group != null) {
+            status.setGroupId(group.getGroupId());
+        }
+        status.setContent(content);
+        status.setStatusDate(Calendar.getInstance().getTime());
+        status.setReplyTo(replyTo);
+        status.setReplyToUsername(replyToUsername);
+        status.setRemoved(false);
+        if (log.isDebugEnabled()) {
+            log.debug("Persisting Status : " + status);
+        }
+        Set<ConstraintViolation<Status>> constraintViolations = validator.validate(status);
+        if (!constraintViolations.isEmpty()) {
+            throw new ConstraintViolationException(new HashSet<ConstraintViolation<?>>(constraintViolations));
+        }
+        persistStatus(status);
+        return status;
+    }
+
+    @Override
+    public Status findStatusById(String statusId) {
+        if (statusId == null || statusId.equals("")) {
+            return null;
+        }
+        Map<String, String> columns = localStore.getSlice(STATUS_CF, statusId, null, null, false, Integer.MAX_VALUE);
+        if (columns.isEmpty() || Boolean.valueOf(columns.get(REMOVED))) {
+            return null;
+        }
+        Status status = new Status();
+        status.setStatusId(statusId);
+        status.setLogin(columns.get(LOGIN));
+        status.setUsername(columns.get(USERNAME));
+        status.setDomain(columns.get(DOMAIN));
+        status.setGroupId(columns.get(GROUP_ID));
+        status.setContent(columns.get(CONTENT));
+        if (columns.containsKey(STATUS_DATE)) {
+            status.setStatusDate(new Date(Long.parseLong(columns.get(STATUS_DATE))));
+        }
+        status.setReplyTo(columns.get(REPLY_TO));
+        status.setReplyToUsername(columns.get(REPLY_TO_USERNAME));
+        status.setRemoved(false);
+        status.setDetailsAvailable(computeDetailsAvailable(status));
+        return status;
+    }
+
+    @Override
+    public List<String> findStatusIds(String startStatusId, int size) {
+        return localStore.getKeys(STATUS_CF, startStatusId, size);
+    }
+
+    @Override
+    public void removeStatus(Status status) {
+        status.setRemoved(true);
+        if (log.isDebugEnabled()) {
+            log.debug("Updating Status : " + status);
+        }
+        persistStatus(status);
+    }
+
+    private void persistStatus(Status status) {
+        String key = status.getStatusId();
+        putString(key, LOGIN, status.getLogin());
+        putString(key, USERNAME, status.getUsername());
+        putString(key, DOMAIN, status.getDomain());
+        putString(key, GROUP_ID, status.getGroupId());
+        putString(key, CONTENT, status.getContent());
+        if (status.getStatusDate() != null) {
+            putString(key, STATUS_DATE, Long.toString(status.getStatusDate().getTime()));
+        }
+        putString(key, REPLY_TO, status.getReplyTo());
+        putString(key, REPLY_TO_USERNAME, status.getReplyToUsername());
+        if (status.getRemoved() != null) {
+            putString(key, REMOVED, status.getRemoved().toString());
+        }
+    }
+
+    private void putString(String key, String name, String value) {
+        if (value != null) {
+            localStore.put(STATUS_CF, key, name, value);
+        }
+    }
+
+    private boolean computeDetailsAvailable(Status status) {
+        boolean detailsAvailable = false;
+        if (StringUtils.isNotBlank(status.getReplyTo())) {
+            detailsAvailable = true;
+        } else if (discussionRepository.hasReply(status.getStatusId())) {
+            detailsAvailable = true;
+        } else if (StringUtils.isNotBlank(status.getSharedByUsername())) {
+            detailsAvailable = true;
+        } else if (sharesRepository.hasBeenShared(status.getStatusId())) {
+            detailsAvailable = true;
+        }
+        return detailsAvailable;
+    }
+}
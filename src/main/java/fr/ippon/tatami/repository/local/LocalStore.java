@@ -0,0 +1,590 @@
+package fr.ippon.tatami.repository.local;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
+
+/**
+ * Local storage engine, used instead of Cassandra by small installations.
+ * <p/>
+ * The data model is the same as in Cassandra : column families contain rows, which contain sorted columns.
+ * - All the data is in memory : the rows and the columns are sorted in skip lists, and TimeUUID column names are
+ * sorted by time, like with the Cassandra TimeUUIDType.
+ * - Each write is appended to a memory-mapped segment file. When the application starts, the segments are replayed.
+ * - The compaction rewrites the live data to new segments and deletes the old segments, so the deleted and
+ * expired columns are removed from the disk.
+ * <p/>
+ * Reads do not lock. Writes are serialized, so the segments are written in the same order as the memory.
+ *
+ * @author Julien Dubois
+ */
+public class LocalStore {
+
+    private final Log log = LogFactory.getLog(LocalStore.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * Each record starts with its length and its checksum.
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    /**
+     * Segments with fewer records are never compacted.
+     */
+    private static final long MIN_COMPACTION_RECORDS = 10000;
+
+    private static final byte PUT = 1;
+
+    private static final byte DELETE_COLUMN = 2;
+
+    private static final byte DELETE_ROW = 3;
+
+    private static final byte STRING_NAME = 0;
+
+    private static final byte UUID_NAME = 1;
+
+    private static final byte LONG_NAME = 2;
+
+    /**
+     * Column names are Strings, Longs or UUIDs : TimeUUIDs are sorted by time, then by value.
+     */
+    static final Comparator<Object> COLUMN_NAME_COMPARATOR = new Comparator<Object>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public int compare(Object name1, Object name2) {
+            if (name1 instanceof UUID && name2 instanceof UUID) {
+                UUID uuid1 = (UUID) name1;
+                UUID uuid2 = (UUID) name2;
+                if (uuid1.version() == 1 && uuid2.version() == 1 && uuid1.timestamp() != uuid2.timestamp()) {
+                    return uuid1.timestamp() < uuid2.timestamp() ? -1 : 1;
+                }
+                return uuid1.compareTo(uuid2);
+            }
+            return ((Comparable<Object>) name1).compareTo(name2);
+        }
+    };
+
+    private final File directory;
+
+    private final int segmentSize;
+
+    private final ConcurrentMap<String, ConcurrentNavigableMap<String, ConcurrentNavigableMap<Object, Column>>>
+            columnFamilies = new ConcurrentHashMap<String, ConcurrentNavigableMap<String, ConcurrentNavigableMap<Object, Column>>>();
+
+    private final Object writeLock = new Object();
+
+    private long segmentNumber = 0;
+
+    private MappedByteBuffer segment;
+
+    /**
+     * Number of records in the segments : compared with the number of live columns, to decide when to compact.
+     */
+    private volatile long records = 0;
+
+    public LocalStore(File directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Replays the existing segments, then starts a new segment.
+     */
+    public void open() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create the local storage directory " + directory.getAbsolutePath());
+        }
+        long startTime = System.currentTimeMillis();
+        synchronized (writeLock) {
+            List<File> segments = findSegments();
+            for (File file : segments) {
+                records += replaySegment(file);
+                segmentNumber = getSegmentNumber(file);
+            }
+            openSegment(segmentNumber + 1, segmentSize);
+        }
+        log.info("Local storage opened in " + (System.currentTimeMillis() - startTime) + " ms : " +
+                records + " records replayed from " + directory.getAbsolutePath());
+    }
+
+    public void close() {
+        synchronized (writeLock) {
+            if (segment != null) {
+                segment.force();
+                segment = null;
+            }
+        }
+        log.info("Local storage closed");
+    }
+
+    // Writes
+
+    public void put(String columnFamily, String key, Object name, String value) {
+        put(columnFamily, key, name, value, 0);
+    }
+
+    /**
+     * Writes a column, which expires after "ttl" seconds if ttl is positive.
+     */
+    public void put(String columnFamily, String key, Object name, String value, int ttl) {
+        long expirationTime = ttl > 0 ? System.currentTimeMillis() + ttl * 1000L : 0;
+        byte[] record = encodePut(columnFamily, key, name, value, expirationTime);
+        synchronized (writeLock) {
+            append(record);
+            getRow(columnFamily, key, true).put(name, new Column(value, expirationTime));
+        }
+    }
+
+    /**
+     * Adds "delta" to a counter column, and returns its new value.
+     */
+    public long increment(String columnFamily, String key, Object name, long delta) {
+        synchronized (writeLock) {
+            long value = getCounter(columnFamily, key, name) + delta;
+            String stringValue = Long.toString(value);
+            append(encodePut(columnFamily, key, name, stringValue, 0));
+            getRow(columnFamily, key, true).put(name, new Column(stringValue, 0));
+            return value;
+        }
+    }
+
+    public void deleteColumn(String columnFamily, String key, Object name) {
+        byte[] record = encodeDeletion(DELETE_COLUMN, columnFamily, key, name);
+        synchronized (writeLock) {
+            append(record);
+            deleteColumnInMemory(columnFamily, key, name);
+        }
+    }
+
+    public void deleteRow(String columnFamily, String key) {
+        byte[] record = encodeDeletion(DELETE_ROW, columnFamily, key, null);
+        synchronized (writeLock) {
+            append(record);
+            getColumnFamily(columnFamily).remove(key);
+        }
+    }
+
+    // Reads
+
+    public String getValue(String columnFamily, String key, Object name) {
+        Map<Object, Column> row = getRow(columnFamily, key, false);
+        if (row == null) {
+            return null;
+        }
+        Column column = row.get(name);
+        if (column == null || column.isExpired(System.currentTimeMillis())) {
+            return null;
+        }
+        return column.value;
+    }
+
+    public long getCounter(String columnFamily, String key, Object name) {
+        String value = getValue(columnFamily, key, name);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    public int getColumnCount(String columnFamily, String key) {
+        Map<Object, Column> row = getRow(columnFamily, key, false);
+        if (row == null) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (Column column : row.values()) {
+            if (!column.isExpired(now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads the columns of a row, from "start" to "finish" (both inclusive, null for no limit), like a
+     * Cassandra slice query : when the slice is reversed, "start" is the greatest column name.
+     */
+    @SuppressWarnings("unchecked")
+    public <N> Map<N, String> getSlice(String columnFamily, String key, N start, N finish, boolean reversed,
+                                       int count) {
+
+        Map<N, String> slice = new LinkedHashMap<N, String>();
+        ConcurrentNavigableMap<Object, Column> row = getRow(columnFamily, key, false);
+        if (row == null) {
+            return slice;
+        }
+        NavigableMap<Object, Column> columns = reversed ? row.descendingMap() : row;
+        if (start != null && finish != null) {
+            columns = columns.subMap(start, true, finish, true);
+        } else if (start != null) {
+            columns = columns.tailMap(start, true);
+        } else if (finish != null) {
+            columns = columns.headMap(finish, true);
+        }
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Object, Column> column : columns.entrySet()) {
+            if (slice.size() >= count) {
+                break;
+            }
+            if (!column.getValue().isExpired(now)) {
+                slice.put((N) column.getKey(), column.getValue().value);
+            }
+        }
+        return slice;
+    }
+
+    /**
+     * Reads the keys of the rows which have columns, starting at "startKey" (inclusive).
+     */
+    public List<String> getKeys(String columnFamily, String startKey, int count) {
+        NavigableMap<String, ConcurrentNavigableMap<Object, Column>> rows = getColumnFamily(columnFamily);
+        if (startKey != null) {
+            rows = rows.tailMap(startKey, true);
+        }
+        List<String> keys = new ArrayList<String>();
+        for (Map.Entry<String, ConcurrentNavigableMap<Object, Column>> row : rows.entrySet()) {
+            if (keys.size() >= count) {
+                break;
+            }
+            if (!row.getValue().isEmpty()) {
+                keys.add(row.getKey());
+            }
+        }
+        return keys;
+    }
+
+    // Compaction
+
+    /**
+     * The segments are compacted when they contain more than "ratio" records per live column.
+     */
+    public boolean needsCompaction(int ratio) {
+        long columns = getColumnCount();
+        return records > MIN_COMPACTION_RECORDS && records > ratio * columns;
+    }
+
+    /**
+     * Writes the live columns to new segments, then deletes the old segments.
+     * <p/>
+     * If the application stops during the compaction, the old segments are replayed before the new ones :
+     * as the new segments only contain the live columns, the result is the same.
+     */
+    public void compact() {
+        long startTime = System.currentTimeMillis();
+        long deletedSegments = 0;
+        synchronized (writeLock) {
+            long lastOldSegment = segmentNumber;
+            openSegment(segmentNumber + 1, segmentSize);
+            records = 0;
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, ConcurrentNavigableMap<String, ConcurrentNavigableMap<Object, Column>>> columnFamily :
+                    columnFamilies.entrySet()) {
+
+                Iterator<Map.Entry<String, ConcurrentNavigableMap<Object, Column>>> rows =
+                        columnFamily.getValue().entrySet().iterator();
+
+                while (rows.hasNext()) {
+                    Map.Entry<String, ConcurrentNavigableMap<Object, Column>> row = rows.next();
+                    Iterator<Map.Entry<Object, Column>> columns = row.getValue().entrySet().iterator();
+                    while (columns.hasNext()) {
+                        Map.Entry<Object, Column> column = columns.next();
+                        if (column.getValue().isExpired(now)) {
+                            columns.remove();
+                        } else {
+                            append(encodePut(columnFamily.getKey(), row.getKey(), column.getKey(),
+                                    column.getValue().value, column.getValue().expirationTime));
+                        }
+                    }
+                    if (row.getValue().isEmpty()) {
+                        rows.remove();
+                    }
+                }
+            }
+            segment.force();
+            for (File file : findSegments()) {
+                if (getSegmentNumber(file) <= lastOldSegment) {
+                    if (file.delete()) {
+                        deletedSegments++;
+                    } else {
+                        log.warn("Could not delete the local storage segment " + file.getName());
+                    }
+                }
+            }
+        }
+        log.info("Local storage compacted in " + (System.currentTimeMillis() - startTime) + " ms : " +
+                records + " live columns, " + deletedSegments + " segments deleted");
+    }
+
+    public void sync() {
+        synchronized (writeLock) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+    }
+
+    private long getColumnCount() {
+        long count = 0;
+        for (ConcurrentNavigableMap<String, ConcurrentNavigableMap<Object, Column>> rows : columnFamilies.values()) {
+            for (ConcurrentNavigableMap<Object, Column> row : rows.values()) {
+                count += row.size();
+            }
+        }
+        return count;
+    }
+
+    // Memory
+
+    private ConcurrentNavigableMap<String, ConcurrentNavigableMap<Object, Column>> getColumnFamily(String columnFamily) {
+        ConcurrentNavigableMap<String, ConcurrentNavigableMap<Object, Column>> rows = columnFamilies.get(columnFamily);
+        if (rows == null) {
+            columnFamilies.putIfAbsent(columnFamily,
+                    new ConcurrentSkipListMap<String, ConcurrentNavigableMap<Object, Column>>());
+
+            rows = columnFamilies.get(columnFamily);
+        }
+        return rows;
+    }
+
+    private ConcurrentNavigableMap<Object, Column> getRow(String columnFamily, String key, boolean create) {
+        ConcurrentNavigableMap<String, ConcurrentNavigableMap<Object, Column>> rows = getColumnFamily(columnFamily);
+        ConcurrentNavigableMap<Object, Column> row = rows.get(key);
+        if (row == null && create) {
+            rows.putIfAbsent(key, new ConcurrentSkipListMap<Object, Column>(COLUMN_NAME_COMPARATOR));
+            row = rows.get(key);
+        }
+        return row;
+    }
+
+    private void deleteColumnInMemory(String columnFamily, String key, Object name) {
+        Map<Object, Column> row = getRow(columnFamily, key, false);
+        if (row != null) {
+            row.remove(name);
+            if (row.isEmpty()) {
+                getColumnFamily(columnFamily).remove(key);
+            }
+        }
+    }
+
+    // Segments
+
+    private List<File> findSegments() {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        List<File> segments = new ArrayList<File>();
+        if (files != null) {
+            segments.addAll(Arrays.asList(files));
+        }
+        Collections.sort(segments, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                long number1 = getSegmentNumber(file1);
+                long number2 = getSegmentNumber(file2);
+                return number1 < number2 ? -1 : (number1 == number2 ? 0 : 1);
+            }
+        });
+        return segments;
+    }
+
+    private long getSegmentNumber(File file) {
+        String name = file.getName();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private void openSegment(long number, int size) {
+        if (segment != null) {
+            segment.force();
+        }
+        File file = new File(directory, SEGMENT_PREFIX + String.format("%012d", number) + SEGMENT_SUFFIX);
+        try {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            try {
+                // The mapping stays valid when the file is closed
+                segment = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create the local storage segment " + file.getName(), e);
+        }
+        segmentNumber = number;
+        if (log.isDebugEnabled()) {
+            log.debug("New local storage segment : " + file.getName());
+        }
+    }
+
+    /**
+     * Appends a record to the current segment : the header is written last, so a record which
+     * has not been completely written is not replayed.
+     */
+    private void append(byte[] record) {
+        int size = RECORD_HEADER_SIZE + record.length;
+        if (segment.remaining() < size) {
+            openSegment(segmentNumber + 1, Math.max(segmentSize, size));
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(record);
+        int position = segment.position();
+        segment.position(position + RECORD_HEADER_SIZE);
+        segment.put(record);
+        segment.putInt(position + 4, (int) checksum.getValue());
+        segment.putInt(position, record.length);
+        records++;
+    }
+
+    private long replaySegment(File file) throws IOException {
+        long replayedRecords = 0;
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+                int length = buffer.getInt();
+                int expectedChecksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break; // End of the segment
+                }
+                byte[] record = new byte[length];
+                buffer.get(record);
+                CRC32 checksum = new CRC32();
+                checksum.update(record);
+                if ((int) checksum.getValue() != expectedChecksum) {
+                    log.warn("Corrupted record in the local storage segment " + file.getName() +
+                            ", the end of the segment is ignored");
+                    break;
+                }
+                replayRecord(record);
+                replayedRecords++;
+            }
+        } finally {
+            randomAccessFile.close();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Replayed " + replayedRecords + " records from " + file.getName());
+        }
+        return replayedRecords;
+    }
+
+    private void replayRecord(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte operation = in.readByte();
+        String columnFamily = in.readUTF();
+        String key = in.readUTF();
+        if (operation == PUT) {
+            Object name = readName(in);
+            String value = readString(in);
+            long expirationTime = in.readLong();
+            getRow(columnFamily, key, true).put(name, new Column(value, expirationTime));
+        } else if (operation == DELETE_COLUMN) {
+            deleteColumnInMemory(columnFamily, key, readName(in));
+        } else if (operation == DELETE_ROW) {
+            getColumnFamily(columnFamily).remove(key);
+        }
+    }
+
+    // Records
+
+    private byte[] encodePut(String columnFamily, String key, Object name, String value, long expirationTime) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(PUT);
+            out.writeUTF(columnFamily);
+            out.writeUTF(key);
+            writeName(out, name);
+            writeString(out, value);
+            out.writeLong(expirationTime);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode a local storage record", e);
+        }
+    }
+
+    private byte[] encodeDeletion(byte operation, String columnFamily, String key, Object name) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(operation);
+            out.writeUTF(columnFamily);
+            out.writeUTF(key);
+            if (name != null) {
+                writeName(out, name);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode a local storage record", e);
+        }
+    }
+
+    private void writeName(DataOutputStream out, Object name) throws IOException {
+        if (name instanceof UUID) {
+            out.writeByte(UUID_NAME);
+            out.writeLong(((UUID) name).getMostSignificantBits());
+            out.writeLong(((UUID) name).getLeastSignificantBits());
+        } else if (name instanceof Long) {
+            out.writeByte(LONG_NAME);
+            out.writeLong((Long) name);
+        } else {
+            out.writeByte(STRING_NAME);
+            writeString(out, (String) name);
+        }
+    }
+
+    private Object readName(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        if (type == UUID_NAME) {
+            return new UUID(in.readLong(), in.readLong());
+        } else if (type == LONG_NAME) {
+            return in.readLong();
+        } else {
+            return readString(in);
+        }
+    }
+
+    /**
+     * Strings are not written with writeUTF(), which is limited to 64 KB.
+     */
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static class Column {
+
+        private final String value;
+
+        private final long expirationTime;
+
+        private Column(String value, long expirationTime) {
+            this.value = value;
+            this.expirationTime = expirationTime;
+        }
+
+        private boolean isExpired(long now) {
+            return expirationTime > 0 && expirationTime <= now;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.repository.TagCounterRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.Map;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.TAG_COUNTER_CF;
+
+/**
+ * Local implementation of the TagCounter repository.
+ * <p/>
+ * Structure :
+ * - Key = tag + domain
+ * - Name = "TAG_COUNTER"
+ * - Value = count
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalTagCounterRepository implements TagCounterRepository {
+
+    private static final String TAG_COUNTER = "TAG_COUNTER";
+
+    @Inject
+    private LocalStore localStore;
+
+    @Override
+    public long getTagCounter(String domain, String tag) {
+        return localStore.getCounter(TAG_COUNTER_CF, getKey(domain, tag), TAG_COUNTER);
+    }
+
+    @Override
+    public void incrementTagCounter(String domain, String tag) {
+        localStore.increment(TAG_COUNTER_CF, getKey(domain, tag), TAG_COUNTER, 1);
+    }
+
+    @Override
+    public void decrementTagCounter(String domain, String tag) {
+        localStore.increment(TAG_COUNTER_CF, getKey(domain, tag), TAG_COUNTER, -1);
+    }
+
+    @Override
+    public void deleteTagCounter(String domain, String tag) {
+        localStore.deleteColumn(TAG_COUNTER_CF, getKey(domain, tag), TAG_COUNTER);
+    }
+
+    @Override
+    public Map<String, Long> countTagsByDomain() {
+        Map<String, Long> tagsByDomain = new HashMap<String, Long>();
+        for (String key : localStore.getKeys(TAG_COUNTER_CF, null, Integer.MAX_VALUE)) {
+            if (localStore.getCounter(TAG_COUNTER_CF, key, TAG_COUNTER) > 0) {
+                String domain = key.substring(key.indexOf('-') + 1);
+                Long count = tagsByDomain.get(domain);
+                tagsByDomain.put(domain, count == null ? 1L : count + 1);
+            }
+        }
+        return tagsByDomain;
+    }
+
+    /**
+     * Generates the key for this column family.
+     */
+    private String getKey(String domain, String tag) {
+        return tag.toLowerCase() + "-" + domain;
+    }
+}
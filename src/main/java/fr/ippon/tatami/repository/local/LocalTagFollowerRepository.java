@@ -0,0 +1,58 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.repository.TagFollowerRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.TAG_FOLLOWERS_CF;
+
+/**
+ * Local implementation of the TagFollower repository.
+ * <p/>
+ * Structure :
+ * - Key = tag + domain
+ * - Name = follower login
+ * - Value = time
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalTagFollowerRepository extends AbstractLocalFollowerRepository implements TagFollowerRepository {
+
+    @Override
+    public void addFollower(String domain, String tag, String login) {
+        addLogin(getKey(domain, tag), login);
+    }
+
+    @Override
+    public void removeFollower(String domain, String tag, String login) {
+        removeLogin(getKey(domain, tag), login);
+    }
+
+    @Override
+    public Collection<String> findFollowers(String domain, String tag) {
+        return findLogins(getKey(domain, tag));
+    }
+
+    @Override
+    public Iterable<List<String>> findFollowersInSlices(String domain, String tag) {
+        return findLoginsInSlices(getKey(domain, tag));
+    }
+
+    @Override
+    protected String getColumnFamily() {
+        return TAG_FOLLOWERS_CF;
+    }
+
+    /**
+     * Generates the key for this column family.
+     */
+    private String getKey(String domain, String tag) {
+        return tag.toLowerCase() + "-" + domain;
+    }
+}
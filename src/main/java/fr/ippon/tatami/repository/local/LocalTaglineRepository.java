@@ -0,0 +1,66 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.SharedStatusInfo;
+import fr.ippon.tatami.domain.Status;
+import fr.ippon.tatami.repository.TaglineRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.TAGLINE_CF;
+
+/**
+ * Local implementation of the Tagline repository.
+ * <p/>
+ * Structure :
+ * - Key = tag + domain
+ * - Name = statusId
+ * - Value = ""
+ * <p/>
+ * The rows are in memory, so they are not split in time buckets.
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalTaglineRepository extends AbstractLocalLineRepository implements TaglineRepository {
+
+    @Override
+    public void addStatusToTagline(Status status, String tag) {
+        addStatusToLine(TAGLINE_CF, getKey(status.getDomain(), tag), status);
+    }
+
+    /**
+     * max_id and since_id are excluded from the result, and the page is full, like with the Cassandra buckets.
+     */
+    @Override
+    public Map<String, SharedStatusInfo> getTagline(String domain, String tag, int size, String since_id, String max_id) {
+        UUID start = max_id == null ? null : UUID.fromString(max_id);
+        UUID finish = since_id == null ? null : UUID.fromString(since_id);
+        Map<UUID, String> columns = localStore.getSlice(TAGLINE_CF, getKey(domain, tag), start, finish, true, size + 2);
+
+        Map<String, SharedStatusInfo> line = new LinkedHashMap<String, SharedStatusInfo>();
+        for (UUID name : columns.keySet()) {
+            if (line.size() < size && !name.equals(start) && !name.equals(finish)) {
+                line.put(name.toString(), null);
+            }
+        }
+        return line;
+    }
+
+    @Override
+    public int migrateToTimeBuckets() {
+        return 0;
+    }
+
+    /**
+     * Generates the key for this column family.
+     */
+    private String getKey(String domain, String tag) {
+        return tag.toLowerCase() + "-" + domain;
+    }
+}
@@ -0,0 +1,56 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.SharedStatusInfo;
+import fr.ippon.tatami.domain.Status;
+import fr.ippon.tatami.repository.TimelineRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.TIMELINE_CF;
+import static fr.ippon.tatami.config.ColumnFamilyKeys.TIMELINE_SHARES_CF;
+
+/**
+ * Local implementation of the Timeline repository.
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalTimelineRepository extends AbstractLocalLineRepository implements TimelineRepository {
+
+    @Override
+    public void addStatusToTimeline(String login, Status status) {
+        addStatusToLine(TIMELINE_CF, login, status);
+    }
+
+    @Override
+    public void addStatusToTimelines(Collection<String> logins, Status status) {
+        for (String login : logins) {
+            addStatusToLine(TIMELINE_CF, login, status);
+        }
+    }
+
+    @Override
+    public void shareStatusToTimeline(String sharedByLogin, String timelineLogin, Status status) {
+        shareStatus(timelineLogin, status, sharedByLogin, TIMELINE_CF, TIMELINE_SHARES_CF);
+    }
+
+    @Override
+    public void shareStatusToTimelines(String sharedByLogin, Collection<String> timelineLogins, Status status) {
+        shareStatus(timelineLogins, status, sharedByLogin, TIMELINE_CF, TIMELINE_SHARES_CF);
+    }
+
+    @Override
+    public Map<String, SharedStatusInfo> getTimeline(String login, int size, String since_id, String max_id) {
+        return getLineFromCF(TIMELINE_CF, login, size, since_id, max_id);
+    }
+
+    @Override
+    public void deleteTimeline(String login) {
+        localStore.deleteRow(TIMELINE_CF, login);
+    }
+}
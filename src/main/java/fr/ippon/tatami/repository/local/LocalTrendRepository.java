@@ -0,0 +1,54 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.repository.TrendRepository;
+import fr.ippon.tatami.repository.cassandra.TimeUUIDGenerator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.TRENDS_CF;
+
+/**
+ * Local implementation of the Trends repository.
+ * <p/>
+ * Structure :
+ * - Key = domain
+ * - Name = date
+ * - Value = tag
+ * <p/>
+ * The rows are not split in time buckets : the expired columns are removed when the store is compacted.
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalTrendRepository implements TrendRepository {
+
+    private final static int COLUMN_TTL = 60 * 60 * 24 * 30; // The column is stored for 30 days.
+
+    private final static int TRENDS_NUMBER_OF_TAGS = 100;
+
+    @Inject
+    private LocalStore localStore;
+
+    @Override
+    public void addTag(String domain, String tag) {
+        localStore.put(TRENDS_CF, domain, TimeUUIDGenerator.getUniqueTimeUUID(), tag, COLUMN_TTL);
+    }
+
+    @Override
+    public List<String> getRecentTags(String domain) {
+        return new ArrayList<String>(localStore.<UUID>getSlice(TRENDS_CF, domain, null, null, true,
+                TRENDS_NUMBER_OF_TAGS).values());
+    }
+
+    @Override
+    public int migrateToTimeBuckets() {
+        return 0;
+    }
+}
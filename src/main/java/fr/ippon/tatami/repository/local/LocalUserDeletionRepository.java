@@ -0,0 +1,114 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.UserDeletion;
+import fr.ippon.tatami.repository.UserDeletionRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.USER_DELETION_CF;
+
+/**
+ * Local implementation of the User Deletion repository.
+ * <p/>
+ * Structure :
+ * - Key = login
+ * - Name = "node", "step", "startDate", "progressDate", "removedFollowers" or "removedFriends"
+ * - Value = value of the field
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalUserDeletionRepository implements UserDeletionRepository {
+
+    private static final String NODE = "node";
+
+    private static final String STEP = "step";
+
+    private static final String START_DATE = "startDate";
+
+    private static final String PROGRESS_DATE = "progressDate";
+
+    private static final String REMOVED_FOLLOWERS = "removedFollowers";
+
+    private static final String REMOVED_FRIENDS = "removedFriends";
+
+    private static final int MAX_USER_DELETIONS = 1000;
+
+    @Inject
+    private LocalStore localStore;
+
+    @Override
+    public void saveUserDeletion(UserDeletion userDeletion) {
+        String key = userDeletion.getLogin();
+        localStore.put(USER_DELETION_CF, key, NODE, userDeletion.getNode());
+        localStore.put(USER_DELETION_CF, key, START_DATE, Long.toString(userDeletion.getStartDate().getTime()));
+        localStore.put(USER_DELETION_CF, key, PROGRESS_DATE, Long.toString(userDeletion.getProgressDate().getTime()));
+        localStore.put(USER_DELETION_CF, key, REMOVED_FOLLOWERS, Long.toString(userDeletion.getRemovedFollowers()));
+        localStore.put(USER_DELETION_CF, key, REMOVED_FRIENDS, Long.toString(userDeletion.getRemovedFriends()));
+        localStore.put(USER_DELETION_CF, key, STEP, userDeletion.getStep().name());
+    }
+
+    @Override
+    public UserDeletion findUserDeletion(String login) {
+        String step = localStore.getValue(USER_DELETION_CF, login, STEP);
+        if (step == null) {
+            return null;
+        }
+        UserDeletion userDeletion = new UserDeletion();
+        userDeletion.setLogin(login);
+        userDeletion.setStep(UserDeletion.Step.valueOf(step));
+        userDeletion.setNode(localStore.getValue(USER_DELETION_CF, login, NODE));
+        userDeletion.setStartDate(new Date(Long.parseLong(localStore.getValue(USER_DELETION_CF, login, START_DATE))));
+        String progressDate = localStore.getValue(USER_DELETION_CF, login, PROGRESS_DATE);
+        if (progressDate != null) {
+            userDeletion.setProgressDate(new Date(Long.parseLong(progressDate)));
+        } else {
+            userDeletion.setProgressDate(userDeletion.getStartDate());
+        }
+        userDeletion.setRemovedFollowers(
+                Long.parseLong(localStore.getValue(USER_DELETION_CF, login, REMOVED_FOLLOWERS)));
+
+        userDeletion.setRemovedFriends(
+                Long.parseLong(localStore.getValue(USER_DELETION_CF, login, REMOVED_FRIENDS)));
+
+        return userDeletion;
+    }
+
+    @Override
+    public Collection<UserDeletion> findUserDeletions() {
+        Collection<UserDeletion> userDeletions = new ArrayList<UserDeletion>();
+        for (String login : localStore.getKeys(USER_DELETION_CF, null, MAX_USER_DELETIONS)) {
+            UserDeletion userDeletion = findUserDeletion(login);
+            if (userDeletion != null) {
+                userDeletions.add(userDeletion);
+            }
+        }
+        return userDeletions;
+    }
+
+    @Override
+    public void removeUserDeletion(String login) {
+        localStore.deleteRow(USER_DELETION_CF, login);
+    }
+
+    @Override
+    public synchronized boolean claimUserDeletion(String login, String node, long leaseMillis) {
+        UserDeletion userDeletion = findUserDeletion(login);
+        if (userDeletion == null ||
+                System.currentTimeMillis() - userDeletion.getProgressDate().getTime() < leaseMillis) {
+
+            return false;
+        }
+        userDeletion.setNode(node);
+        userDeletion.setProgressDate(new Date());
+        saveUserDeletion(userDeletion);
+        return true;
+    }
+}
@@ -0,0 +1,70 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.config.GroupRoles;
+import fr.ippon.tatami.repository.UserGroupRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.USER_GROUPS_CF;
+
+/**
+ * Local implementation of the UserGroup repository.
+ * <p/>
+ * Structure :
+ * - Key = login
+ * - Name = groupId
+ * - Value = role
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalUserGroupRepository implements UserGroupRepository {
+
+    @Inject
+    private LocalStore localStore;
+
+    @Override
+    public void addGroupAsMember(String login, String groupId) {
+        localStore.put(USER_GROUPS_CF, login, groupId, GroupRoles.MEMBER);
+    }
+
+    @Override
+    public void addGroupAsAdmin(String login, String groupId) {
+        localStore.put(USER_GROUPS_CF, login, groupId, GroupRoles.ADMIN);
+    }
+
+    @Override
+    public void removeGroup(String login, String groupId) {
+        localStore.deleteColumn(USER_GROUPS_CF, login, groupId);
+    }
+
+    @Override
+    public Collection<String> findGroups(String login) {
+        Map<String, String> columns =
+                localStore.getSlice(USER_GROUPS_CF, login, null, null, false, Integer.MAX_VALUE);
+
+        return new ArrayList<String>(columns.keySet());
+    }
+
+    @Override
+    public Collection<String> findGroupsAsAdmin(String login) {
+        List<String> groups = new ArrayList<String>();
+        Map<String, String> columns =
+                localStore.getSlice(USER_GROUPS_CF, login, null, null, false, Integer.MAX_VALUE);
+
+        for (Map.Entry<String, String> column : columns.entrySet()) {
+            if (GroupRoles.ADMIN.equals(column.getValue())) {
+                groups.add(column.getKey());
+            }
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,136 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.User;
+import fr.ippon.tatami.domain.validation.ContraintsUserCreation;
+import fr.ippon.tatami.repository.CounterRepository;
+import fr.ippon.tatami.repository.UserRepository;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.USER_CF;
+
+/**
+ * Local implementation of the User repository.
+ * <p/>
+ * Structure :
+ * - Key = login
+ * - Name = field name
+ * - Value = field value
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalUserRepository implements UserRepository {
+
+    private final Log log = LogFactory.getLog(LocalUserRepository.class);
+
+    private static final String PASSWORD = "password";
+    private static final String USERNAME = "username";
+    private static final String DOMAIN = "domain";
+    private static final String GRAVATAR = "gravatar";
+    private static final String FIRST_NAME = "firstName";
+    private static final String LAST_NAME = "lastName";
+    private static final String JOB_TITLE = "jobTitle";
+    private static final String PHONE_NUMBER = "phoneNumber";
+    private static final String OPEN_ID_URL = "openIdUrl";
+    private static final String THEME = "theme";
+
+    @Inject
+    private LocalStore localStore;
+
+    @Inject
+    private CounterRepository counterRepository;
+
+    private static ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
+    private static Validator validator = factory.getValidator();
+
+    @Override
+    public void createUser(User user) {
+        if (log.isDebugEnabled()) {
+            log.debug("Creating user : " + user);
+        }
+        Set<ConstraintViolation<User>> constraintViolations = validator.validate(user, ContraintsUserCreation.class);
+        if (!constraintViolations.isEmpty()) {
+            throw new ConstraintViolationException(new HashSet<ConstraintViolation<?>>(constraintViolations));
+        }
+        persistUser(user);
+    }
+
+    @Override
+    public void updateUser(User user) throws ConstraintViolationException, IllegalArgumentException {
+        if (log.isDebugEnabled()) {
+            log.debug("Updating user : " + user);
+        }
+        Set<ConstraintViolation<User>> constraintViolations = validator.validate(user);
+        if (!constraintViolations.isEmpty()) {
+            throw new ConstraintViolationException(new HashSet<ConstraintViolation<?>>(constraintViolations));
+        }
+        persistUser(user);
+    }
+
+    @Override
+    public void deleteUser(User user) {
+        if (log.isDebugEnabled()) {
+            log.debug("Deleting user : " + user);
+        }
+        localStore.deleteRow(USER_CF, user.getLogin());
+    }
+
+    @Override
+    public User findUserByLogin(String login) {
+        Map<String, String> columns = localStore.getSlice(USER_CF, login, null, null, false, Integer.MAX_VALUE);
+        if (columns.isEmpty()) {
+            return null;
+        }
+        User user = new User();
+        user.setLogin(login);
+        user.setPassword(columns.get(PASSWORD));
+        user.setUsername(columns.get(USERNAME));
+        user.setDomain(columns.get(DOMAIN));
+        user.setGravatar(columns.get(GRAVATAR));
+        user.setFirstName(columns.get(FIRST_NAME));
+        user.setLastName(columns.get(LAST_NAME));
+        user.setJobTitle(columns.get(JOB_TITLE));
+        user.setPhoneNumber(columns.get(PHONE_NUMBER));
+        user.setOpenIdUrl(columns.get(OPEN_ID_URL));
+        user.setTheme(columns.get(THEME));
+        user.setStatusCount(counterRepository.getStatusCounter(login));
+        user.setFollowersCount(counterRepository.getFollowersCounter(login));
+        user.setFriendsCount(counterRepository.getFriendsCounter(login));
+        return user;
+    }
+
+    private void persistUser(User user) {
+        String key = user.getLogin();
+        putString(key, PASSWORD, user.getPassword());
+        putString(key, USERNAME, user.getUsername());
+        putString(key, DOMAIN, user.getDomain());
+        putString(key, GRAVATAR, user.getGravatar());
+        putString(key, FIRST_NAME, user.getFirstName());
+        putString(key, LAST_NAME, user.getLastName());
+        putString(key, JOB_TITLE, user.getJobTitle());
+        putString(key, PHONE_NUMBER, user.getPhoneNumber());
+        putString(key, OPEN_ID_URL, user.getOpenIdUrl());
+        putString(key, THEME, user.getTheme());
+    }
+
+    private void putString(String key, String name, String value) {
+        if (value != null) {
+            localStore.put(USER_CF, key, name, value);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.repository.UserTagRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.USER_TAGS_CF;
+
+/**
+ * Local implementation of the UserTag repository.
+ * <p/>
+ * Structure :
+ * - Key = login
+ * - Name = tag + domain
+ * - Value = time
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalUserTagRepository extends AbstractLocalFollowerRepository implements UserTagRepository {
+
+    @Override
+    public void addTag(String domain, String login, String friendTag) {
+        addLogin(login, getKey(domain, friendTag));
+    }
+
+    @Override
+    public void removeTag(String domain, String login, String friendTag) {
+        removeLogin(login, getKey(domain, friendTag));
+    }
+
+    @Override
+    public Collection<String> findTags(String domain, String login) {
+        return findLogins(login);
+    }
+
+    @Override
+    protected String getColumnFamily() {
+        return USER_TAGS_CF;
+    }
+
+    /**
+     * Generates the key for this column family.
+     */
+    private String getKey(String domain, String tag) {
+        return tag.toLowerCase() + "-" + domain;
+    }
+}
@@ -0,0 +1,47 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.repository.UserTrendRepository;
+import fr.ippon.tatami.repository.cassandra.TimeUUIDGenerator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.USER_TRENDS_CF;
+
+/**
+ * Local implementation of the User Trends repository.
+ * <p/>
+ * Structure :
+ * - Key = login
+ * - Name = date
+ * - Value = tag
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalUserTrendRepository implements UserTrendRepository {
+
+    private final static int COLUMN_TTL = 60 * 60 * 24 * 90; // The column is stored for 90 days.
+
+    private final static int TRENDS_NUMBER_OF_TAGS = 50;
+
+    @Inject
+    private LocalStore localStore;
+
+    @Override
+    public void addTag(String login, String tag) {
+        localStore.put(USER_TRENDS_CF, login, TimeUUIDGenerator.getUniqueTimeUUID(), tag, COLUMN_TTL);
+    }
+
+    @Override
+    public List<String> getRecentTags(String login) {
+        return new ArrayList<String>(localStore.<UUID>getSlice(USER_TRENDS_CF, login, null, null, true,
+                TRENDS_NUMBER_OF_TAGS).values());
+    }
+}
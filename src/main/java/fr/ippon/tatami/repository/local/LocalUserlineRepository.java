@@ -0,0 +1,43 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.domain.SharedStatusInfo;
+import fr.ippon.tatami.domain.Status;
+import fr.ippon.tatami.repository.UserlineRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.USERLINE_CF;
+import static fr.ippon.tatami.config.ColumnFamilyKeys.USERLINE_SHARES_CF;
+
+/**
+ * Local implementation of the Userline repository.
+ *
+ * @author Julien Dubois
+ */
+@Repository
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalUserlineRepository extends AbstractLocalLineRepository implements UserlineRepository {
+
+    @Override
+    public void addStatusToUserline(Status status) {
+        addStatusToLine(USERLINE_CF, status.getLogin(), status);
+    }
+
+    @Override
+    public void shareStatusToUserline(String currentLogin, Status status) {
+        shareStatus(currentLogin, status, currentLogin, USERLINE_CF, USERLINE_SHARES_CF);
+    }
+
+    @Override
+    public Map<String, SharedStatusInfo> getUserline(String login, int size, String since_id, String max_id) {
+        return getLineFromCF(USERLINE_CF, login, size, since_id, max_id);
+    }
+
+    @Override
+    public void deleteUserline(String login) {
+        localStore.deleteRow(USERLINE_CF, login);
+    }
+}
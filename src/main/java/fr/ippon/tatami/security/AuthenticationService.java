@@ -2,6 +2,7 @@ package fr.ippon.tatami.security;
 
 import fr.ippon.tatami.domain.User;
 import fr.ippon.tatami.repository.UserRepository;
+import fr.ippon.tatami.service.util.DomainUtil;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.security.core.context.SecurityContext;
@@ -12,6 +13,8 @@ import javax.inject.Inject;
 
 /**
  * This service is user to find the current user.
+ * <p/>
+ * During an HTTP request, the current user is loaded once and kept in the CurrentUserContext.
  *
  * @author Julien Dubois
  */
@@ -24,11 +27,34 @@ public class AuthenticationService {
     private UserRepository userRepository;
 
     public User getCurrentUser() {
+        String login = getCurrentLogin();
+        CurrentUserContext currentUserContext = CurrentUserContext.get();
+        if (currentUserContext == null) {
+            return userRepository.findUserByLogin(login);
+        }
+        if (!currentUserContext.isLoaded(login)) {
+            currentUserContext.setUser(login, userRepository.findUserByLogin(login));
+        } else if (log.isDebugEnabled()) {
+            log.debug("Current user " + login + " found in the request context");
+        }
+        return currentUserContext.getUser();
+    }
+
+    public String getCurrentDomain() {
+        String login = getCurrentLogin();
+        CurrentUserContext currentUserContext = CurrentUserContext.get();
+        if (currentUserContext != null && currentUserContext.isLoaded(login)) {
+            return currentUserContext.getDomain();
+        }
+        return DomainUtil.getDomainFromLogin(login);
+    }
+
+    private String getCurrentLogin() {
         SecurityContext securityContext = SecurityContextHolder.getContext();
         org.springframework.security.core.userdetails.UserDetails springSecurityUser =
                 (org.springframework.security.core.userdetails.UserDetails) securityContext
                         .getAuthentication().getPrincipal();
 
-        return userRepository.findUserByLogin(springSecurityUser.getUsername());
+        return springSecurityUser.getUsername();
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package fr.ippon.tatami.security;
+
+import fr.ippon.tatami.domain.User;
+import fr.ippon.tatami.service.util.DomainUtil;
+
+/**
+ * The current user of an HTTP request.
+ * <p/>
+ * The context is opened and closed by the CurrentUserFilter, and filled by the AuthenticationService the first
+ * time the current user is needed : the other services and repositories get the same User during the request,
+ * without a lookup in the cache or in the database.
+ *
+ * @author Julien Dubois
+ */
+public class CurrentUserContext {
+
+    private static final ThreadLocal<CurrentUserContext> contexts = new ThreadLocal<CurrentUserContext>();
+
+    private String login;
+
+    private User user;
+
+    private String domain;
+
+    private CurrentUserContext() {
+    }
+
+    /**
+     * @return the context of the current request, or null outside of an HTTP request.
+     */
+    public static CurrentUserContext get() {
+        return contexts.get();
+    }
+
+    static void open() {
+        contexts.set(new CurrentUserContext());
+    }
+
+    static void close() {
+        contexts.remove();
+    }
+
+    /**
+     * @return true if the user has already been loaded for this login.
+     */
+    boolean isLoaded(String login) {
+        return login.equals(this.login);
+    }
+
+    void setUser(String login, User user) {
+        this.login = login;
+        this.user = user;
+        this.domain = DomainUtil.getDomainFromLogin(login);
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+}
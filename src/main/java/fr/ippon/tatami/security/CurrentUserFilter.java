@@ -0,0 +1,39 @@
+package fr.ippon.tatami.security;
+
+import javax.servlet.*;
+import java.io.IOException;
+
+/**
+ * Opens a CurrentUserContext for each request, so the current user is only loaded once per request.
+ * <p/>
+ * This filter must be mapped after the Spring Security filter chain.
+ *
+ * @author Julien Dubois
+ */
+public class CurrentUserFilter implements Filter {
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        if (CurrentUserContext.get() != null) {
+            // Forwarded request : the context is already opened
+            chain.doFilter(request, response);
+            return;
+        }
+        CurrentUserContext.open();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            CurrentUserContext.close();
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
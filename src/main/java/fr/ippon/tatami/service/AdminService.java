@@ -1,20 +1,32 @@
 package fr.ippon.tatami.service;
 
-import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.config.CacheInvalidationBus;
+import fr.ippon.tatami.config.ColumnFamilyConsistencyLevelPolicy;
+import fr.ippon.tatami.config.HotRowSketch;
+import fr.ippon.tatami.domain.CacheStatistics;
+import fr.ippon.tatami.domain.ColumnFamilyStatistics;
 import fr.ippon.tatami.domain.Domain;
+import fr.ippon.tatami.domain.DomainStatistics;
+import fr.ippon.tatami.domain.LineStatistics;
+import fr.ippon.tatami.domain.RowStatistics;
 import fr.ippon.tatami.domain.Status;
 import fr.ippon.tatami.domain.User;
+import fr.ippon.tatami.domain.UserDeletion;
+import fr.ippon.tatami.repository.CounterRepository;
+import fr.ippon.tatami.repository.DomainCounterRepository;
 import fr.ippon.tatami.repository.DomainRepository;
+import fr.ippon.tatami.repository.GroupRepository;
+import fr.ippon.tatami.repository.LineTrimmingRepository;
+import fr.ippon.tatami.repository.RegistrationRepository;
 import fr.ippon.tatami.repository.StatusRepository;
+import fr.ippon.tatami.repository.TagCounterRepository;
+import fr.ippon.tatami.repository.TaglineRepository;
+import fr.ippon.tatami.repository.TrendRepository;
+import fr.ippon.tatami.repository.UserDeletionRepository;
 import fr.ippon.tatami.repository.UserRepository;
-import me.prettyprint.cassandra.serializers.StringSerializer;
-import me.prettyprint.hector.api.Keyspace;
-import me.prettyprint.hector.api.beans.OrderedRows;
-import me.prettyprint.hector.api.beans.Row;
-import me.prettyprint.hector.api.query.QueryResult;
-import me.prettyprint.hector.api.query.RangeSlicesQuery;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
@@ -22,9 +34,6 @@ import org.springframework.stereotype.Service;
 import javax.inject.Inject;
 import java.util.*;
 
-import static fr.ippon.tatami.config.ColumnFamilyKeys.STATUS_CF;
-import static me.prettyprint.hector.api.factory.HFactory.createRangeSlicesQuery;
-
 /**
  * Administration service. Only users with the "admin" role should access it.
  *
@@ -36,9 +45,23 @@ public class AdminService {
 
     private static final Log log = LogFactory.getLog(AdminService.class);
 
+    private static final int USERS_BATCH_SIZE = 1000;
+
     @Inject
     private DomainRepository domainRepository;
 
+    @Inject
+    private DomainCounterRepository domainCounterRepository;
+
+    @Inject
+    private CounterRepository counterRepository;
+
+    @Inject
+    private GroupRepository groupRepository;
+
+    @Inject
+    private TagCounterRepository tagCounterRepository;
+
     @Inject
     private SearchService searchService;
 
@@ -49,15 +72,116 @@ public class AdminService {
     private StatusRepository statusRepository;
 
     @Inject
-    private Environment env;
+    private LineTrimmingRepository lineTrimmingRepository;
 
     @Inject
-    private Keyspace keyspaceOperator;
+    private TaglineRepository taglineRepository;
+
+    @Inject
+    private TrendRepository trendRepository;
+
+    @Inject
+    private RegistrationRepository registrationRepository;
+
+    @Inject
+    private UserDeletionRepository userDeletionRepository;
+
+    @Inject
+    private CacheManagementService cacheManagementService;
+
+    @Inject
+    private Environment env;
+
+    /**
+     * Only available with the Cassandra storage.
+     */
+    @Autowired(required = false)
+    private ColumnFamilyConsistencyLevelPolicy consistencyLevelPolicy;
+
+    /**
+     * Only available with the Cassandra storage, when the hot rows detection is enabled.
+     */
+    @Autowired(required = false)
+    private HotRowSketch hotRowSketch;
+
+    /**
+     * Only available when the cache invalidation bus is enabled.
+     */
+    @Autowired(required = false)
+    private CacheInvalidationBus cacheInvalidationBus;
 
     public Collection<Domain> getAllDomains() {
         return domainRepository.getAllDomains();
     }
 
+    public DomainStatistics getDomainStatistics(String domain) {
+        return domainCounterRepository.getDomainStatistics(domain);
+    }
+
+    public Collection<LineStatistics> getLineStatistics() {
+        return lineTrimmingRepository.getLineStatistics();
+    }
+
+    public Collection<ColumnFamilyStatistics> getColumnFamilyStatistics() {
+        if (consistencyLevelPolicy == null) {
+            return new ArrayList<ColumnFamilyStatistics>();
+        }
+        return consistencyLevelPolicy.getColumnFamilyStatistics();
+    }
+
+    public List<RowStatistics> getHotRows() {
+        if (hotRowSketch == null) {
+            return new ArrayList<RowStatistics>();
+        }
+        return hotRowSketch.getHotRows();
+    }
+
+    public void resetHotRows() {
+        if (hotRowSketch != null) {
+            hotRowSketch.reset();
+        }
+    }
+
+    public List<CacheStatistics> getCacheStatistics(boolean estimateMemory) {
+        return cacheManagementService.getCacheStatistics(estimateMemory);
+    }
+
+    public void setCacheMaxEntries(String cacheName, int maxEntries) {
+        cacheManagementService.setMaxEntries(cacheName, maxEntries);
+    }
+
+    public void setCacheTimeToLive(String cacheName, long timeToLive) {
+        cacheManagementService.setTimeToLive(cacheName, timeToLive);
+    }
+
+    public void evictCacheEntry(String cacheName, String key) {
+        cacheManagementService.evict(cacheName, key);
+    }
+
+    public void clearCache(String cacheName) {
+        cacheManagementService.clear(cacheName);
+    }
+
+    public void clearAllCaches() {
+        cacheManagementService.clearAll();
+    }
+
+    public Map<String, Long> getCacheInvalidationStatistics() {
+        Map<String, Long> statistics = new LinkedHashMap<String, Long>();
+        if (cacheInvalidationBus != null) {
+            statistics.put("Sent messages", cacheInvalidationBus.getSentMessages());
+            statistics.put("Sent invalidations", cacheInvalidationBus.getSentInvalidations());
+            statistics.put("Coalesced invalidations", cacheInvalidationBus.getCoalescedInvalidations());
+            statistics.put("Received invalidations", cacheInvalidationBus.getReceivedInvalidations());
+            statistics.put("Rejected messages", cacheInvalidationBus.getRejectedMessages());
+        }
+        return statistics;
+    }
+
+    public Collection<UserDeletion> getUserDeletions() {
+        return userDeletionRepository.findUserDeletions();
+    }
+
     public Map<String, String> getEnvProperties() {
         Map<String, String> properties = new LinkedHashMap<String, String>();
         properties.put("tatami.version", env.getProperty("tatami.version"));
@@ -65,17 +189,33 @@ public class AdminService {
         properties.put("tatami.google.analytics.key", env.getProperty("tatami.google.analytics.key"));
         properties.put("tatami.message.reloading.enabled", env.getProperty("tatami.message.reloading.enabled"));
         properties.put("smtp.host", env.getProperty("smtp.host"));
+        properties.put("tatami.storage", env.getProperty("tatami.storage"));
+        properties.put("cache.status.offheap.size", env.getProperty("cache.status.offheap.size"));
+        properties.put("cache.invalidation.transport", env.getProperty("cache.invalidation.transport"));
+        properties.put("cache.warmup.enabled", env.getProperty("cache.warmup.enabled"));
         properties.put("cassandra.host", env.getProperty("cassandra.host"));
+        properties.put("cassandra.consistency.read.default", env.getProperty("cassandra.consistency.read.default"));
+        properties.put("cassandra.consistency.write.default", env.getProperty("cassandra.consistency.write.default"));
+        properties.put("cassandra.timeout.socket", env.getProperty("cassandra.timeout.socket"));
+        properties.put("cassandra.timeout.pool", env.getProperty("cassandra.timeout.pool"));
+        properties.put("cassandra.hotrows.sampling", env.getProperty("cassandra.hotrows.sampling"));
+        properties.put("cassandra.hotrows.size", env.getProperty("cassandra.hotrows.size"));
         properties.put("elasticsearch.enabled", env.getProperty("elasticsearch.enabled"));
         properties.put("elasticsearch.path.conf", env.getProperty("elasticsearch.path.conf"));
         properties.put("lucene.path", env.getProperty("lucene.path"));
+        properties.put("local.path", env.getProperty("local.path"));
+        properties.put("line.timeline.maxLength", env.getProperty("line.timeline.maxLength"));
+        properties.put("line.mentionline.maxLength", env.getProperty("line.mentionline.maxLength"));
+        properties.put("line.tagline.maxLength", env.getProperty("line.tagline.maxLength"));
+        properties.put("line.groupline.maxLength", env.getProperty("line.groupline.maxLength"));
+        properties.put("line.timelineShares.maxLength", env.getProperty("line.timelineShares.maxLength"));
         return properties;
     }
 
     /**
      * Rebuilds the Search Engine Index.
      * <p>
-     * This could be a huge batch process : it does not use a Repository for performance reasons.
+     * This could be a huge batch process : the status ids are read by batches of 1000.
      * </p>
      */
     public void rebuildIndex() {
@@ -95,16 +235,18 @@ public class AdminService {
         long fullIndexStartTime = Calendar.getInstance().getTimeInMillis();
         Collection<Domain> domains = domainRepository.getAllDomains();
         for (Domain domain : domains) {
-            int paginationId = 0;
+            String startLogin = null;
             boolean moreUsers = true;
             while (moreUsers) {
-                List<String> logins = domainRepository.getLoginsInDomain(domain.getName(), paginationId);
-                if (logins.size() <= Constants.PAGINATION_SIZE) {
+                List<String> logins =
+                        domainRepository.getLoginsInDomain(domain.getName(), startLogin, USERS_BATCH_SIZE + 1);
+
+                if (logins.size() <= USERS_BATCH_SIZE) {
                     moreUsers = false;
-                } else {
-                    logins = logins.subList(0, Constants.PAGINATION_SIZE);
+                } else { // The last login is the first one of the next batch
+                    startLogin = logins.get(USERS_BATCH_SIZE);
+                    logins = logins.subList(0, USERS_BATCH_SIZE);
                 }
-                paginationId += Constants.PAGINATION_SIZE;
                 Collection<User> users = new ArrayList<User>();
                 for (String login : logins) {
                     users.add(userRepository.findUserByLogin(login));
@@ -120,32 +262,101 @@ public class AdminService {
         boolean moreStatus = true;
         while (moreStatus) {
             long startTime = Calendar.getInstance().getTimeInMillis();
-            RangeSlicesQuery<String, String, String> query = createRangeSlicesQuery(keyspaceOperator,
-                    StringSerializer.get(), StringSerializer.get(), StringSerializer.get())
-                    .setColumnFamily(STATUS_CF)
-                    .setRange("statusId", "statusId", false, 1)
-                    .setKeys(startKey, null)
-                    .setRowCount(1001);
-
-            QueryResult<OrderedRows<String, String, String>> result = query.execute();
-            List<Row<String, String, String>> rows = result.get().getList();
-            if (rows.size() == 1001) { // Calculate the pagination
-                startKey = rows.get(1000).getKey();
-                rows = rows.subList(0, 1000);
+            List<String> statusIds = statusRepository.findStatusIds(startKey, 1001);
+            if (statusIds.size() == 1001) { // Calculate the pagination
+                startKey = statusIds.get(1000);
+                statusIds = statusIds.subList(0, 1000);
             } else {
                 moreStatus = false;
             }
             Collection<Status> statuses = new ArrayList<Status>();
-            for (Row<String, String, String> row : rows) {
-                Status status = statusRepository.findStatusById(row.getKey()); // This makes 2 calls to the same row
+            for (String statusId : statusIds) {
+                Status status = statusRepository.findStatusById(statusId);
                 if (status != null) {  // if a status has been removed, it is returned as null
                     statuses.add(status);
                 }
             }
             searchService.addStatuses(statuses); // This should be batched for optimum performance
-            log.info("The search engine indexed " + rows.size() + " rows in " + (Calendar.getInstance().getTimeInMillis() - startTime) + " ms.");
+            log.info("The search engine indexed " + statusIds.size() + " rows in " + (Calendar.getInstance().getTimeInMillis() - startTime) + " ms.");
         }
         log.info("Search engine index rebuilt in " + (Calendar.getInstance().getTimeInMillis() - fullIndexStartTime) + " ms.");
     }
 
+    /**
+     * Trims all the lines, including those which were written to before the last restart.
+     */
+    public void trimAllLines() {
+        log.info("Full lines trimming triggered.");
+        long startTime = Calendar.getInstance().getTimeInMillis();
+        lineTrimmingRepository.trimAllLines();
+        log.info("Full lines trimming done in " + (Calendar.getInstance().getTimeInMillis() - startTime) + " ms.");
+    }
+
+    /**
+     * Rewrites the taglines and the trends which were stored before time buckets were introduced.
+     */
+    public void migrateToTimeBuckets() {
+        log.info("Time buckets migration triggered.");
+        long startTime = Calendar.getInstance().getTimeInMillis();
+        int taglineRows = taglineRepository.migrateToTimeBuckets();
+        int trendsRows = trendRepository.migrateToTimeBuckets();
+        log.info("Time buckets migration done in " + (Calendar.getInstance().getTimeInMillis() - startTime) + " ms : " +
+                taglineRows + " tagline rows and " + trendsRows + " trends rows rewritten.");
+    }
+
+    /**
+     * Moves the pending registration keys, which were all stored in one row, to one row per key.
+     */
+    public void migrateRegistrationKeys() {
+        log.info("Registration keys migration triggered.");
+        long startTime = Calendar.getInstance().getTimeInMillis();
+        int registrationKeys = registrationRepository.migrateToKeyRows();
+        log.info("Registration keys migration done in " + (Calendar.getInstance().getTimeInMillis() - startTime) +
+                " ms : " + registrationKeys + " registration keys rewritten.");
+    }
+
+    /**
+     * Recounts the users, statuses, groups and tags of each domain, and resets the domain counters.
+     * <p>
+     * This fills the counters of the domains created before they were introduced, and corrects their drift
+     * (concurrent changes on different nodes, deleted groups).
+     * </p>
+     */
+    public void recountDomainStatistics() {
+        log.info("Domain statistics recount triggered.");
+        long startTime = Calendar.getInstance().getTimeInMillis();
+        Map<String, Long> tagsByDomain = tagCounterRepository.countTagsByDomain();
+        Collection<Domain> domains = domainRepository.getAllDomains();
+        for (Domain domain : domains) {
+            long numberOfUsers = 0;
+            long numberOfStatuses = 0;
+            String startLogin = null;
+            boolean moreUsers = true;
+            while (moreUsers) {
+                List<String> logins =
+                        domainRepository.getLoginsInDomain(domain.getName(), startLogin, USERS_BATCH_SIZE + 1);
+
+                if (logins.size() <= USERS_BATCH_SIZE) {
+                    moreUsers = false;
+                } else { // The last login is the first one of the next batch
+                    startLogin = logins.get(USERS_BATCH_SIZE);
+                    logins = logins.subList(0, USERS_BATCH_SIZE);
+                }
+                numberOfUsers += logins.size();
+                for (String login : logins) {
+                    numberOfStatuses += counterRepository.getStatusCounter(login);
+                }
+            }
+            DomainStatistics statistics = new DomainStatistics();
+            statistics.setName(domain.getName());
+            statistics.setNumberOfUsers(numberOfUsers);
+            statistics.setNumberOfStatuses(numberOfStatuses);
+            statistics.setNumberOfGroups(groupRepository.countGroups(domain.getName()));
+            Long numberOfTags = tagsByDomain.get(domain.getName());
+            statistics.setNumberOfTags(numberOfTags == null ? 0 : numberOfTags);
+            domainCounterRepository.setDomainStatistics(statistics);
+        }
+        log.info("Domain statistics recount done in " + (Calendar.getInstance().getTimeInMillis() - startTime) +
+                " ms : " + domains.size() + " domains recounted.");
+    }
 }
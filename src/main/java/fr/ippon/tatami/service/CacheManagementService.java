@@ -0,0 +1,299 @@
+package fr.ippon.tatami.service;
+
+import fr.ippon.tatami.config.BroadcastingCache;
+import fr.ippon.tatami.config.NegativeResultCache;
+import fr.ippon.tatami.config.OffHeapStatusCache;
+import fr.ippon.tatami.config.SingleFlightCache;
+import fr.ippon.tatami.domain.CacheStatistics;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.statistics.LiveCacheStatistics;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jmx.export.MBeanExporter;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Statistics and live configuration of the caches.
+ * <p/>
+ * The web access goes through the AdminService, which is restricted to the administrators. Each cache is also
+ * exported as a JMX bean, named "fr.ippon.tatami:type=Cache,name=[cache name]".
+ * <p/>
+ * The evictions and flushes go through the Spring caches, so they are sent to the other nodes when the cache
+ * invalidation bus is enabled. The size and time to live changes only apply to this node.
+ *
+ * @author Julien Dubois
+ */
+@Service
+public class CacheManagementService {
+
+    private final Log log = LogFactory.getLog(CacheManagementService.class);
+
+    /**
+     * Only available when caching is enabled.
+     */
+    @Autowired(required = false)
+    private CacheManager cacheManager;
+
+    /**
+     * Only available when caching is enabled.
+     */
+    @Autowired(required = false)
+    private MBeanExporter mbeanExporter;
+
+    @PostConstruct
+    public void registerCacheMBeans() {
+        if (cacheManager == null || mbeanExporter == null) {
+            return;
+        }
+        for (String cacheName : cacheManager.getCacheNames()) {
+            try {
+                ObjectName objectName = new ObjectName("fr.ippon.tatami:type=Cache,name=" + cacheName);
+                mbeanExporter.registerManagedResource(new ManagedCache(this, cacheName), objectName);
+            } catch (MalformedObjectNameException e) {
+                log.warn("Could not register the JMX bean of cache " + cacheName + " : " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @param estimateMemory the memory used by the ehcache caches is computed from the size of all their entries,
+     *                       which is slow for big caches : it is only estimated on request
+     */
+    public List<CacheStatistics> getCacheStatistics(boolean estimateMemory) {
+        List<CacheStatistics> caches = new ArrayList<CacheStatistics>();
+        if (cacheManager == null) {
+            return caches;
+        }
+        List<String> cacheNames = new ArrayList<String>(cacheManager.getCacheNames());
+        Collections.sort(cacheNames);
+        for (String cacheName : cacheNames) {
+            caches.add(getCacheStatistics(cacheName, estimateMemory));
+        }
+        return caches;
+    }
+
+    /**
+     * Changes the maximum number of entries of an ehcache cache : the off-heap status cache is bounded by its size
+     * in bytes, set with the "cache.status.offheap.size" property.
+     */
+    public void setMaxEntries(String cacheName, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("The maximum number of entries must be positive");
+        }
+        getEhcache(cacheName).getCacheConfiguration().setMaxEntriesLocalHeap(maxEntries);
+        log.info("Cache " + cacheName + " : maximum number of entries set to " + maxEntries);
+    }
+
+    /**
+     * Changes the time to live, in seconds, of an ehcache cache.
+     */
+    public void setTimeToLive(String cacheName, long timeToLive) {
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("The time to live must be positive");
+        }
+        getEhcache(cacheName).getCacheConfiguration().setTimeToLiveSeconds(timeToLive);
+        log.info("Cache " + cacheName + " : time to live set to " + timeToLive + " seconds");
+    }
+
+    public void evict(String cacheName, String key) {
+        getCache(cacheName).evict(key);
+        if (log.isDebugEnabled()) {
+            log.debug("Cache " + cacheName + " : evicted key " + key);
+        }
+    }
+
+    public void clear(String cacheName) {
+        getCache(cacheName).clear();
+        log.info("Cache " + cacheName + " cleared");
+    }
+
+    public void clearAll() {
+        if (cacheManager == null) {
+            return;
+        }
+        for (String cacheName : cacheManager.getCacheNames()) {
+            clear(cacheName);
+        }
+    }
+
+    CacheStatistics getCacheStatistics(String cacheName, boolean estimateMemory) {
+        Cache cache = getCache(cacheName);
+        if (cache instanceof BroadcastingCache) {
+            cache = ((BroadcastingCache) cache).getCache();
+        }
+        CacheStatistics cacheStatistics = new CacheStatistics(cacheName);
+        Object nativeCache = cache.getNativeCache();
+        if (nativeCache instanceof Ehcache) {
+            Ehcache ehcache = (Ehcache) nativeCache;
+            cacheStatistics.setSize(ehcache.getSize());
+            cacheStatistics.setMaxEntries(ehcache.getCacheConfiguration().getMaxEntriesLocalHeap());
+            cacheStatistics.setTimeToLive(ehcache.getCacheConfiguration().getTimeToLiveSeconds());
+            if (estimateMemory) {
+                cacheStatistics.setMemoryUsed(ehcache.calculateInMemorySize());
+            }
+            cacheStatistics.setStatisticsEnabled(ehcache.isStatisticsEnabled());
+            if (ehcache.isStatisticsEnabled()) {
+                LiveCacheStatistics statistics = ehcache.getLiveCacheStatistics();
+                cacheStatistics.setHits(statistics.getCacheHitCount());
+                cacheStatistics.setMisses(statistics.getCacheMissCount());
+                cacheStatistics.setPuts(statistics.getPutCount());
+                cacheStatistics.setRemovals(statistics.getRemovedCount());
+                cacheStatistics.setEvictions(statistics.getEvictedCount());
+                cacheStatistics.setExpirations(statistics.getExpiredCount());
+            }
+        } else if (nativeCache instanceof OffHeapStatusCache) {
+            OffHeapStatusCache offHeapCache = (OffHeapStatusCache) nativeCache;
+            cacheStatistics.setSize(offHeapCache.getSize());
+            cacheStatistics.setStatisticsEnabled(true);
+            cacheStatistics.setHits(offHeapCache.getHits());
+            cacheStatistics.setMisses(offHeapCache.getMisses());
+            cacheStatistics.setPuts(offHeapCache.getPuts());
+            cacheStatistics.setEvictions(offHeapCache.getEvictions());
+            cacheStatistics.setMemoryUsed(offHeapCache.getMemoryUsed());
+            cacheStatistics.setMemoryCapacity(offHeapCache.getMemoryCapacity());
+        }
+        if (cache instanceof SingleFlightCache) {
+            SingleFlightCache singleFlightCache = (SingleFlightCache) cache;
+            cacheStatistics.setWaits(singleFlightCache.getWaits());
+            cacheStatistics.setStaleHits(singleFlightCache.getStaleHits());
+            cacheStatistics.setAverageLoadTime(singleFlightCache.getAverageLoadTime());
+            cache = singleFlightCache.getCache();
+        }
+        if (cache instanceof NegativeResultCache) {
+            cacheStatistics.setPreventedReads(((NegativeResultCache) cache).getPreventedReads());
+        }
+        return cacheStatistics;
+    }
+
+    private Cache getCache(String cacheName) {
+        Cache cache = null;
+        if (cacheManager != null) {
+            cache = cacheManager.getCache(cacheName);
+        }
+        if (cache == null) {
+            throw new IllegalArgumentException("Unknown cache : " + cacheName);
+        }
+        return cache;
+    }
+
+    private Ehcache getEhcache(String cacheName) {
+        Object nativeCache = getCache(cacheName).getNativeCache();
+        if (!(nativeCache instanceof Ehcache)) {
+            throw new IllegalArgumentException("Cache " + cacheName + " is not configured in ehcache.xml");
+        }
+        return (Ehcache) nativeCache;
+    }
+
+    /**
+     * JMX view of a cache.
+     */
+    @ManagedResource(description = "Tatami cache")
+    public static class ManagedCache {
+
+        private final CacheManagementService cacheManagementService;
+
+        private final String cacheName;
+
+        ManagedCache(CacheManagementService cacheManagementService, String cacheName) {
+            this.cacheManagementService = cacheManagementService;
+            this.cacheName = cacheName;
+        }
+
+        @ManagedAttribute(description = "Number of entries")
+        public long getSize() {
+            return statistics().getSize();
+        }
+
+        @ManagedAttribute(description = "Number of hits")
+        public long getHits() {
+            return statistics().getHits();
+        }
+
+        @ManagedAttribute(description = "Number of misses, which are reloaded from the storage")
+        public long getMisses() {
+            return statistics().getMisses();
+        }
+
+        @ManagedAttribute(description = "Ratio of hits")
+        public double getHitRatio() {
+            return statistics().getHitRatio();
+        }
+
+        @ManagedAttribute(description = "Number of entries evicted because the cache was full")
+        public long getEvictions() {
+            return statistics().getEvictions();
+        }
+
+        @ManagedAttribute(description = "Number of expired entries")
+        public long getExpirations() {
+            return statistics().getExpirations();
+        }
+
+        @ManagedAttribute(description = "Average load time of the misses, in milliseconds")
+        public double getAverageLoadTime() {
+            return statistics().getAverageLoadTime();
+        }
+
+        @ManagedAttribute(description = "Number of reads of missing entities answered by the negative result cache")
+        public long getPreventedReads() {
+            return statistics().getPreventedReads();
+        }
+
+        @ManagedAttribute(description = "Memory used, in bytes (-1 for the ehcache caches, see estimateMemoryUsed)")
+        public long getMemoryUsed() {
+            return statistics().getMemoryUsed();
+        }
+
+        @ManagedOperation(description = "Estimates the memory used, in bytes, by reading the size of all the entries")
+        public long estimateMemoryUsed() {
+            return cacheManagementService.getCacheStatistics(cacheName, true).getMemoryUsed();
+        }
+
+        @ManagedAttribute(description = "Maximum number of entries")
+        public long getMaxEntries() {
+            return statistics().getMaxEntries();
+        }
+
+        @ManagedAttribute(description = "Maximum number of entries")
+        public void setMaxEntries(long maxEntries) {
+            cacheManagementService.setMaxEntries(cacheName, (int) maxEntries);
+        }
+
+        @ManagedAttribute(description = "Time to live, in seconds")
+        public long getTimeToLive() {
+            return statistics().getTimeToLive();
+        }
+
+        @ManagedAttribute(description = "Time to live, in seconds")
+        public void setTimeToLive(long timeToLive) {
+            cacheManagementService.setTimeToLive(cacheName, timeToLive);
+        }
+
+        @ManagedOperation(description = "Evicts an entry")
+        public void evict(String key) {
+            cacheManagementService.evict(cacheName, key);
+        }
+
+        @ManagedOperation(description = "Evicts all the entries")
+        public void clear() {
+            cacheManagementService.clear(cacheName);
+        }
+
+        private CacheStatistics statistics() {
+            return cacheManagementService.getCacheStatistics(cacheName, false);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package fr.ippon.tatami.service;
+
+import fr.ippon.tatami.domain.Domain;
+import fr.ippon.tatami.domain.SharedStatusInfo;
+import fr.ippon.tatami.domain.UserStatusStat;
+import fr.ippon.tatami.repository.*;
+import fr.ippon.tatami.service.util.DomainUtil;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the users who posted statuses today, and the latest statuses of their timelines, in the caches
+ * when the application starts.
+ * <p/>
+ * The users are loaded in parallel, until the timeout, the maximum number of statuses, or the maximum heap usage
+ * is reached. The application is ready (see the "/ready" URL) when the warm-up is finished : the load balancer
+ * should wait for it before sending traffic to this node.
+ *
+ * @author Julien Dubois
+ */
+@Service
+public class CacheWarmUpService implements ApplicationListener<ContextRefreshedEvent> {
+
+    private final Log log = LogFactory.getLog(CacheWarmUpService.class);
+
+    /**
+     * The warm-up stops when this ratio of the maximum heap is used.
+     */
+    private static final double MAX_HEAP_RATIO = 0.75;
+
+    @Inject
+    private Environment env;
+
+    @Inject
+    private DomainRepository domainRepository;
+
+    @Inject
+    private DaylineRepository daylineRepository;
+
+    @Inject
+    private UserRepository userRepository;
+
+    @Inject
+    private TimelineRepository timelineRepository;
+
+    @Inject
+    private StatusRepository statusRepository;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile boolean ready = false;
+
+    private final AtomicInteger warmedUsers = new AtomicInteger();
+
+    private final Map<String, Boolean> warmedStatuses = new ConcurrentHashMap<String, Boolean>();
+
+    private long deadline;
+
+    private int maxStatuses;
+
+    private int timelineSize;
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        // The event is sent by the root context and by the dispatcher servlet's context
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        if (!env.getProperty("cache.warmup.enabled", Boolean.class, false)) {
+            ready = true;
+            return;
+        }
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    warmUp();
+                } catch (Exception e) {
+                    log.warn("Cache warm-up failed : " + e.getMessage());
+                } finally {
+                    ready = true;
+                }
+            }
+        }, "cache-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return true when the warm-up is finished, or disabled
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int getWarmedUsers() {
+        return warmedUsers.get();
+    }
+
+    public int getWarmedStatuses() {
+        return warmedStatuses.size();
+    }
+
+    void warmUp() throws InterruptedException {
+        long startTime = System.currentTimeMillis();
+        deadline = startTime + env.getProperty("cache.warmup.timeout", Long.class, 120L) * 1000;
+        maxStatuses = env.getProperty("cache.warmup.max.statuses", Integer.class, 20000);
+        timelineSize = env.getProperty("cache.warmup.timeline.size", Integer.class, 20);
+        int maxUsers = env.getProperty("cache.warmup.max.users", Integer.class, 1000);
+        int threads = env.getProperty("cache.warmup.threads", Integer.class, 4);
+
+        String day = StatsService.DAYLINE_KEY_FORMAT.format(new Date());
+        List<String> logins = new ArrayList<String>();
+        domains:
+        for (Domain domain : domainRepository.getAllDomains()) {
+            Collection<UserStatusStat> dayline = daylineRepository.getDayline(domain.getName(), day);
+            for (UserStatusStat stat : dayline) {
+                if (logins.size() >= maxUsers) {
+                    break domains;
+                }
+                logins.add(DomainUtil.getLoginFromUsernameAndDomain(stat.getUsername(), domain.getName()));
+            }
+        }
+        log.info("Cache warm-up started for " + logins.size() + " users");
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "cache-warmup-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (final String login : logins) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (canContinue()) {
+                        warmUpUser(login);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS)) {
+            executor.shutdownNow();
+            log.info("Cache warm-up timed out");
+        }
+        log.info("Cache warm-up finished in " + (System.currentTimeMillis() - startTime) + " ms : " +
+                warmedUsers.get() + " users, " + warmedStatuses.size() + " statuses");
+    }
+
+    private void warmUpUser(String login) {
+        try {
+            userRepository.findUserByLogin(login);
+            warmedUsers.incrementAndGet();
+            // The timelines are not cached : their latest statuses are read to load the statuses
+            Map<String, SharedStatusInfo> timeline = timelineRepository.getTimeline(login, timelineSize, null, null);
+            for (Map.Entry<String, SharedStatusInfo> entry : timeline.entrySet()) {
+                if (!canContinue()) {
+                    return;
+                }
+                String statusId = entry.getKey();
+                if (entry.getValue() != null) {
+                    statusId = entry.getValue().getOriginalStatusId();
+                }
+                if (warmedStatuses.put(statusId, Boolean.TRUE) == null) {
+                    statusRepository.findStatusById(statusId);
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Could not warm up the caches for user " + login + " : " + e.getMessage());
+        }
+    }
+
+    private boolean canContinue() {
+        if (System.currentTimeMillis() > deadline || warmedStatuses.size() >= maxStatuses) {
+            return false;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+        return usedMemory < runtime.maxMemory() * MAX_HEAP_RATIO;
+    }
+}
@@ -1,12 +1,14 @@
 package fr.ippon.tatami.service;
 
 import fr.ippon.tatami.domain.User;
+import fr.ippon.tatami.repository.AsyncReadRepository;
 import fr.ippon.tatami.repository.CounterRepository;
 import fr.ippon.tatami.repository.FollowerRepository;
 import fr.ippon.tatami.repository.FriendRepository;
 import fr.ippon.tatami.repository.UserRepository;
 import fr.ippon.tatami.security.AuthenticationService;
 import fr.ippon.tatami.service.util.DomainUtil;
+import fr.ippon.tatami.service.util.FutureUtil;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.stereotype.Service;
@@ -14,6 +16,8 @@ import org.springframework.stereotype.Service;
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Future;
 
 /**
  * Manages the user's frienships.
@@ -28,6 +32,11 @@ public class FriendshipService {
 
     private final Log log = LogFactory.getLog(FriendshipService.class);
 
+    /**
+     * Number of users read by each asynchronous task.
+     */
+    private static final int USERS_BATCH_SIZE = 50;
+
     @Inject
     private UserRepository userRepository;
 
@@ -40,6 +49,9 @@ public class FriendshipService {
     @Inject
     private CounterRepository counterRepository;
 
+    @Inject
+    private AsyncReadRepository asyncReadRepository;
+
     @Inject
     private AuthenticationService authenticationService;
 
@@ -50,17 +62,17 @@ public class FriendshipService {
         User currentUser = authenticationService.getCurrentUser();
         String domain = DomainUtil.getDomainFromLogin(currentUser.getLogin());
         String loginToFollow = DomainUtil.getLoginFromUsernameAndDomain(usernameToFollow, domain);
+        // The friends are read at the same time as the followed user
+        Future<Collection<String>> friendsFuture = asyncReadRepository.findFriendsForUser(currentUser.getLogin());
         User followedUser = userRepository.findUserByLogin(loginToFollow);
         if (followedUser != null && !followedUser.equals(currentUser)) {
             boolean userAlreadyFollowed = false;
-            if (counterRepository.getFriendsCounter(currentUser.getLogin()) > 0) {
-                for (String alreadyFollowingTest : friendRepository.findFriendsForUser(currentUser.getLogin())) {
-                    if (alreadyFollowingTest.equals(loginToFollow)) {
-                        userAlreadyFollowed = true;
-                        if (log.isDebugEnabled()) {
-                            log.debug("User " + currentUser.getLogin() +
-                                    " already follows user " + followedUser.getLogin());
-                        }
+            for (String alreadyFollowingTest : FutureUtil.getResult(friendsFuture)) {
+                if (alreadyFollowingTest.equals(loginToFollow)) {
+                    userAlreadyFollowed = true;
+                    if (log.isDebugEnabled()) {
+                        log.debug("User " + currentUser.getLogin() +
+                                " already follows user " + followedUser.getLogin());
                     }
                 }
             }
@@ -83,15 +95,21 @@ public class FriendshipService {
         }
         User currentUser = authenticationService.getCurrentUser();
         String loginToUnfollow = this.getLoginFromUsername(usernameToUnfollow);
+        // The friends are read at the same time as the unfollowed user
+        Future<Collection<String>> friendsFuture = asyncReadRepository.findFriendsForUser(currentUser.getLogin());
         User userToUnfollow = userRepository.findUserByLogin(loginToUnfollow);
-        unfollowUser(currentUser, userToUnfollow);
+        unfollowUser(currentUser, userToUnfollow, friendsFuture);
     }
 
     public void unfollowUser(User currentUser, User userToUnfollow) {
+        unfollowUser(currentUser, userToUnfollow, asyncReadRepository.findFriendsForUser(currentUser.getLogin()));
+    }
+
+    private void unfollowUser(User currentUser, User userToUnfollow, Future<Collection<String>> friendsFuture) {
         if (userToUnfollow != null) {
             String loginToUnfollow = userToUnfollow.getLogin();
             boolean userAlreadyFollowed = false;
-            for (String alreadyFollowingTest : friendRepository.findFriendsForUser(currentUser.getLogin())) {
+            for (String alreadyFollowingTest : FutureUtil.getResult(friendsFuture)) {
                 if (alreadyFollowingTest.equals(loginToUnfollow)) {
                     userAlreadyFollowed = true;
                 }
@@ -125,24 +143,33 @@ public class FriendshipService {
 
     public Collection<User> getFriendsForUser(String username) {
         String login = this.getLoginFromUsername(username);
-        Collection<String> friendLogins = friendRepository.findFriendsForUser(login);
-        Collection<User> friends = new ArrayList<User>();
-        for (String friendLogin : friendLogins) {
-            User friend = userRepository.findUserByLogin(friendLogin);
-            friends.add(friend);
-        }
-        return friends;
+        return findUsersByLogin(friendRepository.findFriendsForUserInSlices(login));
     }
 
     public Collection<User> getFollowersForUser(String username) {
         String login = this.getLoginFromUsername(username);
-        Collection<String> followersLogins = followerRepository.findFollowersForUser(login);
-        Collection<User> followers = new ArrayList<User>();
-        for (String followerLogin : followersLogins) {
-            User follower = userRepository.findUserByLogin(followerLogin);
-            followers.add(follower);
+        return findUsersByLogin(followerRepository.findFollowersForUserInSlices(login));
+    }
+
+    /**
+     * Reads the users by batches of USERS_BATCH_SIZE, each batch in one asynchronous task : the users of a slice
+     * are read while the next slice of logins is loaded.
+     */
+    private Collection<User> findUsersByLogin(Iterable<List<String>> loginSlices) {
+        Collection<Future<List<User>>> userFutures = new ArrayList<Future<List<User>>>();
+        for (List<String> logins : loginSlices) {
+            for (int i = 0; i < logins.size(); i += USERS_BATCH_SIZE) {
+                List<String> batch = new ArrayList<String>(logins.subList(i,
+                        Math.min(i + USERS_BATCH_SIZE, logins.size())));
+
+                userFutures.add(asyncReadRepository.findUsersByLogin(batch));
+            }
+        }
+        Collection<User> users = new ArrayList<User>();
+        for (Future<List<User>> userFuture : userFutures) {
+            users.addAll(FutureUtil.getResult(userFuture));
         }
-        return followers;
+        return users;
     }
 
     /**
@@ -169,8 +196,7 @@ public class FriendshipService {
     }
 
     private String getLoginFromUsername(String username) {
-        User currentUser = authenticationService.getCurrentUser();
-        String domain = DomainUtil.getDomainFromLogin(currentUser.getLogin());
+        String domain = authenticationService.getCurrentDomain();
         return DomainUtil.getLoginFromUsernameAndDomain(username, domain);
     }
 
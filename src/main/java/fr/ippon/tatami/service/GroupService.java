@@ -8,8 +8,6 @@ import fr.ippon.tatami.service.dto.UserGroupDTO;
 import fr.ippon.tatami.service.util.DomainUtil;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import javax.inject.Inject;
@@ -19,6 +17,9 @@ import java.util.TreeSet;
 
 /**
  * Service bean for managing groups.
+ * <p/>
+ * The groups of a user, the group details and the group counters are cached separately by the repositories,
+ * so a change in a group only evicts this group, and the groups of the users who joined or left it.
  */
 @Service
 public class GroupService {
@@ -43,10 +44,12 @@ public class GroupService {
     @Inject
     private UserGroupRepository userGroupRepository;
 
+    @Inject
+    private DomainCounterRepository domainCounterRepository;
+
     @Inject
     private UserRepository userRepository;
 
-    @CacheEvict(value = "group-user-cache", allEntries = true)
     public void createGroup(String name, String description, boolean publicGroup) {
         if (log.isDebugEnabled()) {
             log.debug("Creating group : " + name);
@@ -58,9 +61,9 @@ public class GroupService {
         groupMembersRepository.addAdmin(groupId, currentUser.getLogin());
         groupCounterRepository.incrementGroupCounter(domain, groupId);
         userGroupRepository.addGroupAsAdmin(currentUser.getLogin(), groupId);
+        domainCounterRepository.incrementGroupCounter(domain);
     }
 
-    @CacheEvict(value = "group-user-cache", allEntries = true)
     public void editGroup(Group group) {
         groupDetailsRepository.editGroupDetails(group.getGroupId(), group.getName(), group.getDescription());
     }
@@ -82,7 +85,6 @@ public class GroupService {
         return userGroupDTOs;
     }
 
-    @Cacheable(value = "group-user-cache", key = "#user.login")
     public Collection<Group> getGroupsForUser(User user) {
         Collection<String> groupIds = userGroupRepository.findGroups(user.getLogin());
         return getGroupDetails(user, groupIds);
@@ -98,7 +100,10 @@ public class GroupService {
         String domain = DomainUtil.getDomainFromLogin(currentUser.getLogin());
         Collection<Group> groups = new TreeSet<Group>();
         for (String groupId : groupIds) {
-            Group group = groupRepository.getGroupById(domain, groupId);
+            // the groups of a user are in the domain of the user : the Group row is not read again
+            Group group = new Group();
+            group.setDomain(domain);
+            group.setGroupId(groupId);
             Group groupDetails = groupDetailsRepository.getGroupDetails(groupId);
             group.setName(groupDetails.getName());
             group.setPublicGroup(groupDetails.isPublicGroup());
@@ -110,7 +115,6 @@ public class GroupService {
         return groups;
     }
 
-    @CacheEvict(value = "group-user-cache", allEntries = true)
     public void addMemberToGroup(User user, Group group) {
         String groupId = group.getGroupId();
         Collection<String> userCurrentGroupIds = userGroupRepository.findGroups(user.getLogin());
@@ -131,7 +135,6 @@ public class GroupService {
         }
     }
 
-    @CacheEvict(value = "group-user-cache", allEntries = true)
     public void removeMemberFromGroup(User user, Group group) {
         String groupId = group.getGroupId();
         Collection<String> userCurrentGroupIds = userGroupRepository.findGroups(user.getLogin());
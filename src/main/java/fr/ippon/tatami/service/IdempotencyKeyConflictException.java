@@ -0,0 +1,14 @@
+package fr.ippon.tatami.service;
+
+/**
+ * This exception is thrown when a status is posted with an idempotency key, while another request with the same
+ * key is still creating its status.
+ *
+ * @author Julien Dubois
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    public IdempotencyKeyConflictException(String s) {
+        super(s);
+    }
+}
@@ -0,0 +1,36 @@
+package fr.ippon.tatami.service;
+
+import fr.ippon.tatami.repository.LineTrimmingRepository;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.inject.Inject;
+
+/**
+ * Service to periodically trim the timelines, mentionlines, taglines and grouplines, so that their
+ * rows do not grow without limit.
+ *
+ * @author Julien Dubois
+ */
+@Service
+public class LineTrimmingService {
+
+    private final Log log = LogFactory.getLog(LineTrimmingService.class);
+
+    @Inject
+    private LineTrimmingRepository lineTrimmingRepository;
+
+    @Scheduled(fixedDelay = 60000)
+    public void trimLines() {
+        try {
+            lineTrimmingRepository.trimLines();
+        } catch (Exception e) {
+            log.error("Line trimming error : " + e.getMessage());
+            if (log.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package fr.ippon.tatami.service;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.repository.local.LocalStore;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.inject.Inject;
+
+/**
+ * Service to periodically flush and compact the local storage.
+ *
+ * @author Julien Dubois
+ */
+@Service
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalStorageService {
+
+    private final Log log = LogFactory.getLog(LocalStorageService.class);
+
+    @Inject
+    private LocalStore localStore;
+
+    @Inject
+    private Environment env;
+
+    @Scheduled(fixedDelay = 1000)
+    public void sync() {
+        try {
+            localStore.sync();
+        } catch (Exception e) {
+            log.error("Local storage sync error : " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelay = 600000)
+    public void compact() {
+        try {
+            int ratio = env.getProperty("local.compaction.ratio", Integer.class, 3);
+            if (localStore.needsCompaction(ratio)) {
+                localStore.compact();
+            }
+        } catch (Exception e) {
+            log.error("Local storage compaction error : " + e.getMessage());
+            if (log.isDebugEnabled()) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
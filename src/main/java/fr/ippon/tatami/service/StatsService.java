@@ -1,10 +1,8 @@
 package fr.ippon.tatami.service;
 
-import fr.ippon.tatami.domain.User;
 import fr.ippon.tatami.domain.UserStatusStat;
 import fr.ippon.tatami.repository.DaylineRepository;
 import fr.ippon.tatami.security.AuthenticationService;
-import fr.ippon.tatami.service.util.DomainUtil;
 import org.springframework.stereotype.Service;
 
 import javax.inject.Inject;
@@ -43,8 +41,7 @@ public class StatsService {
         if (date == null) {
             date = new Date();
         }
-        User currentUser = authenticationService.getCurrentUser();
-        String domain = DomainUtil.getDomainFromLogin(currentUser.getLogin());
+        String domain = authenticationService.getCurrentDomain();
         String day = DAYLINE_KEY_FORMAT.format(date);
         Collection<UserStatusStat> stats = daylineRepository.getDayline(domain, day);
         return stats;
@@ -11,8 +11,12 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.stereotype.Service;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -21,6 +25,12 @@ public class StatusUpdateService {
 
     private final Log log = LogFactory.getLog(StatusUpdateService.class);
 
+    private static final int IDEMPOTENCY_KEY_ATTEMPTS = 10;
+
+    private static final int IDEMPOTENCY_KEY_WAIT_MILLIS = 100;
+
+    private final Random random = new Random();
+
     private final static Pattern PATTERN_LOGIN = Pattern.compile("@[^\\s]+");
 
     private static final Pattern PATTERN_HASHTAG = Pattern.compile("#(\\w+)");
@@ -76,15 +86,62 @@ public class StatusUpdateService {
     @Inject
     private CounterRepository counterRepository;
 
+    @Inject
+    private DomainCounterRepository domainCounterRepository;
+
+    @Inject
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
     @Inject
     private SearchService searchService;
 
-    public void postStatus(String content) {
-        createStatus(content, null, "", "");
+    public Status postStatus(String content) {
+        return createStatus(content, null, "", "", null, null);
+    }
+
+    /**
+     * Post a status, unless a status has already been posted with the same idempotency key :
+     * when a client retries a request, the original status is returned, and it is not sent to the followers twice.
+     * <p/>
+     * The key is reserved before the status is created. When another request holds the reservation (or when
+     * two requests reserve the key at the same time), its status is waited for during
+     * IDEMPOTENCY_KEY_ATTEMPTS * IDEMPOTENCY_KEY_WAIT_MILLIS ms at most.
+     */
+    public Status postStatus(String content, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+            return postStatus(content);
+        }
+        String currentLogin = authenticationService.getCurrentUser().getLogin();
+        for (int attempt = 0; attempt < IDEMPOTENCY_KEY_ATTEMPTS; attempt++) {
+            String statusId = idempotencyKeyRepository.findStatusIdByIdempotencyKey(currentLogin, idempotencyKey);
+            if (statusId != null) {
+                Status status = statusRepository.findStatusById(statusId);
+                if (status != null) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Status " + statusId + " has already been posted with idempotency key " +
+                                idempotencyKey);
+                    }
+                    return status;
+                }
+            }
+            String reservationId = UUID.randomUUID().toString();
+            if (idempotencyKeyRepository.reserveIdempotencyKey(currentLogin, idempotencyKey, reservationId)) {
+                return createStatus(content, null, "", "", idempotencyKey, reservationId);
+            }
+            try {
+                // a random wait, so two requests which both gave up their reservation do not retry together
+                Thread.sleep(IDEMPOTENCY_KEY_WAIT_MILLIS / 2 + random.nextInt(IDEMPOTENCY_KEY_WAIT_MILLIS / 2));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new IdempotencyKeyConflictException("A status with the idempotency key " + idempotencyKey +
+                " is being posted");
     }
 
     public void postStatusToGroup(String content, Group group) {
-        createStatus(content, group, "", "");
+        createStatus(content, group, "", "", null, null);
     }
 
     public void replyToStatus(String content, String replyTo) {
@@ -92,15 +149,16 @@ public class StatusUpdateService {
         if (!originalStatus.getReplyTo().equals("")) {
             log.debug("Original status is also a reply, replying to the real original status instead.");
             Status realOriginalStatus = statusRepository.findStatusById(originalStatus.getReplyTo());
-            Status replyStatus = createStatus(content, null, realOriginalStatus.getStatusId(), originalStatus.getUsername());
+            Status replyStatus = createStatus(content, null, realOriginalStatus.getStatusId(), originalStatus.getUsername(), null, null);
             discussionRepository.addReplyToDiscussion(realOriginalStatus.getStatusId(), replyStatus.getStatusId());
         } else {
-            Status replyStatus = createStatus(content, null, replyTo, originalStatus.getUsername());
+            Status replyStatus = createStatus(content, null, replyTo, originalStatus.getUsername(), null, null);
             discussionRepository.addReplyToDiscussion(originalStatus.getStatusId(), replyStatus.getStatusId());
         }
     }
 
-    private Status createStatus(String content, Group group, String replyTo, String replyToUsername) {
+    private Status createStatus(String content, Group group, String replyTo, String replyToUsername,
+                                String idempotencyKey, String reservationId) {
         long startTime = 0;
         if (log.isDebugEnabled()) {
             startTime = Calendar.getInstance().getTimeInMillis();
@@ -110,14 +168,26 @@ public class StatusUpdateService {
         String username = DomainUtil.getUsernameFromLogin(currentLogin);
         String domain = DomainUtil.getDomainFromLogin(currentLogin);
 
-        Status status =
-                statusRepository.createStatus(currentLogin, username, domain, group, content, replyTo, replyToUsername);
+        Status status;
+        try {
+            status = statusRepository.createStatus(currentLogin, username, domain, group, content, replyTo,
+                    replyToUsername);
+        } catch (RuntimeException e) {
+            if (idempotencyKey != null) { // a retry can create the status
+                idempotencyKeyRepository.removeIdempotencyKey(currentLogin, idempotencyKey, reservationId);
+            }
+            throw e;
+        }
+
+        // the key is stored before the status is sent to the followers, so a retry does not wait for it
+        if (idempotencyKey != null) {
+            idempotencyKeyRepository.addIdempotencyKey(currentLogin, idempotencyKey, reservationId,
+                    status.getStatusId());
+        }
 
         // add status to the timeline
         timelineRepository.addStatusToTimeline(currentLogin, status);
 
-        Collection<String> followersForUser = followerRepository.findFollowersForUser(currentLogin);
-
         // add status to the dayline, userline
         String day = StatsService.DAYLINE_KEY_FORMAT.format(status.getStatusDate());
         daylineRepository.addStatusToDayline(status, day);
@@ -128,19 +198,22 @@ public class StatusUpdateService {
             grouplineRepository.addStatusToGroupline(status, group.getGroupId());
             Collection<String> groupMemberLogins = groupMembersRepository.findMembers(group.getGroupId()).keySet();
             // For all people following the group
-            for (String groupMemberLogin : groupMemberLogins) {
-                timelineRepository.addStatusToTimeline(groupMemberLogin, status);
-            }
+            timelineRepository.addStatusToTimelines(groupMemberLogins, status);
             if (isPublicGroup(group)) { // for people not following the group but following the user
-                for (String followerLogin : followersForUser) {
-                    if (!groupMemberLogins.contains(followerLogin)) {
-                        timelineRepository.addStatusToTimeline(followerLogin, status);
+                for (List<String> followersSlice : followerRepository.findFollowersForUserInSlices(currentLogin)) {
+                    Collection<String> followersNotInGroup = new ArrayList<String>(followersSlice.size());
+                    for (String followerLogin : followersSlice) {
+                        if (!groupMemberLogins.contains(followerLogin)) {
+                            followersNotInGroup.add(followerLogin);
+                        }
                     }
+                    timelineRepository.addStatusToTimelines(followersNotInGroup, status);
                 }
             }
         } else { // only people following the user
-            for (String followerLogin : followersForUser) {
-                timelineRepository.addStatusToTimeline(followerLogin, status);
+            // followers are read and written by slices, as some users have a very large number of followers
+            for (List<String> followersSlice : followerRepository.findFollowersForUserInSlices(currentLogin)) {
+                timelineRepository.addStatusToTimelines(followersSlice, status);
             }
         }
 
@@ -152,8 +225,7 @@ public class StatusUpdateService {
         while (m.find()) {
             String mentionedUsername = extractUsernameWithoutAt(m.group());
             if (mentionedUsername != null &&
-                    !mentionedUsername.equals(currentLogin) &&
-                    !followersForUser.contains(mentionedUsername)) {
+                    !mentionedUsername.equals(currentLogin)) {
 
                 if (log.isDebugEnabled()) {
                     log.debug("Mentionning : " + mentionedUsername);
@@ -173,8 +245,9 @@ public class StatusUpdateService {
             }
         }
 
-        // Increment status count for the current user
+        // Increment status count for the current user and for the domain
         counterRepository.incrementStatusCounter(currentLogin);
+        domainCounterRepository.incrementStatusCounter(domain);
 
         // Add to the searchStatus engine
         searchService.addStatus(status);
@@ -199,6 +272,10 @@ public class StatusUpdateService {
                 }
                 taglineRepository.addStatusToTagline(status, tag);
                 tagCounterRepository.incrementTagCounter(status.getDomain(), tag);
+                if (tagCounterRepository.getTagCounter(status.getDomain(), tag) == 1) {
+                    // First use of this tag in the domain
+                    domainCounterRepository.incrementTagCounter(status.getDomain());
+                }
                 trendsRepository.addTag(status.getDomain(), tag);
                 userTrendRepository.addTag(status.getLogin(), tag);
 
@@ -209,16 +286,18 @@ public class StatusUpdateService {
     }
 
     private void addStatusToTagFollowers(Status status, Group group, String tag) {
-        Collection<String> followersForTag = tagFollowerRepository.findFollowers(status.getDomain(), tag);
+        Iterable<List<String>> followersForTag = tagFollowerRepository.findFollowersInSlices(status.getDomain(), tag);
         if (isPublicGroup(group)) { // This is a public status
-            for (String followerLogin : followersForTag) {
-                timelineRepository.addStatusToTimeline(followerLogin, status);
+            for (List<String> followersSlice : followersForTag) {
+                timelineRepository.addStatusToTimelines(followersSlice, status);
             }
         } else {  // This is private status
-            for (String followerLogin : followersForTag) {
-                Collection<String> groupIds = userGroupRepository.findGroups(followerLogin);
-                if (groupIds.contains(group.getGroupId())) { // The user is part of the private group
-                    timelineRepository.addStatusToTimeline(followerLogin, status);
+            for (List<String> followersSlice : followersForTag) {
+                for (String followerLogin : followersSlice) {
+                    Collection<String> groupIds = userGroupRepository.findGroups(followerLogin);
+                    if (groupIds.contains(group.getGroupId())) { // The user is part of the private group
+                        timelineRepository.addStatusToTimeline(followerLogin, status);
+                    }
                 }
             }
         }
@@ -239,4 +318,8 @@ public class StatusUpdateService {
     private boolean isPublicGroup(Group group) {
         return group == null || group.isPublicGroup();
     }
+
+    public void setAuthenticationService(AuthenticationService authenticationService) {
+        this.authenticationService = authenticationService;
+    }
 }
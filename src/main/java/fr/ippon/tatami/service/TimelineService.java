@@ -8,14 +8,17 @@ import fr.ippon.tatami.repository.*;
 import fr.ippon.tatami.security.AuthenticationService;
 import fr.ippon.tatami.security.DomainViolationException;
 import fr.ippon.tatami.service.util.DomainUtil;
+import fr.ippon.tatami.service.util.FutureUtil;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Service;
 
 import javax.inject.Inject;
 import java.util.*;
+import java.util.concurrent.Future;
 
 /**
  * Manages the timeline.
@@ -29,9 +32,6 @@ public class TimelineService {
 
     private final static String hashtagDefault = "---";
 
-    @Inject
-    private UserService userService;
-
     @Inject
     private StatusRepository statusRepository;
 
@@ -44,6 +44,9 @@ public class TimelineService {
     @Inject
     private CounterRepository counterRepository;
 
+    @Inject
+    private DomainCounterRepository domainCounterRepository;
+
     @Inject
     private TimelineRepository timelineRepository;
 
@@ -65,6 +68,9 @@ public class TimelineService {
     @Inject
     private FollowerRepository followerRepository;
 
+    @Inject
+    private AsyncReadRepository asyncReadRepository;
+
     @Inject
     private AuthenticationService authenticationService;
 
@@ -123,19 +129,45 @@ public class TimelineService {
     }
 
     public Collection<Status> buildStatusList(Map<String, SharedStatusInfo> line) {
+        return buildStatusList(new AsyncResult<Map<String, SharedStatusInfo>>(line));
+    }
+
+    /**
+     * Builds the statuses of a line which may still be read.
+     * <p/>
+     * The independent reads overlap : the favoriteline is read at the same time as the line,
+     * then all the statuses are read together, then all their authors.
+     */
+    private Collection<Status> buildStatusList(Future<Map<String, SharedStatusInfo>> lineFuture) {
         User currentUser = authenticationService.getCurrentUser();
-        Map<String, SharedStatusInfo> favoriteLine = favoritelineRepository.getFavoriteline(currentUser.getLogin());
-        Collection<Status> statuses = new ArrayList<Status>(line.size());
+        Future<Map<String, SharedStatusInfo>> favoriteLineFuture =
+                asyncReadRepository.getFavoriteline(currentUser.getLogin());
+
+        Map<String, SharedStatusInfo> line = FutureUtil.getResult(lineFuture);
+        Map<String, Future<Status>> statusFutures = new HashMap<String, Future<Status>>();
         for (String statusId : line.keySet()) {
             SharedStatusInfo sharedStatusInfo = line.get(statusId);
-            Status status = null;
             if (sharedStatusInfo != null) {
-                status = statusRepository.findStatusById(sharedStatusInfo.getOriginalStatusId());
+                statusFutures.put(statusId, asyncReadRepository.findStatusById(sharedStatusInfo.getOriginalStatusId()));
             } else {
-                status = statusRepository.findStatusById(statusId);
+                statusFutures.put(statusId, asyncReadRepository.findStatusById(statusId));
+            }
+        }
+        Map<String, Future<User>> userFutures = new HashMap<String, Future<User>>();
+        for (Future<Status> statusFuture : statusFutures.values()) {
+            Status status = FutureUtil.getResult(statusFuture);
+            if (status != null && !userFutures.containsKey(status.getLogin())) {
+                userFutures.put(status.getLogin(), asyncReadRepository.findUserByLogin(status.getLogin()));
             }
+        }
+        Map<String, SharedStatusInfo> favoriteLine = FutureUtil.getResult(favoriteLineFuture);
+
+        Collection<Status> statuses = new ArrayList<Status>(line.size());
+        for (String statusId : line.keySet()) {
+            SharedStatusInfo sharedStatusInfo = line.get(statusId);
+            Status status = FutureUtil.getResult(statusFutures.get(statusId));
             if (status != null) {
-                User statusUser = userService.getUserByLogin(status.getLogin());
+                User statusUser = FutureUtil.getResult(userFutures.get(status.getLogin()));
                 if (statusUser != null) {
                     // Security check
                     if (!statusUser.getDomain().equals(currentUser.getDomain())) {
@@ -197,8 +229,8 @@ public class TimelineService {
     public Collection<Status> getMentionline(int nbStatus, String since_id, String max_id) {
         User currentUser = authenticationService.getCurrentUser();
         String domain = DomainUtil.getDomainFromLogin(currentUser.getLogin());
-        Map<String, SharedStatusInfo> line =
-                mentionlineRepository.getMentionline(currentUser.getLogin(), nbStatus, since_id, max_id);
+        Future<Map<String, SharedStatusInfo>> line =
+                asyncReadRepository.getMentionline(currentUser.getLogin(), nbStatus, since_id, max_id);
 
         return buildStatusList(line);
     }
@@ -214,8 +246,7 @@ public class TimelineService {
         if (tag == null || tag.isEmpty()) {
             tag = hashtagDefault;
         }
-        User currentUser = authenticationService.getCurrentUser();
-        String domain = DomainUtil.getDomainFromLogin(currentUser.getLogin());
+        String domain = authenticationService.getCurrentDomain();
         Map<String, SharedStatusInfo> line = taglineRepository.getTagline(domain, tag, nbStatus, since_id, max_id);
         return buildStatusList(line);
     }
@@ -240,8 +271,8 @@ public class TimelineService {
      */
     public Collection<Status> getTimeline(int nbStatus, String since_id, String max_id) {
         String login = authenticationService.getCurrentUser().getLogin();
-        Map<String, SharedStatusInfo> line =
-                timelineRepository.getTimeline(login, nbStatus, since_id, max_id);
+        Future<Map<String, SharedStatusInfo>> line =
+                asyncReadRepository.getTimeline(login, nbStatus, since_id, max_id);
 
         return buildStatusList(line);
     }
@@ -262,7 +293,9 @@ public class TimelineService {
             String domain = DomainUtil.getDomainFromLogin(currentUser.getLogin());
             login = DomainUtil.getLoginFromUsernameAndDomain(username, domain);
         }
-        Map<String, SharedStatusInfo> line = userlineRepository.getUserline(login, nbStatus, since_id, max_id);
+        Future<Map<String, SharedStatusInfo>> line =
+                asyncReadRepository.getUserline(login, nbStatus, since_id, max_id);
+
         return this.buildStatusList(line);
     }
 
@@ -277,6 +310,7 @@ public class TimelineService {
                 && Boolean.FALSE.equals(status.getRemoved())) {
             statusRepository.removeStatus(status);
             counterRepository.decrementStatusCounter(currentUser.getLogin());
+            domainCounterRepository.decrementStatusCounter(DomainUtil.getDomainFromLogin(currentUser.getLogin()));
             searchService.removeStatus(status);
         }
     }
@@ -290,10 +324,9 @@ public class TimelineService {
         // add status to the user's userline and timeline
         userlineRepository.shareStatusToUserline(currentLogin, status);
         timelineRepository.shareStatusToTimeline(currentLogin, currentLogin, status);
-        // add status to the follower's timelines
-        Collection<String> followersForUser = followerRepository.findFollowersForUser(currentLogin);
-        for (String followerLogin : followersForUser) {
-            timelineRepository.shareStatusToTimeline(currentLogin, followerLogin, status);
+        // add status to the follower's timelines, one slice of followers at a time
+        for (List<String> followersSlice : followerRepository.findFollowersForUserInSlices(currentLogin)) {
+            timelineRepository.shareStatusToTimelines(currentLogin, followersSlice, status);
         }
         // update the status details to add this share
         sharesRepository.newShareByLogin(statusId, currentLogin);
@@ -0,0 +1,255 @@
+package fr.ippon.tatami.service;
+
+import fr.ippon.tatami.domain.User;
+import fr.ippon.tatami.domain.UserDeletion;
+import fr.ippon.tatami.repository.*;
+import fr.ippon.tatami.service.util.DomainUtil;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.inject.Inject;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Deletes the user accounts, in the background.
+ * <p/>
+ * The followers and the friends are read by slices, and each slice is removed with batched mutations
+ * (one for the friends or followers rows, one for the counters, one for the row of the deleted user).
+ * <p/>
+ * The progress is stored after each step and each slice : an interrupted deletion is resumed at its current step.
+ * The removed followers and friends are not read again, as they have been deleted from the row of the deleted user.
+ * <p/>
+ * Each node (each JVM) has its own id. When a node stops, any node (including the same node, once restarted)
+ * claims its deletions once they have not progressed for CLAIM_DELAY_MILLIS : the claim is a lease, so only one
+ * node gets it. A node stops running a deletion which has been claimed by another node.
+ *
+ * @author Julien Dubois
+ */
+@Service
+public class UserDeletionService {
+
+    private final Log log = LogFactory.getLog(UserDeletionService.class);
+
+    /**
+     * A deletion is claimed by another node after 10 minutes without progress.
+     */
+    private static final long CLAIM_DELAY_MILLIS = 10 * 60 * 1000;
+
+    @Inject
+    private UserDeletionRepository userDeletionRepository;
+
+    @Inject
+    private UserRepository userRepository;
+
+    @Inject
+    private DomainRepository domainRepository;
+
+    @Inject
+    private FollowerRepository followerRepository;
+
+    @Inject
+    private FriendRepository friendRepository;
+
+    @Inject
+    private CounterRepository counterRepository;
+
+    @Inject
+    private FavoritelineRepository favoritelineRepository;
+
+    @Inject
+    private TimelineRepository timelineRepository;
+
+    @Inject
+    private UserlineRepository userlineRepository;
+
+    @Inject
+    private SearchService searchService;
+
+    /**
+     * Deletions which are running on this node.
+     */
+    private final ConcurrentMap<String, Boolean> runningDeletions = new ConcurrentHashMap<String, Boolean>();
+
+    private final String node = findNodeName();
+
+    /**
+     * Stores the deletion of a user, so it is resumed if it is interrupted.
+     */
+    public void startDeletion(String login) {
+        if (userDeletionRepository.findUserDeletion(login) == null) {
+            userDeletionRepository.saveUserDeletion(new UserDeletion(login, node));
+        }
+    }
+
+    @Async
+    public void deleteUserAsynchronously(String login) {
+        deleteUser(login);
+    }
+
+    /**
+     * Runs the deletion of a user, from its current step.
+     */
+    public void deleteUser(String login) {
+        if (runningDeletions.putIfAbsent(login, Boolean.TRUE) != null) {
+            log.debug("The deletion of user " + login + " is already running.");
+            return;
+        }
+        try {
+            UserDeletion userDeletion = userDeletionRepository.findUserDeletion(login);
+            if (userDeletion == null) {
+                log.debug("The deletion of user " + login + " is already finished.");
+                return;
+            }
+            if (!node.equals(userDeletion.getNode())) {
+                log.debug("The deletion of user " + login + " is run by node " + userDeletion.getNode());
+                return;
+            }
+            long startTime = System.currentTimeMillis();
+            switch (userDeletion.getStep()) {
+                case ACCOUNT:
+                    deleteAccount(userDeletion);
+                    nextStep(userDeletion, UserDeletion.Step.FOLLOWERS);
+                case FOLLOWERS:
+                    removeFollowers(userDeletion);
+                    nextStep(userDeletion, UserDeletion.Step.FRIENDS);
+                case FRIENDS:
+                    removeFriends(userDeletion);
+                    nextStep(userDeletion, UserDeletion.Step.LINES);
+                case LINES:
+                    favoritelineRepository.deleteFavoriteline(login);
+                    timelineRepository.deleteTimeline(login);
+                    userlineRepository.deleteUserline(login);
+                    nextStep(userDeletion, UserDeletion.Step.COUNTERS);
+                case COUNTERS:
+                    counterRepository.deleteCounters(login);
+            }
+            userDeletionRepository.removeUserDeletion(login);
+
+            // Tweets are not deleted, but are not available to users anymore (unless the same user is created again)
+            log.info("User " + login + " has been deleted in " + (System.currentTimeMillis() - startTime) + " ms : " +
+                    userDeletion.getRemovedFollowers() + " followers and " + userDeletion.getRemovedFriends() +
+                    " friends removed.");
+        } finally {
+            runningDeletions.remove(login);
+        }
+    }
+
+    /**
+     * Resumes the deletions of this node which have been interrupted, and the deletions of other nodes
+     * which have not progressed for CLAIM_DELAY_MILLIS.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void resumeDeletions() {
+        for (UserDeletion userDeletion : userDeletionRepository.findUserDeletions()) {
+            if (runningDeletions.containsKey(userDeletion.getLogin())) {
+                continue;
+            }
+            if (node.equals(userDeletion.getNode()) || claimDeletion(userDeletion)) {
+                log.info("Resuming the deletion of user " + userDeletion.getLogin() + " at step " +
+                        userDeletion.getStep());
+                try {
+                    deleteUser(userDeletion.getLogin());
+                } catch (Exception e) {
+                    log.error("User deletion error : " + e.getMessage());
+                    if (log.isDebugEnabled()) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes over a deletion which has not progressed for CLAIM_DELAY_MILLIS.
+     */
+    private boolean claimDeletion(UserDeletion userDeletion) {
+        Date progressDate = userDeletion.getProgressDate();
+        if (progressDate != null && System.currentTimeMillis() - progressDate.getTime() < CLAIM_DELAY_MILLIS) {
+            return false;
+        }
+        log.info("Claiming the deletion of user " + userDeletion.getLogin() + " from node " + userDeletion.getNode());
+        return userDeletionRepository.claimUserDeletion(userDeletion.getLogin(), node, CLAIM_DELAY_MILLIS);
+    }
+
+    public Collection<UserDeletion> getUserDeletions() {
+        return userDeletionRepository.findUserDeletions();
+    }
+
+    private void deleteAccount(UserDeletion userDeletion) {
+        String login = userDeletion.getLogin();
+        User user = userRepository.findUserByLogin(login);
+        if (user != null) {
+            searchService.removeUser(user);
+            domainRepository.deleteUserInDomain(DomainUtil.getDomainFromLogin(login), login);
+            userRepository.deleteUser(user);
+            log.debug("Delete user step 1 : the account of user " + login + " has been deleted.");
+        } else {
+            log.debug("Delete user step 1 : user " + login + " has no account.");
+        }
+    }
+
+    private void removeFollowers(UserDeletion userDeletion) {
+        String login = userDeletion.getLogin();
+        for (List<String> followers : followerRepository.findFollowersForUserInSlices(login)) {
+            friendRepository.removeFriendOfUsers(followers, login);
+            counterRepository.decrementFriendsCounters(followers);
+            followerRepository.removeFollowers(login, followers);
+            userDeletion.setRemovedFollowers(userDeletion.getRemovedFollowers() + followers.size());
+            saveProgress(userDeletion);
+        }
+        log.debug("Delete user step 2 : user " + login + " has no more followers.");
+    }
+
+    private void removeFriends(UserDeletion userDeletion) {
+        String login = userDeletion.getLogin();
+        for (List<String> friends : friendRepository.findFriendsForUserInSlices(login)) {
+            followerRepository.removeFollowerOfUsers(friends, login);
+            counterRepository.decrementFollowersCounters(friends);
+            friendRepository.removeFriends(login, friends);
+            userDeletion.setRemovedFriends(userDeletion.getRemovedFriends() + friends.size());
+            saveProgress(userDeletion);
+        }
+        log.debug("Delete user step 3 : user " + login + " has no more friends.");
+    }
+
+    private void nextStep(UserDeletion userDeletion, UserDeletion.Step step) {
+        userDeletion.setStep(step);
+        saveProgress(userDeletion);
+    }
+
+    /**
+     * Stores the progress, unless another node has claimed the deletion : this node stops running it.
+     */
+    private void saveProgress(UserDeletion userDeletion) {
+        UserDeletion storedDeletion = userDeletionRepository.findUserDeletion(userDeletion.getLogin());
+        if (storedDeletion != null && !node.equals(storedDeletion.getNode())) {
+            throw new IllegalStateException("The deletion of user " + userDeletion.getLogin() +
+                    " has been claimed by node " + storedDeletion.getNode());
+        }
+        userDeletion.setProgressDate(new Date());
+        userDeletionRepository.saveUserDeletion(userDeletion);
+    }
+
+    /**
+     * The host name, followed by a random id : several nodes can run on the same host.
+     */
+    private static String findNodeName() {
+        String hostName;
+        try {
+            hostName = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            hostName = "localhost";
+        }
+        return hostName + "-" + UUID.randomUUID().toString();
+    }
+}
@@ -35,40 +35,30 @@ public class UserService {
     @Inject
     private DomainRepository domainRepository;
 
-    @Inject
-    private FriendshipService friendshipService;
-
     @Inject
     private CounterRepository counterRepository;
 
-    @Inject
-    private FavoritelineRepository favoritelineRepository;
-
     @Inject
     private AuthenticationService authenticationService;
 
     @Inject
     private MailService mailService;
 
-    @Inject
-    private TimelineRepository timelineRepository;
-
-    @Inject
-    private UserlineRepository userlineRepository;
-
     @Inject
     private RegistrationRepository registrationRepository;
 
     @Inject
     private SearchService searchService;
 
+    @Inject
+    private UserDeletionService userDeletionService;
+
     public User getUserByLogin(String login) {
         return userRepository.findUserByLogin(login);
     }
 
     public User getUserByUsername(String username) {
-        User currentUser = authenticationService.getCurrentUser();
-        String domain = DomainUtil.getDomainFromLogin(currentUser.getLogin());
+        String domain = authenticationService.getCurrentDomain();
         String login = DomainUtil.getLoginFromUsernameAndDomain(username, domain);
         return getUserByLogin(login);
     }
@@ -87,10 +77,15 @@ public class UserService {
         return users;
     }
 
-    public List<User> getUsersForCurrentDomain(int pagination) {
-        User currentUSer = authenticationService.getCurrentUser();
-        String domain = DomainUtil.getDomainFromLogin(currentUSer.getLogin());
-        List<String> logins = domainRepository.getLoginsInDomain(domain, pagination);
+    /**
+     * Get a page of users from the current domain.
+     *
+     * @param startLogin the login of the first user of the page, or null for the first page
+     * @param size       the number of users to return
+     */
+    public List<User> getUsersForCurrentDomain(String startLogin, int size) {
+        String domain = authenticationService.getCurrentDomain();
+        List<String> logins = domainRepository.getLoginsInDomain(domain, startLogin, size);
         List<User> users = new ArrayList<User>();
         for (String login : logins) {
             User user = getUserByLogin(login);
@@ -99,6 +94,21 @@ public class UserService {
         return users;
     }
 
+    /**
+     * Find the login of the first user of the page preceding the "startLogin" user, in the current domain.
+     *
+     * @return null if the previous page is the first page
+     */
+    public String getPreviousPageStartLoginForCurrentDomain(String startLogin, int size) {
+        String domain = authenticationService.getCurrentDomain();
+        // The first login returned is "startLogin" itself
+        List<String> logins = domainRepository.getLoginsInDomainReversed(domain, startLogin, size + 1);
+        if (logins.size() > size) {
+            return logins.get(size);
+        }
+        return null;
+    }
+
     public void updateUser(User user) {
         User currentUser = authenticationService.getCurrentUser();
         user.setLogin(currentUser.getLogin());
@@ -185,45 +195,13 @@ public class UserService {
         }
     }
 
+    /**
+     * Deletes a user account : the deletion runs in the background, see the UserDeletionService.
+     */
     public void deleteUser(User user) {
-        // Unfollow this user
-        Collection<String> followersIds = friendshipService.getFollowerIdsForUser(user.getLogin());
-        for (String followerId : followersIds) {
-            User follower = getUserByLogin(followerId);
-            friendshipService.unfollowUser(follower, user);
-        }
-        log.debug("Delete user step 1 : Unfollowed user " + user.getLogin());
-
-        // Unfollow friends
-        Collection<String> friendsIds = friendshipService.getFriendIdsForUser(user.getLogin());
-        for (String friendId : friendsIds) {
-            User friend = getUserByLogin(friendId);
-            friendshipService.unfollowUser(user, friend);
-        }
-        log.debug("Delete user step 2 : user " + user.getLogin() + " has no more friends.");
-
-        // Delete userline, tagLine...
-        favoritelineRepository.deleteFavoriteline(user.getLogin());
-        timelineRepository.deleteTimeline(user.getLogin());
-        userlineRepository.deleteUserline(user.getLogin());
-        log.debug("Delete user step 3 : user " + user.getLogin() + " has no more lines.");
-
-        // Remove from domain
-        String domain = DomainUtil.getDomainFromLogin(user.getLogin());
-        domainRepository.deleteUserInDomain(domain, user.getLogin());
-        log.debug("Delete user step 4 : user " + user.getLogin() + " has no domain.");
-
-        // Delete counters
-        counterRepository.deleteCounters(user.getLogin());
-        log.debug("Delete user step 5 : user " + user.getLogin() + " has no counter.");
-
-        // Delete user
-        userRepository.deleteUser(user);
-        log.debug("Delete user step 6 : user " + user.getLogin() + " is deleted.");
-
-        // Tweets are not deleted, but are not available to users anymore (unless the same user is created again)
-
-        log.debug("User " + user.getLogin() + "has been successfully deleted !");
+        userDeletionService.startDeletion(user.getLogin());
+        userDeletionService.deleteUserAsynchronously(user.getLogin());
+        log.debug("Deletion of user " + user.getLogin() + " has been started.");
     }
 
     /**
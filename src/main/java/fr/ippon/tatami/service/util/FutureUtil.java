@@ -0,0 +1,29 @@
+package fr.ippon.tatami.service.util;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Utility class for waiting for the results of asynchronous reads.
+ *
+ * @author Julien Dubois
+ */
+public class FutureUtil {
+
+    /**
+     * Waits for the result of an asynchronous read. Runtime exceptions thrown by the read are re-thrown as is.
+     */
+    public static <T> T getResult(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a Cassandra read", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Cassandra read error", e.getCause());
+        }
+    }
+}
@@ -34,18 +34,22 @@ public class AccountDirectoryController {
 
     @RequestMapping(value = "/account/directory",
             method = RequestMethod.GET)
-    public ModelAndView getEnterprise(@RequestParam(required = false) Integer pagination) {
-        if (pagination == null) {
-            pagination = 0;
+    public ModelAndView getEnterprise(@RequestParam(required = false) String start) {
+        if (start != null && start.isEmpty()) {
+            start = null;
         }
         ModelAndView mv = new ModelAndView("account_directory");
-        List<User> users = userService.getUsersForCurrentDomain(pagination);
-        if (pagination > 0) {
-            mv.addObject("paginationPrevious", pagination - Constants.PAGINATION_SIZE);
+        // We take one more item : it is the first user of the next page, if there is one.
+        List<User> users = userService.getUsersForCurrentDomain(start, Constants.PAGINATION_SIZE + 1);
+        if (start != null) {
+            String previousStart = userService.getPreviousPageStartLoginForCurrentDomain(start, Constants.PAGINATION_SIZE);
+            mv.addObject("paginationPrevious", previousStart != null ? previousStart : "");
         }
         if (users.size() > Constants.PAGINATION_SIZE) {
-            mv.addObject("paginationNext", pagination + Constants.PAGINATION_SIZE);
-            users.remove(users.size() - 1);
+            User nextUser = users.remove(users.size() - 1);
+            if (nextUser != null) {
+                mv.addObject("paginationNext", nextUser.getLogin());
+            }
         }
         mv.addObject("users", users);
         return mv;
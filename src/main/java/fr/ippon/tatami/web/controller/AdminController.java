@@ -1,6 +1,11 @@
 package fr.ippon.tatami.web.controller;
 
+import fr.ippon.tatami.domain.CacheStatistics;
+import fr.ippon.tatami.domain.ColumnFamilyStatistics;
 import fr.ippon.tatami.domain.Domain;
+import fr.ippon.tatami.domain.LineStatistics;
+import fr.ippon.tatami.domain.RowStatistics;
+import fr.ippon.tatami.domain.UserDeletion;
 import fr.ippon.tatami.service.AdminService;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -12,6 +17,7 @@ import org.springframework.web.servlet.ModelAndView;
 
 import javax.inject.Inject;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -27,11 +33,25 @@ public class AdminController {
 
     @RequestMapping(value = "/admin",
             method = RequestMethod.GET)
-    public ModelAndView adminPage(@RequestParam(required = false) String message) {
+    public ModelAndView adminPage(@RequestParam(required = false) String message,
+                                  @RequestParam(required = false, defaultValue = "false") boolean estimateMemory) {
+
         Collection<Domain> domains = adminService.getAllDomains();
+        Collection<LineStatistics> lines = adminService.getLineStatistics();
+        Collection<ColumnFamilyStatistics> columnFamilies = adminService.getColumnFamilyStatistics();
+        List<RowStatistics> hotRows = adminService.getHotRows();
+        List<CacheStatistics> caches = adminService.getCacheStatistics(estimateMemory);
+        Map<String, Long> cacheInvalidation = adminService.getCacheInvalidationStatistics();
+        Collection<UserDeletion> userDeletions = adminService.getUserDeletions();
         Map<String, String> properties = adminService.getEnvProperties();
         ModelAndView mv = new ModelAndView("admin");
         mv.addObject("domains", domains);
+        mv.addObject("lines", lines);
+        mv.addObject("columnFamilies", columnFamilies);
+        mv.addObject("hotRows", hotRows);
+        mv.addObject("caches", caches);
+        mv.addObject("cacheInvalidation", cacheInvalidation);
+        mv.addObject("userDeletions", userDeletions);
         mv.addObject("properties", properties);
         mv.addObject("message", message);
         return mv;
@@ -43,4 +63,39 @@ public class AdminController {
         adminService.rebuildIndex();
         return "redirect:/tatami/admin?message=reindex";
     }
+
+    @RequestMapping(value = "/admin/hotrows/reset",
+            method = RequestMethod.POST)
+    public String resetHotRows() {
+        adminService.resetHotRows();
+        return "redirect:/tatami/admin?message=hotrows";
+    }
+
+    @RequestMapping(value = "/admin/lines/trim",
+            method = RequestMethod.POST)
+    public String trimAllLines() {
+        adminService.trimAllLines();
+        return "redirect:/tatami/admin?message=trim";
+    }
+
+    @RequestMapping(value = "/admin/migrate",
+            method = RequestMethod.POST)
+    public String migrateToTimeBuckets() {
+        adminService.migrateToTimeBuckets();
+        return "redirect:/tatami/admin?message=migrate";
+    }
+
+    @RequestMapping(value = "/admin/migrate/registration",
+            method = RequestMethod.POST)
+    public String migrateRegistrationKeys() {
+        adminService.migrateRegistrationKeys();
+        return "redirect:/tatami/admin?message=migrateRegistration";
+    }
+
+    @RequestMapping(value = "/admin/recount",
+            method = RequestMethod.POST)
+    public String recountDomainStatistics() {
+        adminService.recountDomainStatistics();
+        return "redirect:/tatami/admin?message=recount";
+    }
 }
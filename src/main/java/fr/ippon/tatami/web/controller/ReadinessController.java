@@ -0,0 +1,34 @@
+package fr.ippon.tatami.web.controller;
+
+import fr.ippon.tatami.service.CacheWarmUpService;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Readiness check for the load balancer : this node should not get traffic until the caches are warmed up.
+ *
+ * @author Julien Dubois
+ */
+@Controller
+public class ReadinessController {
+
+    @Inject
+    private CacheWarmUpService cacheWarmUpService;
+
+    @RequestMapping(value = "/ready", method = RequestMethod.GET)
+    public void ready(HttpServletResponse response) throws IOException {
+        response.setContentType("text/plain");
+        if (cacheWarmUpService.isReady()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.getWriter().write("READY");
+        } else {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.getWriter().write("WARMING_UP");
+        }
+    }
+}
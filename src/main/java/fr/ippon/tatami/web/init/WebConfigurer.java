@@ -1,9 +1,12 @@
 package fr.ippon.tatami.web.init;
 
 import fr.ippon.tatami.config.ApplicationConfiguration;
+import fr.ippon.tatami.config.Constants;
 import fr.ippon.tatami.config.DispatcherServletConfig;
+import fr.ippon.tatami.security.CurrentUserFilter;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.core.io.support.ResourcePropertySource;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
 import org.springframework.web.context.support.WebApplicationContextUtils;
@@ -11,6 +14,7 @@ import org.springframework.web.filter.DelegatingFilterProxy;
 import org.springframework.web.servlet.DispatcherServlet;
 
 import javax.servlet.*;
+import java.io.IOException;
 import java.util.EnumSet;
 
 /**
@@ -67,6 +71,7 @@ public class WebConfigurer implements ServletContextListener {
         log.debug("Configuring Spring root application context");
         AnnotationConfigWebApplicationContext rootContext = new AnnotationConfigWebApplicationContext();
         rootContext.register(ApplicationConfiguration.class);
+        rootContext.getEnvironment().setActiveProfiles(getStorageProfile());
         rootContext.refresh();
 
         servletContext.setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE, rootContext);
@@ -88,9 +93,34 @@ public class WebConfigurer implements ServletContextListener {
         EnumSet<DispatcherType> disps = EnumSet.of(DispatcherType.REQUEST, DispatcherType.FORWARD);
         springSecurityFilter.addMappingForServletNames(disps, true, "dispatcher");
 
+        log.debug("Registering Current User Filter");
+        FilterRegistration.Dynamic currentUserFilter = servletContext.addFilter("currentUserFilter",
+                new CurrentUserFilter());
+        currentUserFilter.addMappingForServletNames(disps, true, "dispatcher");
+
         log.debug("Web application fully configured");
     }
 
+    /**
+     * The storage backend is a Spring profile, selected with the "tatami.storage" property.
+     */
+    private String getStorageProfile() {
+        String storage = Constants.STORAGE_CASSANDRA;
+        try {
+            ResourcePropertySource properties =
+                    new ResourcePropertySource("classpath:/META-INF/tatami/tatami.properties");
+
+            Object property = properties.getProperty("tatami.storage");
+            if (property != null && Constants.STORAGE_LOCAL.equals(property.toString().trim())) {
+                storage = Constants.STORAGE_LOCAL;
+            }
+        } catch (IOException e) {
+            log.warn("Could not read tatami.properties, using the default storage : " + e.getMessage());
+        }
+        log.info("Storage backend : " + storage);
+        return storage;
+    }
+
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
         log.info("Destroying Web application");
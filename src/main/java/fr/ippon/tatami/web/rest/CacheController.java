@@ -0,0 +1,98 @@
+package fr.ippon.tatami.web.rest;
+
+import fr.ippon.tatami.domain.CacheStatistics;
+import fr.ippon.tatami.service.AdminService;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+
+/**
+ * REST controller for the statistics and the configuration of the caches. Only available to the administrators.
+ *
+ * @author Julien Dubois
+ */
+@Controller
+public class CacheController {
+
+    private final Log log = LogFactory.getLog(CacheController.class);
+
+    @Inject
+    private AdminService adminService;
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public void handleIllegalArgumentException(IllegalArgumentException iae, HttpServletResponse response) {
+        response.setStatus(HttpStatus.BAD_REQUEST.value());
+        if (log.isDebugEnabled()) {
+            log.debug("Invalid cache request : " + iae.getMessage());
+        }
+    }
+
+    /**
+     * GET  /admin/caches?estimateMemory= -> get the statistics of all caches, the memory used by the ehcache caches
+     * is only estimated when "estimateMemory" is true
+     */
+    @RequestMapping(value = "/rest/admin/caches",
+            method = RequestMethod.GET,
+            produces = "application/json")
+    @ResponseBody
+    public List<CacheStatistics> getCaches(@RequestParam(value = "estimateMemory", required = false,
+            defaultValue = "false") boolean estimateMemory) {
+
+        return adminService.getCacheStatistics(estimateMemory);
+    }
+
+    /**
+     * POST  /admin/caches/:cacheName/configuration -> change the maximum number of entries and/or the time to live
+     * (in seconds) of a cache
+     */
+    @RequestMapping(value = "/rest/admin/caches/{cacheName}/configuration",
+            method = RequestMethod.POST)
+    @ResponseBody
+    public void configureCache(@PathVariable("cacheName") String cacheName,
+                               @RequestParam(value = "maxEntries", required = false) Integer maxEntries,
+                               @RequestParam(value = "timeToLive", required = false) Long timeToLive) {
+
+        if (maxEntries != null) {
+            adminService.setCacheMaxEntries(cacheName, maxEntries);
+        }
+        if (timeToLive != null) {
+            adminService.setCacheTimeToLive(cacheName, timeToLive);
+        }
+    }
+
+    /**
+     * POST  /admin/caches/:cacheName/evict?key= -> evict one entry of a cache
+     */
+    @RequestMapping(value = "/rest/admin/caches/{cacheName}/evict",
+            method = RequestMethod.POST)
+    @ResponseBody
+    public void evictCacheEntry(@PathVariable("cacheName") String cacheName, @RequestParam("key") String key) {
+        adminService.evictCacheEntry(cacheName, key);
+    }
+
+    /**
+     * POST  /admin/caches/:cacheName/clear -> evict all the entries of a cache
+     */
+    @RequestMapping(value = "/rest/admin/caches/{cacheName}/clear",
+            method = RequestMethod.POST)
+    @ResponseBody
+    public void clearCache(@PathVariable("cacheName") String cacheName) {
+        adminService.clearCache(cacheName);
+    }
+
+    /**
+     * POST  /admin/caches/clear -> evict all the entries of all caches
+     */
+    @RequestMapping(value = "/rest/admin/caches/clear",
+            method = RequestMethod.POST)
+    @ResponseBody
+    public void clearAllCaches() {
+        adminService.clearAllCaches();
+    }
+}
@@ -0,0 +1,55 @@
+package fr.ippon.tatami.web.rest;
+
+import fr.ippon.tatami.domain.Domain;
+import fr.ippon.tatami.domain.DomainStatistics;
+import fr.ippon.tatami.service.AdminService;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import javax.inject.Inject;
+import java.util.Collection;
+
+/**
+ * REST controller for the domains statistics. Only administrators can access it.
+ *
+ * @author Julien Dubois
+ */
+@Controller
+public class DomainController {
+
+    private final Log log = LogFactory.getLog(DomainController.class);
+
+    @Inject
+    private AdminService adminService;
+
+    /**
+     * GET  /admin/domains -> get all the domains, with their number of users
+     */
+    @RequestMapping(value = "/rest/admin/domains",
+            method = RequestMethod.GET,
+            produces = "application/json")
+    @ResponseBody
+    public Collection<Domain> getDomains() {
+        log.debug("REST request to get all domains.");
+        return adminService.getAllDomains();
+    }
+
+    /**
+     * GET  /admin/domains/:domain -> get the statistics of a domain
+     */
+    @RequestMapping(value = "/rest/admin/domains/{domain:.+}",
+            method = RequestMethod.GET,
+            produces = "application/json")
+    @ResponseBody
+    public DomainStatistics getDomainStatistics(@PathVariable("domain") String domain) {
+        if (log.isDebugEnabled()) {
+            log.debug("REST request to get the statistics of domain : " + domain);
+        }
+        return adminService.getDomainStatistics(domain);
+    }
+}
@@ -2,6 +2,7 @@ package fr.ippon.tatami.web.rest;
 
 import fr.ippon.tatami.domain.Status;
 import fr.ippon.tatami.domain.StatusDetails;
+import fr.ippon.tatami.service.IdempotencyKeyConflictException;
 import fr.ippon.tatami.service.StatusUpdateService;
 import fr.ippon.tatami.service.TimelineService;
 import fr.ippon.tatami.web.rest.dto.Reply;
@@ -44,17 +45,31 @@ public class TimelineController {
         }
     }
 
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public void handleIdempotencyKeyConflictException(IdempotencyKeyConflictException ikce,
+                                                      HttpServletResponse response) {
+        response.setStatus(HttpStatus.CONFLICT.value());
+        if (log.isDebugEnabled()) {
+            log.debug("Idempotency key conflict : " + ikce.getMessage());
+        }
+    }
+
     /**
      * POST /statuses/update -> create a new Status
+     * <p/>
+     * When the request has an "X-Idempotency-Key" header, a retry with the same key returns the original Status.
+     * A "409 Conflict" is returned when the original Status is still being created.
      */
     @RequestMapping(value = "/rest/statuses/update",
             method = RequestMethod.POST)
-    public void postStatus(@RequestBody Status status) {
+    @ResponseBody
+    public Status postStatus(@RequestBody Status status,
+                             @RequestHeader(value = "X-Idempotency-Key", required = false) String idempotencyKey) {
         if (log.isDebugEnabled()) {
             log.debug("REST request to add status : " + status.getContent());
         }
         String escapedContent = StringEscapeUtils.escapeHtml(status.getContent());
-        statusUpdateService.postStatus(escapedContent);
+        return statusUpdateService.postStatus(escapedContent, idempotencyKey);
     }
 
     /**
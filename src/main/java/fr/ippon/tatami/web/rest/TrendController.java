@@ -40,8 +40,7 @@ public class TrendController {
     @ResponseBody
     public List<Trend> getTrends() {
 
-        String currentLogin = authenticationService.getCurrentUser().getLogin();
-        String domain = DomainUtil.getDomainFromLogin(currentLogin);
+        String domain = authenticationService.getCurrentDomain();
         return trendService.getCurrentTrends(domain);
     }
 
@@ -54,8 +53,7 @@ public class TrendController {
     @ResponseBody
     public List<Trend> getUserTrends(@RequestParam("screen_name") String username) {
 
-        String currentLogin = authenticationService.getCurrentUser().getLogin();
-        String domain = DomainUtil.getDomainFromLogin(currentLogin);
+        String domain = authenticationService.getCurrentDomain();
         return trendService.getTrendsForUser(DomainUtil.getLoginFromUsernameAndDomain(username, domain));
     }
 }
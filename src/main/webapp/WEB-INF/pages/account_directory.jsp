@@ -116,13 +116,13 @@
                                 <ul class="pager">
                                     <c:if test="${paginationPrevious != null}">
                                         <li>
-                                            <a href="/tatami/account/directory?pagination=${paginationPrevious}"><fmt:message
+                                            <a href="<c:url value="/tatami/account/directory"><c:param name="start" value="${paginationPrevious}"/></c:url>"><fmt:message
                                                     key="tatami.form.previous"/></a>
                                         </li>
                                     </c:if>
                                     <c:if test="${paginationNext != null}">
                                         <li>
-                                            <a href="/tatami/account/directory?pagination=${paginationNext}"><fmt:message
+                                            <a href="<c:url value="/tatami/account/directory"><c:param name="start" value="${paginationNext}"/></c:url>"><fmt:message
                                                     key="tatami.form.next"/></a>
                                         </li>
                                     </c:if>
@@ -24,6 +24,56 @@
     </div>
     </c:if>
 
+    <c:if test="${message == 'hotrows'}">
+    <div class="row">
+        <div class="span12">
+            <div class="alert alert-success">
+                Hot rows statistics have been reset.
+            </div>
+        </div>
+    </div>
+    </c:if>
+
+    <c:if test="${message == 'migrate'}">
+    <div class="row">
+        <div class="span12">
+            <div class="alert alert-success">
+                Time buckets migration has succeeded.
+            </div>
+        </div>
+    </div>
+    </c:if>
+
+    <c:if test="${message == 'migrateRegistration'}">
+    <div class="row">
+        <div class="span12">
+            <div class="alert alert-success">
+                Registration keys migration has succeeded.
+            </div>
+        </div>
+    </div>
+    </c:if>
+
+    <c:if test="${message == 'trim'}">
+    <div class="row">
+        <div class="span12">
+            <div class="alert alert-success">
+                Lines trimming has succeeded.
+            </div>
+        </div>
+    </div>
+    </c:if>
+
+    <c:if test="${message == 'recount'}">
+    <div class="row">
+        <div class="span12">
+            <div class="alert alert-success">
+                Domain statistics recount has succeeded.
+            </div>
+        </div>
+    </div>
+    </c:if>
+
     <div class="row">
         <div class="span12">
             <h1>Administration dashboard</h1>
@@ -42,6 +92,7 @@
                         <tr>
                             <th>Domain</th>
                             <th># of users</th>
+                            <th>Statistics</th>
                         </tr>
                         </thead>
                         <tbody>
@@ -53,6 +104,9 @@
                                 <td>
                                         ${d.numberOfUsers}
                                 </td>
+                                <td>
+                                    <a href="/tatami/rest/admin/domains/${d.name}">JSON</a>
+                                </td>
                             </tr>
                         </c:forEach>
                         </tbody>
@@ -63,6 +117,369 @@
         </div>
     </div>
 
+        <div class="row">
+            <div class="span12">
+                <div class="row-fluid">
+                    <div class="tab-content span12">
+                        <h2>
+                            Cassandra column families
+                        </h2>
+                        <table class="table table-striped">
+                            <thead>
+                            <tr>
+                                <th>Column family</th>
+                                <th>Read consistency</th>
+                                <th>Write consistency</th>
+                                <th># of reads</th>
+                                <th># of writes</th>
+                            </tr>
+                            </thead>
+                            <tbody>
+                            <c:forEach items="${columnFamilies}" var="cf">
+                                <tr>
+                                    <td>
+                                            ${cf.columnFamily}
+                                    </td>
+                                    <td>
+                                            ${cf.readConsistencyLevel}
+                                    </td>
+                                    <td>
+                                            ${cf.writeConsistencyLevel}
+                                    </td>
+                                    <td>
+                                            ${cf.reads}
+                                    </td>
+                                    <td>
+                                            ${cf.writes}
+                                    </td>
+                                </tr>
+                            </c:forEach>
+                            </tbody>
+                        </table>
+
+                    </div>
+                </div>
+            </div>
+        </div>
+
+        <div class="row">
+            <div class="span12">
+                <div class="row-fluid">
+                    <div class="tab-content span12">
+                        <h2>
+                            Cassandra hot rows
+                        </h2>
+                        <table class="table table-striped">
+                            <thead>
+                            <tr>
+                                <th>Column family</th>
+                                <th>Row key</th>
+                                <th># of reads</th>
+                                <th>Reads / s</th>
+                                <th>Columns read</th>
+                                <th># of writes</th>
+                                <th>Writes / s</th>
+                                <th>Columns written</th>
+                                <th>Error</th>
+                            </tr>
+                            </thead>
+                            <tbody>
+                            <c:forEach items="${hotRows}" var="row">
+                                <tr>
+                                    <td>
+                                            ${row.columnFamily}
+                                    </td>
+                                    <td>
+                                        <c:out value="${row.key}"/>
+                                    </td>
+                                    <td>
+                                            ${row.reads}
+                                    </td>
+                                    <td>
+                                        <fmt:formatNumber value="${row.readsPerSecond}" maxFractionDigits="2"/>
+                                    </td>
+                                    <td>
+                                            ${row.readColumns}
+                                    </td>
+                                    <td>
+                                            ${row.writes}
+                                    </td>
+                                    <td>
+                                        <fmt:formatNumber value="${row.writesPerSecond}" maxFractionDigits="2"/>
+                                    </td>
+                                    <td>
+                                            ${row.writtenColumns}
+                                    </td>
+                                    <td>
+                                            ${row.error}
+                                    </td>
+                                </tr>
+                            </c:forEach>
+                            </tbody>
+                        </table>
+
+                        <form class="form-horizontal" action="/tatami/admin/hotrows/reset" method="post">
+                            <fieldset>
+                                <div class="form-actions">
+                                    <button type="submit" class="input-xlarge btn">
+                                        Reset hot rows statistics
+                                    </button>
+                                </div>
+                            </fieldset>
+                        </form>
+
+                    </div>
+                </div>
+            </div>
+        </div>
+
+        <div class="row">
+            <div class="span12">
+                <div class="row-fluid">
+                    <div class="tab-content span12">
+                        <h2>
+                            Caches
+                        </h2>
+                        <table class="table table-striped">
+                            <thead>
+                            <tr>
+                                <th>Cache</th>
+                                <th>Size</th>
+                                <th>Hits</th>
+                                <th>Misses (reloads)</th>
+                                <th>Hit ratio</th>
+                                <th>Puts</th>
+                                <th>Removals</th>
+                                <th>Evictions</th>
+                                <th>Expirations</th>
+                                <th>Waits</th>
+                                <th>Stale hits</th>
+                                <th>Average load time</th>
+                                <th>Prevented reads of missing entries</th>
+                                <th>Max entries</th>
+                                <th>Time to live</th>
+                                <th>Memory</th>
+                            </tr>
+                            </thead>
+                            <tbody>
+                            <c:forEach items="${caches}" var="cache">
+                                <tr>
+                                    <td>
+                                            ${cache.name}
+                                    </td>
+                                    <td>
+                                            ${cache.size}
+                                    </td>
+                                    <c:choose>
+                                        <c:when test="${cache.statisticsEnabled}">
+                                            <td>
+                                                    ${cache.hits}
+                                            </td>
+                                            <td>
+                                                    ${cache.misses}
+                                            </td>
+                                            <td>
+                                                <fmt:formatNumber value="${cache.hitRatio}" type="percent"/>
+                                            </td>
+                                            <td>
+                                                    ${cache.puts}
+                                            </td>
+                                            <td>
+                                                    ${cache.removals}
+                                            </td>
+                                            <td>
+                                                    ${cache.evictions}
+                                            </td>
+                                            <td>
+                                                    ${cache.expirations}
+                                            </td>
+                                        </c:when>
+                                        <c:otherwise>
+                                            <td colspan="7">
+                                                Statistics are not enabled for this cache.
+                                            </td>
+                                        </c:otherwise>
+                                    </c:choose>
+                                    <td>
+                                            ${cache.waits}
+                                    </td>
+                                    <td>
+                                            ${cache.staleHits}
+                                    </td>
+                                    <td>
+                                        <fmt:formatNumber value="${cache.averageLoadTime}" maxFractionDigits="1"/> ms
+                                    </td>
+                                    <td>
+                                            ${cache.preventedReads}
+                                    </td>
+                                    <td>
+                                        <c:if test="${cache.maxEntries > 0}">
+                                            ${cache.maxEntries}
+                                        </c:if>
+                                    </td>
+                                    <td>
+                                        <c:if test="${cache.timeToLive > 0}">
+                                            ${cache.timeToLive} s
+                                        </c:if>
+                                    </td>
+                                    <td>
+                                        <c:if test="${cache.memoryUsed >= 0}">
+                                            <fmt:formatNumber value="${cache.memoryUsed / 1048576}" maxFractionDigits="1"/>
+                                            <c:if test="${cache.memoryCapacity > 0}">
+                                                / <fmt:formatNumber value="${cache.memoryCapacity / 1048576}" maxFractionDigits="1"/>
+                                            </c:if>
+                                            MB
+                                        </c:if>
+                                    </td>
+                                </tr>
+                            </c:forEach>
+                            </tbody>
+                        </table>
+                        <p>
+                            <a href="/tatami/admin?estimateMemory=true">Estimate the memory used by the ehcache caches</a>
+                            (this reads all their entries)
+                        </p>
+
+                        <c:if test="${not empty cacheInvalidation}">
+                            <h3>
+                                Cache invalidation bus
+                            </h3>
+                            <table class="table table-striped">
+                                <tbody>
+                                <c:forEach items="${cacheInvalidation}" var="statistic">
+                                    <tr>
+                                        <td>
+                                                ${statistic.key}
+                                        </td>
+                                        <td>
+                                                ${statistic.value}
+                                        </td>
+                                    </tr>
+                                </c:forEach>
+                                </tbody>
+                            </table>
+                        </c:if>
+                    </div>
+                </div>
+            </div>
+        </div>
+
+        <div class="row">
+            <div class="span12">
+                <div class="row-fluid">
+                    <div class="tab-content span12">
+                        <h2>
+                            User deletions in progress
+                        </h2>
+                        <table class="table table-striped">
+                            <thead>
+                            <tr>
+                                <th>Login</th>
+                                <th>Node</th>
+                                <th>Step</th>
+                                <th>Start date</th>
+                                <th>Removed followers</th>
+                                <th>Removed friends</th>
+                            </tr>
+                            </thead>
+                            <tbody>
+                            <c:forEach items="${userDeletions}" var="userDeletion">
+                                <tr>
+                                    <td>
+                                        <c:out value="${userDeletion.login}"/>
+                                    </td>
+                                    <td>
+                                            ${userDeletion.node}
+                                    </td>
+                                    <td>
+                                            ${userDeletion.step}
+                                    </td>
+                                    <td>
+                                        <fmt:formatDate value="${userDeletion.startDate}" type="both"/>
+                                    </td>
+                                    <td>
+                                            ${userDeletion.removedFollowers}
+                                    </td>
+                                    <td>
+                                            ${userDeletion.removedFriends}
+                                    </td>
+                                </tr>
+                            </c:forEach>
+                            </tbody>
+                        </table>
+                    </div>
+                </div>
+            </div>
+        </div>
+
+        <div class="row">
+            <div class="span12">
+                <div class="row-fluid">
+                    <div class="tab-content span12">
+                        <h2>
+                            Lines trimming
+                        </h2>
+                        <table class="table table-striped">
+                            <thead>
+                            <tr>
+                                <th>Column family</th>
+                                <th>Max length</th>
+                                <th>Largest row</th>
+                                <th>Pending rows</th>
+                                <th>Checked rows</th>
+                                <th>Trimmed rows</th>
+                                <th>Deleted statuses</th>
+                                <th>Last run</th>
+                            </tr>
+                            </thead>
+                            <tbody>
+                            <c:forEach items="${lines}" var="line">
+                                <tr>
+                                    <td>
+                                            ${line.columnFamily}
+                                    </td>
+                                    <td>
+                                            ${line.maxLength}
+                                    </td>
+                                    <td>
+                                            ${line.largestRowLength}
+                                    </td>
+                                    <td>
+                                            ${line.pendingRows}
+                                    </td>
+                                    <td>
+                                            ${line.checkedRows}
+                                    </td>
+                                    <td>
+                                            ${line.trimmedRows}
+                                    </td>
+                                    <td>
+                                            ${line.deletedColumns}
+                                    </td>
+                                    <td>
+                                        <fmt:formatDate value="${line.lastTrimDate}" type="both"/>
+                                    </td>
+                                </tr>
+                            </c:forEach>
+                            </tbody>
+                        </table>
+
+                        <form class="form-horizontal" action="/tatami/admin/lines/trim" method="post">
+                            <fieldset>
+                                <div class="form-actions">
+                                    <button type="submit" class="input-xlarge btn btn-danger"
+                                            onclick="return(confirm('Are you sure you want to check all the rows of all the lines?'));">
+                                        Trim all lines
+                                    </button>
+                                </div>
+                            </fieldset>
+                        </form>
+
+                    </div>
+                </div>
+            </div>
+        </div>
+
         <div class="row">
             <div class="span12">
                 <div class="row-fluid">
@@ -115,6 +532,63 @@
             </div>
         </div>
 
+        <div class="row">
+            <div class="span12">
+                <h2>
+                    Migrate to time buckets
+                </h2>
+
+                <form class="form-horizontal" action="/tatami/admin/migrate" method="post">
+                    <fieldset>
+                        <div class="form-actions">
+                            <button type="submit" class="input-xlarge btn btn-danger"
+                                    onclick="return(confirm('Are you sure you want to migrate the taglines and trends to time buckets?'));">
+                                Migrate taglines and trends
+                            </button>
+                        </div>
+                    </fieldset>
+                </form>
+            </div>
+        </div>
+
+        <div class="row">
+            <div class="span12">
+                <h2>
+                    Migrate registration keys
+                </h2>
+
+                <form class="form-horizontal" action="/tatami/admin/migrate/registration" method="post">
+                    <fieldset>
+                        <div class="form-actions">
+                            <button type="submit" class="input-xlarge btn btn-danger"
+                                    onclick="return(confirm('Are you sure you want to migrate the registration keys to one row per key?'));">
+                                Migrate registration keys
+                            </button>
+                        </div>
+                    </fieldset>
+                </form>
+            </div>
+        </div>
+
+        <div class="row">
+            <div class="span12">
+                <h2>
+                    Recount domain statistics
+                </h2>
+
+                <form class="form-horizontal" action="/tatami/admin/recount" method="post">
+                    <fieldset>
+                        <div class="form-actions">
+                            <button type="submit" class="input-xlarge btn btn-danger"
+                                    onclick="return(confirm('Are you sure you want to recount the users, statuses, groups and tags of all domains?'));">
+                                Recount domain statistics
+                            </button>
+                        </div>
+                    </fieldset>
+                </form>
+            </div>
+        </div>
+
     <jsp:include page="includes/footer.jsp"/>
 
     <script type="text/javascript">
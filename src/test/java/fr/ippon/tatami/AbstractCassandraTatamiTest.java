@@ -4,6 +4,7 @@ import fr.ippon.tatami.domain.User;
 import fr.ippon.tatami.repository.CounterRepository;
 import fr.ippon.tatami.service.util.DomainUtil;
 import fr.ippon.tatami.test.application.ApplicationTestConfiguration;
+import fr.ippon.tatami.test.application.StorageProfileContextLoader;
 import org.cassandraunit.DataLoader;
 import org.cassandraunit.dataset.json.ClassPathJsonDataSet;
 import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
@@ -14,18 +15,21 @@ import org.elasticsearch.node.NodeBuilder;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.runner.RunWith;
-import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
-import org.springframework.test.context.support.AnnotationConfigContextLoader;
 
 import javax.inject.Inject;
 
+/**
+ * Base class of the repository and service tests.
+ * <p/>
+ * The tests use Cassandra, or the local storage when the "tatami.storage" system property is "local" : the
+ * local storage is loaded with its own data set by LocalStorageTestConfiguration.
+ */
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(
         classes = ApplicationTestConfiguration.class,
-        loader = AnnotationConfigContextLoader.class)
-@ActiveProfiles("default")
+        loader = StorageProfileContextLoader.class)
 public abstract class AbstractCassandraTatamiTest {
 
     private static boolean isInitialized = false;
@@ -38,12 +42,14 @@ public abstract class AbstractCassandraTatamiTest {
     @BeforeClass
     public static void beforeClass() throws Exception {
         if (!isInitialized) {
-            EmbeddedCassandraServerHelper.startEmbeddedCassandra();
-            /* create structure and load data */
             String clusterName = "Tatami cluster";
-            String host = "localhost:9171";
-            DataLoader dataLoader = new DataLoader(clusterName, host);
-            dataLoader.load(new ClassPathJsonDataSet("dataset/dataset.json"));
+            if (StorageProfileContextLoader.isCassandraStorage()) {
+                EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+                /* create structure and load data */
+                String host = "localhost:9171";
+                DataLoader dataLoader = new DataLoader(clusterName, host);
+                dataLoader.load(new ClassPathJsonDataSet("dataset/dataset.json"));
+            }
 
             final ImmutableSettings.Builder builder = ImmutableSettings.settingsBuilder();
             builder.put("cluster.name", clusterName);
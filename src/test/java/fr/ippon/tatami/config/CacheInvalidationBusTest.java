@@ -0,0 +1,123 @@
+package fr.ippon.tatami.config;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class CacheInvalidationBusTest {
+
+    private static final String SECRET = "tatami-secret";
+
+    private CacheInvalidationBus node1Bus;
+
+    private CacheInvalidationBus node2Bus;
+
+    private Cache node1Cache;
+
+    private Cache node2Cache;
+
+    @Before
+    public void setUp() {
+        // Long flush delay : the tests flush the buses themselves
+        node1Bus = new CacheInvalidationBus(new LoopbackCacheInvalidationTransport(), 60000, SECRET);
+        node2Bus = new CacheInvalidationBus(new LoopbackCacheInvalidationTransport(), 60000, SECRET);
+        node1Bus.start();
+        node2Bus.start();
+        node1Cache = new BroadcastingCache(new ConcurrentMapCache("user-cache"), node1Bus);
+        node2Cache = new BroadcastingCache(new ConcurrentMapCache("user-cache"), node2Bus);
+    }
+
+    @After
+    public void tearDown() {
+        node1Bus.stop();
+        node2Bus.stop();
+    }
+
+    @Test
+    public void shouldEvictOnOtherNodes() {
+        node1Cache.put("jdubois@ippon.fr", "user");
+        node2Cache.put("jdubois@ippon.fr", "user");
+        node2Cache.put("tescolan@ippon.fr", "user");
+
+        node1Cache.evict("jdubois@ippon.fr");
+        assertThat(node2Cache.get("jdubois@ippon.fr"), notNullValue());
+        node1Bus.flush();
+
+        assertThat(node1Cache.get("jdubois@ippon.fr"), nullValue());
+        assertThat(node2Cache.get("jdubois@ippon.fr"), nullValue());
+        assertThat(node2Cache.get("tescolan@ippon.fr"), notNullValue());
+        assertThat(node2Bus.getReceivedInvalidations(), is(1L));
+        // A node ignores its own messages
+        assertThat(node1Bus.getReceivedInvalidations(), is(0L));
+    }
+
+    @Test
+    public void shouldCoalesceEvictions() {
+        for (int i = 0; i < 10; i++) {
+            node1Cache.evict("jdubois@ippon.fr");
+        }
+        node1Cache.evict("tescolan@ippon.fr");
+        node1Bus.flush();
+
+        assertThat(node1Bus.getSentMessages(), is(1L));
+        assertThat(node1Bus.getSentInvalidations(), is(2L));
+        assertThat(node1Bus.getCoalescedInvalidations(), is(9L));
+    }
+
+    @Test
+    public void shouldReplacePendingEvictionsWithClear() {
+        node2Cache.put("jdubois@ippon.fr", "user");
+        node2Cache.put("tescolan@ippon.fr", "user");
+
+        node1Cache.evict("jdubois@ippon.fr");
+        node1Cache.clear();
+        node1Cache.evict("tescolan@ippon.fr");
+        node1Bus.flush();
+
+        assertThat(node1Bus.getSentInvalidations(), is(1L));
+        assertThat(node2Cache.get("jdubois@ippon.fr"), nullValue());
+        assertThat(node2Cache.get("tescolan@ippon.fr"), nullValue());
+    }
+
+    @Test
+    public void shouldSplitLargeBatches() {
+        for (int i = 0; i < CacheInvalidationBus.MAX_INVALIDATIONS_PER_MESSAGE * 2 + 1; i++) {
+            node1Cache.evict("user" + i);
+        }
+        node1Bus.flush();
+
+        assertThat(node1Bus.getSentMessages(), is(3L));
+        assertThat(node2Bus.getReceivedInvalidations(),
+                is((long) CacheInvalidationBus.MAX_INVALIDATIONS_PER_MESSAGE * 2 + 1));
+    }
+
+    @Test
+    public void shouldIgnoreMessagesNotSignedWithTheSecret() {
+        CacheInvalidationBus otherBus =
+                new CacheInvalidationBus(new LoopbackCacheInvalidationTransport(), 60000, "other-secret");
+        otherBus.start();
+        try {
+            Cache otherCache = new BroadcastingCache(new ConcurrentMapCache("user-cache"), otherBus);
+            node2Cache.put("jdubois@ippon.fr", "user");
+
+            otherCache.clear();
+            otherBus.flush();
+
+            assertThat(node2Cache.get("jdubois@ippon.fr"), notNullValue());
+            assertThat(node2Bus.getReceivedInvalidations(), is(0L));
+            assertThat(node2Bus.getRejectedMessages(), is(1L));
+        } finally {
+            otherBus.stop();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectKeysWhichAreNotStrings() {
+        node1Cache.evict(42L);
+    }
+}
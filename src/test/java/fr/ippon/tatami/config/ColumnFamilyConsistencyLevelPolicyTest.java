@@ -0,0 +1,73 @@
+package fr.ippon.tatami.config;
+
+import fr.ippon.tatami.AbstractCassandraTatamiTest;
+import fr.ippon.tatami.domain.ColumnFamilyStatistics;
+import fr.ippon.tatami.repository.UserRepository;
+import me.prettyprint.cassandra.service.OperationType;
+import me.prettyprint.hector.api.HConsistencyLevel;
+import org.junit.Test;
+
+import javax.inject.Inject;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ColumnFamilyConsistencyLevelPolicyTest extends AbstractCassandraTatamiTest {
+
+    @Inject
+    private ColumnFamilyConsistencyLevelPolicy consistencyLevelPolicy;
+
+    @Inject
+    private UserRepository userRepository;
+
+    @Test
+    public void shouldUseTheLevelOfTheCurrentColumnFamily() {
+        ColumnFamilyConsistencyLevelPolicy policy = new ColumnFamilyConsistencyLevelPolicy();
+        policy.setDefaultReadConsistencyLevel(HConsistencyLevel.ONE);
+        policy.setDefaultWriteConsistencyLevel(HConsistencyLevel.QUORUM);
+        policy.setReadCfConsistencyLevels(ColumnFamilyConsistencyLevelPolicy.parseConsistencyLevels("User:QUORUM"));
+        policy.setWriteCfConsistencyLevels(ColumnFamilyConsistencyLevelPolicy.parseConsistencyLevels("Timeline:ONE"));
+
+        policy.setColumnFamily("User");
+        assertThat(policy.get(OperationType.READ), is(HConsistencyLevel.QUORUM));
+        assertThat(policy.get(OperationType.WRITE), is(HConsistencyLevel.QUORUM));
+        policy.setColumnFamily("Timeline");
+        assertThat(policy.get(OperationType.READ), is(HConsistencyLevel.ONE));
+        assertThat(policy.get(OperationType.WRITE), is(HConsistencyLevel.ONE));
+        policy.clearColumnFamily();
+        assertThat(policy.get(OperationType.READ), is(HConsistencyLevel.ONE));
+        assertThat(policy.get(OperationType.WRITE), is(HConsistencyLevel.QUORUM));
+    }
+
+    @Test
+    public void shouldAlwaysUseQuorumForTheLockColumnFamilies() {
+        for (String cfName : new String[]{ColumnFamilyKeys.IDEMPOTENCY_KEY_CF, ColumnFamilyKeys.USER_DELETION_CF}) {
+            consistencyLevelPolicy.setColumnFamily(cfName);
+            try {
+                assertThat(consistencyLevelPolicy.get(OperationType.READ), is(HConsistencyLevel.QUORUM));
+                assertThat(consistencyLevelPolicy.get(OperationType.WRITE), is(HConsistencyLevel.QUORUM));
+            } finally {
+                consistencyLevelPolicy.clearColumnFamily();
+            }
+        }
+    }
+
+    @Test
+    public void shouldCountTheReadsOfTheHectorQueries() {
+        long reads = getReads("User");
+
+        userRepository.findUserByLogin("jdubois@ippon.fr");
+
+        assertThat(getReads("User"), greaterThan(reads));
+    }
+
+    private long getReads(String columnFamily) {
+        for (ColumnFamilyStatistics statistics : consistencyLevelPolicy.getColumnFamilyStatistics()) {
+            if (statistics.getColumnFamily().equals(columnFamily)) {
+                return statistics.getReads();
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,54 @@
+package fr.ippon.tatami.config;
+
+import fr.ippon.tatami.AbstractCassandraTatamiTest;
+import me.prettyprint.cassandra.service.ThriftCluster;
+import me.prettyprint.hector.api.factory.HFactory;
+import org.apache.cassandra.thrift.CfDef;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ColumnFamilyProfileTest extends AbstractCassandraTatamiTest {
+
+    private static final String SIZE_TIERED_COMPACTION =
+            "org.apache.cassandra.db.compaction.SizeTieredCompactionStrategy";
+
+    private static final String LEVELED_COMPACTION =
+            "org.apache.cassandra.db.compaction.LeveledCompactionStrategy";
+
+    @Test
+    public void shouldReadTheProfileOfAColumnFamilyFromCassandra() {
+        ThriftCluster cluster = (ThriftCluster) HFactory.getOrCreateCluster("Tatami cluster", "localhost:9171");
+        ColumnFamilyProfile hotProfile = new ColumnFamilyProfile(10000, 200000, SIZE_TIERED_COMPACTION, 0.01, 1.0);
+        cluster.addColumnFamily(new CassandraConfiguration.ProfiledCfDef(
+                HFactory.createColumnFamilyDefinition("tatami", "ProfileTest"), hotProfile));
+
+        CfDef cfDef = findColumnFamily(cluster, "ProfileTest");
+        assertThat(hotProfile.isAppliedTo(cfDef), is(true));
+        assertThat(ColumnFamilyProfile.DEFAULT.isAppliedTo(cfDef), is(false));
+
+        ColumnFamilyProfile lineProfile = new ColumnFamilyProfile(0, 100000, LEVELED_COMPACTION, 0.01, 0.1);
+        cluster.updateColumnFamily(new CassandraConfiguration.ProfiledCfDef(cfDef, lineProfile));
+
+        cfDef = findColumnFamily(cluster, "ProfileTest");
+        assertThat(lineProfile.isAppliedTo(cfDef), is(true));
+        assertThat(cfDef.getComparator_type(), is("org.apache.cassandra.db.marshal.BytesType"));
+    }
+
+    @Test
+    public void shouldMatchTheColumnFamiliesCreatedWithTheCassandraDefaults() {
+        ThriftCluster cluster = (ThriftCluster) HFactory.getOrCreateCluster("Tatami cluster", "localhost:9171");
+
+        assertThat(ColumnFamilyProfile.DEFAULT.isAppliedTo(findColumnFamily(cluster, "User")), is(true));
+    }
+
+    private CfDef findColumnFamily(ThriftCluster cluster, String name) {
+        for (CfDef cfDef : CassandraConfiguration.describeColumnFamilies(cluster, "tatami")) {
+            if (cfDef.getName().equals(name)) {
+                return cfDef;
+            }
+        }
+        throw new IllegalArgumentException("Unknown column family " + name);
+    }
+}
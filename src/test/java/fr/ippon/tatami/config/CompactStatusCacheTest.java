@@ -0,0 +1,73 @@
+package fr.ippon.tatami.config;
+
+import fr.ippon.tatami.domain.Status;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.Date;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class CompactStatusCacheTest {
+
+    @Test
+    public void shouldMaterializeCachedStatus() {
+        StringDictionary dictionary = new StringDictionary();
+        CompactStatusCache cache = new CompactStatusCache(new ConcurrentMapCache("status-cache"), dictionary);
+        Status status = newStatus("fa0fe1e0-6a5f-11e2-8a3b-685d43d1e0a5");
+        status.setReplyTo("e3a2e4b0-6a5f-11e2-8a3b-685d43d1e0a5");
+        status.setReplyToUsername("ippon");
+        status.setDetailsAvailable(true);
+        cache.put(status.getStatusId(), status);
+
+        Status cachedStatus = (Status) cache.get(status.getStatusId()).get();
+
+        assertThat(cachedStatus, not(sameInstance(status)));
+        assertThat(cachedStatus.getStatusId(), is(status.getStatusId()));
+        assertThat(cachedStatus.getLogin(), is("jdubois@ippon.fr"));
+        assertThat(cachedStatus.getUsername(), is("jdubois"));
+        assertThat(cachedStatus.getDomain(), is("ippon.fr"));
+        assertThat(cachedStatus.getGroupId(), nullValue());
+        assertThat(cachedStatus.getContent(), is("content"));
+        assertThat(cachedStatus.getStatusDate(), is(status.getStatusDate()));
+        assertThat(cachedStatus.getReplyTo(), is("e3a2e4b0-6a5f-11e2-8a3b-685d43d1e0a5"));
+        assertThat(cachedStatus.getReplyToUsername(), is("ippon"));
+        assertThat(cachedStatus.getRemoved(), nullValue());
+        assertThat(cachedStatus.isDetailsAvailable(), is(true));
+    }
+
+    @Test
+    public void shouldShareStringsBetweenStatuses() {
+        StringDictionary dictionary = new StringDictionary();
+        CompactStatusCache cache = new CompactStatusCache(new ConcurrentMapCache("status-cache"), dictionary);
+        for (int i = 0; i < 100; i++) {
+            cache.put("status" + i, newStatus("status" + i));
+        }
+
+        // login, username and domain
+        assertThat(dictionary.size(), is(3));
+        assertThat(((Status) cache.get("status42").get()).getStatusId(), is("status42"));
+    }
+
+    @Test
+    public void shouldCacheNullValues() {
+        CompactStatusCache cache = new CompactStatusCache(new ConcurrentMapCache("status-cache"),
+                new StringDictionary());
+        cache.put("unknown", null);
+
+        assertThat(cache.get("unknown"), notNullValue());
+        assertThat(cache.get("unknown").get(), nullValue());
+    }
+
+    private Status newStatus(String statusId) {
+        Status status = new Status();
+        status.setStatusId(statusId);
+        status.setLogin("jdubois@ippon.fr");
+        status.setUsername("jdubois");
+        status.setDomain("ippon.fr");
+        status.setContent("content");
+        status.setStatusDate(new Date());
+        return status;
+    }
+}
@@ -0,0 +1,59 @@
+package fr.ippon.tatami.config;
+
+import fr.ippon.tatami.domain.RowStatistics;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class HotRowSketchTest {
+
+    @Test
+    public void shouldFindTheHotRows() {
+        HotRowSketch sketch = new HotRowSketch(1, 10);
+        for (int i = 0; i < 10000; i++) {
+            sketch.recordWrite("Registration", "registration_key", 1);
+            if (i % 2 == 0) {
+                sketch.recordRead("Domain", "ippon.fr", 50);
+            }
+            sketch.recordRead("User", "user" + i, 1);
+        }
+        List<RowStatistics> hotRows = sketch.getHotRows();
+
+        assertThat(hotRows.size(), is(10));
+        assertThat(hotRows.get(0).getKey(), is("registration_key"));
+        assertThat(hotRows.get(0).getWrites(), is(10000L));
+        assertThat(hotRows.get(0).getWrittenColumns(), is(10000L));
+        assertThat(hotRows.get(1).getKey(), is("ippon.fr"));
+        assertThat(hotRows.get(1).getReads(), is(5000L));
+        assertThat(hotRows.get(1).getReadColumns(), is(250000L));
+    }
+
+    @Test
+    public void shouldScaleTheSampledCounts() {
+        HotRowSketch sketch = new HotRowSketch(10, 10);
+        int sampled = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (sketch.sample()) {
+                sketch.recordRead("Userline", "jdubois", 20);
+                sampled++;
+            }
+        }
+        RowStatistics row = sketch.getHotRows().get(0);
+
+        assertThat(sampled, is(100));
+        assertThat(row.getReads(), is(1000L));
+        assertThat(row.getReadColumns(), is(20000L));
+    }
+
+    @Test
+    public void shouldResetTheStatistics() {
+        HotRowSketch sketch = new HotRowSketch(1, 10);
+        sketch.recordWrite("Trends", "ippon.fr", 1);
+        sketch.reset();
+
+        assertThat(sketch.getHotRows().isEmpty(), is(true));
+    }
+}
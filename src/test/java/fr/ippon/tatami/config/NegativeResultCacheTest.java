@@ -0,0 +1,44 @@
+package fr.ippon.tatami.config;
+
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class NegativeResultCacheTest {
+
+    @Test
+    public void shouldStoreMissingEntitiesInTheMissingCache() {
+        ConcurrentMapCache valueCache = new ConcurrentMapCache("test-cache");
+        ConcurrentMapCache missingCache = new ConcurrentMapCache("test-missing-cache");
+        NegativeResultCache cache = new NegativeResultCache(valueCache, missingCache);
+
+        assertThat(cache.get("missing"), nullValue());
+        cache.put("missing", null);
+        cache.put("existing", "value");
+
+        assertThat(valueCache.get("missing"), nullValue());
+        assertThat(missingCache.get("missing"), notNullValue());
+        assertThat(missingCache.get("existing"), nullValue());
+
+        assertThat(cache.get("missing").get(), nullValue());
+        assertThat(cache.get("existing").get(), is((Object) "value"));
+        assertThat(cache.getPreventedReads(), is(1L));
+    }
+
+    @Test
+    public void shouldEvictMissingEntitiesWhenTheyAreCreated() {
+        NegativeResultCache cache = new NegativeResultCache(new ConcurrentMapCache("test-cache"),
+                new ConcurrentMapCache("test-missing-cache"));
+
+        cache.put("key", null);
+        cache.evict("key");
+        assertThat(cache.get("key"), nullValue());
+
+        cache.put("key", null);
+        cache.put("key", "value");
+        assertThat(cache.get("key").get(), is((Object) "value"));
+        assertThat(cache.getPreventedReads(), is(0L));
+    }
+}
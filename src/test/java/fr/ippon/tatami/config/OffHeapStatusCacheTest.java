@@ -0,0 +1,109 @@
+package fr.ippon.tatami.config;
+
+import fr.ippon.tatami.domain.Status;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class OffHeapStatusCacheTest {
+
+    @Test
+    public void shouldDecodeCachedStatus() {
+        OffHeapStatusCache cache = new OffHeapStatusCache("status-cache", 64 * 1024, new StringDictionary());
+        Status status = newStatus("status1", 1000);
+        status.setGroupId("group1");
+        status.setReplyTo("fa0fe1e0-6a5f-11e2-8a3b-685d43d1e0a5");
+        status.setReplyToUsername("ippon");
+        status.setRemoved(false);
+        status.setDetailsAvailable(true);
+        cache.put("status1", status);
+
+        Status cachedStatus = (Status) cache.get("status1").get();
+
+        assertThat(cachedStatus, not(sameInstance(status)));
+        assertThat(cachedStatus.getStatusId(), is("status1"));
+        assertThat(cachedStatus.getLogin(), is("jdubois@ippon.fr"));
+        assertThat(cachedStatus.getUsername(), is("jdubois"));
+        assertThat(cachedStatus.getDomain(), is("ippon.fr"));
+        assertThat(cachedStatus.getGroupId(), is("group1"));
+        assertThat(cachedStatus.getContent(), is(status.getContent()));
+        assertThat(cachedStatus.getStatusDate(), is(status.getStatusDate()));
+        assertThat(cachedStatus.getReplyTo(), is("fa0fe1e0-6a5f-11e2-8a3b-685d43d1e0a5"));
+        assertThat(cachedStatus.getReplyToUsername(), is("ippon"));
+        assertThat(cachedStatus.getRemoved(), is(false));
+        assertThat(cachedStatus.isDetailsAvailable(), is(true));
+        assertThat(cache.getHits(), is(1L));
+    }
+
+    @Test
+    public void shouldCacheNullValues() {
+        OffHeapStatusCache cache = new OffHeapStatusCache("status-cache", 64 * 1024, new StringDictionary());
+        cache.put("unknown", null);
+
+        assertThat(cache.get("unknown"), notNullValue());
+        assertThat(cache.get("unknown").get(), nullValue());
+        assertThat(cache.get("other"), nullValue());
+        assertThat(cache.getMisses(), is(1L));
+    }
+
+    @Test
+    public void shouldBeBoundedByBytes() {
+        // 16 blocks : 8 statuses of 2 blocks
+        OffHeapStatusCache cache = new OffHeapStatusCache("status-cache", 16 * OffHeapStatusCache.BLOCK_SIZE,
+                new StringDictionary());
+        for (int i = 0; i < 100; i++) {
+            cache.put("status" + i, newStatus("status" + i, 300));
+        }
+
+        assertThat(cache.getSize(), is(8L));
+        assertThat(cache.getEvictions(), is(92L));
+        assertThat(cache.getMemoryUsed(), is(cache.getMemoryCapacity()));
+        assertThat(cache.get("status99"), notNullValue());
+    }
+
+    @Test
+    public void shouldKeepReadStatuses() {
+        OffHeapStatusCache cache = new OffHeapStatusCache("status-cache", 16 * OffHeapStatusCache.BLOCK_SIZE,
+                new StringDictionary());
+        for (int i = 0; i < 100; i++) {
+            cache.put("status" + i, newStatus("status" + i, 300));
+            cache.get("status0");
+        }
+
+        assertThat(cache.get("status0"), notNullValue());
+        assertThat(cache.getSize(), is(8L));
+    }
+
+    @Test
+    public void shouldEvictAndClear() {
+        OffHeapStatusCache cache = new OffHeapStatusCache("status-cache", 64 * 1024, new StringDictionary());
+        cache.put("status1", newStatus("status1", 10));
+        cache.put("status2", newStatus("status2", 10));
+
+        cache.evict("status1");
+        assertThat(cache.get("status1"), nullValue());
+        assertThat(cache.get("status2"), notNullValue());
+
+        cache.clear();
+        assertThat(cache.get("status2"), nullValue());
+        assertThat(cache.getMemoryUsed(), is(0L));
+    }
+
+    private Status newStatus(String statusId, int contentLength) {
+        Status status = new Status();
+        status.setStatusId(statusId);
+        status.setLogin("jdubois@ippon.fr");
+        status.setUsername("jdubois");
+        status.setDomain("ippon.fr");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < contentLength; i++) {
+            content.append('a');
+        }
+        status.setContent(content.toString());
+        status.setStatusDate(new Date());
+        return status;
+    }
+}
@@ -0,0 +1,118 @@
+package fr.ippon.tatami.config;
+
+import org.junit.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class SingleFlightCacheTest {
+
+    @Test
+    public void shouldWaitForTheRunningLoad() throws Exception {
+        final SingleFlightCache cache = new SingleFlightCache(new ConcurrentMapCache("test-cache"), 0, 5000);
+
+        // The first miss loads the value
+        assertThat(cache.get("key"), nullValue());
+
+        final AtomicReference<Object> waitingValue = new AtomicReference<Object>();
+        Thread waitingThread = new Thread() {
+            @Override
+            public void run() {
+                Cache.ValueWrapper wrapper = cache.get("key");
+                waitingValue.set(wrapper == null ? null : wrapper.get());
+            }
+        };
+        waitingThread.start();
+        Thread.sleep(200);
+        cache.put("key", "value");
+        waitingThread.join(5000);
+
+        assertThat(waitingValue.get(), is((Object) "value"));
+        assertThat(cache.getWaits(), is(1L));
+        assertThat(cache.get("key").get(), is((Object) "value"));
+    }
+
+    @Test
+    public void shouldMeasureTheLoadTime() throws Exception {
+        SingleFlightCache cache = new SingleFlightCache(new ConcurrentMapCache("test-cache"), 0, 5000);
+        assertThat(cache.getAverageLoadTime(), is(0d));
+
+        assertThat(cache.get("key"), nullValue());
+        Thread.sleep(100);
+        cache.put("key", "value");
+
+        assertThat(cache.getAverageLoadTime(), greaterThanOrEqualTo(100d));
+        // A put without a miss is not a load
+        cache.put("other key", "value");
+        assertThat(cache.getAverageLoadTime(), greaterThanOrEqualTo(100d));
+    }
+
+    @Test
+    public void shouldTakeOverATimedOutLoad() throws Exception {
+        SingleFlightCache cache = new SingleFlightCache(new ConcurrentMapCache("test-cache"), 0, 100);
+
+        assertThat(cache.get("key"), nullValue());
+        // The first load never puts its value, the next miss waits for it and loads the value itself
+        assertThat(cache.get("key"), nullValue());
+        assertThat(cache.getWaits(), is(1L));
+    }
+
+    @Test
+    public void shouldNotCacheAValueLoadedBeforeAnEviction() throws Exception {
+        SingleFlightCache cache = new SingleFlightCache(new ConcurrentMapCache("test-cache"), 0, 5000);
+
+        assertThat(cache.get("key"), nullValue());
+        cache.evict("key");
+        cache.put("key", "stale value");
+        assertThat(cache.get("key"), nullValue());
+
+        cache.put("key", "new value");
+        assertThat(cache.get("key").get(), is((Object) "new value"));
+    }
+
+    @Test
+    public void shouldReleaseTheWaitingThreadsOnEviction() throws Exception {
+        final SingleFlightCache cache = new SingleFlightCache(new ConcurrentMapCache("test-cache"), 0, 5000);
+
+        assertThat(cache.get("key"), nullValue());
+
+        final AtomicReference<Cache.ValueWrapper> waitingValue = new AtomicReference<Cache.ValueWrapper>();
+        Thread waitingThread = new Thread() {
+            @Override
+            public void run() {
+                waitingValue.set(cache.get("key"));
+            }
+        };
+        long startTime = System.currentTimeMillis();
+        waitingThread.start();
+        Thread.sleep(100);
+        cache.evict("key");
+        waitingThread.join(5000);
+
+        // The waiting thread loads the value itself, without waiting for the timeout
+        assertThat(waitingValue.get(), nullValue());
+        assertThat(System.currentTimeMillis() - startTime, lessThan(5000L));
+    }
+
+    @Test
+    public void shouldReturnStaleValuesWhileRevalidating() throws Exception {
+        SingleFlightCache cache = new SingleFlightCache(new ConcurrentMapCache("test-cache"), 100, 5000);
+
+        assertThat(cache.get("key"), nullValue());
+        cache.put("key", "old value");
+        assertThat(cache.get("key").get(), is((Object) "old value"));
+
+        Thread.sleep(200);
+        // The first stale read reloads the value, the next ones get the stale value
+        assertThat(cache.get("key"), nullValue());
+        assertThat(cache.get("key").get(), is((Object) "old value"));
+        assertThat(cache.getStaleHits(), is(1L));
+
+        cache.put("key", "new value");
+        assertThat(cache.get("key").get(), is((Object) "new value"));
+    }
+}
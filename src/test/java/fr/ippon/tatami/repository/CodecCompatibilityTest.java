@@ -0,0 +1,109 @@
+package fr.ippon.tatami.repository;
+
+import fr.ippon.tatami.AbstractCassandraTatamiTest;
+import fr.ippon.tatami.domain.Status;
+import fr.ippon.tatami.domain.User;
+import me.prettyprint.cassandra.utils.TimeUUIDUtils;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hom.EntityManagerImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import java.util.Calendar;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Checks that the codecs and the Hector Object Mapper, which was used before them, read the same rows.
+ */
+public class CodecCompatibilityTest extends AbstractCassandraTatamiTest {
+
+    @Inject
+    private Keyspace keyspaceOperator;
+
+    @Inject
+    public StatusRepository statusRepository;
+
+    @Inject
+    public UserRepository userRepository;
+
+    private EntityManagerImpl em;
+
+    @Before
+    public void initEntityManager() {
+        em = new EntityManagerImpl(keyspaceOperator, "fr.ippon.tatami.domain");
+    }
+
+    @Test
+    public void shouldReadAStatusWrittenByTheObjectMapper() {
+        Status status = new Status();
+        status.setStatusId(TimeUUIDUtils.getUniqueTimeUUIDinMillis().toString());
+        status.setLogin("jdubois@ippon.fr");
+        status.setUsername("jdubois");
+        status.setDomain("ippon.fr");
+        status.setContent("Written by the object mapper");
+        status.setStatusDate(Calendar.getInstance().getTime());
+        status.setReplyTo("");
+        status.setReplyToUsername("");
+        status.setRemoved(false);
+        em.persist(status);
+
+        assertSameStatus(statusRepository.findStatusById(status.getStatusId()), status);
+    }
+
+    @Test
+    public void shouldReadAStatusWithTheObjectMapper() {
+        Status status = statusRepository.createStatus("jdubois@ippon.fr", "jdubois", "ippon.fr", null,
+                "Written by the codec", "", "");
+
+        assertSameStatus(em.find(Status.class, status.getStatusId()), status);
+    }
+
+    @Test
+    public void shouldReadAUserWrittenByTheObjectMapper() {
+        User user = constructAUser("codec-compatibility1@ippon.fr", "Julien", "Dubois");
+        user.setGravatar("gravatar");
+        user.setTheme("bootstrap");
+        em.persist(user);
+
+        assertSameUser(userRepository.findUserByLogin(user.getLogin()), user);
+    }
+
+    @Test
+    public void shouldReadAUserWithTheObjectMapper() {
+        User user = constructAUser("codec-compatibility2@ippon.fr", "Julien", "Dubois");
+        user.setGravatar("gravatar");
+        user.setTheme("bootstrap");
+        userRepository.createUser(user);
+
+        assertSameUser(em.find(User.class, user.getLogin()), user);
+    }
+
+    private void assertSameStatus(Status status, Status expected) {
+        assertThat(status, notNullValue());
+        assertThat(status.getStatusId(), is(expected.getStatusId()));
+        assertThat(status.getLogin(), is(expected.getLogin()));
+        assertThat(status.getUsername(), is(expected.getUsername()));
+        assertThat(status.getDomain(), is(expected.getDomain()));
+        assertThat(status.getContent(), is(expected.getContent()));
+        assertThat(status.getStatusDate(), is(expected.getStatusDate()));
+        assertThat(status.getReplyTo(), is(expected.getReplyTo()));
+        assertThat(status.getReplyToUsername(), is(expected.getReplyToUsername()));
+        assertThat(status.getRemoved(), is(expected.getRemoved()));
+    }
+
+    private void assertSameUser(User user, User expected) {
+        assertThat(user, notNullValue());
+        assertThat(user.getLogin(), is(expected.getLogin()));
+        assertThat(user.getUsername(), is(expected.getUsername()));
+        assertThat(user.getDomain(), is(expected.getDomain()));
+        assertThat(user.getFirstName(), is(expected.getFirstName()));
+        assertThat(user.getLastName(), is(expected.getLastName()));
+        assertThat(user.getJobTitle(), is(expected.getJobTitle()));
+        assertThat(user.getGravatar(), is(expected.getGravatar()));
+        assertThat(user.getTheme(), is(expected.getTheme()));
+    }
+}
@@ -0,0 +1,80 @@
+package fr.ippon.tatami.repository;
+
+import fr.ippon.tatami.AbstractCassandraTatamiTest;
+import fr.ippon.tatami.domain.DomainStatistics;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class DomainRepositoryTest extends AbstractCassandraTatamiTest {
+
+    @Inject
+    public DomainRepository domainRepository;
+
+    @Inject
+    public DomainCounterRepository domainCounterRepository;
+
+    @Inject
+    public GroupRepository groupRepository;
+
+    @Inject
+    public TagCounterRepository tagCounterRepository;
+
+    @Test
+    public void shouldCountUsersOnlyOnce() {
+        String domain = "usercounter.fr";
+        domainRepository.addUserInDomain(domain, "user1@usercounter.fr");
+        domainRepository.addUserInDomain(domain, "user2@usercounter.fr");
+        domainRepository.updateUserInDomain(domain, "user1@usercounter.fr");
+        assertThat(domainCounterRepository.getUserCounter(domain), is(2L));
+
+        domainRepository.deleteUserInDomain(domain, "user1@usercounter.fr");
+        domainRepository.deleteUserInDomain(domain, "user1@usercounter.fr");
+        assertThat(domainCounterRepository.getUserCounter(domain), is(1L));
+    }
+
+    @Test
+    public void shouldSetDomainStatistics() {
+        String domain = "recount.fr";
+        domainCounterRepository.incrementUserCounter(domain);
+        domainCounterRepository.incrementStatusCounter(domain);
+        domainCounterRepository.incrementStatusCounter(domain);
+
+        DomainStatistics statistics = new DomainStatistics();
+        statistics.setName(domain);
+        statistics.setNumberOfUsers(5);
+        statistics.setNumberOfStatuses(1);
+        statistics.setNumberOfGroups(3);
+        statistics.setNumberOfTags(0);
+        domainCounterRepository.setDomainStatistics(statistics);
+
+        DomainStatistics recountedStatistics = domainCounterRepository.getDomainStatistics(domain);
+        assertThat(recountedStatistics.getNumberOfUsers(), is(5L));
+        assertThat(recountedStatistics.getNumberOfStatuses(), is(1L));
+        assertThat(recountedStatistics.getNumberOfGroups(), is(3L));
+        assertThat(recountedStatistics.getNumberOfTags(), is(0L));
+    }
+
+    @Test
+    public void shouldCountGroupsAndDistinctTags() {
+        String domain = "tagcounter.fr";
+        groupRepository.createGroup(domain);
+        groupRepository.createGroup(domain);
+        assertThat(groupRepository.countGroups(domain), is(2));
+
+        tagCounterRepository.incrementTagCounter(domain, "java");
+        tagCounterRepository.incrementTagCounter(domain, "java");
+        tagCounterRepository.incrementTagCounter(domain, "cassandra");
+        tagCounterRepository.incrementTagCounter(domain, "unused");
+        tagCounterRepository.decrementTagCounter(domain, "unused");
+
+        Map<String, Long> tagsByDomain = tagCounterRepository.countTagsByDomain();
+        assertThat(tagsByDomain.get(domain), is(2L));
+        assertThat(tagsByDomain.get("notagcounter.fr"), nullValue());
+    }
+}
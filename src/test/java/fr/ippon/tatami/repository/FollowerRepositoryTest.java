@@ -0,0 +1,47 @@
+package fr.ippon.tatami.repository;
+
+import fr.ippon.tatami.AbstractCassandraTatamiTest;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class FollowerRepositoryTest extends AbstractCassandraTatamiTest {
+
+    @Inject
+    public FollowerRepository followerRepository;
+
+    @Test
+    public void shouldFindFollowersInSlices() {
+        String login = "userWithManyFollowers@ippon.fr";
+        for (int i = 0; i < 1234; i++) {
+            followerRepository.addFollower(login, "follower" + i + "@ippon.fr");
+        }
+
+        Set<String> followers = new HashSet<String>();
+        int numberOfSlices = 0;
+        for (List<String> followersSlice : followerRepository.findFollowersForUserInSlices(login)) {
+            assertThat(followersSlice.size(), lessThanOrEqualTo(500));
+            followers.addAll(followersSlice);
+            numberOfSlices++;
+        }
+        assertThat(numberOfSlices, is(3));
+        assertThat(followers.size(), is(1234));
+        assertThat(followerRepository.findFollowersForUser(login).size(), is(1234));
+    }
+
+    @Test
+    public void shouldFindNoFollowersInSlices() {
+        int numberOfSlices = 0;
+        for (List<String> followersSlice : followerRepository.findFollowersForUserInSlices("userWithNoFollowers@ippon.fr")) {
+            numberOfSlices++;
+        }
+        assertThat(numberOfSlices, is(0));
+    }
+}
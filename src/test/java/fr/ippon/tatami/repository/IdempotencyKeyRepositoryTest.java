@@ -0,0 +1,49 @@
+package fr.ippon.tatami.repository;
+
+import fr.ippon.tatami.AbstractCassandraTatamiTest;
+import org.junit.Test;
+
+import javax.inject.Inject;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class IdempotencyKeyRepositoryTest extends AbstractCassandraTatamiTest {
+
+    @Inject
+    public IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Test
+    public void shouldReserveKeyOnlyOnce() {
+        String login = "userWhoReservesKey@ippon.fr";
+        assertThat(idempotencyKeyRepository.reserveIdempotencyKey(login, "key", "first"), is(true));
+        assertThat(idempotencyKeyRepository.reserveIdempotencyKey(login, "key", "second"), is(false));
+        assertThat(idempotencyKeyRepository.findStatusIdByIdempotencyKey(login, "key"), nullValue());
+
+        idempotencyKeyRepository.addIdempotencyKey(login, "key", "first", "statusId");
+        assertThat(idempotencyKeyRepository.findStatusIdByIdempotencyKey(login, "key"), is("statusId"));
+        assertThat(idempotencyKeyRepository.reserveIdempotencyKey(login, "key", "third"), is(false));
+        assertThat(idempotencyKeyRepository.findStatusIdByIdempotencyKey(login, "key"), is("statusId"));
+    }
+
+    @Test
+    public void shouldReleaseReservation() {
+        String login = "userWhoReleasesKey@ippon.fr";
+        assertThat(idempotencyKeyRepository.reserveIdempotencyKey(login, "key", "first"), is(true));
+        idempotencyKeyRepository.removeIdempotencyKey(login, "key", "first");
+
+        assertThat(idempotencyKeyRepository.reserveIdempotencyKey(login, "key", "second"), is(true));
+        assertThat(idempotencyKeyRepository.findStatusIdByIdempotencyKey(login, "key"), nullValue());
+    }
+
+    @Test
+    public void shouldNotMixKeysStartingWithTheSameCharacters() {
+        String login = "userWhoReservesSimilarKeys@ippon.fr";
+        assertThat(idempotencyKeyRepository.reserveIdempotencyKey(login, "key/other", "first"), is(true));
+        idempotencyKeyRepository.addIdempotencyKey(login, "key/other", "first", "statusId");
+
+        assertThat(idempotencyKeyRepository.reserveIdempotencyKey(login, "key", "second"), is(true));
+        assertThat(idempotencyKeyRepository.findStatusIdByIdempotencyKey(login, "key"), nullValue());
+    }
+}
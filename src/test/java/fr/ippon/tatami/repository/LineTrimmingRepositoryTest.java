@@ -0,0 +1,83 @@
+package fr.ippon.tatami.repository;
+
+import fr.ippon.tatami.AbstractCassandraTatamiTest;
+import fr.ippon.tatami.domain.LineStatistics;
+import fr.ippon.tatami.domain.SharedStatusInfo;
+import fr.ippon.tatami.domain.Status;
+import me.prettyprint.cassandra.utils.TimeUUIDUtils;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.MENTIONLINE_CF;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class LineTrimmingRepositoryTest extends AbstractCassandraTatamiTest {
+
+    @Inject
+    public MentionlineRepository mentionlineRepository;
+
+    @Inject
+    public LineTrimmingRepository lineTrimmingRepository;
+
+    @Test
+    public void shouldTrimMentionline() {
+        String login = "userWithManyMentions@ippon.fr";
+        List<String> statusIds = new ArrayList<String>();
+        for (int i = 0; i < 25; i++) {
+            Status status = new Status();
+            status.setStatusId(TimeUUIDUtils.getUniqueTimeUUIDinMillis().toString());
+            mentionlineRepository.addStatusToMentionline(login, status);
+            statusIds.add(status.getStatusId());
+        }
+
+        lineTrimmingRepository.trimLines();
+
+        Map<String, SharedStatusInfo> mentionline = mentionlineRepository.getMentionline(login, 100, null, null);
+        assertThat(mentionline.size(), is(10));
+        for (String statusId : statusIds.subList(15, 25)) {
+            assertTrue(mentionline.containsKey(statusId));
+        }
+
+        for (LineStatistics lineStatistics : lineTrimmingRepository.getLineStatistics()) {
+            if (lineStatistics.getColumnFamily().equals(MENTIONLINE_CF)) {
+                assertThat(lineStatistics.getDeletedColumns() >= 15, is(true));
+                assertThat(lineStatistics.getPendingRows(), is(0L));
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotTrimShortMentionline() {
+        String login = "userWithFewMentions@ippon.fr";
+        for (int i = 0; i < 11; i++) {
+            Status status = new Status();
+            status.setStatusId(TimeUUIDUtils.getUniqueTimeUUIDinMillis().toString());
+            mentionlineRepository.addStatusToMentionline(login, status);
+        }
+
+        lineTrimmingRepository.trimLines();
+
+        // Rows are only trimmed once they are 10% longer than their maximum length
+        assertThat(mentionlineRepository.getMentionline(login, 100, null, null).size(), is(11));
+    }
+
+    @Test
+    public void shouldTrimAllMentionlines() {
+        String login = "userWithManyOldMentions@ippon.fr";
+        for (int i = 0; i < 30; i++) {
+            Status status = new Status();
+            status.setStatusId(TimeUUIDUtils.getUniqueTimeUUIDinMillis().toString());
+            mentionlineRepository.addStatusToMentionline(login, status);
+        }
+
+        lineTrimmingRepository.trimAllLines();
+
+        assertThat(mentionlineRepository.getMentionline(login, 100, null, null).size(), is(10));
+    }
+}
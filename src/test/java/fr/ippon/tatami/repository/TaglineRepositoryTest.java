@@ -0,0 +1,55 @@
+package fr.ippon.tatami.repository;
+
+import fr.ippon.tatami.AbstractCassandraTatamiTest;
+import fr.ippon.tatami.domain.SharedStatusInfo;
+import fr.ippon.tatami.domain.Status;
+import me.prettyprint.cassandra.utils.TimeUUIDUtils;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TaglineRepositoryTest extends AbstractCassandraTatamiTest {
+
+    @Inject
+    public TaglineRepository taglineRepository;
+
+    @Test
+    public void shouldGetTaglineOverSeveralBuckets() {
+        // 3 statuses per month, from January to April 2012
+        List<String> statusIds = new ArrayList<String>();
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        for (int month = Calendar.JANUARY; month <= Calendar.APRIL; month++) {
+            for (int day = 1; day <= 3; day++) {
+                calendar.set(2012, month, day);
+                Status status = new Status();
+                status.setDomain("bucket.com");
+                status.setStatusId(TimeUUIDUtils.getTimeUUID(calendar.getTimeInMillis()).toString());
+                taglineRepository.addStatusToTagline(status, "buckets");
+                statusIds.add(0, status.getStatusId()); // newest first
+            }
+        }
+
+        Map<String, SharedStatusInfo> firstPage = taglineRepository.getTagline("bucket.com", "buckets", 5, null, null);
+        assertThat(new ArrayList<String>(firstPage.keySet()), is(statusIds.subList(0, 5)));
+
+        String maxId = statusIds.get(4);
+        Map<String, SharedStatusInfo> secondPage = taglineRepository.getTagline("bucket.com", "buckets", 5, null, maxId);
+        assertThat(new ArrayList<String>(secondPage.keySet()), is(statusIds.subList(5, 10)));
+
+        String sinceId = statusIds.get(7);
+        Map<String, SharedStatusInfo> newerStatuses = taglineRepository.getTagline("bucket.com", "buckets", 20, sinceId, null);
+        assertThat(new ArrayList<String>(newerStatuses.keySet()), is(statusIds.subList(0, 7)));
+
+        Map<String, SharedStatusInfo> wholeLine = taglineRepository.getTagline("bucket.com", "buckets", 20, null, null);
+        assertThat(wholeLine.size(), is(12));
+    }
+}
@@ -0,0 +1,53 @@
+package fr.ippon.tatami.repository.cassandra;
+
+import fr.ippon.tatami.AbstractCassandraTatamiTest;
+import fr.ippon.tatami.repository.RegistrationRepository;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.mutation.Mutator;
+import org.junit.Test;
+
+import javax.inject.Inject;
+
+import static fr.ippon.tatami.config.ColumnFamilyKeys.REGISTRATION_CF;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class CassandraRegistrationRepositoryTest extends AbstractCassandraTatamiTest {
+
+    @Inject
+    private RegistrationRepository registrationRepository;
+
+    @Inject
+    private Keyspace keyspaceOperator;
+
+    @Test
+    public void shouldFindLoginByRegistrationKey() {
+        String key = registrationRepository.generateRegistrationKey("registration@ippon.fr");
+
+        assertThat(registrationRepository.getLoginByRegistrationKey(key), is("registration@ippon.fr"));
+        assertThat(registrationRepository.getLoginByRegistrationKey("unknownKey"), is(nullValue()));
+        assertThat(registrationRepository.getLoginByRegistrationKey("registration_key"), is(nullValue()));
+    }
+
+    @Test
+    public void shouldMigrateLegacyRegistrationKeys() {
+        Mutator<String> mutator = HFactory.createMutator(keyspaceOperator, StringSerializer.get());
+        mutator.insert("registration_key", REGISTRATION_CF, HFactory.createColumn("legacyKey",
+                "legacy@ippon.fr", 60 * 60, StringSerializer.get(), StringSerializer.get()));
+
+        assertThat(registrationRepository.getLoginByRegistrationKey("legacyKey"), is("legacy@ippon.fr"));
+
+        assertThat(registrationRepository.migrateToKeyRows(), is(1));
+
+        assertThat(registrationRepository.getLoginByRegistrationKey("legacyKey"), is("legacy@ippon.fr"));
+        assertThat(HFactory.createStringColumnQuery(keyspaceOperator)
+                .setColumnFamily(REGISTRATION_CF)
+                .setKey("registration_key")
+                .setName("legacyKey")
+                .execute()
+                .get(), is(nullValue()));
+    }
+}
@@ -0,0 +1,107 @@
+package fr.ippon.tatami.repository.cassandra;
+
+import me.prettyprint.cassandra.utils.TimeUUIDUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class TimeUUIDGeneratorTest {
+
+    private static final int THREADS = 8;
+
+    private static final int UUIDS_PER_THREAD = 10000;
+
+    @Test
+    public void shouldGenerateTimeBasedUUIDs() {
+        long before = System.currentTimeMillis();
+        UUID uuid = TimeUUIDGenerator.getUniqueTimeUUID();
+
+        assertThat(uuid.version(), is(1));
+        assertThat(uuid.variant(), is(2));
+        assertThat(TimeUUIDUtils.getTimeFromUUID(uuid), greaterThanOrEqualTo(before));
+    }
+
+    @Test
+    public void shouldGenerateIncreasingUUIDs() {
+        long previous = TimeUUIDGenerator.getUniqueTimeUUID().timestamp();
+        for (int i = 0; i < UUIDS_PER_THREAD; i++) {
+            long timestamp = TimeUUIDGenerator.getUniqueTimeUUID().timestamp();
+            assertThat(timestamp, greaterThan(previous));
+            previous = timestamp;
+        }
+    }
+
+    @Test
+    public void shouldGenerateUniqueUUIDsConcurrently() throws Exception {
+        final Set<UUID> uuids = Collections.newSetFromMap(new ConcurrentHashMap<UUID, Boolean>());
+        final CountDownLatch latch = new CountDownLatch(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < UUIDS_PER_THREAD; j++) {
+                        uuids.add(TimeUUIDGenerator.getUniqueTimeUUID());
+                    }
+                    latch.countDown();
+                }
+            }.start();
+        }
+        latch.await();
+
+        assertThat(uuids.size(), is(THREADS * UUIDS_PER_THREAD));
+    }
+
+    @Test
+    public void shouldIgnoreAnInvalidNodeId() throws Exception {
+        System.setProperty("tatami.node.id", "not-a-node-id");
+        try {
+            // The node id is read when the class is initialized : the class is loaded again
+            Class<?> generatorClass = new ReloadingClassLoader(TimeUUIDGenerator.class).loadClass(
+                    TimeUUIDGenerator.class.getName());
+            Method getUniqueTimeUUID = generatorClass.getMethod("getUniqueTimeUUID");
+            UUID uuid = (UUID) getUniqueTimeUUID.invoke(null);
+
+            assertThat(uuid.version(), is(1));
+        } finally {
+            System.clearProperty("tatami.node.id");
+        }
+    }
+
+    /**
+     * Loads a new copy of a class, and delegates the other classes to its class loader.
+     */
+    private static class ReloadingClassLoader extends ClassLoader {
+
+        private final String className;
+
+        ReloadingClassLoader(Class<?> reloadedClass) {
+            super(reloadedClass.getClassLoader());
+            this.className = reloadedClass.getName();
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(className)) {
+                return super.loadClass(name, resolve);
+            }
+            try {
+                InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+                byte[] bytes = IOUtils.toByteArray(in);
+                in.close();
+                return defineClass(name, bytes, 0, bytes.length);
+            } catch (Exception e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+    }
+}
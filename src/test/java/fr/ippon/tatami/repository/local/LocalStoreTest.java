@@ -0,0 +1,108 @@
+package fr.ippon.tatami.repository.local;
+
+import fr.ippon.tatami.repository.cassandra.TimeUUIDGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class LocalStoreTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    private File directory;
+
+    private LocalStore localStore;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = new File("target/local-test-" + System.nanoTime());
+        localStore = new LocalStore(directory, SEGMENT_SIZE);
+        localStore.open();
+    }
+
+    @After
+    public void tearDown() {
+        localStore.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void shouldReadWrittenColumns() {
+        localStore.put("Test", "key", "name", "value");
+        localStore.increment("Counter", "key", "count", 2);
+        localStore.increment("Counter", "key", "count", 3);
+
+        assertThat(localStore.getValue("Test", "key", "name"), is("value"));
+        assertThat(localStore.getValue("Test", "key", "unknown"), is(nullValue()));
+        assertThat(localStore.getCounter("Counter", "key", "count"), is(5L));
+
+        localStore.deleteColumn("Test", "key", "name");
+        assertThat(localStore.getValue("Test", "key", "name"), is(nullValue()));
+    }
+
+    @Test
+    public void shouldSortTimeUUIDsByTime() {
+        UUID first = TimeUUIDGenerator.getUniqueTimeUUID();
+        UUID second = TimeUUIDGenerator.getUniqueTimeUUID();
+        UUID third = TimeUUIDGenerator.getUniqueTimeUUID();
+        localStore.put("Line", "key", third, "3");
+        localStore.put("Line", "key", first, "1");
+        localStore.put("Line", "key", second, "2");
+
+        Map<UUID, String> slice = localStore.getSlice("Line", "key", null, null, true, 2);
+        assertThat(new ArrayList<String>(slice.values()), equalTo(Arrays.asList("3", "2")));
+
+        slice = localStore.getSlice("Line", "key", second, null, false, 10);
+        assertThat(new ArrayList<String>(slice.values()), equalTo(Arrays.asList("2", "3")));
+    }
+
+    @Test
+    public void shouldReplaySegmentsWhenReopened() throws Exception {
+        for (int i = 0; i < 2000; i++) {
+            localStore.put("Test", "key" + (i % 10), "name" + i, "value" + i);
+        }
+        localStore.deleteRow("Test", "key0");
+        localStore.close();
+
+        localStore = new LocalStore(directory, SEGMENT_SIZE);
+        localStore.open();
+
+        assertThat(localStore.getValue("Test", "key1", "name1"), is("value1"));
+        assertThat(localStore.getValue("Test", "key9", "name1999"), is("value1999"));
+        assertThat(localStore.getColumnCount("Test", "key0"), is(0));
+        assertThat(localStore.getColumnCount("Test", "key5"), is(200));
+    }
+
+    @Test
+    public void shouldKeepLiveColumnsWhenCompacted() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            localStore.put("Test", "key", "name", "value" + i);
+        }
+        localStore.put("Test", "expired", "name", "value", 1);
+        Thread.sleep(1100);
+        localStore.compact();
+        localStore.close();
+
+        localStore = new LocalStore(directory, SEGMENT_SIZE);
+        localStore.open();
+
+        assertThat(localStore.getValue("Test", "key", "name"), is("value999"));
+        assertThat(localStore.getValue("Test", "expired", "name"), is(nullValue()));
+        assertThat(localStore.getKeys("Test", null, 10), equalTo(Arrays.asList("key")));
+    }
+}
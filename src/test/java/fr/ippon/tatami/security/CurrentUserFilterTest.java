@@ -0,0 +1,78 @@
+package fr.ippon.tatami.security;
+
+import fr.ippon.tatami.domain.User;
+import fr.ippon.tatami.repository.UserRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.util.ArrayList;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class CurrentUserFilterTest {
+
+    private UserRepository userRepository;
+
+    private AuthenticationService authenticationService;
+
+    private User user;
+
+    @Before
+    public void setUp() {
+        user = new User();
+        user.setLogin("jdubois@ippon.fr");
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findUserByLogin("jdubois@ippon.fr")).thenReturn(user);
+        authenticationService = new AuthenticationService();
+        ReflectionTestUtils.setField(authenticationService, "userRepository", userRepository);
+
+        org.springframework.security.core.userdetails.User springSecurityUser =
+                new org.springframework.security.core.userdetails.User("jdubois@ippon.fr", "password",
+                        new ArrayList<GrantedAuthority>());
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(springSecurityUser, "password"));
+    }
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void shouldLoadCurrentUserOncePerRequest() throws Exception {
+        FilterChain chain = new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                assertThat(authenticationService.getCurrentUser(), sameInstance(user));
+                assertThat(authenticationService.getCurrentUser(), sameInstance(user));
+                assertThat(authenticationService.getCurrentDomain(), is("ippon.fr"));
+            }
+        };
+
+        new CurrentUserFilter().doFilter(mock(ServletRequest.class), mock(ServletResponse.class), chain);
+
+        verify(userRepository, times(1)).findUserByLogin("jdubois@ippon.fr");
+        assertThat(CurrentUserContext.get(), nullValue());
+    }
+
+    @Test
+    public void shouldLoadCurrentUserEachTimeOutsideOfARequest() {
+        authenticationService.getCurrentUser();
+        authenticationService.getCurrentUser();
+
+        verify(userRepository, times(2)).findUserByLogin("jdubois@ippon.fr");
+    }
+}
@@ -0,0 +1,60 @@
+package fr.ippon.tatami.service;
+
+import fr.ippon.tatami.AbstractCassandraTatamiTest;
+import fr.ippon.tatami.domain.User;
+import fr.ippon.tatami.security.AuthenticationService;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.inject.Inject;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CacheWarmUpServiceTest extends AbstractCassandraTatamiTest {
+
+    @Inject
+    public UserService userService;
+
+    @Inject
+    public StatusUpdateService statusUpdateService;
+
+    @Inject
+    public CacheWarmUpService cacheWarmUpService;
+
+    @Inject
+    public AuthenticationService authenticationService;
+
+    @After
+    public void restoreAuthenticationService() {
+        statusUpdateService.setAuthenticationService(authenticationService);
+    }
+
+    @Test
+    public void shouldBeReadyWhenWarmUpIsDisabled() {
+        assertThat(cacheWarmUpService.isReady(), is(true));
+    }
+
+    @Test
+    public void shouldWarmUpActiveUsers() throws Exception {
+        User user = new User();
+        user.setLogin("userToWarmUp@warmup.fr");
+        userService.createUser(user);
+
+        User authenticateUser = constructAUser("userToWarmUp@warmup.fr");
+        AuthenticationService mockAuthenticationService = mock(AuthenticationService.class);
+        when(mockAuthenticationService.getCurrentUser()).thenReturn(authenticateUser);
+        when(mockAuthenticationService.getCurrentDomain()).thenReturn(authenticateUser.getDomain());
+        statusUpdateService.setAuthenticationService(mockAuthenticationService);
+        statusUpdateService.postStatus("Status to warm up");
+
+        cacheWarmUpService.warmUp();
+
+        /* verify */
+        assertThat(cacheWarmUpService.getWarmedUsers(), greaterThanOrEqualTo(1));
+        assertThat(cacheWarmUpService.getWarmedStatuses(), greaterThanOrEqualTo(1));
+    }
+}
@@ -2,10 +2,14 @@ package fr.ippon.tatami.service;
 
 import fr.ippon.tatami.AbstractCassandraTatamiTest;
 import fr.ippon.tatami.domain.User;
+import fr.ippon.tatami.repository.FollowerRepository;
 import fr.ippon.tatami.security.AuthenticationService;
 import org.junit.Test;
 
 import javax.inject.Inject;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
@@ -21,6 +25,9 @@ public class FriendshipServiceTest extends AbstractCassandraTatamiTest {
     @Inject
     public FriendshipService friendshipService;
 
+    @Inject
+    public FollowerRepository followerRepository;
+
     @Test
     public void shouldGetAUserServiceInjected() {
         assertThat(userService, notNullValue());
@@ -124,10 +131,33 @@ public class FriendshipServiceTest extends AbstractCassandraTatamiTest {
         assertThat(userWhoWantToForget.getFriendsCount(), is(0L));
     }
 
+    @Test
+    public void shouldGetFollowersByBatches() {
+        mockAuthentication("userWithFollowers@ippon.fr");
+
+        for (int i = 0; i < 120; i++) {
+            User follower = new User();
+            follower.setLogin("batchFollower" + i + "@ippon.fr");
+            userService.createUser(follower);
+            followerRepository.addFollower("userWithFollowers@ippon.fr", follower.getLogin());
+        }
+
+        Collection<User> followers = friendshipService.getFollowersForUser("userWithFollowers");
+
+        /* verify */
+        Set<String> followerLogins = new HashSet<String>();
+        for (User follower : followers) {
+            followerLogins.add(follower.getLogin());
+        }
+        assertThat(followers.size(), is(120));
+        assertThat(followerLogins.size(), is(120));
+    }
+
     private void mockAuthentication(String login) {
         User authenticateUser = constructAUser(login);
         AuthenticationService mockAuthenticationService = mock(AuthenticationService.class);
         when(mockAuthenticationService.getCurrentUser()).thenReturn(authenticateUser);
+        when(mockAuthenticationService.getCurrentDomain()).thenReturn(authenticateUser.getDomain());
         friendshipService.setAuthenticationService(mockAuthenticationService);
         userService.setAuthenticationService(mockAuthenticationService);
     }
@@ -40,6 +40,7 @@ public class StatsServiceTest extends AbstractCassandraTatamiTest {
         User authenticateUser = constructAUser(login);
         AuthenticationService mockAuthenticationService = mock(AuthenticationService.class);
         when(mockAuthenticationService.getCurrentUser()).thenReturn(authenticateUser);
+        when(mockAuthenticationService.getCurrentDomain()).thenReturn(authenticateUser.getDomain());
         ReflectionTestUtils.setField(statsService, "authenticationService", mockAuthenticationService);
     }
 }
@@ -24,6 +24,9 @@ public class StatusUpdateServiceTest extends AbstractCassandraTatamiTest {
     @Inject
     public StatusUpdateService statusUpdateService;
 
+    @Inject
+    public UserService userService;
+
     @Test
     public void shouldPostStatus() throws Exception {
         String login = "userWhoPostStatus@ippon.fr";
@@ -45,6 +48,26 @@ public class StatusUpdateServiceTest extends AbstractCassandraTatamiTest {
 
     }
 
+    @Test
+    public void shouldPostStatusOnlyOnceWithTheSameIdempotencyKey() throws Exception {
+        User user = new User();
+        user.setLogin("userWhoRetriesStatus@ippon.fr");
+        userService.createUser(user);
+
+        mockAuthenticationOnTimelineServiceWithACurrentUser("userWhoRetriesStatus@ippon.fr");
+        mockAuthenticationOnStatusUpdateServiceWithACurrentUser("userWhoRetriesStatus@ippon.fr");
+        String content = "Retried status";
+
+        Status status = statusUpdateService.postStatus(content, "retry-key");
+        Status retriedStatus = statusUpdateService.postStatus(content, "retry-key");
+
+        /* verify */
+        assertThat(retriedStatus.getStatusId(), is(status.getStatusId()));
+
+        Collection<Status> statusFromUserline = timelineService.getUserline("userWhoRetriesStatus", 10, null, null);
+        assertThatNewTestIsPosted("userWhoRetriesStatus@ippon.fr", content, statusFromUserline);
+    }
+
     private void assertThatNewTestIsPosted(String login, String content, Collection<Status> statuses) {
         assertThat(statuses, notNullValue());
         assertThat(statuses.size(), is(1));
@@ -57,6 +80,7 @@ public class StatusUpdateServiceTest extends AbstractCassandraTatamiTest {
         User authenticateUser = constructAUser(login);
         AuthenticationService mockAuthenticationService = mock(AuthenticationService.class);
         when(mockAuthenticationService.getCurrentUser()).thenReturn(authenticateUser);
+        when(mockAuthenticationService.getCurrentDomain()).thenReturn(authenticateUser.getDomain());
         ReflectionTestUtils.setField(timelineService, "authenticationService", mockAuthenticationService);
     }
 
@@ -64,6 +88,7 @@ public class StatusUpdateServiceTest extends AbstractCassandraTatamiTest {
         User authenticateUser = constructAUser(login);
         AuthenticationService mockAuthenticationService = mock(AuthenticationService.class);
         when(mockAuthenticationService.getCurrentUser()).thenReturn(authenticateUser);
+        when(mockAuthenticationService.getCurrentDomain()).thenReturn(authenticateUser.getDomain());
         ReflectionTestUtils.setField(statusUpdateService, "authenticationService", mockAuthenticationService);
     }
 }
\ No newline at end of file
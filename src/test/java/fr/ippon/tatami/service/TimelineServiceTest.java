@@ -65,6 +65,7 @@ public class TimelineServiceTest extends AbstractCassandraTatamiTest {
         User authenticateUser = constructAUser(login);
         AuthenticationService mockAuthenticationService = mock(AuthenticationService.class);
         when(mockAuthenticationService.getCurrentUser()).thenReturn(authenticateUser);
+        when(mockAuthenticationService.getCurrentDomain()).thenReturn(authenticateUser.getDomain());
         ReflectionTestUtils.setField(timelineService, "authenticationService", mockAuthenticationService);
     }
 
@@ -0,0 +1,132 @@
+package fr.ippon.tatami.service;
+
+import fr.ippon.tatami.AbstractCassandraTatamiTest;
+import fr.ippon.tatami.domain.User;
+import fr.ippon.tatami.domain.UserDeletion;
+import fr.ippon.tatami.repository.UserDeletionRepository;
+import fr.ippon.tatami.security.AuthenticationService;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import java.util.Date;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UserDeletionServiceTest extends AbstractCassandraTatamiTest {
+
+    @Inject
+    public UserService userService;
+
+    @Inject
+    public FriendshipService friendshipService;
+
+    @Inject
+    public UserDeletionService userDeletionService;
+
+    @Inject
+    public UserDeletionRepository userDeletionRepository;
+
+    @Test
+    public void shouldDeleteUser() {
+        createUser("userToDelete@ippon.fr");
+        createUser("followerOfDeletedUser@ippon.fr");
+        createUser("friendOfDeletedUser@ippon.fr");
+
+        mockAuthentication("followerOfDeletedUser@ippon.fr");
+        friendshipService.followUser("userToDelete");
+        mockAuthentication("userToDelete@ippon.fr");
+        friendshipService.followUser("friendOfDeletedUser");
+
+        userDeletionService.startDeletion("userToDelete@ippon.fr");
+        UserDeletion userDeletion = userDeletionRepository.findUserDeletion("userToDelete@ippon.fr");
+        assertThat(userDeletion.getStep(), is(UserDeletion.Step.ACCOUNT));
+
+        userDeletionService.deleteUser("userToDelete@ippon.fr");
+
+        /* verify */
+        assertThat(userService.getUserByLogin("userToDelete@ippon.fr"), nullValue());
+        assertThat(userDeletionRepository.findUserDeletion("userToDelete@ippon.fr"), nullValue());
+
+        User follower = userService.getUserByLogin("followerOfDeletedUser@ippon.fr");
+        assertThat(follower.getFriendsCount(), is(0L));
+        assertThat(friendshipService.getFriendIdsForUser("followerOfDeletedUser@ippon.fr").size(), is(0));
+
+        User friend = userService.getUserByLogin("friendOfDeletedUser@ippon.fr");
+        assertThat(friend.getFollowersCount(), is(0L));
+        assertThat(friendshipService.getFollowerIdsForUser("friendOfDeletedUser@ippon.fr").size(), is(0));
+    }
+
+    @Test
+    public void shouldResumeUserDeletion() {
+        createUser("userToResume@ippon.fr");
+        createUser("followerOfResumedUser@ippon.fr");
+
+        mockAuthentication("followerOfResumedUser@ippon.fr");
+        friendshipService.followUser("userToResume");
+
+        userDeletionService.startDeletion("userToResume@ippon.fr");
+        UserDeletion userDeletion = userDeletionRepository.findUserDeletion("userToResume@ippon.fr");
+        userDeletion.setStep(UserDeletion.Step.FOLLOWERS);
+        userDeletionRepository.saveUserDeletion(userDeletion);
+
+        userDeletionService.resumeDeletions();
+
+        /* verify */
+        assertThat(userDeletionRepository.findUserDeletion("userToResume@ippon.fr"), nullValue());
+        User follower = userService.getUserByLogin("followerOfResumedUser@ippon.fr");
+        assertThat(follower.getFriendsCount(), is(0L));
+    }
+
+    @Test
+    public void shouldClaimStalledUserDeletionOfAnotherNode() {
+        createUser("userToClaim@ippon.fr");
+
+        UserDeletion stalledDeletion = new UserDeletion("userToClaim@ippon.fr", "stoppedNode");
+        stalledDeletion.setProgressDate(new Date(System.currentTimeMillis() - 60 * 60 * 1000));
+        userDeletionRepository.saveUserDeletion(stalledDeletion);
+
+        UserDeletion runningDeletion = new UserDeletion("userStillRunning@ippon.fr", "runningNode");
+        userDeletionRepository.saveUserDeletion(runningDeletion);
+
+        userDeletionService.resumeDeletions();
+
+        /* verify */
+        assertThat(userDeletionRepository.findUserDeletion("userToClaim@ippon.fr"), nullValue());
+        assertThat(userService.getUserByLogin("userToClaim@ippon.fr"), nullValue());
+        assertThat(userDeletionRepository.findUserDeletion("userStillRunning@ippon.fr").getNode(), is("runningNode"));
+        userDeletionRepository.removeUserDeletion("userStillRunning@ippon.fr");
+    }
+
+    @Test
+    public void shouldGiveStalledUserDeletionToOnlyOneNode() {
+        UserDeletion stalledDeletion = new UserDeletion("userClaimedTwice@ippon.fr", "stoppedNode");
+        stalledDeletion.setProgressDate(new Date(System.currentTimeMillis() - 60 * 60 * 1000));
+        userDeletionRepository.saveUserDeletion(stalledDeletion);
+
+        assertThat(userDeletionRepository.claimUserDeletion("userClaimedTwice@ippon.fr", "firstNode", 60000), is(true));
+        assertThat(userDeletionRepository.claimUserDeletion("userClaimedTwice@ippon.fr", "secondNode", 60000), is(false));
+
+        /* verify */
+        assertThat(userDeletionRepository.findUserDeletion("userClaimedTwice@ippon.fr").getNode(), is("firstNode"));
+        userDeletionRepository.removeUserDeletion("userClaimedTwice@ippon.fr");
+    }
+
+    private void createUser(String login) {
+        User user = new User();
+        user.setLogin(login);
+        userService.createUser(user);
+    }
+
+    private void mockAuthentication(String login) {
+        User authenticateUser = constructAUser(login);
+        AuthenticationService mockAuthenticationService = mock(AuthenticationService.class);
+        when(mockAuthenticationService.getCurrentUser()).thenReturn(authenticateUser);
+        when(mockAuthenticationService.getCurrentDomain()).thenReturn(authenticateUser.getDomain());
+        friendshipService.setAuthenticationService(mockAuthenticationService);
+        userService.setAuthenticationService(mockAuthenticationService);
+    }
+}
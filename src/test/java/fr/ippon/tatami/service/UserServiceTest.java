@@ -6,6 +6,7 @@ import fr.ippon.tatami.security.AuthenticationService;
 import org.junit.Test;
 
 import javax.inject.Inject;
+import java.util.List;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertNotNull;
@@ -115,10 +116,34 @@ public class UserServiceTest extends AbstractCassandraTatamiTest {
         assertThat(userToBeTheSame.getFriendsCount(), is(0L));
     }
 
+    @Test
+    public void shouldGetUsersForCurrentDomainPageByPage() {
+        mockAuthenticationOnUserService("currentuser@paging.com");
+        for (String username : new String[]{"auser", "buser", "cuser"}) {
+            User user = new User();
+            user.setLogin(username + "@paging.com");
+            userService.createUser(user);
+        }
+
+        List<User> firstPage = userService.getUsersForCurrentDomain(null, 2);
+        assertThat(firstPage.size(), is(2));
+        assertThat(firstPage.get(0).getLogin(), is("auser@paging.com"));
+        assertThat(firstPage.get(1).getLogin(), is("buser@paging.com"));
+
+        List<User> secondPage = userService.getUsersForCurrentDomain("buser@paging.com", 2);
+        assertThat(secondPage.size(), is(2));
+        assertThat(secondPage.get(1).getLogin(), is("cuser@paging.com"));
+
+        assertThat(userService.getPreviousPageStartLoginForCurrentDomain("cuser@paging.com", 1), is("buser@paging.com"));
+        assertThat(userService.getPreviousPageStartLoginForCurrentDomain("buser@paging.com", 1), is("auser@paging.com"));
+        assertThat(userService.getPreviousPageStartLoginForCurrentDomain("auser@paging.com", 1), nullValue());
+    }
+
     private void mockAuthenticationOnUserService(String login) {
         User authenticateUser = constructAUser(login);
         AuthenticationService mockAuthenticationService = mock(AuthenticationService.class);
         when(mockAuthenticationService.getCurrentUser()).thenReturn(authenticateUser);
+        when(mockAuthenticationService.getCurrentDomain()).thenReturn(authenticateUser.getDomain());
         userService.setAuthenticationService(mockAuthenticationService);
     }
 
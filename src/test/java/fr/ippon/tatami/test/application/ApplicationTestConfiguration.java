@@ -16,6 +16,7 @@ import java.io.IOException;
 @ComponentScan(basePackages = {"fr.ippon.tatami.repository", "fr.ippon.tatami.service", "fr.ippon.tatami.security"})
 @Import(value = {AsyncConfiguration.class,
                     CassandraConfiguration.class,
+                    LocalStorageTestConfiguration.class,
                     SearchConfiguration.class})
 @ImportResource({"classpath:META-INF/spring/applicationContext-security.xml"})
 public class ApplicationTestConfiguration {
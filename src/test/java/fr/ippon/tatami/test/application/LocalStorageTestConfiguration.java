@@ -0,0 +1,67 @@
+package fr.ippon.tatami.test.application;
+
+import fr.ippon.tatami.config.Constants;
+import fr.ippon.tatami.repository.local.LocalStore;
+import me.prettyprint.hector.api.ddl.ComparatorType;
+import org.apache.commons.io.FileUtils;
+import org.cassandraunit.dataset.DataSet;
+import org.cassandraunit.dataset.json.ClassPathJsonDataSet;
+import org.cassandraunit.model.ColumnFamilyModel;
+import org.cassandraunit.model.ColumnModel;
+import org.cassandraunit.model.RowModel;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Local storage of the tests : the store starts empty, and is loaded with the test data set.
+ * <p/>
+ * The local repositories do not store all the rows like the Cassandra repositories (the taglines have no
+ * buckets, the dates are stored as milliseconds...), so they have their own data set.
+ */
+@Configuration
+@Profile(Constants.STORAGE_LOCAL)
+public class LocalStorageTestConfiguration {
+
+    private static final int SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    @Inject
+    private Environment env;
+
+    @Bean(destroyMethod = "close")
+    public LocalStore localStore() throws IOException {
+        File directory = new File(env.getRequiredProperty("local.path"));
+        FileUtils.deleteDirectory(directory);
+        LocalStore localStore = new LocalStore(directory, SEGMENT_SIZE);
+        localStore.open();
+        load(localStore, new ClassPathJsonDataSet("dataset/local-dataset.json"));
+        return localStore;
+    }
+
+    private void load(LocalStore localStore, DataSet dataSet) {
+        for (ColumnFamilyModel columnFamily : dataSet.getColumnFamilies()) {
+            for (RowModel row : columnFamily.getRows()) {
+                for (ColumnModel column : row.getColumns()) {
+                    Object name = getColumnName(columnFamily.getComparatorType(), column.getName().getValue());
+                    localStore.put(columnFamily.getName(), row.getKey().getValue(), name,
+                            column.getValue().getValue());
+                }
+            }
+        }
+    }
+
+    private Object getColumnName(ComparatorType comparatorType, String name) {
+        if (ComparatorType.UUIDTYPE.equals(comparatorType) || ComparatorType.TIMEUUIDTYPE.equals(comparatorType)) {
+            return UUID.fromString(name);
+        } else if (ComparatorType.LONGTYPE.equals(comparatorType)) {
+            return Long.valueOf(name);
+        }
+        return name;
+    }
+}
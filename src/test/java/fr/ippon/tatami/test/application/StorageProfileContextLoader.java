@@ -0,0 +1,26 @@
+package fr.ippon.tatami.test.application;
+
+import fr.ippon.tatami.config.Constants;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+
+/**
+ * Activates the storage profile selected by the "tatami.storage" system property : the same tests are run
+ * with Cassandra (the default), and with the local storage.
+ */
+public class StorageProfileContextLoader extends AnnotationConfigContextLoader {
+
+    public static String getStorage() {
+        return System.getProperty("tatami.storage", Constants.STORAGE_CASSANDRA);
+    }
+
+    public static boolean isCassandraStorage() {
+        return Constants.STORAGE_CASSANDRA.equals(getStorage());
+    }
+
+    @Override
+    protected void prepareContext(GenericApplicationContext context) {
+        super.prepareContext(context);
+        context.getEnvironment().setActiveProfiles(getStorage());
+    }
+}